@@ -0,0 +1,160 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.metamodel.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.metamodel.DataContext;
+import org.apache.metamodel.data.DataSet;
+import org.apache.metamodel.data.DataSetHeader;
+import org.apache.metamodel.data.DefaultRow;
+import org.apache.metamodel.data.InMemoryDataSet;
+import org.apache.metamodel.data.Row;
+import org.apache.metamodel.data.SimpleDataSetHeader;
+import org.apache.metamodel.pojo.ArrayTableDataProvider;
+import org.apache.metamodel.pojo.PojoDataContext;
+import org.apache.metamodel.pojo.TableDataProvider;
+import org.apache.metamodel.query.SelectItem;
+import org.apache.metamodel.schema.ColumnType;
+import org.apache.metamodel.schema.Table;
+import org.apache.metamodel.util.SimpleTableDef;
+
+/**
+ * Generates the data that the benchmarks operate on. The data is deterministic for a given size and cardinality, so
+ * that results of different runs are comparable.
+ * 
+ * There are two tables:
+ * <ul>
+ * <li>orders (id, customer_id, category, amount, quantity)</li>
+ * <li>customers (id, name, country)</li>
+ * </ul>
+ * The cardinality determines the number of distinct customers and categories of the orders.
+ */
+final class BenchmarkData {
+
+    public static final String SCHEMA_NAME = "benchmark";
+    public static final String ORDERS = "orders";
+    public static final String CUSTOMERS = "customers";
+
+    private static final long SEED = 1234567890L;
+    private static final String[] COUNTRIES = { "Denmark", "Netherlands", "Germany", "USA", "Brazil", "Japan",
+            "India", "Kenya" };
+
+    private final PojoDataContext _dataContext;
+
+    /**
+     * Creates the benchmark data.
+     * 
+     * @param rows
+     *            the number of orders
+     * @param cardinality
+     *            the number of distinct customers and categories
+     */
+    public BenchmarkData(int rows, int cardinality) {
+        final Random random = new Random(SEED);
+
+        final List<Object[]> orders = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            final int customerId = random.nextInt(cardinality);
+            final String category = "category" + random.nextInt(cardinality);
+            final double amount = random.nextInt(1000000) / 100d;
+            final int quantity = 1 + random.nextInt(100);
+            orders.add(new Object[] { i, customerId, category, amount, quantity });
+        }
+
+        final List<Object[]> customers = new ArrayList<>(cardinality);
+        for (int i = 0; i < cardinality; i++) {
+            customers.add(new Object[] { i, "customer" + i, COUNTRIES[random.nextInt(COUNTRIES.length)] });
+        }
+
+        final SimpleTableDef ordersDef = new SimpleTableDef(ORDERS,
+                new String[] { "id", "customer_id", "category", "amount", "quantity" },
+                new ColumnType[] { ColumnType.INTEGER, ColumnType.INTEGER, ColumnType.VARCHAR, ColumnType.DOUBLE,
+                        ColumnType.INTEGER });
+        final SimpleTableDef customersDef = new SimpleTableDef(CUSTOMERS, new String[] { "id", "name", "country" },
+                new ColumnType[] { ColumnType.INTEGER, ColumnType.VARCHAR, ColumnType.VARCHAR });
+
+        final List<TableDataProvider<?>> tables = new ArrayList<>();
+        tables.add(new ArrayTableDataProvider(ordersDef, orders));
+        tables.add(new ArrayTableDataProvider(customersDef, customers));
+        _dataContext = new PojoDataContext(SCHEMA_NAME, tables);
+    }
+
+    public DataContext getDataContext() {
+        return _dataContext;
+    }
+
+    public Table getTable(String name) {
+        return _dataContext.getDefaultSchema().getTableByName(name);
+    }
+
+    /**
+     * Reads all records of a table into memory, so that they can be replayed by {@link #createDataSet(List)} without
+     * measuring the cost of reading them.
+     * 
+     * @param tableName
+     *            the name of the table
+     * @return the rows of the table
+     */
+    public List<Row> readRows(String tableName) {
+        final Table table = getTable(tableName);
+        final List<SelectItem> selectItems = new ArrayList<>();
+        table.getColumns().forEach(column -> selectItems.add(new SelectItem(column)));
+        final DataSetHeader header = new SimpleDataSetHeader(selectItems);
+
+        final List<Row> rows = new ArrayList<>();
+        try (DataSet dataSet = _dataContext.query().from(table).selectAll().execute()) {
+            while (dataSet.next()) {
+                rows.add(new DefaultRow(header, dataSet.getRow().getValues()));
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Creates a new {@link DataSet} over rows read by {@link #readRows(String)}.
+     * 
+     * @param rows
+     *            the rows of the {@link DataSet}
+     * @return a new {@link DataSet}
+     */
+    public static InMemoryDataSet createDataSet(List<Row> rows) {
+        return new InMemoryDataSet(rows);
+    }
+
+    /**
+     * Gets the {@link SelectItem} of a column in rows read by {@link #readRows(String)}.
+     * 
+     * @param rows
+     *            the rows
+     * @param columnName
+     *            the name of the column
+     * @return the select item of the column
+     */
+    public static SelectItem getSelectItem(List<Row> rows, String columnName) {
+        for (SelectItem selectItem : rows.get(0).getSelectItems()) {
+            if (selectItem.getColumn().getName().equals(columnName)) {
+                return selectItem;
+            }
+        }
+        throw new IllegalArgumentException("No such column: " + columnName);
+    }
+}
@@ -0,0 +1,135 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.metamodel.benchmarks;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.metamodel.MetaModelException;
+import org.apache.metamodel.data.AbstractDataSet;
+import org.apache.metamodel.data.DefaultRow;
+import org.apache.metamodel.data.Row;
+import org.apache.metamodel.data.RowPublisher;
+import org.apache.metamodel.data.RowPublisherDataSet;
+import org.apache.metamodel.data.Style;
+import org.apache.metamodel.query.SelectItem;
+import org.apache.metamodel.util.Action;
+import org.apache.metamodel.util.SharedExecutorService;
+
+/**
+ * Baseline for {@link RowPublisherBenchmark}: the hand-off of rows that {@link RowPublisherDataSet} used before its
+ * ring buffer was introduced. Rows are handed over one by one through an {@link ArrayBlockingQueue}, the publisher
+ * retries offering a row every millisecond and the consumer polls with a one second timeout.
+ */
+final class BlockingQueueRowPublisherDataSet extends AbstractDataSet {
+
+    private final Action<RowPublisher> _publishAction;
+    private final BlockingQueue<Row> _queue;
+    private volatile boolean _finished;
+    private volatile Exception _error;
+    private boolean _started;
+    private Row _row;
+
+    public BlockingQueueRowPublisherDataSet(SelectItem[] selectItems, int bufferSize,
+            Action<RowPublisher> publishAction) {
+        super(selectItems);
+        _publishAction = publishAction;
+        _queue = new ArrayBlockingQueue<>(bufferSize);
+    }
+
+    @Override
+    public boolean next() {
+        if (!_started) {
+            _started = true;
+            final RowPublisher publisher = new Publisher();
+            SharedExecutorService.get().submit(() -> {
+                try {
+                    _publishAction.run(publisher);
+                } catch (Exception e) {
+                    _error = e;
+                }
+                _finished = true;
+            });
+        }
+        while (true) {
+            if (_queue.isEmpty() && _finished) {
+                if (_error != null) {
+                    throw new MetaModelException(_error);
+                }
+                _row = null;
+                return false;
+            }
+            try {
+                _row = _queue.poll(1000, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new MetaModelException(e);
+            }
+            if (_row != null) {
+                return true;
+            }
+        }
+    }
+
+    @Override
+    public Row getRow() {
+        return _row;
+    }
+
+    @Override
+    public void close() {
+        super.close();
+        _finished = true;
+        _queue.clear();
+    }
+
+    private final class Publisher implements RowPublisher {
+
+        @Override
+        public boolean publish(Row row) {
+            try {
+                while (!_queue.offer(row, 1000, TimeUnit.MICROSECONDS)) {
+                    if (_finished) {
+                        return false;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+            return !_finished;
+        }
+
+        @Override
+        public boolean publish(Object[] values) {
+            return publish(new DefaultRow(getHeader(), values));
+        }
+
+        @Override
+        public boolean publish(Object[] values, Style[] styles) {
+            return publish(new DefaultRow(getHeader(), values, styles));
+        }
+
+        @Override
+        public void finished() {
+            _finished = true;
+        }
+    }
+}
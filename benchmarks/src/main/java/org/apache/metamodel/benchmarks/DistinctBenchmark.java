@@ -0,0 +1,92 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.metamodel.benchmarks;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.metamodel.MetaModelHelper;
+import org.apache.metamodel.data.DataSet;
+import org.apache.metamodel.data.Row;
+import org.apache.metamodel.query.SelectItem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks of {@link MetaModelHelper#getDistinct(DataSet)}. The cardinality is the number of distinct categories and
+ * customers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DistinctBenchmark {
+
+    @Param({ "10000", "1000000" })
+    public int rows;
+
+    @Param({ "10", "10000" })
+    public int cardinality;
+
+    private List<Row> _orders;
+    private List<SelectItem> _singleColumn;
+    private List<SelectItem> _twoColumns;
+
+    @Setup
+    public void setUp() {
+        final BenchmarkData data = new BenchmarkData(rows, cardinality);
+        _orders = data.readRows(BenchmarkData.ORDERS);
+
+        final SelectItem category = BenchmarkData.getSelectItem(_orders, "category");
+        final SelectItem customerId = BenchmarkData.getSelectItem(_orders, "customer_id");
+        _singleColumn = Arrays.asList(category);
+        _twoColumns = Arrays.asList(customerId, category);
+    }
+
+    @Benchmark
+    public void distinctSingleColumn(Blackhole blackhole) {
+        final DataSet selection = MetaModelHelper.getSelection(_singleColumn, BenchmarkData.createDataSet(_orders));
+        FilterBenchmark.consume(MetaModelHelper.getDistinct(selection), blackhole);
+    }
+
+    @Benchmark
+    public void distinctTwoColumns(Blackhole blackhole) {
+        final DataSet selection = MetaModelHelper.getSelection(_twoColumns, BenchmarkData.createDataSet(_orders));
+        FilterBenchmark.consume(MetaModelHelper.getDistinct(selection), blackhole);
+    }
+
+    @Benchmark
+    public void distinctSpillingToDisk(Blackhole blackhole) {
+        final DataSet selection = MetaModelHelper.getSelection(_twoColumns, BenchmarkData.createDataSet(_orders));
+        FilterBenchmark.consume(MetaModelHelper.getDistinct(selection, Math.max(1, cardinality / 10)), blackhole);
+    }
+}
@@ -0,0 +1,130 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.metamodel.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.metamodel.MetaModelHelper;
+import org.apache.metamodel.data.DataSet;
+import org.apache.metamodel.data.DataSetBatch;
+import org.apache.metamodel.data.Row;
+import org.apache.metamodel.query.FilterItem;
+import org.apache.metamodel.query.LogicalOperator;
+import org.apache.metamodel.query.OperatorType;
+import org.apache.metamodel.query.SelectItem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks of {@link MetaModelHelper#getFiltered(DataSet, FilterItem...)} with different kinds of filters.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class FilterBenchmark {
+
+    @Param({ "10000", "1000000" })
+    public int rows;
+
+    @Param({ "10", "10000" })
+    public int cardinality;
+
+    private List<Row> _orders;
+    private FilterItem _equalsFilter;
+    private FilterItem _rangeFilter;
+    private FilterItem _likeFilter;
+    private FilterItem _inFilter;
+    private FilterItem _compoundFilter;
+
+    @Setup
+    public void setUp() {
+        final BenchmarkData data = new BenchmarkData(rows, cardinality);
+        _orders = data.readRows(BenchmarkData.ORDERS);
+
+        final SelectItem category = BenchmarkData.getSelectItem(_orders, "category");
+        final SelectItem amount = BenchmarkData.getSelectItem(_orders, "amount");
+        final SelectItem quantity = BenchmarkData.getSelectItem(_orders, "quantity");
+
+        _equalsFilter = new FilterItem(category, OperatorType.EQUALS_TO, "category1");
+        _rangeFilter = new FilterItem(amount, OperatorType.GREATER_THAN, 5000d);
+        _likeFilter = new FilterItem(category, OperatorType.LIKE, "%y1%");
+        _inFilter = new FilterItem(category, OperatorType.IN,
+                new String[] { "category1", "category2", "category3", "category5", "category8" });
+        _compoundFilter = new FilterItem(LogicalOperator.OR, _equalsFilter,
+                new FilterItem(LogicalOperator.AND, _rangeFilter, new FilterItem(quantity, OperatorType.LESS_THAN,
+                        10)));
+    }
+
+    @Benchmark
+    public void equalsFilter(Blackhole blackhole) {
+        consume(MetaModelHelper.getFiltered(BenchmarkData.createDataSet(_orders), _equalsFilter), blackhole);
+    }
+
+    @Benchmark
+    public void rangeFilter(Blackhole blackhole) {
+        consume(MetaModelHelper.getFiltered(BenchmarkData.createDataSet(_orders), _rangeFilter), blackhole);
+    }
+
+    @Benchmark
+    public void likeFilter(Blackhole blackhole) {
+        consume(MetaModelHelper.getFiltered(BenchmarkData.createDataSet(_orders), _likeFilter), blackhole);
+    }
+
+    @Benchmark
+    public void inFilter(Blackhole blackhole) {
+        consume(MetaModelHelper.getFiltered(BenchmarkData.createDataSet(_orders), _inFilter), blackhole);
+    }
+
+    @Benchmark
+    public void compoundFilter(Blackhole blackhole) {
+        consume(MetaModelHelper.getFiltered(BenchmarkData.createDataSet(_orders), _compoundFilter), blackhole);
+    }
+
+    @Benchmark
+    public void rangeFilterInBatches(Blackhole blackhole) {
+        try (DataSet dataSet = MetaModelHelper.getFiltered(BenchmarkData.createDataSet(_orders), _rangeFilter)) {
+            DataSetBatch batch;
+            while ((batch = dataSet.nextBatch(1024)) != null) {
+                blackhole.consume(batch);
+            }
+        }
+    }
+
+    static void consume(DataSet dataSet, Blackhole blackhole) {
+        try (DataSet ds = dataSet) {
+            while (ds.next()) {
+                blackhole.consume(ds.getRow());
+            }
+        }
+    }
+}
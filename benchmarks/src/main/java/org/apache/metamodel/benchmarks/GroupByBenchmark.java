@@ -0,0 +1,110 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.metamodel.benchmarks;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.metamodel.DataContext;
+import org.apache.metamodel.MetaModelHelper;
+import org.apache.metamodel.data.Row;
+import org.apache.metamodel.query.FunctionType;
+import org.apache.metamodel.query.GroupByItem;
+import org.apache.metamodel.query.Query;
+import org.apache.metamodel.query.SelectItem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks of grouping and aggregation, both directly through {@link MetaModelHelper} and as a query on a
+ * {@link DataContext}. The cardinality is the number of groups.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class GroupByBenchmark {
+
+    @Param({ "10000", "1000000" })
+    public int rows;
+
+    @Param({ "10", "10000" })
+    public int cardinality;
+
+    private List<Row> _orders;
+    private List<SelectItem> _groupedSelectItems;
+    private List<GroupByItem> _groupByItems;
+    private List<SelectItem> _aggregateSelectItems;
+    private DataContext _dataContext;
+    private Query _groupedQuery;
+
+    @Setup
+    public void setUp() {
+        final BenchmarkData data = new BenchmarkData(rows, cardinality);
+        _orders = data.readRows(BenchmarkData.ORDERS);
+        _dataContext = data.getDataContext();
+
+        final SelectItem category = BenchmarkData.getSelectItem(_orders, "category");
+        final SelectItem amount = BenchmarkData.getSelectItem(_orders, "amount");
+        final SelectItem quantity = BenchmarkData.getSelectItem(_orders, "quantity");
+
+        _aggregateSelectItems = Arrays.asList(SelectItem.getCountAllItem(),
+                new SelectItem(FunctionType.SUM, amount.getColumn()),
+                new SelectItem(FunctionType.AVG, quantity.getColumn()),
+                new SelectItem(FunctionType.MAX, amount.getColumn()));
+        _groupedSelectItems = Arrays.asList(category, SelectItem.getCountAllItem(),
+                new SelectItem(FunctionType.SUM, amount.getColumn()),
+                new SelectItem(FunctionType.AVG, quantity.getColumn()));
+        _groupByItems = Collections.singletonList(new GroupByItem(category));
+
+        _groupedQuery = _dataContext.query().from(BenchmarkData.ORDERS).select("category").selectCount()
+                .select(FunctionType.SUM, "amount").groupBy("category").toQuery();
+    }
+
+    @Benchmark
+    public void grouped(Blackhole blackhole) {
+        FilterBenchmark.consume(MetaModelHelper.getGrouped(_groupedSelectItems, BenchmarkData.createDataSet(_orders),
+                _groupByItems), blackhole);
+    }
+
+    @Benchmark
+    public void aggregated(Blackhole blackhole) {
+        FilterBenchmark.consume(MetaModelHelper.getAggregated(_aggregateSelectItems, BenchmarkData.createDataSet(
+                _orders)), blackhole);
+    }
+
+    @Benchmark
+    public void groupedQuery(Blackhole blackhole) {
+        FilterBenchmark.consume(_dataContext.executeQuery(_groupedQuery), blackhole);
+    }
+}
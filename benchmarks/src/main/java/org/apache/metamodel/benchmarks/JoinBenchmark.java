@@ -0,0 +1,88 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.metamodel.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.metamodel.MetaModelHelper;
+import org.apache.metamodel.data.DataSet;
+import org.apache.metamodel.data.Row;
+import org.apache.metamodel.query.FilterItem;
+import org.apache.metamodel.query.OperatorType;
+import org.apache.metamodel.query.SelectItem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks of equi-joins between the orders and the customers of the {@link BenchmarkData}. The cardinality is the
+ * number of customers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class JoinBenchmark {
+
+    @Param({ "10000", "1000000" })
+    public int rows;
+
+    @Param({ "10", "10000" })
+    public int cardinality;
+
+    private List<Row> _orders;
+    private List<Row> _customers;
+    private FilterItem _joinCondition;
+
+    @Setup
+    public void setUp() {
+        final BenchmarkData data = new BenchmarkData(rows, cardinality);
+        _orders = data.readRows(BenchmarkData.ORDERS);
+        _customers = data.readRows(BenchmarkData.CUSTOMERS);
+
+        final SelectItem customerId = BenchmarkData.getSelectItem(_orders, "customer_id");
+        final SelectItem id = BenchmarkData.getSelectItem(_customers, "id");
+        _joinCondition = new FilterItem(customerId, OperatorType.EQUALS_TO, id);
+    }
+
+    @Benchmark
+    public void innerJoin(Blackhole blackhole) {
+        final DataSet[] dataSets = { BenchmarkData.createDataSet(_orders),
+                BenchmarkData.createDataSet(_customers) };
+        FilterBenchmark.consume(MetaModelHelper.getCarthesianProduct(dataSets, _joinCondition), blackhole);
+    }
+
+    @Benchmark
+    public void leftJoin(Blackhole blackhole) {
+        FilterBenchmark.consume(MetaModelHelper.getLeftJoin(BenchmarkData.createDataSet(_orders), BenchmarkData
+                .createDataSet(_customers), new FilterItem[] { _joinCondition }), blackhole);
+    }
+}
@@ -0,0 +1,91 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.metamodel.benchmarks;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.metamodel.MetaModelHelper;
+import org.apache.metamodel.data.DataSet;
+import org.apache.metamodel.data.MaxRowsDataSet;
+import org.apache.metamodel.data.Row;
+import org.apache.metamodel.query.OrderByItem;
+import org.apache.metamodel.query.OrderByItem.Direction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks of sorting, in memory, spilled to disk and limited to the top rows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class OrderByBenchmark {
+
+    @Param({ "10000", "1000000" })
+    public int rows;
+
+    @Param({ "10", "10000" })
+    public int cardinality;
+
+    private List<Row> _orders;
+    private List<OrderByItem> _orderByItems;
+
+    @Setup
+    public void setUp() {
+        final BenchmarkData data = new BenchmarkData(rows, cardinality);
+        _orders = data.readRows(BenchmarkData.ORDERS);
+
+        _orderByItems = Arrays.asList(new OrderByItem(BenchmarkData.getSelectItem(_orders, "category")),
+                new OrderByItem(BenchmarkData.getSelectItem(_orders, "amount"), Direction.DESC));
+    }
+
+    @Benchmark
+    public void ordered(Blackhole blackhole) {
+        FilterBenchmark.consume(MetaModelHelper.getOrdered(BenchmarkData.createDataSet(_orders), _orderByItems),
+                blackhole);
+    }
+
+    @Benchmark
+    public void orderedSpillingToDisk(Blackhole blackhole) {
+        // wrap the data set, since in-memory data sets are always sorted in memory
+        final DataSet dataSet = new MaxRowsDataSet(BenchmarkData.createDataSet(_orders), rows);
+        FilterBenchmark.consume(MetaModelHelper.getOrdered(dataSet, _orderByItems, rows / 10), blackhole);
+    }
+
+    @Benchmark
+    public void topN(Blackhole blackhole) {
+        FilterBenchmark.consume(MetaModelHelper.getTopN(BenchmarkData.createDataSet(_orders), _orderByItems, 100),
+                blackhole);
+    }
+}
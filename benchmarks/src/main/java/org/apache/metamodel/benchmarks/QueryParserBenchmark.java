@@ -0,0 +1,84 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.metamodel.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.metamodel.DataContext;
+import org.apache.metamodel.query.Query;
+import org.apache.metamodel.query.parser.QueryParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of {@link QueryParser#parse()} with queries of increasing complexity.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class QueryParserBenchmark {
+
+    @Param({ "simple", "filtered", "joined", "grouped" })
+    public String query;
+
+    private DataContext _dataContext;
+    private String _queryString;
+
+    @Setup
+    public void setUp() {
+        _dataContext = new BenchmarkData(10, 10).getDataContext();
+        switch (query) {
+        case "simple":
+            _queryString = "SELECT id, amount FROM orders";
+            break;
+        case "filtered":
+            _queryString = "SELECT id, category, amount FROM orders WHERE (category LIKE 'category1%' OR amount > 500)"
+                    + " AND quantity < 10 ORDER BY amount DESC";
+            break;
+        case "joined":
+            _queryString = "SELECT o.id, o.amount, c.name, c.country FROM orders o"
+                    + " INNER JOIN customers c ON o.customer_id = c.id WHERE c.country = 'Denmark'";
+            break;
+        case "grouped":
+            _queryString = "SELECT c.country, o.category, COUNT(*), SUM(o.amount), MAX(o.quantity) FROM orders o,"
+                    + " customers c WHERE o.customer_id = c.id GROUP BY c.country, o.category"
+                    + " HAVING COUNT(*) > 10 ORDER BY c.country, o.category";
+            break;
+        default:
+            throw new IllegalArgumentException("Unknown query: " + query);
+        }
+    }
+
+    @Benchmark
+    public Query parse() {
+        return new QueryParser(_dataContext, _queryString).parse();
+    }
+}
@@ -0,0 +1,86 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.metamodel.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.metamodel.data.DataSet;
+import org.apache.metamodel.data.RowPublisher;
+import org.apache.metamodel.data.RowPublisherDataSet;
+import org.apache.metamodel.query.SelectItem;
+import org.apache.metamodel.schema.MutableColumn;
+import org.apache.metamodel.util.Action;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks the hand-off of rows from a publishing thread to the consumer of a {@link RowPublisherDataSet}, as used
+ * by the XLSX and XML SAX readers. Scores are in rows per second.
+ * 
+ * The <code>ring</code> hand-off is the one of {@link RowPublisherDataSet}. The <code>queue</code> hand-off is the
+ * {@link BlockingQueueRowPublisherDataSet} baseline of earlier versions, which had a fixed buffer size of 20.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RowPublisherBenchmark {
+
+    private static final int ROWS = 1000000;
+
+    private static final SelectItem[] SELECT_ITEMS = { new SelectItem(new MutableColumn("id")),
+            new SelectItem(new MutableColumn("name")) };
+
+    @Param({ "queue", "ring" })
+    public String handOff;
+
+    @Param({ "20", "1024" })
+    public int bufferSize;
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void publishAndConsume(Blackhole blackhole) {
+        final Action<RowPublisher> publishAction = publisher -> {
+            for (int i = 0; i < ROWS; i++) {
+                if (!publisher.publish(new Object[] { i, "name" })) {
+                    break;
+                }
+            }
+        };
+        final DataSet dataSet;
+        if ("queue".equals(handOff)) {
+            dataSet = new BlockingQueueRowPublisherDataSet(SELECT_ITEMS, bufferSize, publishAction);
+        } else {
+            dataSet = new RowPublisherDataSet(SELECT_ITEMS, -1, bufferSize, publishAction);
+        }
+        FilterBenchmark.consume(dataSet, blackhole);
+    }
+}
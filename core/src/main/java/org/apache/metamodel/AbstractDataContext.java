@@ -18,11 +18,13 @@
  */
 package org.apache.metamodel;
 
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.apache.metamodel.annotations.InterfaceStability;
 import org.apache.metamodel.data.DataSet;
@@ -48,6 +50,7 @@ public abstract class AbstractDataContext implements DataContext {
     private final ConcurrentMap<String, Schema> _schemaCache = new ConcurrentHashMap<String, Schema>();
     private final Comparator<? super String> _schemaNameComparator = SchemaNameComparator.getInstance();
     private List<String> _schemaNameCache;
+    private final List<QueryExecutionListener> _queryExecutionListeners = new CopyOnWriteArrayList<>();
 
     /**
      * {@inheritDoc}
@@ -60,6 +63,51 @@ public abstract class AbstractDataContext implements DataContext {
         return this;
     }
 
+    /**
+     * Adds a listener which is notified about the execution of queries by this {@link DataContext}.
+     * 
+     * @param listener
+     */
+    public void addQueryExecutionListener(QueryExecutionListener listener) {
+        _queryExecutionListeners.add(listener);
+    }
+
+    /**
+     * Removes a listener which was added using {@link #addQueryExecutionListener(QueryExecutionListener)}.
+     * 
+     * @param listener
+     */
+    public void removeQueryExecutionListener(QueryExecutionListener listener) {
+        _queryExecutionListeners.remove(listener);
+    }
+
+    final List<QueryExecutionListener> getQueryExecutionListeners() {
+        return _queryExecutionListeners;
+    }
+
+    /**
+     * Wraps an {@link InputStream} that is opened to read a resource while executing a query, so that the number of
+     * bytes read is reported to the {@link QueryExecutionListener}s when the stream is closed. Returns the stream
+     * itself when no listeners are registered, or when the current thread is not executing a query. Resources that
+     * are read by a background thread should therefore be opened before handing them to that thread.
+     * 
+     * @param resourceName
+     *            the name of the resource being read
+     * @param inputStream
+     *            the stream of the resource
+     * @return the stream to read from
+     */
+    protected final InputStream trackBytesRead(String resourceName, InputStream inputStream) {
+        if (_queryExecutionListeners.isEmpty()) {
+            return inputStream;
+        }
+        final QueryExecutionTracker tracker = QueryExecutionTracker.current();
+        if (tracker == null) {
+            return inputStream;
+        }
+        return tracker.trackBytesRead(resourceName, inputStream);
+    }
+
     /**
      * Method invoked when schemas have been refreshed using {@link #refreshSchemas()}. Can be overridden to add
      * callback functionality in subclasses.
@@ -32,6 +32,7 @@ import java.util.function.Function;
 import org.apache.metamodel.data.DataSet;
 import org.apache.metamodel.query.FromItem;
 import org.apache.metamodel.query.Query;
+import org.apache.metamodel.query.QueryPlan;
 import org.apache.metamodel.schema.CompositeSchema;
 import org.apache.metamodel.schema.Schema;
 import org.apache.metamodel.schema.Table;
@@ -45,9 +46,24 @@ import org.slf4j.LoggerFactory;
  */
 public class CompositeDataContext extends AbstractDataContext {
 
+    /**
+     * The default number of join keys that are sent to a delegate DataContext
+     * in a single IN filter when executing a semi-join.
+     */
+    public static final int DEFAULT_SEMI_JOIN_BATCH_SIZE = 1000;
+
+    /**
+     * The default maximum number of distinct join keys that a semi-join will
+     * collect from the smaller side of a join. Semi-joins are disabled by
+     * default, see {@link #setSemiJoinMaxKeys(int)}.
+     */
+    public static final int DEFAULT_SEMI_JOIN_MAX_KEYS = 0;
+
     private final static Logger logger = LoggerFactory.getLogger(CompositeDataContext.class);
     private Map<String, CompositeSchema> _compositeSchemas = new HashMap<String, CompositeSchema>();
     private DataContext[] _delegates;
+    private volatile int _semiJoinBatchSize = DEFAULT_SEMI_JOIN_BATCH_SIZE;
+    private volatile int _semiJoinMaxKeys = DEFAULT_SEMI_JOIN_MAX_KEYS;
 
     public CompositeDataContext(DataContext... delegates) {
         if (delegates == null) {
@@ -65,6 +81,32 @@ public class CompositeDataContext extends AbstractDataContext {
 
     @Override
     public DataSet executeQuery(Query query) throws MetaModelException {
+        final DataContext dc = getSingleDataContext(query);
+        if (dc != null) {
+            return dc.executeQuery(query);
+        }
+        // we create a datacontext which can materialize tables from
+        // separate datacontexts.
+        return createQueryDelegate().executeQuery(query);
+    }
+
+    @Override
+    public QueryPlan explain(Query query) throws MetaModelException {
+        final DataContext dc = getSingleDataContext(query);
+        if (dc != null) {
+            return dc.explain(query);
+        }
+        return createQueryDelegate().explain(query);
+    }
+
+    /**
+     * Gets the delegate DataContext of a query, if the query only involves
+     * tables of a single delegate.
+     * 
+     * @return the delegate DataContext, or null if the query involves several
+     *         delegates
+     */
+    private DataContext getSingleDataContext(Query query) {
         // a set of all datacontexts involved
         Set<DataContext> dataContexts = new HashSet<DataContext>();
 
@@ -88,14 +130,69 @@ public class CompositeDataContext extends AbstractDataContext {
         } else if (dataContexts.size() == 1) {
             Iterator<DataContext> it = dataContexts.iterator();
             assert it.hasNext();
-            DataContext dc = it.next();
-            return dc.executeQuery(query);
-        } else {
-            // we create a datacontext which can materialize tables from
-            // separate datacontexts.
-            final Function<Table, DataContext> dataContextRetrievalFunction = table -> getDataContext(table);
-            return new CompositeQueryDelegate(dataContextRetrievalFunction).executeQuery(query);
+            return it.next();
+        }
+        return null;
+    }
+
+    private CompositeQueryDelegate createQueryDelegate() {
+        final Function<Table, DataContext> dataContextRetrievalFunction = table -> getDataContext(table);
+        return new CompositeQueryDelegate(dataContextRetrievalFunction, _semiJoinBatchSize, _semiJoinMaxKeys);
+    }
+
+    /**
+     * Gets the number of join keys that are sent to a delegate DataContext in a
+     * single IN filter when executing a semi-join.
+     * 
+     * @return the semi-join batch size
+     */
+    public int getSemiJoinBatchSize() {
+        return _semiJoinBatchSize;
+    }
+
+    /**
+     * Sets the number of join keys that are sent to a delegate DataContext in a
+     * single IN filter when executing a semi-join. Larger key sets are split
+     * into several delegate queries.
+     * 
+     * @param semiJoinBatchSize
+     *            the semi-join batch size, must be positive
+     */
+    public void setSemiJoinBatchSize(int semiJoinBatchSize) {
+        if (semiJoinBatchSize <= 0) {
+            throw new IllegalArgumentException("Semi-join batch size must be positive, got: " + semiJoinBatchSize);
+        }
+        _semiJoinBatchSize = semiJoinBatchSize;
+    }
+
+    /**
+     * Gets the maximum number of distinct join keys that a semi-join will
+     * collect from the smaller side of a join.
+     * 
+     * @return the maximum number of semi-join keys
+     */
+    public int getSemiJoinMaxKeys() {
+        return _semiJoinMaxKeys;
+    }
+
+    /**
+     * Sets the maximum number of distinct join keys that a semi-join will
+     * collect from the smaller side of a join across two delegate
+     * DataContexts. If the smaller side has more records than this, the tables
+     * are materialized independently. Semi-joins are only used when both join
+     * columns have the same column type and the join keys of the smaller side
+     * are all non-null values of the same type, since the keys are passed to
+     * the delegate of the bigger side as an IN filter. Set to 0 (the default)
+     * to disable semi-joins.
+     * 
+     * @param semiJoinMaxKeys
+     *            the maximum number of semi-join keys, or 0 to disable
+     */
+    public void setSemiJoinMaxKeys(int semiJoinMaxKeys) {
+        if (semiJoinMaxKeys < 0) {
+            throw new IllegalArgumentException("Semi-join max keys cannot be negative, got: " + semiJoinMaxKeys);
         }
+        _semiJoinMaxKeys = semiJoinMaxKeys;
     }
 
     private DataContext getDataContext(Table table) {
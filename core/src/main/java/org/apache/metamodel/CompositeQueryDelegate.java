@@ -18,21 +18,509 @@
  */
 package org.apache.metamodel;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
 import org.apache.metamodel.data.DataSet;
+import org.apache.metamodel.data.EmptyDataSet;
+import org.apache.metamodel.data.InMemoryDataSet;
+import org.apache.metamodel.data.Row;
+import org.apache.metamodel.data.SimpleDataSetHeader;
+import org.apache.metamodel.data.UnionDataSet;
+import org.apache.metamodel.query.FilterItem;
+import org.apache.metamodel.query.FromItem;
+import org.apache.metamodel.query.OperatorType;
 import org.apache.metamodel.query.Query;
+import org.apache.metamodel.query.QueryPlan;
+import org.apache.metamodel.query.QueryPlan.Execution;
+import org.apache.metamodel.query.SelectItem;
 import org.apache.metamodel.schema.Column;
 import org.apache.metamodel.schema.Table;
+import org.apache.metamodel.util.SharedExecutorService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 final class CompositeQueryDelegate extends QueryPostprocessDelegate {
 
+	private static final Logger logger = LoggerFactory
+			.getLogger(CompositeQueryDelegate.class);
+
 	private final Function<Table, DataContext> _dataContextRetrievalFunction;
+	private final int _semiJoinBatchSize;
+	private final int _semiJoinMaxKeys;
 
 	public CompositeQueryDelegate(
 			Function<Table, DataContext> dataContextRetrievalFunction) {
+		this(dataContextRetrievalFunction,
+				CompositeDataContext.DEFAULT_SEMI_JOIN_BATCH_SIZE,
+				CompositeDataContext.DEFAULT_SEMI_JOIN_MAX_KEYS);
+	}
+
+	public CompositeQueryDelegate(
+			Function<Table, DataContext> dataContextRetrievalFunction,
+			int semiJoinBatchSize, int semiJoinMaxKeys) {
 		_dataContextRetrievalFunction = dataContextRetrievalFunction;
+		_semiJoinBatchSize = semiJoinBatchSize;
+		_semiJoinMaxKeys = semiJoinMaxKeys;
+	}
+
+	/**
+	 * Materializes the from items concurrently, since they are typically
+	 * fetched from different datastores.
+	 */
+	@Override
+	protected DataSet[] materializeFromItems(final List<FromItem> fromItems,
+			final List<SelectItem> selectItems,
+			final List<FilterItem> whereItems) {
+		if (fromItems.size() < 2) {
+			return super.materializeFromItems(fromItems, selectItems,
+					whereItems);
+		}
+
+		if (fromItems.size() == 2 && _semiJoinMaxKeys > 0) {
+			final DataSet[] fromDataSets = materializeSemiJoin(fromItems,
+					selectItems, whereItems);
+			if (fromDataSets != null) {
+				return fromDataSets;
+			}
+		}
+
+		// the worker threads report to the tracker of the query, if any
+		final QueryExecutionTracker tracker = QueryExecutionTracker.current();
+		final List<Future<DataSet>> futures = new ArrayList<>();
+		for (final FromItem fromItem : fromItems) {
+			final List<FilterItem> tableWhereItems = getTableWhereItems(
+					fromItems, fromItem, whereItems);
+			futures.add(SharedExecutorService.get().submit(() -> {
+				if (tracker == null) {
+					return materializeFromItem(fromItem, selectItems,
+							tableWhereItems);
+				}
+				final QueryExecutionTracker previousTracker = tracker
+						.activate();
+				try {
+					return materializeFromItem(fromItem, selectItems,
+							tableWhereItems);
+				} finally {
+					QueryExecutionTracker.restore(previousTracker);
+				}
+			}));
+		}
+
+		final DataSet[] fromDataSets = new DataSet[futures.size()];
+		RuntimeException error = null;
+		for (int i = 0; i < fromDataSets.length; i++) {
+			try {
+				fromDataSets[i] = futures.get(i).get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				if (error == null) {
+					error = new MetaModelException(e);
+				}
+			} catch (ExecutionException e) {
+				if (error == null) {
+					error = toRuntimeException(e.getCause());
+				}
+			}
+		}
+		if (error != null) {
+			for (DataSet dataSet : fromDataSets) {
+				if (dataSet != null) {
+					dataSet.close();
+				}
+			}
+			throw error;
+		}
+		return fromDataSets;
+	}
+
+	@Override
+	QueryPlan[] explainFromItems(final List<FromItem> fromItems,
+			final List<SelectItem> selectItems,
+			final List<FilterItem> whereItems) {
+		if (fromItems.size() == 2 && _semiJoinMaxKeys > 0) {
+			final SemiJoin semiJoin = getSemiJoin(fromItems, whereItems);
+			if (semiJoin != null) {
+				final QueryPlan smallPlan = explainFromItem(
+						semiJoin.smallFromItem, selectItems,
+						semiJoin.smallWhereItems);
+				final QueryPlan bigPlan = new QueryPlan("semi-join",
+						Execution.BUFFERING, semiJoin.bigKey.toSql()
+								+ " IN (up to " + semiJoin.smallCount
+								+ " keys of " + semiJoin.smallKey.toSql()
+								+ "), in batches of " + _semiJoinBatchSize, null, explainFromItem(
+								semiJoin.bigFromItem, selectItems,
+								semiJoin.bigWhereItems));
+				if (semiJoin.firstIsSmaller) {
+					return new QueryPlan[] { smallPlan, bigPlan };
+				}
+				return new QueryPlan[] { bigPlan, smallPlan };
+			}
+		}
+		return super.explainFromItems(fromItems, selectItems, whereItems);
+	}
+
+	/**
+	 * Materializes two tables that are equi-joined by a WHERE item as a
+	 * semi-join: The smaller table is materialized first and its distinct join
+	 * keys are then passed on to the delegate of the bigger table as IN
+	 * filters, so that only the matching records of the bigger table are
+	 * fetched.
+	 * 
+	 * @return the materialized data sets, or null if a semi-join is not
+	 *         applicable
+	 */
+	private DataSet[] materializeSemiJoin(final List<FromItem> fromItems,
+			final List<SelectItem> selectItems,
+			final List<FilterItem> whereItems) {
+		final SemiJoin semiJoin = getSemiJoin(fromItems, whereItems);
+		if (semiJoin == null) {
+			return null;
+		}
+
+		final DataSet smallDataSet;
+		final List<Row> smallRows;
+		try (DataSet dataSet = materializeFromItem(semiJoin.smallFromItem,
+				selectItems, semiJoin.smallWhereItems)) {
+			smallRows = dataSet.toRows();
+			smallDataSet = new InMemoryDataSet(
+					new SimpleDataSetHeader(
+							dataSet.getSelectItems()), smallRows);
+		}
+
+		final DataSet bigDataSet = materializeSemiJoinSide(
+				semiJoin.bigFromItem, selectItems, semiJoin.bigWhereItems,
+				semiJoin.bigKey, smallDataSet, semiJoin.smallKey, smallRows);
+
+		if (semiJoin.firstIsSmaller) {
+			return new DataSet[] { smallDataSet, bigDataSet };
+		}
+		return new DataSet[] { bigDataSet, smallDataSet };
+	}
+
+	/**
+	 * Determines if two from items can be materialized as a semi-join, see
+	 * {@link #materializeSemiJoin(List, List, List)}.
+	 * 
+	 * @return the semi-join, or null if a semi-join is not applicable
+	 */
+	private SemiJoin getSemiJoin(final List<FromItem> fromItems,
+			final List<FilterItem> whereItems) {
+		final FromItem fromItem1 = fromItems.get(0);
+		final FromItem fromItem2 = fromItems.get(1);
+		if (fromItem1.getTable() == null || fromItem2.getTable() == null) {
+			return null;
+		}
+
+		SelectItem key1 = null;
+		SelectItem key2 = null;
+		for (FilterItem whereItem : whereItems) {
+			if (isEquiJoinItem(whereItem)) {
+				final SelectItem left = whereItem.getSelectItem();
+				final SelectItem right = (SelectItem) whereItem.getOperand();
+				if (isSelectItemOfTable(left, fromItem1, fromItem1.getTable())
+						&& isSelectItemOfTable(right, fromItem2,
+								fromItem2.getTable())) {
+					key1 = left;
+					key2 = right;
+					break;
+				}
+				if (isSelectItemOfTable(right, fromItem1, fromItem1.getTable())
+						&& isSelectItemOfTable(left, fromItem2,
+								fromItem2.getTable())) {
+					key1 = right;
+					key2 = left;
+					break;
+				}
+			}
+		}
+		if (key1 == null) {
+			return null;
+		}
+		if (key1.getColumn().getType() == null
+				|| key1.getColumn().getType() != key2.getColumn().getType()) {
+			// the IN filter would not match keys the same way as the join
+			return null;
+		}
+
+		final List<FilterItem> whereItems1 = getTableWhereItems(fromItems,
+				fromItem1, whereItems);
+		final List<FilterItem> whereItems2 = getTableWhereItems(fromItems,
+				fromItem2, whereItems);
+		final long count1 = estimateCount(fromItem1.getTable(), whereItems1);
+		final long count2 = estimateCount(fromItem2.getTable(), whereItems2);
+		if (count1 < 0 || count2 < 0) {
+			return null;
+		}
+
+		final boolean firstIsSmaller = count1 <= count2;
+		final long smallCount = firstIsSmaller ? count1 : count2;
+		final long bigCount = firstIsSmaller ? count2 : count1;
+		if (smallCount > _semiJoinMaxKeys || smallCount >= bigCount) {
+			return null;
+		}
+
+		final SemiJoin semiJoin = new SemiJoin();
+		semiJoin.firstIsSmaller = firstIsSmaller;
+		semiJoin.smallCount = smallCount;
+		semiJoin.smallFromItem = firstIsSmaller ? fromItem1 : fromItem2;
+		semiJoin.bigFromItem = firstIsSmaller ? fromItem2 : fromItem1;
+		semiJoin.smallKey = firstIsSmaller ? key1 : key2;
+		semiJoin.bigKey = firstIsSmaller ? key2 : key1;
+		semiJoin.smallWhereItems = firstIsSmaller ? whereItems1 : whereItems2;
+		semiJoin.bigWhereItems = firstIsSmaller ? whereItems2 : whereItems1;
+		return semiJoin;
+	}
+
+	private DataSet materializeSemiJoinSide(final FromItem fromItem,
+			final List<SelectItem> selectItems,
+			final List<FilterItem> whereItems, final SelectItem key,
+			final DataSet keyDataSet, final SelectItem keySelectItem,
+			final List<Row> keyRows) {
+		final int keyIndex = indexOfKey(keyDataSet, keySelectItem);
+		if (keyIndex == -1) {
+			return materializeFromItem(fromItem, selectItems, whereItems);
+		}
+
+		final Set<Object> keys = new LinkedHashSet<>();
+		Class<?> keyClass = null;
+		for (Row row : keyRows) {
+			final Object value = row.getValue(keyIndex);
+			if (value == null || (keyClass != null && keyClass != value.getClass())) {
+				// null keys and keys of mixed types are matched differently by
+				// the join than by an IN filter
+				return materializeFromItem(fromItem, selectItems, whereItems);
+			}
+			keyClass = value.getClass();
+			keys.add(value);
+			if (keys.size() > _semiJoinMaxKeys) {
+				return materializeFromItem(fromItem, selectItems, whereItems);
+			}
+		}
+
+		if (keys.isEmpty()) {
+			return new EmptyDataSet(getSelectItemsToMaterialize(fromItem,
+					selectItems));
+		}
+
+		final Object[] keyArray = keys.toArray();
+		final List<Supplier<DataSet>> dataSetProviders = new ArrayList<>();
+		for (int i = 0; i < keyArray.length; i += _semiJoinBatchSize) {
+			final Object[] chunk = Arrays.copyOfRange(keyArray, i,
+					Math.min(i + _semiJoinBatchSize, keyArray.length));
+			final List<FilterItem> chunkWhereItems = new ArrayList<>(
+					whereItems);
+			chunkWhereItems.add(new FilterItem(key, OperatorType.IN, chunk));
+			dataSetProviders.add(() -> materializeFromItem(fromItem,
+					selectItems, chunkWhereItems));
+		}
+
+		logger.debug("Materializing {} as a semi-join with {} keys in {} batches",
+				fromItem, keyArray.length, dataSetProviders.size());
+
+		final DataSet firstDataSet = dataSetProviders.get(0).get();
+		if (dataSetProviders.size() == 1) {
+			return firstDataSet;
+		}
+		dataSetProviders.set(0, () -> firstDataSet);
+		return UnionDataSet.ofDataSetProviders(
+				new SimpleDataSetHeader(firstDataSet
+						.getSelectItems()), dataSetProviders);
+	}
+
+	private static int indexOfKey(DataSet dataSet, SelectItem key) {
+		final List<SelectItem> selectItems = dataSet.getSelectItems();
+		for (int i = 0; i < selectItems.size(); i++) {
+			final SelectItem selectItem = selectItems.get(i);
+			if (!selectItem.hasFunction()
+					&& selectItem.getColumn() != null
+					&& selectItem.getColumn().equals(key.getColumn())) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private static boolean isEquiJoinItem(FilterItem filterItem) {
+		if (filterItem.getExpression() != null
+				|| filterItem.isCompoundFilter()
+				|| filterItem.getOperator() != OperatorType.EQUALS_TO
+				|| !(filterItem.getOperand() instanceof SelectItem)) {
+			return false;
+		}
+		final SelectItem left = filterItem.getSelectItem();
+		final SelectItem right = (SelectItem) filterItem.getOperand();
+		return left.getColumn() != null && !left.hasFunction()
+				&& right.getColumn() != null && !right.hasFunction();
+	}
+
+	/**
+	 * Asks the delegate of a table for an (approximate) record count.
+	 * 
+	 * @return the record count, or -1 if it could not be determined
+	 */
+	private long estimateCount(Table table, List<FilterItem> whereItems) {
+		final Query q = new Query().selectCount().from(table);
+		q.getSelectClause().getItem(0).setFunctionApproximationAllowed(true);
+		for (FilterItem whereItem : whereItems) {
+			final FilterItem delegateWhereItem = toDelegateFilterItem(whereItem);
+			if (delegateWhereItem != null) {
+				q.where(delegateWhereItem);
+			}
+		}
+		try {
+			final DataContext dc = _dataContextRetrievalFunction.apply(table);
+			final Object count = MetaModelHelper.executeSingleRowQuery(dc, q)
+					.getValue(0);
+			if (count instanceof Number) {
+				return ((Number) count).longValue();
+			}
+		} catch (RuntimeException e) {
+			logger.debug("Could not estimate record count of {}", table, e);
+		}
+		return -1;
+	}
+
+	private static RuntimeException toRuntimeException(Throwable cause) {
+		if (cause instanceof RuntimeException) {
+			return (RuntimeException) cause;
+		}
+		if (cause instanceof Error) {
+			throw (Error) cause;
+		}
+		return new MetaModelException((Exception) cause);
+	}
+
+	/**
+	 * Pushes the WHERE items and paging down into the query of the delegate
+	 * {@link DataContext}, so that the delegate only returns the matching
+	 * records.
+	 */
+	@Override
+	protected DataSet materializeMainSchemaTable(Table table,
+			List<SelectItem> selectItems, List<FilterItem> whereItems,
+			int firstRow, int maxRows) {
+		final Query q = createDelegateQuery(table, selectItems, whereItems,
+				firstRow, maxRows);
+		if (q == null) {
+			return super.materializeMainSchemaTable(table, selectItems,
+					whereItems, firstRow, maxRows);
+		}
+		final DataContext dc = _dataContextRetrievalFunction.apply(table);
+		return MetaModelHelper.getSelection(selectItems, dc.executeQuery(q));
+	}
+
+	/**
+	 * Explains the query that the delegate {@link DataContext} receives, see
+	 * {@link #materializeMainSchemaTable(Table, List, List, int, int)}.
+	 */
+	@Override
+	protected QueryPlan explainMainSchemaTable(Table table,
+			List<SelectItem> selectItems, List<FilterItem> whereItems,
+			int firstRow, int maxRows) {
+		final Query q = createDelegateQuery(table, selectItems, whereItems,
+				firstRow, maxRows);
+		if (q == null) {
+			return super.explainMainSchemaTable(table, selectItems,
+					whereItems, firstRow, maxRows);
+		}
+		final DataContext dc = _dataContextRetrievalFunction.apply(table);
+		final QueryPlan plan = dc.explain(q);
+		Class<?> dataContextClass = dc.getClass();
+		while (dataContextClass.isAnonymousClass()) {
+			dataContextClass = dataContextClass.getSuperclass();
+		}
+		return new QueryPlan("delegate query", Execution.DATASTORE,
+				dataContextClass.getSimpleName(), plan.getEstimatedRowCount(),
+				plan);
+	}
+
+	/**
+	 * Creates the query of the delegate {@link DataContext} of a table.
+	 * 
+	 * @return the query, or null if the select items or WHERE items cannot be
+	 *         delegated
+	 */
+	private static Query createDelegateQuery(Table table,
+			List<SelectItem> selectItems, List<FilterItem> whereItems,
+			int firstRow, int maxRows) {
+		final Set<Column> columns = new LinkedHashSet<>();
+		for (SelectItem selectItem : selectItems) {
+			final Column column = selectItem.getColumn();
+			if (column == null || selectItem.hasFunction()) {
+				return null;
+			}
+			columns.add(column);
+		}
+		final Query q = new Query().select(new ArrayList<>(columns)).from(table);
+		for (FilterItem whereItem : whereItems) {
+			final FilterItem delegateWhereItem = toDelegateFilterItem(whereItem);
+			if (delegateWhereItem == null) {
+				return null;
+			}
+			q.where(delegateWhereItem);
+		}
+		if (firstRow > 1) {
+			q.setFirstRow(firstRow);
+		}
+		if (maxRows >= 0) {
+			q.setMaxRows(maxRows);
+		}
+		return q;
+	}
+
+	/**
+	 * Creates a copy of a {@link FilterItem} which refers to plain columns
+	 * instead of the (possibly aliased) from items of the composite query.
+	 * 
+	 * @return the copy, or null if the filter item cannot be delegated
+	 */
+	private static FilterItem toDelegateFilterItem(FilterItem filterItem) {
+		if (filterItem.getExpression() != null) {
+			return null;
+		}
+		if (filterItem.isCompoundFilter()) {
+			final FilterItem[] childItems = filterItem.getChildItems();
+			final FilterItem[] delegateChildItems = new FilterItem[childItems.length];
+			for (int i = 0; i < childItems.length; i++) {
+				delegateChildItems[i] = toDelegateFilterItem(childItems[i]);
+				if (delegateChildItems[i] == null) {
+					return null;
+				}
+			}
+			return new FilterItem(filterItem.getLogicalOperator(),
+					delegateChildItems);
+		}
+		final SelectItem selectItem = toDelegateSelectItem(filterItem
+				.getSelectItem());
+		if (selectItem == null) {
+			return null;
+		}
+		Object operand = filterItem.getOperand();
+		if (operand instanceof SelectItem) {
+			operand = toDelegateSelectItem((SelectItem) operand);
+			if (operand == null) {
+				return null;
+			}
+		} else if (operand instanceof Query) {
+			return null;
+		}
+		return new FilterItem(selectItem, filterItem.getOperator(), operand);
+	}
+
+	private static SelectItem toDelegateSelectItem(SelectItem selectItem) {
+		if (selectItem == null || selectItem.hasFunction()
+				|| selectItem.getColumn() == null) {
+			return null;
+		}
+		return new SelectItem(selectItem.getColumn());
 	}
 
 	@Override
@@ -48,4 +536,15 @@ final class CompositeQueryDelegate extends QueryPostprocessDelegate {
 		return dc.executeQuery(q);
 	}
 
+	private static final class SemiJoin {
+		boolean firstIsSmaller;
+		long smallCount;
+		FromItem smallFromItem;
+		FromItem bigFromItem;
+		SelectItem smallKey;
+		SelectItem bigKey;
+		List<FilterItem> smallWhereItems;
+		List<FilterItem> bigWhereItems;
+	}
+
 }
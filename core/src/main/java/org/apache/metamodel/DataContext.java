@@ -25,6 +25,7 @@ import org.apache.metamodel.data.DataSet;
 import org.apache.metamodel.query.CompiledQuery;
 import org.apache.metamodel.query.Query;
 import org.apache.metamodel.query.QueryParameter;
+import org.apache.metamodel.query.QueryPlan;
 import org.apache.metamodel.query.builder.InitFromBuilder;
 import org.apache.metamodel.schema.Column;
 import org.apache.metamodel.schema.Schema;
@@ -176,6 +177,28 @@ public interface DataContext {
      */
     public DataSet executeQuery(String queryString) throws MetaModelException;
 
+    /**
+     * Explains how a query would be executed, without executing it. The
+     * returned plan shows which parts of the query are handled by the
+     * datastore (and the native query it receives), which operators are
+     * evaluated in memory and, where the datastore can provide them,
+     * estimated row counts. The query itself is not sent to the datastore,
+     * but estimated row counts may be requested from it.
+     * 
+     * This default implementation describes the query as executed entirely
+     * by the datastore.
+     * 
+     * @param query
+     *            the query to explain
+     * @return the execution plan of the query
+     * @throws MetaModelException
+     *             if the specified query does not make sense or cannot be
+     *             executed because of restraints on the type of datastore.
+     */
+    public default QueryPlan explain(Query query) throws MetaModelException {
+        return new QueryPlan("query", QueryPlan.Execution.DATASTORE, query.toSql(), null);
+    }
+
     /**
      * Finds a column in the DataContext based on a fully qualified column
      * label. The qualified label consists of the the schema, table and column
@@ -0,0 +1,314 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.metamodel;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.metamodel.query.FilterItem;
+import org.apache.metamodel.query.LogicalOperator;
+import org.apache.metamodel.query.OperatorType;
+import org.apache.metamodel.query.SelectItem;
+
+/**
+ * Plans the order in which the inputs of an inner join are joined, based on estimated row counts of the inputs and
+ * the selectivity of the WHERE items. Inputs are joined left-deep, ie. the result of joining the first inputs is
+ * streamed through a hash table of the next input, so the cost of an order is estimated as the sum of the
+ * intermediate results and of the inputs that are kept in memory.
+ * 
+ * Without statistics the selectivity of a filter is guessed from its operator, with the classic defaults of 1/10 for
+ * equality and 1/3 for ranges. An equi-join is assumed to match every row of the bigger input with one row of the
+ * smaller input.
+ */
+final class JoinPlanner {
+
+    /**
+     * The maximum number of inputs for which all join orders are considered. Beyond that the order is chosen greedily.
+     */
+    private static final int MAX_EXHAUSTIVE_INPUTS = 6;
+
+    private static final double SELECTIVITY_EQUALS = 0.1;
+    private static final double SELECTIVITY_RANGE = 1d / 3;
+    private static final double SELECTIVITY_LIKE = 0.25;
+    private static final double SELECTIVITY_DEFAULT = 0.5;
+
+    private final List<Set<SelectItem>> _inputSelectItems;
+    private final long[] _rowCounts;
+    private final List<FilterItem> _filters;
+
+    /**
+     * Creates a join planner.
+     * 
+     * @param inputSelectItems
+     *            the select items of each input
+     * @param rowCounts
+     *            the estimated row count of each input
+     * @param filters
+     *            the WHERE items of the query
+     */
+    public JoinPlanner(List<List<SelectItem>> inputSelectItems, long[] rowCounts, List<FilterItem> filters) {
+        if (inputSelectItems.size() != rowCounts.length) {
+            throw new IllegalArgumentException("Expected " + inputSelectItems.size() + " row counts, got: "
+                    + rowCounts.length);
+        }
+        _inputSelectItems = new ArrayList<>(inputSelectItems.size());
+        for (List<SelectItem> selectItems : inputSelectItems) {
+            _inputSelectItems.add(new HashSet<>(selectItems));
+        }
+        _rowCounts = rowCounts;
+        _filters = new ArrayList<>();
+        for (FilterItem filter : filters) {
+            if (!MetaModelHelper.getFilterSelectItems(filter).isEmpty()) {
+                _filters.add(filter);
+            }
+        }
+    }
+
+    /**
+     * Gets the order in which to join the inputs. If several orders have the same cost, the order in which the inputs
+     * were given is preferred.
+     * 
+     * @return the indexes of the inputs, in the order they should be joined
+     */
+    public int[] getJoinOrder() {
+        final int size = _rowCounts.length;
+        final int[] order = new int[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        if (size < 2) {
+            return order;
+        }
+        if (size > MAX_EXHAUSTIVE_INPUTS) {
+            return getGreedyJoinOrder();
+        }
+
+        final int[] bestOrder = order.clone();
+        final double[] bestCost = { getCost(order) };
+        permute(order, 0, bestOrder, bestCost);
+        return bestOrder;
+    }
+
+    /**
+     * Gets the estimated row counts of the intermediate results when joining the inputs in a particular order.
+     * 
+     * @param order
+     *            the join order, see {@link #getJoinOrder()}
+     * @return the estimated row count after each join, ie. an array with one element less than the number of inputs
+     */
+    public long[] getJoinRowCounts(int[] order) {
+        final long[] result = new long[order.length - 1];
+        final Set<SelectItem> joinedItems = new HashSet<>(_inputSelectItems.get(order[0]));
+        double rowCount = _rowCounts[order[0]];
+        for (int i = 1; i < order.length; i++) {
+            rowCount = getJoinRowCount(joinedItems, rowCount, order[i]);
+            joinedItems.addAll(_inputSelectItems.get(order[i]));
+            result[i - 1] = toLong(rowCount);
+        }
+        return result;
+    }
+
+    private void permute(int[] order, int index, int[] bestOrder, double[] bestCost) {
+        if (index == order.length - 1) {
+            final double cost = getCost(order);
+            if (cost < bestCost[0]) {
+                bestCost[0] = cost;
+                System.arraycopy(order, 0, bestOrder, 0, order.length);
+            }
+            return;
+        }
+        for (int i = index; i < order.length; i++) {
+            swap(order, index, i);
+            permute(order, index + 1, bestOrder, bestCost);
+            swap(order, index, i);
+        }
+    }
+
+    private static void swap(int[] array, int i, int j) {
+        final int tmp = array[i];
+        array[i] = array[j];
+        array[j] = tmp;
+    }
+
+    private int[] getGreedyJoinOrder() {
+        final int size = _rowCounts.length;
+        final int[] order = new int[size];
+        final boolean[] joined = new boolean[size];
+        order[0] = 0;
+        joined[0] = true;
+        final Set<SelectItem> joinedItems = new HashSet<>(_inputSelectItems.get(0));
+        double rowCount = _rowCounts[0];
+        for (int i = 1; i < size; i++) {
+            int bestInput = -1;
+            double bestCost = Double.MAX_VALUE;
+            double bestRowCount = 0;
+            for (int input = 0; input < size; input++) {
+                if (!joined[input]) {
+                    final double joinRowCount = getJoinRowCount(joinedItems, rowCount, input);
+                    final double cost = joinRowCount + _rowCounts[input];
+                    if (cost < bestCost) {
+                        bestInput = input;
+                        bestCost = cost;
+                        bestRowCount = joinRowCount;
+                    }
+                }
+            }
+            order[i] = bestInput;
+            joined[bestInput] = true;
+            joinedItems.addAll(_inputSelectItems.get(bestInput));
+            rowCount = bestRowCount;
+        }
+        return order;
+    }
+
+    private double getCost(int[] order) {
+        final Set<SelectItem> joinedItems = new HashSet<>(_inputSelectItems.get(order[0]));
+        double rowCount = _rowCounts[order[0]];
+        double cost = 0;
+        for (int i = 1; i < order.length; i++) {
+            final int input = order[i];
+            rowCount = getJoinRowCount(joinedItems, rowCount, input);
+            joinedItems.addAll(_inputSelectItems.get(input));
+            // the joined input is kept in memory and the result is streamed
+            // on to the next join
+            cost += _rowCounts[input] + rowCount;
+        }
+        return cost;
+    }
+
+    /**
+     * Estimates the row count of joining an input with the (intermediate) result of other inputs.
+     */
+    private double getJoinRowCount(Set<SelectItem> joinedItems, double joinedRowCount, int input) {
+        final Set<SelectItem> inputItems = _inputSelectItems.get(input);
+        double rowCount = joinedRowCount * _rowCounts[input];
+        for (FilterItem filter : _filters) {
+            final List<SelectItem> filterItems = MetaModelHelper.getFilterSelectItems(filter);
+            boolean anyJoined = false;
+            boolean anyInput = false;
+            boolean applicable = true;
+            for (SelectItem selectItem : filterItems) {
+                if (joinedItems.contains(selectItem)) {
+                    anyJoined = true;
+                } else if (inputItems.contains(selectItem)) {
+                    anyInput = true;
+                } else {
+                    applicable = false;
+                }
+            }
+            if (applicable && anyJoined && anyInput) {
+                // the filter is applied by this join
+                rowCount *= getJoinSelectivity(filter);
+            }
+        }
+        return rowCount;
+    }
+
+    private double getJoinSelectivity(FilterItem filter) {
+        if (!filter.isCompoundFilter() && OperatorType.EQUALS_TO.equals(filter.getOperator())
+                && filter.getOperand() instanceof SelectItem) {
+            final long rowCount1 = getInputRowCount(filter.getSelectItem());
+            final long rowCount2 = getInputRowCount((SelectItem) filter.getOperand());
+            // every row of the bigger input matches one row of the smaller input
+            final long minRowCount = Math.min(rowCount1, rowCount2);
+            return minRowCount <= 0 ? 1d : 1d / minRowCount;
+        }
+        return getSelectivity(filter);
+    }
+
+    private long getInputRowCount(SelectItem selectItem) {
+        for (int i = 0; i < _rowCounts.length; i++) {
+            if (_inputSelectItems.get(i).contains(selectItem)) {
+                return _rowCounts[i];
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Estimates the number of rows that remain when applying filters to a number of rows.
+     * 
+     * @param rowCount
+     *            the number of rows before filtering
+     * @param filters
+     *            the filters to apply
+     * @return the estimated number of rows after filtering
+     */
+    public static long getFilteredRowCount(long rowCount, Collection<FilterItem> filters) {
+        double result = rowCount;
+        for (FilterItem filter : filters) {
+            result *= getSelectivity(filter);
+        }
+        return toLong(result);
+    }
+
+    /**
+     * Guesses the fraction of rows that a filter accepts.
+     */
+    static double getSelectivity(FilterItem filter) {
+        if (filter.isCompoundFilter()) {
+            final boolean or = filter.getLogicalOperator() == LogicalOperator.OR;
+            double result = or ? 0d : 1d;
+            for (FilterItem childItem : filter.getChildItems()) {
+                final double selectivity = getSelectivity(childItem);
+                result = or ? result + selectivity - result * selectivity : result * selectivity;
+            }
+            return result;
+        }
+        final OperatorType operator = filter.getOperator();
+        if (OperatorType.EQUALS_TO.equals(operator)) {
+            return SELECTIVITY_EQUALS;
+        } else if (OperatorType.DIFFERENT_FROM.equals(operator)) {
+            return 1 - SELECTIVITY_EQUALS;
+        } else if (OperatorType.GREATER_THAN.equals(operator) || OperatorType.GREATER_THAN_OR_EQUAL.equals(operator)
+                || OperatorType.LESS_THAN.equals(operator) || OperatorType.LESS_THAN_OR_EQUAL.equals(operator)) {
+            return SELECTIVITY_RANGE;
+        } else if (OperatorType.LIKE.equals(operator)) {
+            return SELECTIVITY_LIKE;
+        } else if (OperatorType.NOT_LIKE.equals(operator)) {
+            return 1 - SELECTIVITY_LIKE;
+        } else if (OperatorType.IN.equals(operator)) {
+            return Math.min(1d, SELECTIVITY_EQUALS * getOperandSize(filter.getOperand()));
+        } else if (OperatorType.NOT_IN.equals(operator)) {
+            return Math.max(SELECTIVITY_EQUALS, 1 - SELECTIVITY_EQUALS * getOperandSize(filter.getOperand()));
+        }
+        return SELECTIVITY_DEFAULT;
+    }
+
+    private static int getOperandSize(Object operand) {
+        if (operand instanceof Collection) {
+            return ((Collection<?>) operand).size();
+        }
+        if (operand != null && operand.getClass().isArray()) {
+            return Array.getLength(operand);
+        }
+        return 1;
+    }
+
+    private static long toLong(double rowCount) {
+        if (rowCount >= Long.MAX_VALUE) {
+            return Long.MAX_VALUE;
+        }
+        return Math.max(rowCount > 0 ? 1 : 0, Math.round(rowCount));
+    }
+}
@@ -26,6 +26,7 @@ import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -35,21 +36,32 @@ import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
 import org.apache.metamodel.data.CachingDataSetHeader;
+import org.apache.metamodel.data.ColumnVector;
 import org.apache.metamodel.data.DataSet;
+import org.apache.metamodel.data.DataSetBatch;
 import org.apache.metamodel.data.DataSetHeader;
 import org.apache.metamodel.data.DefaultRow;
+import org.apache.metamodel.data.DistinctDataSet;
+import org.apache.metamodel.data.DoubleColumnVector;
 import org.apache.metamodel.data.EmptyDataSet;
+import org.apache.metamodel.data.ExternalSortDataSet;
 import org.apache.metamodel.data.FilteredDataSet;
 import org.apache.metamodel.data.FirstRowDataSet;
+import org.apache.metamodel.data.HashJoinDataSet;
 import org.apache.metamodel.data.InMemoryDataSet;
+import org.apache.metamodel.data.LongColumnVector;
 import org.apache.metamodel.data.MaxRowsDataSet;
 import org.apache.metamodel.data.Row;
 import org.apache.metamodel.data.ScalarFunctionDataSet;
 import org.apache.metamodel.data.SimpleDataSetHeader;
 import org.apache.metamodel.data.SubSelectionDataSet;
+import org.apache.metamodel.data.TopNDataSet;
+import org.apache.metamodel.query.AggregateFunction;
 import org.apache.metamodel.query.FilterItem;
 import org.apache.metamodel.query.FromItem;
+import org.apache.metamodel.query.FunctionType;
 import org.apache.metamodel.query.GroupByItem;
+import org.apache.metamodel.query.OperatorType;
 import org.apache.metamodel.query.OrderByItem;
 import org.apache.metamodel.query.Query;
 import org.apache.metamodel.query.ScalarFunction;
@@ -65,6 +77,7 @@ import org.apache.metamodel.schema.WrappingTable;
 import org.apache.metamodel.util.AggregateBuilder;
 import org.apache.metamodel.util.CollectionUtils;
 import org.apache.metamodel.util.ObjectComparator;
+import org.apache.metamodel.util.PrimitiveAggregateBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -83,6 +96,11 @@ import org.slf4j.LoggerFactory;
  */
 public final class MetaModelHelper {
 
+    /**
+     * The number of rows to aggregate at a time, when aggregating a {@link DataSet} column by column.
+     */
+    private static final int AGGREGATION_BATCH_SIZE = 1024;
+
     private final static Logger logger = LoggerFactory.getLogger(MetaModelHelper.class);
 
     private MetaModelHelper() {
@@ -188,14 +206,17 @@ public final class MetaModelHelper {
         if (fromDataSets.length == 1) {
             return getFiltered(fromDataSets[0], whereItems);
         }
-        // do a nested loop join, no matter what
+        final List<FilterItem> filters = new ArrayList<>();
+        for (FilterItem fi : whereItems) {
+            filters.add(fi);
+        }
+
         Iterator<DataSet> dsIter = Arrays.asList(fromDataSets).iterator();
 
         DataSet joined = dsIter.next();
 
         while (dsIter.hasNext()) {
-            joined = nestedLoopJoin(dsIter.next(), joined, (whereItems));
-
+            joined = getInnerJoin(joined, dsIter.next(), filters);
         }
 
         return joined;
@@ -203,44 +224,125 @@ public final class MetaModelHelper {
     }
 
     /**
-     * Executes a simple nested loop join. The innerLoopDs will be copied in an in-memory dataset.
-     *
+     * Joins two datasets using the filters that are applicable to them. If any of the filters are equi-join conditions
+     * (column = column) between the two datasets, a hash join is performed. Otherwise a nested loop join is performed.
      */
-    public static InMemoryDataSet nestedLoopJoin(DataSet innerLoopDs, DataSet outerLoopDs,
+    private static DataSet getInnerJoin(DataSet leftDs, DataSet rightDs, List<FilterItem> filters) {
+        final List<SelectItem> leftItems = leftDs.getSelectItems();
+        final List<SelectItem> rightItems = rightDs.getSelectItems();
+        final List<SelectItem> allItems = CollectionUtils.concat(false, leftItems, rightItems);
+
+        final List<SelectItem> leftKeys = new ArrayList<>();
+        final List<SelectItem> rightKeys = new ArrayList<>();
+        final List<FilterItem> leftFilters = new ArrayList<>();
+        final List<FilterItem> rightFilters = new ArrayList<>();
+        final List<FilterItem> joinFilters = new ArrayList<>();
+        classifyJoinFilters(filters, leftItems, rightItems, leftKeys, rightKeys, leftFilters, rightFilters,
+                joinFilters);
+
+        if (leftKeys.isEmpty()) {
+            return nestedLoopJoin(rightDs, leftDs, filters);
+        }
+
+        // filters that only concern one side are applied before joining
+        if (!leftFilters.isEmpty()) {
+            leftDs = new FilteredDataSet(leftDs, leftFilters);
+        }
+        if (!rightFilters.isEmpty()) {
+            rightDs = new FilteredDataSet(rightDs, rightFilters);
+        }
+
+        // materialize the right side (as the nested loop join would) and
+        // build the hash table on the left side instead if it is known to be
+        // smaller
+        final List<Row> rightRows = readDataSetFull(rightDs);
+        if (rightRows.isEmpty()) {
+            leftDs.close();
+            return new EmptyDataSet(allItems);
+        }
+        rightDs = new InMemoryDataSet(new CachingDataSetHeader(rightItems), rightRows);
+        final boolean buildLeft =
+                leftDs instanceof InMemoryDataSet && ((InMemoryDataSet) leftDs).size() < rightRows.size();
+
+        return new HashJoinDataSet(leftDs, rightDs, leftKeys, rightKeys, joinFilters, buildLeft);
+    }
+
+    /**
+     * Sorts the filters that are applicable to a join of two datasets into filters that only concern the left side,
+     * filters that only concern the right side and filters that relate the two sides (join filters). The select items
+     * of equi-join filters (column = column) among the join filters are added to the left and right key lists.
+     */
+    private static void classifyJoinFilters(Collection<FilterItem> filters, List<SelectItem> leftItems,
+            List<SelectItem> rightItems, List<SelectItem> leftKeys, List<SelectItem> rightKeys,
+            List<FilterItem> leftFilters, List<FilterItem> rightFilters, List<FilterItem> joinFilters) {
+        final List<SelectItem> allItems = CollectionUtils.concat(false, leftItems, rightItems);
+
+        // resolve the side of each filter the same way that the joined rows
+        // will resolve the values of their select items
+        final DataSetHeader jointHeader = new CachingDataSetHeader(allItems);
+        final int leftSize = leftItems.size();
+
+        for (FilterItem filter : applicableFilters(filters, allItems)) {
+            boolean anyLeft = false;
+            boolean anyRight = false;
+            for (SelectItem selectItem : getFilterSelectItems(filter)) {
+                if (jointHeader.indexOf(selectItem) < leftSize) {
+                    anyLeft = true;
+                } else {
+                    anyRight = true;
+                }
+            }
+
+            if (!anyRight) {
+                leftFilters.add(filter);
+            } else if (!anyLeft) {
+                rightFilters.add(filter);
+            } else {
+                joinFilters.add(filter);
+                if (!filter.isCompoundFilter() && OperatorType.EQUALS_TO.equals(filter.getOperator())) {
+                    final SelectItem operand = (SelectItem) filter.getOperand();
+                    final boolean selectItemLeft = jointHeader.indexOf(filter.getSelectItem()) < leftSize;
+                    leftKeys.add(selectItemLeft ? filter.getSelectItem() : operand);
+                    rightKeys.add(selectItemLeft ? operand : filter.getSelectItem());
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the filters that relate two datasets to each other when joining them, ie. the filters that are evaluated by
+     * the join itself. If any of them are equi-join conditions (column = column), the datasets are hash joined.
+     */
+    static List<FilterItem> getJoinFilters(Collection<FilterItem> filters, List<SelectItem> leftItems,
+            List<SelectItem> rightItems) {
+        final List<FilterItem> joinFilters = new ArrayList<>();
+        classifyJoinFilters(filters, leftItems, rightItems, new ArrayList<>(), new ArrayList<>(), new ArrayList<>(),
+                new ArrayList<>(), joinFilters);
+        return joinFilters;
+    }
+
+    /**
+     * Executes a simple nested loop join. The innerLoopDs will be read into memory, while the rows of the outerLoopDs
+     * are streamed and joined on demand, so that consumers that only need the first few joined rows (eg. a
+     * {@link MaxRowsDataSet}) will not cause the whole outerLoopDs to be read.
+     */
+    public static DataSet nestedLoopJoin(DataSet innerLoopDs, DataSet outerLoopDs,
             Iterable<FilterItem> filtersIterable) {
 
         List<FilterItem> filters = new ArrayList<>();
         for (FilterItem fi : filtersIterable) {
             filters.add(fi);
         }
-        List<Row> innerRows = innerLoopDs.toRows();
 
         List<SelectItem> allItems = new ArrayList<>(outerLoopDs.getSelectItems());
         allItems.addAll(innerLoopDs.getSelectItems());
 
         Set<FilterItem> applicableFilters = applicableFilters(filters, allItems);
 
-        DataSetHeader jointHeader = new CachingDataSetHeader(allItems);
-
-        List<Row> resultRows = new ArrayList<>();
-        for (Row outerRow : outerLoopDs) {
-            for (Row innerRow : innerRows) {
-
-                Object[] joinedRowObjects = new Object[outerRow.getValues().length + innerRow.getValues().length];
-
-                System.arraycopy(outerRow.getValues(), 0, joinedRowObjects, 0, outerRow.getValues().length);
-                System.arraycopy(innerRow.getValues(), 0, joinedRowObjects, outerRow.getValues().length,
-                        innerRow.getValues().length);
-
-                Row joinedRow = new DefaultRow(jointHeader, joinedRowObjects);
-
-                if (applicableFilters.isEmpty() || applicableFilters.stream().allMatch(fi -> fi.accept(joinedRow))) {
-                    resultRows.add(joinedRow);
-                }
-            }
-        }
-
-        return new InMemoryDataSet(jointHeader, resultRows);
+        // a hash join without any keys matches every outer row against every
+        // inner row
+        return new HashJoinDataSet(outerLoopDs, innerLoopDs, Collections.emptyList(), Collections.emptyList(),
+                applicableFilters, false);
     }
 
     /**
@@ -257,16 +359,46 @@ public final class MetaModelHelper {
         Set<SelectItem> items = new HashSet<SelectItem>(selectItemList);
 
         return filters.stream().filter(fi -> {
-            Collection<SelectItem> fiSelectItems = new ArrayList<>();
-            fiSelectItems.add(fi.getSelectItem());
-            Object operand = fi.getOperand();
-            if (operand instanceof SelectItem) {
-                fiSelectItems.add((SelectItem) operand);
-            }
+            final List<SelectItem> fiSelectItems = getFilterSelectItems(fi);
+            return !fiSelectItems.isEmpty() && items.containsAll(fiSelectItems);
+        }).collect(Collectors.toSet());
+    }
 
-            return items.containsAll(fiSelectItems);
+    /**
+     * Gets the select items that a filter needs to be evaluated, including the select items of the child items of
+     * compound filters and select items used as operands.
+     * 
+     * @return the select items of the filter, or an empty list if the filter cannot be evaluated in memory
+     */
+    static List<SelectItem> getFilterSelectItems(FilterItem filter) {
+        final List<SelectItem> result = new ArrayList<>();
+        if (!addFilterSelectItems(filter, result)) {
+            return Collections.emptyList();
+        }
+        return result;
+    }
 
-        }).collect(Collectors.toSet());
+    private static boolean addFilterSelectItems(FilterItem filter, List<SelectItem> result) {
+        if (filter.getExpression() != null) {
+            return false;
+        }
+        if (filter.isCompoundFilter()) {
+            for (FilterItem childItem : filter.getChildItems()) {
+                if (!addFilterSelectItems(childItem, result)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (filter.getSelectItem() == null) {
+            return false;
+        }
+        result.add(filter.getSelectItem());
+        final Object operand = filter.getOperand();
+        if (operand instanceof SelectItem) {
+            result.add((SelectItem) operand);
+        }
+        return true;
     }
 
     public static DataSet getFiltered(DataSet dataSet, Iterable<FilterItem> filterItems) {
@@ -341,99 +473,228 @@ public final class MetaModelHelper {
             Collection<GroupByItem> groupByItems) {
         DataSet result = dataSet;
         if (groupByItems != null && groupByItems.size() > 0) {
-            Map<Row, Map<SelectItem, List<Object>>> uniqueRows = new HashMap<Row, Map<SelectItem, List<Object>>>();
-
             final List<SelectItem> groupBySelects =
                     groupByItems.stream().map(gbi -> gbi.getSelectItem()).collect(Collectors.toList());
             final DataSetHeader groupByHeader = new CachingDataSetHeader(groupBySelects);
 
             // Creates a list of SelectItems that have aggregate functions
-            List<SelectItem> functionItems = getAggregateFunctionSelectItems(selectItems);
+            final List<SelectItem> functionItems = getAggregateFunctionSelectItems(selectItems);
+            final SelectItem[] functionInputItems = getAggregateFunctionInputItems(functionItems);
+
+            // each group holds an aggregate builder per aggregate function,
+            // so that memory usage depends only on the number of groups
+            final Map<Row, AggregateBuilder<?>[]> groups = new LinkedHashMap<>();
 
             // Loop through the dataset and identify groups
             while (dataSet.next()) {
-                Row row = dataSet.getRow();
+                final Row row = dataSet.getRow();
 
                 // Subselect a row prototype with only the unique values that
                 // define the group
-                Row uniqueRow = row.getSubSelection(groupByHeader);
-
-                // function input is the values used for calculating aggregate
-                // functions in the group
-                Map<SelectItem, List<Object>> functionInput;
-                if (!uniqueRows.containsKey(uniqueRow)) {
-                    // If this group already exist, use an existing function
-                    // input
-                    functionInput = new HashMap<SelectItem, List<Object>>();
-                    for (SelectItem item : functionItems) {
-                        functionInput.put(item, new ArrayList<Object>());
-                    }
-                    uniqueRows.put(uniqueRow, functionInput);
-                } else {
-                    // If this is a new group, create a new function input
-                    functionInput = uniqueRows.get(uniqueRow);
-                }
+                final Row uniqueRow = row.getSubSelection(groupByHeader);
 
-                // Loop through aggregate functions to check for validity
-                for (SelectItem item : functionItems) {
-                    List<Object> objects = functionInput.get(item);
-                    Column column = item.getColumn();
-                    if (column != null) {
-                        Object value = row.getValue(new SelectItem(column));
-                        objects.add(value);
-                    } else if (SelectItem.isCountAllItem(item)) {
-                        // Just use the empty string, since COUNT(*) don't
-                        // evaluate values (but null values should be prevented)
-                        objects.add("");
-                    } else {
-                        throw new IllegalArgumentException("Expression function not supported: " + item);
-                    }
+                AggregateBuilder<?>[] aggregateBuilders = groups.get(uniqueRow);
+                if (aggregateBuilders == null) {
+                    aggregateBuilders = createAggregateBuilders(functionItems);
+                    groups.put(uniqueRow, aggregateBuilders);
                 }
+
+                addAggregateValues(row, functionItems, functionInputItems, aggregateBuilders);
             }
 
             dataSet.close();
-            final List<Row> resultData = new ArrayList<Row>();
-            final DataSetHeader resultHeader = new CachingDataSetHeader(selectItems);
-
-            // Loop through the groups to generate aggregates
-            for (Entry<Row, Map<SelectItem, List<Object>>> entry : uniqueRows.entrySet()) {
-                Row row = entry.getKey();
-                Map<SelectItem, List<Object>> functionInput = entry.getValue();
-                Object[] resultRow = new Object[selectItems.size()];
-                // Loop through select items to generate a row
-                int i = 0;
-                for (SelectItem item : selectItems) {
-                    int uniqueRowIndex = row.indexOf(item);
-                    if (uniqueRowIndex != -1) {
-                        // If there's already a value for the select item in the
-                        // row, keep it (it's one of the grouped by columns)
-                        resultRow[i] = row.getValue(uniqueRowIndex);
-                    } else {
-                        // Use the function input to calculate the aggregate
-                        // value
-                        List<Object> objects = functionInput.get(item);
-                        if (objects != null) {
-                            Object functionResult = item.getAggregateFunction().evaluate(objects.toArray());
-                            resultRow[i] = functionResult;
-                        } else {
-                            if (item.getAggregateFunction() != null) {
-                                logger.error("No function input found for SelectItem: {}", item);
-                            }
-                        }
-                    }
-                    i++;
+            result = getGroupedResult(selectItems, groupByHeader, functionItems, groups);
+        }
+        result = getSelection(selectItems, result);
+        return result;
+    }
+
+    /**
+     * Creates the result of a GROUP BY operation, ie. a row per group with the grouped by values and aggregates.
+     */
+    static DataSet getGroupedResult(List<SelectItem> selectItems, DataSetHeader groupByHeader,
+            List<SelectItem> functionItems, Map<Row, AggregateBuilder<?>[]> groups) {
+        final List<Row> resultData = new ArrayList<Row>();
+        final DataSetHeader resultHeader = new CachingDataSetHeader(selectItems);
+
+        // determine for each select item whether its value is one of the
+        // grouped by values or the result of an aggregate function
+        final int[] uniqueRowIndexes = new int[selectItems.size()];
+        final int[] functionIndexes = new int[selectItems.size()];
+        for (int i = 0; i < uniqueRowIndexes.length; i++) {
+            final SelectItem item = selectItems.get(i);
+            uniqueRowIndexes[i] = groupByHeader.indexOf(item);
+            functionIndexes[i] = functionItems.indexOf(item);
+        }
+
+        // Loop through the groups to generate aggregates
+        for (Entry<Row, AggregateBuilder<?>[]> entry : groups.entrySet()) {
+            final Row row = entry.getKey();
+            final AggregateBuilder<?>[] aggregateBuilders = entry.getValue();
+            final Object[] resultRow = new Object[selectItems.size()];
+            // Loop through select items to generate a row
+            for (int i = 0; i < resultRow.length; i++) {
+                if (uniqueRowIndexes[i] != -1) {
+                    // If there's already a value for the select item in the
+                    // row, keep it (it's one of the grouped by columns)
+                    resultRow[i] = row.getValue(uniqueRowIndexes[i]);
+                } else if (functionIndexes[i] != -1) {
+                    // Use the aggregate builder to get the aggregate value
+                    resultRow[i] = aggregateBuilders[functionIndexes[i]].getAggregate();
                 }
-                resultData.add(new DefaultRow(resultHeader, resultRow, null));
             }
+            resultData.add(new DefaultRow(resultHeader, resultRow, null));
+        }
+
+        if (resultData.isEmpty()) {
+            return new EmptyDataSet(selectItems);
+        }
+        return new InMemoryDataSet(resultHeader, resultData);
+    }
+
+    static AggregateBuilder<?>[] createAggregateBuilders(List<SelectItem> functionItems) {
+        final AggregateBuilder<?>[] aggregateBuilders = new AggregateBuilder<?>[functionItems.size()];
+        for (int i = 0; i < aggregateBuilders.length; i++) {
+            aggregateBuilders[i] = functionItems.get(i).getAggregateFunction().createAggregateBuilder();
+        }
+        return aggregateBuilders;
+    }
+
+    /**
+     * Gets the select items that represent the input values of a list of aggregate function select items, ie. the
+     * select items of the aggregated columns. COUNT(*) items and unsupported items are represented by null.
+     */
+    static SelectItem[] getAggregateFunctionInputItems(List<SelectItem> functionItems) {
+        final SelectItem[] inputItems = new SelectItem[functionItems.size()];
+        for (int i = 0; i < inputItems.length; i++) {
+            final Column column = functionItems.get(i).getColumn();
+            if (column != null) {
+                inputItems[i] = new SelectItem(column);
+            }
+        }
+        return inputItems;
+    }
 
-            if (resultData.isEmpty()) {
-                result = new EmptyDataSet(selectItems);
+    static void addAggregateValues(Row row, List<SelectItem> functionItems, SelectItem[] functionInputItems,
+            AggregateBuilder<?>[] aggregateBuilders) {
+        for (int i = 0; i < aggregateBuilders.length; i++) {
+            final SelectItem inputItem = functionInputItems[i];
+            if (inputItem != null) {
+                addAggregateValue(aggregateBuilders[i], functionItems.get(i).getAggregateFunction(),
+                        row.getValue(inputItem));
+            } else if (SelectItem.isCountAllItem(functionItems.get(i))) {
+                // Just use the empty string, since COUNT(*) don't
+                // evaluate values (but null values should be prevented)
+                aggregateBuilders[i].add("");
             } else {
-                result = new InMemoryDataSet(resultHeader, resultData);
+                throw new IllegalArgumentException("Expression function not supported: " + functionItems.get(i));
             }
         }
-        result = getSelection(selectItems, result);
-        return result;
+    }
+
+    /**
+     * Adds a value to an aggregate, using the primitive adders of a {@link PrimitiveAggregateBuilder} when the value
+     * is a number for which the result doesn't depend on its boxed type (see
+     * {@link #isPrimitiveAggregationApplicable(AggregateFunction, ColumnVector)}).
+     */
+    private static void addAggregateValue(AggregateBuilder<?> aggregateBuilder, AggregateFunction function,
+            Object value) {
+        if (aggregateBuilder instanceof PrimitiveAggregateBuilder && value instanceof Number) {
+            final PrimitiveAggregateBuilder<?> primitiveAggregateBuilder =
+                    (PrimitiveAggregateBuilder<?>) aggregateBuilder;
+            final boolean anyType =
+                    function == FunctionType.COUNT || function == FunctionType.SUM || function == FunctionType.AVG;
+            if (value instanceof Long) {
+                primitiveAggregateBuilder.add(((Long) value).longValue());
+                return;
+            }
+            if (value instanceof Double) {
+                primitiveAggregateBuilder.add(((Double) value).doubleValue());
+                return;
+            }
+            if (anyType && (value instanceof Integer || value instanceof Short || value instanceof Byte)) {
+                primitiveAggregateBuilder.add(((Number) value).longValue());
+                return;
+            }
+            if (anyType && value instanceof Float) {
+                primitiveAggregateBuilder.add(((Float) value).doubleValue());
+                return;
+            }
+        }
+        aggregateBuilder.add(value);
+    }
+
+    private static void addAggregateValues(DataSetBatch batch, List<SelectItem> functionItems,
+            SelectItem[] functionInputItems, AggregateBuilder<?>[] aggregateBuilders) {
+        final int size = batch.size();
+        for (int i = 0; i < aggregateBuilders.length; i++) {
+            final AggregateBuilder<?> aggregateBuilder = aggregateBuilders[i];
+            final SelectItem functionItem = functionItems.get(i);
+            final SelectItem inputItem = functionInputItems[i];
+            if (inputItem == null) {
+                if (!SelectItem.isCountAllItem(functionItem)) {
+                    throw new IllegalArgumentException("Expression function not supported: " + functionItem);
+                }
+                for (int row = 0; row < size; row++) {
+                    aggregateBuilder.add("");
+                }
+                continue;
+            }
+
+            final int columnIndex = batch.indexOf(inputItem);
+            if (columnIndex == -1) {
+                for (int row = 0; row < size; row++) {
+                    aggregateBuilder.add(null);
+                }
+                continue;
+            }
+
+            final ColumnVector column = batch.getColumn(columnIndex);
+            if (aggregateBuilder instanceof PrimitiveAggregateBuilder
+                    && isPrimitiveAggregationApplicable(functionItem.getAggregateFunction(), column)) {
+                final PrimitiveAggregateBuilder<?> primitiveAggregateBuilder =
+                        (PrimitiveAggregateBuilder<?>) aggregateBuilder;
+                if (column instanceof LongColumnVector) {
+                    final long[] values = ((LongColumnVector) column).getLongValues();
+                    for (int row = 0; row < size; row++) {
+                        if (!column.isNull(row)) {
+                            primitiveAggregateBuilder.add(values[row]);
+                        }
+                    }
+                } else {
+                    final double[] values = ((DoubleColumnVector) column).getDoubleValues();
+                    for (int row = 0; row < size; row++) {
+                        if (!column.isNull(row)) {
+                            primitiveAggregateBuilder.add(values[row]);
+                        }
+                    }
+                }
+            } else {
+                for (int row = 0; row < size; row++) {
+                    aggregateBuilder.add(column.getValue(row));
+                }
+            }
+        }
+    }
+
+    /**
+     * Determines if the values of a column can be added to an aggregate as primitive values. This is the case for
+     * numeric columns if the result doesn't depend on the type of the boxed values (such as for MIN and MAX), or if the
+     * values are boxed as {@link Long}s or {@link Double}s anyway.
+     */
+    private static boolean isPrimitiveAggregationApplicable(AggregateFunction function, ColumnVector column) {
+        final Class<?> valueClass;
+        if (column instanceof LongColumnVector) {
+            valueClass = ((LongColumnVector) column).getValueClass();
+        } else if (column instanceof DoubleColumnVector) {
+            valueClass = ((DoubleColumnVector) column).getValueClass();
+        } else {
+            return false;
+        }
+        if (valueClass == Long.class || valueClass == Double.class) {
+            return true;
+        }
+        return function == FunctionType.COUNT || function == FunctionType.SUM || function == FunctionType.AVG;
     }
 
     /**
@@ -450,10 +711,8 @@ public final class MetaModelHelper {
             return dataSet;
         }
 
-        final Map<SelectItem, AggregateBuilder<?>> aggregateBuilders = new HashMap<SelectItem, AggregateBuilder<?>>();
-        for (SelectItem item : functionItems) {
-            aggregateBuilders.put(item, item.getAggregateFunction().createAggregateBuilder());
-        }
+        final AggregateBuilder<?>[] aggregateBuilders = createAggregateBuilders(functionItems);
+        final SelectItem[] functionInputItems = getAggregateFunctionInputItems(functionItems);
 
         final DataSetHeader header;
         final boolean onlyAggregates;
@@ -466,26 +725,20 @@ public final class MetaModelHelper {
         }
 
         final List<Row> resultRows = new ArrayList<Row>();
-        while (dataSet.next()) {
-            final Row inputRow = dataSet.getRow();
-            for (SelectItem item : functionItems) {
-                final AggregateBuilder<?> aggregateBuilder = aggregateBuilders.get(item);
-                final Column column = item.getColumn();
-                if (column != null) {
-                    Object value = inputRow.getValue(new SelectItem(column));
-                    aggregateBuilder.add(value);
-                } else if (SelectItem.isCountAllItem(item)) {
-                    // Just use the empty string, since COUNT(*) don't
-                    // evaluate values (but null values should be prevented)
-                    aggregateBuilder.add("");
-                } else {
-                    throw new IllegalArgumentException("Expression function not supported: " + item);
-                }
+        if (onlyAggregates) {
+            // no rows need to be retained, so the values can be aggregated
+            // column by column
+            DataSetBatch batch;
+            while ((batch = dataSet.nextBatch(AGGREGATION_BATCH_SIZE)) != null) {
+                addAggregateValues(batch, functionItems, functionInputItems, aggregateBuilders);
             }
+        } else {
+            while (dataSet.next()) {
+                final Row inputRow = dataSet.getRow();
+                addAggregateValues(inputRow, functionItems, functionInputItems, aggregateBuilders);
 
-            // If the result should also contain non-aggregated values, we
-            // will keep those in the rows list
-            if (!onlyAggregates) {
+                // The result should also contain non-aggregated values, so we
+                // will keep those in the rows list
                 final Object[] values = new Object[header.size()];
                 for (int i = 0; i < header.size(); i++) {
                     final Object value = inputRow.getValue(header.getSelectItem(i));
@@ -500,10 +753,8 @@ public final class MetaModelHelper {
 
         // Collect the aggregates
         Map<SelectItem, Object> functionResult = new HashMap<SelectItem, Object>();
-        for (SelectItem item : functionItems) {
-            AggregateBuilder<?> aggregateBuilder = aggregateBuilders.get(item);
-            Object result = aggregateBuilder.getAggregate();
-            functionResult.put(item, result);
+        for (int i = 0; i < aggregateBuilders.length; i++) {
+            functionResult.put(functionItems.get(i), aggregateBuilders[i].getAggregate());
         }
 
         // if there are no result rows (no matching records at all), we still
@@ -568,12 +819,31 @@ public final class MetaModelHelper {
     }
 
     public static DataSet getOrdered(DataSet dataSet, final OrderByItem... orderByItems) {
+        return getOrdered(dataSet, Integer.MAX_VALUE, orderByItems);
+    }
+
+    public static DataSet getOrdered(DataSet dataSet, List<OrderByItem> orderByItems, int maxRowsInMemory) {
+        return getOrdered(dataSet, maxRowsInMemory, orderByItems.toArray(new OrderByItem[orderByItems.size()]));
+    }
+
+    /**
+     * Orders a {@link DataSet}. If the {@link DataSet} holds more than <code>maxRowsInMemory</code> rows, sorted runs
+     * of rows will be spilled to temporary files and merged while iterating the resulting {@link DataSet}.
+     * 
+     * @param dataSet
+     *            the {@link DataSet} to order
+     * @param maxRowsInMemory
+     *            the maximum number of rows to keep in memory while sorting
+     * @param orderByItems
+     *            the items to order by
+     * @return the ordered {@link DataSet}
+     */
+    public static DataSet getOrdered(DataSet dataSet, int maxRowsInMemory, final OrderByItem... orderByItems) {
         if (orderByItems != null && orderByItems.length != 0) {
-            final int[] sortIndexes = new int[orderByItems.length];
-            for (int i = 0; i < orderByItems.length; i++) {
-                OrderByItem item = orderByItems[i];
-                int indexOf = dataSet.indexOf(item.getSelectItem());
-                sortIndexes[i] = indexOf;
+            final Comparator<Row> comparator = createOrderByComparator(dataSet, orderByItems);
+
+            if (!(dataSet instanceof InMemoryDataSet) && maxRowsInMemory != Integer.MAX_VALUE) {
+                return new ExternalSortDataSet(dataSet, comparator, maxRowsInMemory);
             }
 
             final List<Row> data = readDataSetFull(dataSet);
@@ -581,30 +851,6 @@ public final class MetaModelHelper {
                 return new EmptyDataSet(dataSet.getSelectItems());
             }
 
-            final Comparator<Object> valueComparator = ObjectComparator.getComparator();
-
-            // create a comparator for doing the actual sorting/ordering
-            final Comparator<Row> comparator = new Comparator<Row>() {
-                public int compare(Row o1, Row o2) {
-                    for (int i = 0; i < sortIndexes.length; i++) {
-                        int sortIndex = sortIndexes[i];
-                        Object sortObj1 = o1.getValue(sortIndex);
-                        Object sortObj2 = o2.getValue(sortIndex);
-                        int compare = valueComparator.compare(sortObj1, sortObj2);
-                        if (compare != 0) {
-                            OrderByItem orderByItem = orderByItems[i];
-                            boolean ascending = orderByItem.isAscending();
-                            if (ascending) {
-                                return compare;
-                            } else {
-                                return compare * -1;
-                            }
-                        }
-                    }
-                    return 0;
-                }
-            };
-
             Collections.sort(data, comparator);
 
             dataSet = new InMemoryDataSet(data);
@@ -612,6 +858,64 @@ public final class MetaModelHelper {
         return dataSet;
     }
 
+    /**
+     * Orders a {@link DataSet} and limits it to the first <code>n</code> rows. Only the top <code>n</code> rows are
+     * kept in memory while reading the {@link DataSet}.
+     * 
+     * @param dataSet
+     *            the {@link DataSet} to order
+     * @param orderByItems
+     *            the items to order by
+     * @param n
+     *            the number of rows to retain
+     * @return the ordered and limited {@link DataSet}
+     */
+    public static DataSet getTopN(DataSet dataSet, List<OrderByItem> orderByItems, int n) {
+        if (orderByItems == null || orderByItems.isEmpty()) {
+            return new MaxRowsDataSet(dataSet, n);
+        }
+        final Comparator<Row> comparator = createOrderByComparator(dataSet,
+                orderByItems.toArray(new OrderByItem[orderByItems.size()]));
+        return new TopNDataSet(dataSet, comparator, n);
+    }
+
+    /**
+     * Creates a {@link Comparator} for ordering the rows of a {@link DataSet} according to a set of
+     * {@link OrderByItem}s.
+     */
+    private static Comparator<Row> createOrderByComparator(DataSet dataSet, final OrderByItem[] orderByItems) {
+        final int[] sortIndexes = new int[orderByItems.length];
+        for (int i = 0; i < orderByItems.length; i++) {
+            OrderByItem item = orderByItems[i];
+            int indexOf = dataSet.indexOf(item.getSelectItem());
+            sortIndexes[i] = indexOf;
+        }
+
+        final Comparator<Object> valueComparator = ObjectComparator.getComparator();
+
+        // create a comparator for doing the actual sorting/ordering
+        return new Comparator<Row>() {
+            public int compare(Row o1, Row o2) {
+                for (int i = 0; i < sortIndexes.length; i++) {
+                    int sortIndex = sortIndexes[i];
+                    Object sortObj1 = o1.getValue(sortIndex);
+                    Object sortObj2 = o2.getValue(sortIndex);
+                    int compare = valueComparator.compare(sortObj1, sortObj2);
+                    if (compare != 0) {
+                        OrderByItem orderByItem = orderByItems[i];
+                        boolean ascending = orderByItem.isAscending();
+                        if (ascending) {
+                            return compare;
+                        } else {
+                            return compare * -1;
+                        }
+                    }
+                }
+                return 0;
+            }
+        };
+    }
+
     public static List<Row> readDataSetFull(DataSet dataSet) {
         final List<Row> result;
         if (dataSet instanceof InMemoryDataSet) {
@@ -705,7 +1009,6 @@ public final class MetaModelHelper {
         List<SelectItem> si1 = ds1.getSelectItems();
         List<SelectItem> si2 = ds2.getSelectItems();
         List<SelectItem> selectItems = Stream.concat(si1.stream(), si2.stream()).collect(Collectors.toList());
-        List<Row> resultRows = new ArrayList<Row>();
         List<Row> ds2data = readDataSetFull(ds2);
         if (ds2data.isEmpty()) {
             // no need to join, simply return a new view (with null values) on
@@ -713,36 +1016,25 @@ public final class MetaModelHelper {
             return getSelection(selectItems, ds1);
         }
 
-        final DataSetHeader header = new CachingDataSetHeader(selectItems);
-
-        while (ds1.next()) {
-
-            // Construct a single-row dataset for making a carthesian product
-            // against ds2
-            Row ds1row = ds1.getRow();
-            List<Row> ds1rows = new ArrayList<Row>();
-            ds1rows.add(ds1row);
-
-            DataSet carthesianProduct =
-                    getCarthesianProduct(new DataSet[] { new InMemoryDataSet(new CachingDataSetHeader(si1), ds1rows),
-                            new InMemoryDataSet(new CachingDataSetHeader(si2), ds2data) }, onConditions);
-            List<Row> carthesianRows = readDataSetFull(carthesianProduct);
-            if (carthesianRows.size() > 0) {
-                resultRows.addAll(carthesianRows);
-            } else {
-                Object[] values = ds1row.getValues();
-                Object[] row = new Object[selectItems.size()];
-                System.arraycopy(values, 0, row, 0, values.length);
-                resultRows.add(new DefaultRow(header, row));
-            }
-        }
-        ds1.close();
-
-        if (resultRows.isEmpty()) {
-            return new EmptyDataSet(selectItems);
+        final List<SelectItem> leftKeys = new ArrayList<>();
+        final List<SelectItem> rightKeys = new ArrayList<>();
+        final List<FilterItem> leftFilters = new ArrayList<>();
+        final List<FilterItem> rightFilters = new ArrayList<>();
+        final List<FilterItem> joinFilters = new ArrayList<>();
+        classifyJoinFilters(Arrays.asList(onConditions), si1, si2, leftKeys, rightKeys, leftFilters, rightFilters,
+                joinFilters);
+
+        // conditions on the left side only restrict which right rows match,
+        // not which left rows are retained
+        joinFilters.addAll(leftFilters);
+
+        DataSet rightDs = new InMemoryDataSet(new CachingDataSetHeader(si2), ds2data);
+        if (!rightFilters.isEmpty()) {
+            rightDs = new FilteredDataSet(rightDs, rightFilters);
         }
 
-        return new InMemoryDataSet(header, resultRows);
+        // hash the right side and stream the left side through it
+        return new HashJoinDataSet(ds1, rightDs, leftKeys, rightKeys, joinFilters, false, true);
     }
 
     /**
@@ -754,18 +1046,35 @@ public final class MetaModelHelper {
      * @return the right joined result dataset
      */
     public static DataSet getRightJoin(DataSet ds1, DataSet ds2, FilterItem[] onConditions) {
-        List<SelectItem> ds1selects = ds1.getSelectItems();
-        List<SelectItem> ds2selects = ds2.getSelectItems();
-        List<SelectItem> leftOrderedSelects = new ArrayList<>();
-        leftOrderedSelects.addAll(ds1selects);
-        leftOrderedSelects.addAll(ds2selects);
-
-        // We will reuse the left join algorithm (but switch the datasets
-        // around)
-        DataSet dataSet = getLeftJoin(ds2, ds1, onConditions);
+        if (ds1 == null) {
+            throw new IllegalArgumentException("Left DataSet cannot be null");
+        }
+        if (ds2 == null) {
+            throw new IllegalArgumentException("Right DataSet cannot be null");
+        }
+        final List<SelectItem> ds1selects = ds1.getSelectItems();
+        final List<SelectItem> ds2selects = ds2.getSelectItems();
+
+        final List<SelectItem> leftKeys = new ArrayList<>();
+        final List<SelectItem> rightKeys = new ArrayList<>();
+        final List<FilterItem> leftFilters = new ArrayList<>();
+        final List<FilterItem> rightFilters = new ArrayList<>();
+        final List<FilterItem> joinFilters = new ArrayList<>();
+        classifyJoinFilters(Arrays.asList(onConditions), ds1selects, ds2selects, leftKeys, rightKeys, leftFilters,
+                rightFilters, joinFilters);
+
+        // conditions on the right side only restrict which left rows match,
+        // not which right rows are retained
+        joinFilters.addAll(rightFilters);
+
+        DataSet leftDs = ds1;
+        if (!leftFilters.isEmpty()) {
+            leftDs = new FilteredDataSet(leftDs, leftFilters);
+        }
 
-        dataSet = getSelection(leftOrderedSelects, dataSet);
-        return dataSet;
+        // the same operator as the left join, but hashing the left side and
+        // streaming the right side through it
+        return new HashJoinDataSet(leftDs, ds2, leftKeys, rightKeys, joinFilters, true, true);
     }
 
     public static SelectItem[] createSelectItems(Column... columns) {
@@ -777,10 +1086,21 @@ public final class MetaModelHelper {
     }
 
     public static DataSet getDistinct(DataSet dataSet) {
-        List<SelectItem> selectItems = dataSet.getSelectItems();
-        List<GroupByItem> groupByItems = selectItems.stream().map(GroupByItem::new).collect(Collectors.toList());
+        return getDistinct(dataSet, -1);
+    }
 
-        return getGrouped(selectItems, dataSet, groupByItems);
+    /**
+     * Removes duplicate rows from a {@link DataSet}. Rows are emitted as soon as they are first seen.
+     * 
+     * @param dataSet
+     *            the {@link DataSet} to remove duplicates from
+     * @param maxRowsInMemory
+     *            the maximum number of distinct rows to keep in memory before spilling to temporary files, or -1 if
+     *            unbounded
+     * @return a {@link DataSet} of distinct rows
+     */
+    public static DataSet getDistinct(DataSet dataSet, int maxRowsInMemory) {
+        return new DistinctDataSet(dataSet, maxRowsInMemory);
     }
 
     public static Table[] getTables(Column[] columns) {
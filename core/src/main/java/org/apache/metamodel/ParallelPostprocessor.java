@@ -0,0 +1,213 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.metamodel;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.Collectors;
+
+import org.apache.metamodel.data.CachingDataSetHeader;
+import org.apache.metamodel.data.DataSet;
+import org.apache.metamodel.data.DataSetHeader;
+import org.apache.metamodel.data.DefaultRow;
+import org.apache.metamodel.data.InMemoryDataSet;
+import org.apache.metamodel.data.Row;
+import org.apache.metamodel.data.SimpleDataSetHeader;
+import org.apache.metamodel.query.FilterItem;
+import org.apache.metamodel.query.GroupByItem;
+import org.apache.metamodel.query.SelectItem;
+import org.apache.metamodel.util.AggregateBuilder;
+import org.apache.metamodel.util.MergeableAggregateBuilder;
+
+/**
+ * Executes the filtering and aggregation steps of a query on a {@link ForkJoinPool}. The materialized rows of a table
+ * are read in batches on the calling thread. Each batch is filtered (including evaluation of scalar functions) and
+ * partially aggregated by a task on the pool, after which the partial aggregates are merged in batch order.
+ * 
+ * Only queries on a single table, which aggregate using {@link MergeableAggregateBuilder}s, are supported. See
+ * {@link #isApplicable(List, List)}.
+ */
+final class ParallelPostprocessor {
+
+    static final int BATCH_SIZE = 10000;
+
+    private final ForkJoinPool _pool;
+    private final List<SelectItem> _workSelectItems;
+    private final List<FilterItem> _whereItems;
+    private final List<SelectItem> _functionItems;
+    private final SelectItem[] _functionInputItems;
+    private final List<SelectItem> _groupBySelectItems;
+
+    public ParallelPostprocessor(ForkJoinPool pool, List<SelectItem> workSelectItems, List<FilterItem> whereItems,
+            List<GroupByItem> groupByItems) {
+        _pool = pool;
+        _workSelectItems = workSelectItems;
+        _whereItems = whereItems;
+        _functionItems = MetaModelHelper.getAggregateFunctionSelectItems(workSelectItems);
+        _functionInputItems = MetaModelHelper.getAggregateFunctionInputItems(_functionItems);
+        _groupBySelectItems = groupByItems.stream().map(GroupByItem::getSelectItem).collect(Collectors.toList());
+    }
+
+    /**
+     * Determines if a query can be post-processed in parallel, ie. if it is either grouped or consists only of
+     * aggregates, and if all the aggregate functions can be merged.
+     * 
+     * @param workSelectItems
+     *            the select items of the query, including those of the other clauses than the SELECT clause
+     * @param groupByItems
+     *            the GROUP BY items of the query
+     * @return true if the query can be post-processed in parallel
+     */
+    public static boolean isApplicable(List<SelectItem> workSelectItems, List<GroupByItem> groupByItems) {
+        final List<SelectItem> functionItems = MetaModelHelper.getAggregateFunctionSelectItems(workSelectItems);
+        if (groupByItems.isEmpty() && (functionItems.isEmpty() || functionItems.size() != workSelectItems.size())) {
+            return false;
+        }
+        final SelectItem[] functionInputItems = MetaModelHelper.getAggregateFunctionInputItems(functionItems);
+        for (int i = 0; i < functionInputItems.length; i++) {
+            final SelectItem functionItem = functionItems.get(i);
+            if (functionInputItems[i] == null && !SelectItem.isCountAllItem(functionItem)) {
+                return false;
+            }
+            if (!(functionItem.getAggregateFunction().createAggregateBuilder() instanceof MergeableAggregateBuilder)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Filters and aggregates a {@link DataSet}.
+     * 
+     * @param dataSet
+     *            the materialized rows of the queried table
+     * @return the aggregated {@link DataSet}, equivalent to that of the sequential
+     *         {@link MetaModelHelper#getGrouped(List, DataSet, java.util.Collection)} or
+     *         {@link MetaModelHelper#getAggregated(List, DataSet)} methods.
+     */
+    public DataSet postprocess(DataSet dataSet) {
+        final Map<Row, AggregateBuilder<?>[]> groups = new LinkedHashMap<>();
+        final Deque<ForkJoinTask<Map<Row, AggregateBuilder<?>[]>>> pendingTasks = new ArrayDeque<>();
+        // limit the number of batches in memory at any time
+        final int maxPendingTasks = _pool.getParallelism() * 2;
+
+        boolean success = false;
+        try {
+            final DataSetHeader header = new SimpleDataSetHeader(dataSet.getSelectItems());
+            List<Row> batch = new ArrayList<>(BATCH_SIZE);
+            while (dataSet.next()) {
+                batch.add(dataSet.getRow());
+                if (batch.size() == BATCH_SIZE) {
+                    pendingTasks.add(submit(header, batch));
+                    batch = new ArrayList<>(BATCH_SIZE);
+                    if (pendingTasks.size() >= maxPendingTasks) {
+                        merge(groups, pendingTasks.removeFirst().join());
+                    }
+                }
+            }
+            if (!batch.isEmpty()) {
+                pendingTasks.add(submit(header, batch));
+            }
+            while (!pendingTasks.isEmpty()) {
+                merge(groups, pendingTasks.removeFirst().join());
+            }
+            success = true;
+        } finally {
+            dataSet.close();
+            if (!success) {
+                for (ForkJoinTask<?> task : pendingTasks) {
+                    task.cancel(false);
+                }
+            }
+        }
+
+        final DataSetHeader groupByHeader = new CachingDataSetHeader(_groupBySelectItems);
+        if (_groupBySelectItems.isEmpty()) {
+            return getAggregatedResult(groups);
+        }
+        final DataSet result = MetaModelHelper.getGroupedResult(_workSelectItems, groupByHeader, _functionItems,
+                groups);
+        return MetaModelHelper.getSelection(_workSelectItems, result);
+    }
+
+    private ForkJoinTask<Map<Row, AggregateBuilder<?>[]>> submit(final DataSetHeader header, final List<Row> batch) {
+        return _pool.submit(() -> aggregateBatch(header, batch));
+    }
+
+    private Map<Row, AggregateBuilder<?>[]> aggregateBatch(DataSetHeader header, List<Row> batch) {
+        final DataSetHeader groupByHeader = new CachingDataSetHeader(_groupBySelectItems);
+        final Map<Row, AggregateBuilder<?>[]> groups = new LinkedHashMap<>();
+
+        final DataSet dataSet = MetaModelHelper.getFiltered(new InMemoryDataSet(header, batch), _whereItems);
+        while (dataSet.next()) {
+            final Row row = dataSet.getRow();
+            final Row uniqueRow = row.getSubSelection(groupByHeader);
+
+            AggregateBuilder<?>[] aggregateBuilders = groups.get(uniqueRow);
+            if (aggregateBuilders == null) {
+                aggregateBuilders = MetaModelHelper.createAggregateBuilders(_functionItems);
+                groups.put(uniqueRow, aggregateBuilders);
+            }
+            MetaModelHelper.addAggregateValues(row, _functionItems, _functionInputItems, aggregateBuilders);
+        }
+        dataSet.close();
+        return groups;
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private void merge(Map<Row, AggregateBuilder<?>[]> groups, Map<Row, AggregateBuilder<?>[]> partialGroups) {
+        for (Entry<Row, AggregateBuilder<?>[]> entry : partialGroups.entrySet()) {
+            final AggregateBuilder<?>[] aggregateBuilders = groups.get(entry.getKey());
+            if (aggregateBuilders == null) {
+                groups.put(entry.getKey(), entry.getValue());
+            } else {
+                final AggregateBuilder<?>[] partialAggregateBuilders = entry.getValue();
+                for (int i = 0; i < aggregateBuilders.length; i++) {
+                    ((MergeableAggregateBuilder) aggregateBuilders[i]).merge(partialAggregateBuilders[i]);
+                }
+            }
+        }
+    }
+
+    private DataSet getAggregatedResult(Map<Row, AggregateBuilder<?>[]> groups) {
+        final AggregateBuilder<?>[] aggregateBuilders;
+        if (groups.isEmpty()) {
+            // no matching records at all, but there should still be a record with the aggregates
+            aggregateBuilders = MetaModelHelper.createAggregateBuilders(_functionItems);
+        } else {
+            aggregateBuilders = groups.values().iterator().next();
+        }
+
+        final DataSetHeader header = new SimpleDataSetHeader(_workSelectItems);
+        final Object[] values = new Object[header.size()];
+        for (int i = 0; i < values.length; i++) {
+            final int functionIndex = _functionItems.indexOf(header.getSelectItem(i));
+            values[i] = aggregateBuilders[functionIndex].getAggregate();
+        }
+        return new InMemoryDataSet(header, Collections.singletonList(new DefaultRow(header, values)));
+    }
+}
@@ -0,0 +1,79 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.metamodel;
+
+import org.apache.metamodel.query.Query;
+
+/**
+ * Listener for the execution of queries, which can be used to find out where the time of a slow query is spent.
+ * Listeners are registered using {@link AbstractDataContext#addQueryExecutionListener(QueryExecutionListener)}. When no
+ * listeners are registered, queries are executed without any instrumentation.
+ * 
+ * Queries are currently instrumented by {@link QueryPostprocessDataContext}s. Since {@link org.apache.metamodel.data.DataSet}s
+ * are evaluated lazily, operators are reported when their rows have been consumed or they have been closed, which is
+ * typically after the query has been executed.
+ */
+public interface QueryExecutionListener {
+
+    /**
+     * Invoked when the strategy for executing a query has been chosen. This may be invoked more than once for a query,
+     * when a shortcut is not supported by the {@link DataContext} and the query falls back to another strategy.
+     * 
+     * @param query
+     *            the query being executed
+     * @param strategy
+     *            the chosen strategy
+     */
+    default void onStrategyChosen(Query query, QueryExecutionStrategy strategy) {
+    }
+
+    /**
+     * Invoked when an operator of a query has produced all its rows, or was closed before that.
+     * 
+     * @param query
+     *            the query being executed
+     * @param operator
+     *            the name of the operator, eg. "filter", "order" or "materialize table"
+     * @param rowsIn
+     *            the number of rows that the operator read from its input operators, or -1 if it reads from the
+     *            datastore itself
+     * @param rowsOut
+     *            the number of rows that the operator produced
+     * @param wallTimeNanos
+     *            the time spent in the operator, including the time spent in its input operators
+     */
+    default void onOperatorFinished(Query query, String operator, long rowsIn, long rowsOut, long wallTimeNanos) {
+    }
+
+    /**
+     * Invoked when a resource that was read for a query has been closed. This is reported by the DataContexts that
+     * read a file or stream resource per query: CSV, fixed width, JSON and SAX based XML. DataContexts that read their
+     * data when they are created (eg. DOM based XML) or through a driver or client library (eg. JDBC) do not report
+     * bytes read.
+     * 
+     * @param query
+     *            the query being executed
+     * @param resourceName
+     *            the name of the resource
+     * @param bytes
+     *            the number of bytes read from the resource
+     */
+    default void onBytesRead(Query query, String resourceName, long bytes) {
+    }
+}
@@ -0,0 +1,50 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.metamodel;
+
+/**
+ * The strategies that a {@link QueryPostprocessDataContext} chooses from when executing a query.
+ * 
+ * @see QueryExecutionListener#onStrategyChosen(org.apache.metamodel.query.Query, QueryExecutionStrategy)
+ */
+public enum QueryExecutionStrategy {
+
+    /**
+     * A COUNT(*) query that is delegated to
+     * {@link QueryPostprocessDataContext#executeCountQuery(org.apache.metamodel.schema.Table, java.util.List, boolean)}.
+     */
+    COUNT_QUERY,
+
+    /**
+     * A lookup by primary key that is delegated to
+     * {@link QueryPostprocessDataContext#executePrimaryKeyLookupQuery(org.apache.metamodel.schema.Table, java.util.List, org.apache.metamodel.schema.Column, Object)}.
+     */
+    PRIMARY_KEY_LOOKUP,
+
+    /**
+     * A simple query on a single table that is delegated to
+     * {@link QueryPostprocessDataContext#materializeTable(org.apache.metamodel.schema.Table, java.util.List, java.util.List, int, int)}.
+     */
+    MATERIALIZE_TABLE,
+
+    /**
+     * A query whose tables are materialized and then joined, filtered, grouped, sorted and paged client-side.
+     */
+    POSTPROCESS
+}
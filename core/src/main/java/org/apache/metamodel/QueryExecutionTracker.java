@@ -0,0 +1,249 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.metamodel;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+import org.apache.metamodel.data.AbstractDataSet;
+import org.apache.metamodel.data.DataSet;
+import org.apache.metamodel.data.Row;
+import org.apache.metamodel.data.WrappingDataSet;
+import org.apache.metamodel.query.Query;
+
+/**
+ * Reports the execution of a single query to the {@link QueryExecutionListener}s of a {@link DataContext}. A tracker
+ * is only created when listeners are registered.
+ * 
+ * While a query is being executed, its tracker is the current tracker of the executing thread (see
+ * {@link #current()}). Work that is handed to other threads is only tracked if the tracker is activated on those
+ * threads too, as {@link CompositeQueryDelegate} does. In particular, resources must be opened by a thread with an
+ * active tracker to have their bytes read reported, see {@link AbstractDataContext#trackBytesRead(String, InputStream)}.
+ * Once opened, a tracked stream may be read and closed by any thread.
+ */
+final class QueryExecutionTracker {
+
+    private static final ThreadLocal<QueryExecutionTracker> CURRENT = new ThreadLocal<>();
+
+    private final Query _query;
+    private final List<QueryExecutionListener> _listeners;
+
+    private QueryExecutionTracker(Query query, List<QueryExecutionListener> listeners) {
+        _query = query;
+        _listeners = listeners;
+    }
+
+    /**
+     * Creates a tracker for a query.
+     * 
+     * @return the tracker, or null if the {@link DataContext} has no listeners
+     */
+    public static QueryExecutionTracker create(AbstractDataContext dataContext, Query query) {
+        final List<QueryExecutionListener> listeners = dataContext.getQueryExecutionListeners();
+        if (listeners.isEmpty()) {
+            return null;
+        }
+        return new QueryExecutionTracker(query, listeners);
+    }
+
+    /**
+     * Gets the tracker of the query being executed by the current thread.
+     * 
+     * @return the tracker, or null if no query is being tracked
+     */
+    public static QueryExecutionTracker current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Makes this the tracker of the current thread.
+     * 
+     * @return the previous tracker of the current thread, to be passed to {@link #restore(QueryExecutionTracker)}
+     */
+    public QueryExecutionTracker activate() {
+        final QueryExecutionTracker previous = CURRENT.get();
+        CURRENT.set(this);
+        return previous;
+    }
+
+    public static void restore(QueryExecutionTracker previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    public void strategyChosen(QueryExecutionStrategy strategy) {
+        for (QueryExecutionListener listener : _listeners) {
+            listener.onStrategyChosen(_query, strategy);
+        }
+    }
+
+    public void operatorFinished(String operator, long rowsIn, long rowsOut, long wallTimeNanos) {
+        for (QueryExecutionListener listener : _listeners) {
+            listener.onOperatorFinished(_query, operator, rowsIn, rowsOut, wallTimeNanos);
+        }
+    }
+
+    /**
+     * Wraps the {@link DataSet} produced by an operator, to count its rows and measure the time spent producing them.
+     * 
+     * @param operator
+     *            the name of the operator
+     * @param dataSet
+     *            the data set produced by the operator
+     * @param startNanos
+     *            the {@link System#nanoTime()} when the operator was started, to include the time spent creating the
+     *            data set
+     * @param inputs
+     *            the tracked data sets that the operator reads from
+     * @return the tracked data set
+     */
+    public DataSet track(String operator, DataSet dataSet, long startNanos, DataSet... inputs) {
+        return new TrackingDataSet(this, operator, dataSet, System.nanoTime() - startNanos, inputs);
+    }
+
+    public InputStream trackBytesRead(String resourceName, InputStream inputStream) {
+        return new CountingInputStream(inputStream, resourceName);
+    }
+
+    private void bytesRead(String resourceName, long bytes) {
+        for (QueryExecutionListener listener : _listeners) {
+            listener.onBytesRead(_query, resourceName, bytes);
+        }
+    }
+
+    private static final class TrackingDataSet extends AbstractDataSet implements WrappingDataSet {
+
+        private final QueryExecutionTracker _tracker;
+        private final String _operator;
+        private final DataSet _dataSet;
+        private final DataSet[] _inputs;
+        private long _nanos;
+        private long _rows;
+        private boolean _finished;
+
+        public TrackingDataSet(QueryExecutionTracker tracker, String operator, DataSet dataSet, long nanos,
+                DataSet[] inputs) {
+            super(dataSet);
+            _tracker = tracker;
+            _operator = operator;
+            _dataSet = dataSet;
+            _inputs = inputs;
+            _nanos = nanos;
+        }
+
+        @Override
+        public boolean next() {
+            final long start = System.nanoTime();
+            final boolean next = _dataSet.next();
+            _nanos += System.nanoTime() - start;
+            if (next) {
+                _rows++;
+            } else {
+                finish();
+            }
+            return next;
+        }
+
+        @Override
+        public Row getRow() {
+            return _dataSet.getRow();
+        }
+
+        @Override
+        public DataSet getWrappedDataSet() {
+            return _dataSet;
+        }
+
+        @Override
+        public void close() {
+            super.close();
+            _dataSet.close();
+            finish();
+        }
+
+        private void finish() {
+            if (_finished) {
+                return;
+            }
+            _finished = true;
+            long rowsIn = -1;
+            if (_inputs.length > 0) {
+                rowsIn = 0;
+                for (DataSet input : _inputs) {
+                    if (input instanceof TrackingDataSet) {
+                        rowsIn += ((TrackingDataSet) input)._rows;
+                    }
+                }
+            }
+            _tracker.operatorFinished(_operator, rowsIn, _rows, _nanos);
+        }
+    }
+
+    private final class CountingInputStream extends FilterInputStream {
+
+        private final String _resourceName;
+        private long _bytes;
+        private boolean _closed;
+
+        public CountingInputStream(InputStream in, String resourceName) {
+            super(in);
+            _resourceName = resourceName;
+        }
+
+        @Override
+        public int read() throws IOException {
+            final int b = super.read();
+            if (b != -1) {
+                _bytes++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            final int read = super.read(b, off, len);
+            if (read > 0) {
+                _bytes += read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            final long skipped = super.skip(n);
+            _bytes += skipped;
+            return skipped;
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            // may be closed by both a reading thread and the consumer of a data set
+            super.close();
+            if (!_closed) {
+                _closed = true;
+                bytesRead(_resourceName, _bytes);
+            }
+        }
+    }
+}
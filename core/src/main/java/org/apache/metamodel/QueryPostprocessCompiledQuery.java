@@ -0,0 +1,127 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.metamodel;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.metamodel.data.DataSet;
+import org.apache.metamodel.query.CompiledQuery;
+import org.apache.metamodel.query.DefaultCompiledQuery;
+import org.apache.metamodel.query.FilterItem;
+import org.apache.metamodel.query.Query;
+import org.apache.metamodel.query.QueryParameter;
+
+/**
+ * {@link CompiledQuery} of a {@link QueryPostprocessDataContext}. The query is planned once when it is compiled, and
+ * parameter values are bound by replacing only the WHERE items that contain {@link QueryParameter}s, instead of
+ * cloning and replanning the whole query on every execution.
+ * 
+ * Only queries that have parameters in the WHERE clause of the outermost query, and not in sub-queries of the FROM
+ * clause, are compiled this way.
+ */
+final class QueryPostprocessCompiledQuery extends DefaultCompiledQuery {
+
+    private final QueryPostprocessDataContext _dataContext;
+    private final Query _query;
+    private final QueryPostprocessPlan _plan;
+    private final List<FilterItem> _whereItems;
+    private final boolean[] _parameterized;
+
+    public QueryPostprocessCompiledQuery(QueryPostprocessDataContext dataContext, Query query) {
+        super(query);
+        _dataContext = dataContext;
+        _query = query;
+        _plan = new QueryPostprocessPlan(dataContext, query);
+        _whereItems = new ArrayList<>(query.getWhereClause().getItems());
+        _parameterized = new boolean[_whereItems.size()];
+        for (int i = 0; i < _parameterized.length; i++) {
+            _parameterized[i] = isParameterized(_whereItems.get(i));
+        }
+    }
+
+    /**
+     * Determines if queries can be compiled into a {@link QueryPostprocessCompiledQuery}.
+     * 
+     * @param query
+     * @return
+     */
+    public static boolean isApplicable(Query query) {
+        return query.getFromClause().getItems().stream().allMatch(fromItem -> fromItem.getSubQuery() == null);
+    }
+
+    private static boolean isParameterized(FilterItem filterItem) {
+        if (filterItem.isCompoundFilter()) {
+            for (FilterItem childItem : filterItem.getChildItems()) {
+                if (isParameterized(childItem)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        return filterItem.getOperand() instanceof QueryParameter;
+    }
+
+    public QueryPostprocessDataContext getDataContext() {
+        return _dataContext;
+    }
+
+    /**
+     * Executes the compiled query with a set of parameter values.
+     * 
+     * @param values
+     *            the parameter values, in the order of {@link #getParameters()}
+     * @return the result of the query
+     */
+    public DataSet execute(Object[] values) {
+        final int parameterCount = getParameters().size();
+        if (values == null ? parameterCount > 0 : values.length < parameterCount) {
+            throw new IllegalArgumentException("Expected " + parameterCount + " parameter values, got: "
+                    + (values == null ? 0 : values.length));
+        }
+
+        final List<FilterItem> whereItems = new ArrayList<>(_whereItems.size());
+        final int[] parameterIndex = new int[1];
+        for (int i = 0; i < _parameterized.length; i++) {
+            final FilterItem whereItem = _whereItems.get(i);
+            if (_parameterized[i]) {
+                whereItems.add(bind(whereItem, values, parameterIndex));
+            } else {
+                whereItems.add(whereItem);
+            }
+        }
+        return _plan.execute(whereItems, QueryExecutionTracker.create(_dataContext, _query));
+    }
+
+    private static FilterItem bind(FilterItem filterItem, Object[] values, int[] parameterIndex) {
+        if (filterItem.isCompoundFilter()) {
+            final FilterItem[] childItems = filterItem.getChildItems();
+            final FilterItem[] boundChildItems = new FilterItem[childItems.length];
+            for (int i = 0; i < childItems.length; i++) {
+                boundChildItems[i] = bind(childItems[i], values, parameterIndex);
+            }
+            return new FilterItem(filterItem.getLogicalOperator(), boundChildItems);
+        }
+        if (filterItem.getOperand() instanceof QueryParameter) {
+            final Object value = values[parameterIndex[0]++];
+            return new FilterItem(filterItem.getSelectItem(), filterItem.getOperator(), value);
+        }
+        return filterItem;
+    }
+}
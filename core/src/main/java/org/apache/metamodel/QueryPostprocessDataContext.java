@@ -25,6 +25,7 @@ import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
 
 import org.apache.metamodel.annotations.InterfaceStability;
@@ -33,22 +34,22 @@ import org.apache.metamodel.convert.Converters;
 import org.apache.metamodel.convert.HasReadTypeConverters;
 import org.apache.metamodel.convert.TypeConverter;
 import org.apache.metamodel.data.DataSet;
-import org.apache.metamodel.data.DataSetHeader;
 import org.apache.metamodel.data.DefaultRow;
 import org.apache.metamodel.data.EmptyDataSet;
 import org.apache.metamodel.data.FirstRowDataSet;
 import org.apache.metamodel.data.InMemoryDataSet;
 import org.apache.metamodel.data.Row;
 import org.apache.metamodel.data.SimpleDataSetHeader;
+import org.apache.metamodel.query.CompiledQuery;
 import org.apache.metamodel.query.FilterItem;
 import org.apache.metamodel.query.FromItem;
-import org.apache.metamodel.query.GroupByItem;
 import org.apache.metamodel.query.JoinType;
 import org.apache.metamodel.query.OperatorType;
 import org.apache.metamodel.query.OrderByItem;
 import org.apache.metamodel.query.Query;
+import org.apache.metamodel.query.QueryPlan;
+import org.apache.metamodel.query.QueryPlan.Execution;
 import org.apache.metamodel.query.ScalarFunction;
-import org.apache.metamodel.query.SelectClause;
 import org.apache.metamodel.query.SelectItem;
 import org.apache.metamodel.schema.Column;
 import org.apache.metamodel.schema.ColumnType;
@@ -77,9 +78,30 @@ public abstract class QueryPostprocessDataContext extends AbstractDataContext im
     private static final Logger logger = LoggerFactory.getLogger(QueryPostprocessDataContext.class);
 
     public static final String SYSTEM_PROPERTY_CREATE_DEFAULT_TABLE_ALIAS = "metamodel.alias.default.table";
+    /**
+     * System property for the maximum number of rows to keep in memory while sorting a query result. Results that are
+     * larger will be sorted using temporary files on disk.
+     */
+    public static final String SYSTEM_PROPERTY_SORT_BUFFER_SIZE = "metamodel.sort.buffer.size";
+    public static final int DEFAULT_SORT_BUFFER_SIZE = 250000;
+
+    /**
+     * System property for the maximum number of distinct rows to keep in memory while evaluating SELECT DISTINCT
+     * queries. By default this is unbounded. If set, additional distinct rows will be deduplicated using temporary
+     * files on disk.
+     */
+    public static final String SYSTEM_PROPERTY_DISTINCT_BUFFER_SIZE = "metamodel.distinct.buffer.size";
+
+    /**
+     * System property for enabling the reordering of inner joins based on the estimated row counts of the joined
+     * tables. Disabled by default.
+     */
+    public static final String SYSTEM_PROPERTY_JOIN_REORDERING = "metamodel.join.reordering";
+
     public static final String INFORMATION_SCHEMA_NAME = "information_schema";
 
     private final Map<Column, TypeConverter<?, ?>> converters;
+    private volatile ForkJoinPool parallelExecutionPool;
     private final boolean singleTableDatastore;
 
     public QueryPostprocessDataContext() {
@@ -102,153 +124,141 @@ public abstract class QueryPostprocessDataContext extends AbstractDataContext im
 
     @Override
     public DataSet executeQuery(final Query query) {
-        final List<SelectItem> selectItems = query.getSelectClause().getItems();
-        final List<FromItem> fromItems = query.getFromClause().getItems();
-        final List<FilterItem> whereItems = query.getWhereClause().getItems();
-        final List<SelectItem> whereSelectItems = query.getWhereClause().getEvaluatedSelectItems();
-        final List<GroupByItem> groupByItems = query.getGroupByClause().getItems();
-        final List<SelectItem> groupBySelectItems = query.getGroupByClause().getEvaluatedSelectItems();
-        final List<SelectItem> havingSelectItems = query.getHavingClause().getEvaluatedSelectItems();
-        final List<SelectItem> orderBySelectItems = query.getOrderByClause().getEvaluatedSelectItems();
-
-        final List<FilterItem> havingItems = query.getHavingClause().getItems();
-        final List<OrderByItem> orderByItems = query.getOrderByClause().getItems();
-
-        final int firstRow = (query.getFirstRow() == null ? 1 : query.getFirstRow());
-        final int maxRows = (query.getMaxRows() == null ? -1 : query.getMaxRows());
+        return new QueryPostprocessPlan(this, query).execute(query.getWhereClause().getItems(),
+                QueryExecutionTracker.create(this, query));
+    }
 
-        if (maxRows == 0) {
-            // no rows requested - no reason to do anything
-            return new EmptyDataSet(selectItems);
+    /**
+     * {@inheritDoc}
+     * 
+     * Unless a subclass has its own query execution, the plan shows the tables that are materialized and the
+     * operators that are applied to them in memory. Estimated row counts are based on approximated count queries, see
+     * {@link #executeCountQuery(Table, List, boolean)}.
+     */
+    @Override
+    public QueryPlan explain(final Query query) throws MetaModelException {
+        if (isQueryExecutionOverridden()) {
+            return super.explain(query);
         }
+        return new QueryPostprocessPlan(this, query).explain(query.getWhereClause().getItems());
+    }
 
-        // check certain common query types that can often be optimized by
-        // subclasses
-        final boolean singleFromItem = fromItems.size() == 1;
-        final boolean noGrouping = groupByItems.isEmpty() && havingItems.isEmpty();
-        if (singleFromItem && noGrouping) {
-
-            final FromItem fromItem = query.getFromClause().getItem(0);
-            final Table table = MetaModelHelper.resolveTable(fromItem);
-            if (table != null) {
-
-                // check for SELECT COUNT(*) queries
-                if (selectItems.size() == 1) {
-                    final SelectItem selectItem = query.getSelectClause().getItem(0);
-                    if (SelectItem.isCountAllItem(selectItem)) {
-                        final boolean functionApproximationAllowed = selectItem.isFunctionApproximationAllowed();
-                        if (isMainSchemaTable(table)) {
-                            logger.debug("Query is a COUNT query with {} where items. Trying executeCountQuery(...)",
-                                    whereItems.size());
-                            final Number count = executeCountQuery(table, whereItems, functionApproximationAllowed);
-                            if (count == null) {
-                                logger.debug(
-                                        "DataContext did not return any count query results. Proceeding with manual counting.");
-                            } else {
-                                final List<Row> data = new ArrayList<Row>(1);
-                                final DataSetHeader header = new SimpleDataSetHeader(new SelectItem[] { selectItem });
-                                data.add(new DefaultRow(header, new Object[] { count }));
-                                return new InMemoryDataSet(header, data);
-                            }
-                        }
-                    }
-                }
-
-                final boolean isSimpleSelect = isSimpleSelect(query.getSelectClause());
-                if (isSimpleSelect) {
-                    // check for lookup query by primary key
-                    if (whereItems.size() == 1) {
-                        final FilterItem whereItem = whereItems.get(0);
-                        final SelectItem selectItem = whereItem.getSelectItem();
-                        if (!whereItem.isCompoundFilter() && selectItem != null && !selectItem.hasFunction()
-                                && selectItem.getColumn() != null) {
-                            final Column column = selectItem.getColumn();
-                            if (column.isPrimaryKey() && OperatorType.EQUALS_TO.equals(whereItem.getOperator())) {
-                                logger.debug(
-                                        "Query is a primary key lookup query. Trying executePrimaryKeyLookupQuery(...)");
-                                if (table != null) {
-                                    if (isMainSchemaTable(table)) {
-                                        final Object operand = whereItem.getOperand();
-                                        final Row row =
-                                                executePrimaryKeyLookupQuery(table, selectItems, column, operand);
-                                        if (row == null) {
-                                            logger.debug(
-                                                    "DataContext did not return any GET query results. Proceeding with manual lookup.");
-                                        } else {
-                                            final DataSetHeader header = new SimpleDataSetHeader(selectItems);
-                                            return new InMemoryDataSet(header, row);
-                                        }
-                                    }
-                                }
-                            }
-                        }
-                    }
+    /**
+     * {@inheritDoc}
+     * 
+     * Unless a subclass has its own query execution, the query is planned once when compiled, and parameter values are
+     * bound to the plan for every execution.
+     */
+    @Override
+    public CompiledQuery compileQuery(final Query query) throws MetaModelException {
+        if (isQueryExecutionOverridden() || !QueryPostprocessCompiledQuery.isApplicable(query)) {
+            return super.compileQuery(query);
+        }
+        return new QueryPostprocessCompiledQuery(this, query);
+    }
 
-                    // check for simple queries with or without simple criteria
-                    if (orderByItems.isEmpty()) {
-                        final DataSet dataSet = materializeTable(table, selectItems, whereItems, firstRow, maxRows);
-                        return dataSet;
-                    }
-                }
+    @Override
+    public DataSet executeQuery(final CompiledQuery compiledQuery, final Object... values) {
+        if (compiledQuery instanceof QueryPostprocessCompiledQuery) {
+            final QueryPostprocessCompiledQuery postprocessCompiledQuery = (QueryPostprocessCompiledQuery) compiledQuery;
+            if (postprocessCompiledQuery.getDataContext() == this) {
+                return postprocessCompiledQuery.execute(values);
             }
         }
+        return super.executeQuery(compiledQuery, values);
+    }
 
-        // Creates a list for all select items that are needed to execute query
-        // (some may only be used as part of a filter, but not shown in result)
-        List<SelectItem> workSelectItems = CollectionUtils.concat(true, selectItems, whereSelectItems,
-                groupBySelectItems, havingSelectItems, orderBySelectItems);
-
-        // Materialize the tables in the from clause
-        final DataSet[] fromDataSets = new DataSet[fromItems.size()];
-        for (int i = 0; i < fromDataSets.length; i++) {
-            FromItem fromItem = fromItems.get(i);
-            fromDataSets[i] = materializeFromItem(fromItem, workSelectItems);
+    private boolean isQueryExecutionOverridden() {
+        try {
+            return getClass().getMethod("executeQuery", Query.class)
+                    .getDeclaringClass() != QueryPostprocessDataContext.class;
+        } catch (NoSuchMethodException e) {
+            return true;
         }
+    }
 
-        // Execute the query using the raw data
-        DataSet dataSet = MetaModelHelper.getCarthesianProduct(fromDataSets, whereItems);
+    /**
+     * Sets a {@link ForkJoinPool} to use for executing queries in parallel. When set, the filtering and aggregation of
+     * grouped or aggregating queries on a single table will be split into batches of rows that are processed on the
+     * pool. By default queries are executed on the calling thread only.
+     * 
+     * @param parallelExecutionPool
+     *            the pool to use, or null to disable parallel execution
+     */
+    public void setParallelExecutionPool(ForkJoinPool parallelExecutionPool) {
+        this.parallelExecutionPool = parallelExecutionPool;
+    }
 
-        // we can now exclude the select items imposed by the WHERE clause (and
-        // should, to make the aggregation process faster)
-        workSelectItems =
-                CollectionUtils.concat(true, selectItems, groupBySelectItems, havingSelectItems, orderBySelectItems);
+    /**
+     * Gets the {@link ForkJoinPool} used for executing queries in parallel, if any.
+     * 
+     * @return the pool used for parallel query execution, or null if parallel execution is disabled
+     */
+    public ForkJoinPool getParallelExecutionPool() {
+        return parallelExecutionPool;
+    }
 
-        if (groupByItems.size() > 0) {
-            dataSet = MetaModelHelper.getGrouped(workSelectItems, dataSet, groupByItems);
-        } else {
-            dataSet = MetaModelHelper.getAggregated(workSelectItems, dataSet);
+    DataSet getOrdered(DataSet dataSet, List<OrderByItem> orderByItems, int firstRow, int maxRows) {
+        if (orderByItems.isEmpty()) {
+            return dataSet;
         }
-        dataSet = MetaModelHelper.getFiltered(dataSet, havingItems);
-
-        if (query.getSelectClause().isDistinct()) {
-            dataSet = MetaModelHelper.getSelection(selectItems, dataSet);
-            dataSet = MetaModelHelper.getDistinct(dataSet);
-            dataSet = MetaModelHelper.getOrdered(dataSet, orderByItems);
-        } else {
-            dataSet = MetaModelHelper.getOrdered(dataSet, orderByItems);
-            dataSet = MetaModelHelper.getSelection(selectItems, dataSet);
+        final int sortBufferSize = getSortBufferSize();
+        if (maxRows != -1) {
+            // only the rows up until the end of the requested page need to be sorted
+            final long topN = firstRow - 1L + maxRows;
+            if (topN <= sortBufferSize) {
+                return MetaModelHelper.getTopN(dataSet, orderByItems, (int) topN);
+            }
         }
+        return MetaModelHelper.getOrdered(dataSet, orderByItems, sortBufferSize);
+    }
 
-        dataSet = MetaModelHelper.getPaged(dataSet, firstRow, maxRows);
-        return dataSet;
+    /**
+     * Gets the maximum number of rows to keep in memory while sorting a query result. Subclasses can override this
+     * method to change the default, which can also be set using the {@link #SYSTEM_PROPERTY_SORT_BUFFER_SIZE} system
+     * property.
+     * 
+     * @return the sort buffer size, in number of rows
+     */
+    protected int getSortBufferSize() {
+        return getIntegerSystemProperty(SYSTEM_PROPERTY_SORT_BUFFER_SIZE, DEFAULT_SORT_BUFFER_SIZE);
     }
 
     /**
-     * Determines if all the select items are 'simple' meaning that they just represent scans of values in columns.
-     *
-     * @param clause
-     * @return
+     * Gets the maximum number of distinct rows to keep in memory while evaluating SELECT DISTINCT queries. Subclasses
+     * can override this method to change the default, which can also be set using the
+     * {@link #SYSTEM_PROPERTY_DISTINCT_BUFFER_SIZE} system property.
+     * 
+     * @return the distinct buffer size, in number of rows, or -1 if unbounded
      */
-    private boolean isSimpleSelect(SelectClause clause) {
-        if (clause.isDistinct()) {
-            return false;
-        }
-        for (SelectItem item : clause.getItems()) {
-            if (item.getAggregateFunction() != null || item.getExpression() != null) {
-                return false;
+    protected int getDistinctBufferSize() {
+        return getIntegerSystemProperty(SYSTEM_PROPERTY_DISTINCT_BUFFER_SIZE, -1);
+    }
+
+    /**
+     * Determines if the tables of inner joins are reordered based on their estimated row counts, so that the tables
+     * expected to be smallest are kept in memory while the others are streamed through the join. The estimates are
+     * obtained using approximated count queries (see {@link #executeCountQuery(Table, List, boolean)}) before the
+     * tables are materialized, so joins are only reordered if this DataContext implements count queries. Subclasses
+     * can override this method to change the default, which can also be set using the
+     * {@link #SYSTEM_PROPERTY_JOIN_REORDERING} system property.
+     * 
+     * @return true if joins should be reordered
+     */
+    protected boolean isJoinReorderingEnabled() {
+        return Boolean.parseBoolean(System.getProperty(SYSTEM_PROPERTY_JOIN_REORDERING));
+    }
+
+    private static int getIntegerSystemProperty(String key, int defaultValue) {
+        final String value = System.getProperty(key);
+        if (value != null) {
+            try {
+                return Integer.parseInt(value.trim());
+            } catch (NumberFormatException e) {
+                logger.warn("Ignoring invalid value of system property {}: {}", key, value);
             }
         }
-        return true;
+        return defaultValue;
     }
 
     /**
@@ -265,6 +275,77 @@ public abstract class QueryPostprocessDataContext extends AbstractDataContext im
         return null;
     }
 
+    /**
+     * Determines if this DataContext has a specialized implementation of
+     * {@link #executeCountQuery(Table, List, boolean)}, without executing a count query.
+     */
+    final boolean isCountQueryImplemented() {
+        return isImplementedBySubclass("executeCountQuery", Table.class, List.class, boolean.class);
+    }
+
+    /**
+     * Determines if this DataContext has a specialized implementation of
+     * {@link #executePrimaryKeyLookupQuery(Table, List, Column, Object)}, without executing a lookup query.
+     */
+    final boolean isPrimaryKeyLookupQueryImplemented() {
+        return isImplementedBySubclass("executePrimaryKeyLookupQuery", Table.class, List.class, Column.class,
+                Object.class);
+    }
+
+    private boolean isImplementedBySubclass(final String methodName, final Class<?>... parameterTypes) {
+        Class<?> cls = getClass();
+        while (cls != null && cls != QueryPostprocessDataContext.class) {
+            try {
+                cls.getDeclaredMethod(methodName, parameterTypes);
+                return true;
+            } catch (NoSuchMethodException e) {
+                cls = cls.getSuperclass();
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Estimates the number of records of a table that match a list of WHERE items, using an approximated count query.
+     * 
+     * @return the estimated number of records, or null if the datastore cannot provide an estimate
+     */
+    final Long estimateRowCount(final Table table, final List<FilterItem> whereItems) {
+        if (!isMainSchemaTable(table) || !isCountQueryImplemented()) {
+            return null;
+        }
+        try {
+            final Number count = executeCountQuery(table, whereItems, true);
+            return count == null ? null : count.longValue();
+        } catch (RuntimeException e) {
+            logger.debug("Could not estimate row count of {}", table, e);
+            return null;
+        }
+    }
+
+    /**
+     * Estimates the number of records that a from item is materialized to. If the datastore cannot estimate the number
+     * of records matching the WHERE items of the table, the number is estimated from the size of the table and the
+     * WHERE items.
+     * 
+     * @return the estimated number of records, or null if no estimate is available
+     */
+    final Long estimateRowCount(final FromItem fromItem, final List<FilterItem> tableWhereItems) {
+        if (fromItem.getTable() == null) {
+            return null;
+        }
+        final Table table = MetaModelHelper.resolveTable(fromItem);
+        final Long rowCount = estimateRowCount(table, tableWhereItems);
+        if (rowCount != null || tableWhereItems.isEmpty()) {
+            return rowCount;
+        }
+        final Long tableRowCount = estimateRowCount(table, Collections.emptyList());
+        if (tableRowCount == null) {
+            return null;
+        }
+        return JoinPlanner.getFilteredRowCount(tableRowCount, tableWhereItems);
+    }
+
     /**
      * Executes a query which obtains a row by primary key (as defined by {@link Column#isPrimaryKey()}). This method is
      * provided to allow subclasses to optimize lookup queries since they are quite common and often a datastore can
@@ -281,41 +362,163 @@ public abstract class QueryPostprocessDataContext extends AbstractDataContext im
         return null;
     }
 
+    /**
+     * Materializes the from items of a query. When more than one item is to be materialized, the WHERE items that only
+     * concern a single table are passed on to the materialization of that table, so that they are applied (or pushed
+     * further down) before the tables are joined. Only the remaining WHERE items are evaluated on the joined result,
+     * see {@link #getJoinWhereItems(List, List)}. Subclasses that override this method must apply the WHERE items of
+     * {@link #getTableWhereItems(List, FromItem, List)} to each from item.
+     * 
+     * @param fromItems
+     *            the from items of the query
+     * @param selectItems
+     *            the select items that are needed to execute the query
+     * @param whereItems
+     *            the where items of the query
+     * @return the materialized from items
+     */
+    protected DataSet[] materializeFromItems(final List<FromItem> fromItems, final List<SelectItem> selectItems,
+            final List<FilterItem> whereItems) {
+        final DataSet[] fromDataSets = new DataSet[fromItems.size()];
+        for (int i = 0; i < fromDataSets.length; i++) {
+            final FromItem fromItem = fromItems.get(i);
+            final List<FilterItem> tableWhereItems = getTableWhereItems(fromItems, fromItem, whereItems);
+            if (tableWhereItems.isEmpty()) {
+                fromDataSets[i] = materializeFromItem(fromItem, selectItems);
+            } else {
+                fromDataSets[i] = materializeFromItem(fromItem, selectItems, tableWhereItems);
+            }
+        }
+        return fromDataSets;
+    }
+
+    /**
+     * Determines if WHERE items are pushed down to the materialization of the tables of a query with several from
+     * items. This is not the case if a subclass overrides {@link #materializeFromItem(FromItem, List)}, which does not
+     * receive the WHERE items, in which case all WHERE items are evaluated on the joined result.
+     */
+    final boolean isTableWhereItemsPushDownEnabled() {
+        return !isImplementedBySubclass("materializeFromItem", FromItem.class, List.class);
+    }
+
+    /**
+     * Gets the WHERE items that are applied when materializing a single table from item of a query with several from
+     * items.
+     */
+    final List<FilterItem> getTableWhereItems(final List<FromItem> fromItems, final FromItem fromItem,
+            final List<FilterItem> whereItems) {
+        if (fromItems.size() < 2 || fromItem.getTable() == null || whereItems.isEmpty()
+                || !isTableWhereItemsPushDownEnabled()) {
+            return Collections.emptyList();
+        }
+        final Table table = MetaModelHelper.resolveTable(fromItem);
+        final List<FilterItem> result = new ArrayList<>();
+        for (final FilterItem whereItem : whereItems) {
+            if (isTableWhereItem(whereItem, fromItem, table)) {
+                result.add(whereItem);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Gets the WHERE items that remain to be evaluated when the from items of a query have been materialized, ie. all
+     * WHERE items except those of {@link #getTableWhereItems(List, FromItem, List)}.
+     */
+    final List<FilterItem> getJoinWhereItems(final List<FromItem> fromItems, final List<FilterItem> whereItems) {
+        if (fromItems.size() < 2 || whereItems.isEmpty()) {
+            return whereItems;
+        }
+        final List<FilterItem> result = new ArrayList<>(whereItems);
+        for (final FromItem fromItem : fromItems) {
+            result.removeAll(getTableWhereItems(fromItems, fromItem, whereItems));
+        }
+        return result;
+    }
+
+    private static boolean isTableWhereItem(final FilterItem whereItem, final FromItem fromItem, final Table table) {
+        if (whereItem.getExpression() != null) {
+            return false;
+        }
+        if (whereItem.isCompoundFilter()) {
+            for (final FilterItem childItem : whereItem.getChildItems()) {
+                if (!isTableWhereItem(childItem, fromItem, table)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        final SelectItem selectItem = whereItem.getSelectItem();
+        if (selectItem == null || selectItem.hasFunction() || !isSelectItemOfTable(selectItem, fromItem, table)) {
+            return false;
+        }
+        final Object operand = whereItem.getOperand();
+        if (operand instanceof SelectItem) {
+            final SelectItem operandItem = (SelectItem) operand;
+            return !operandItem.hasFunction() && isSelectItemOfTable(operandItem, fromItem, table);
+        }
+        return !(operand instanceof Query);
+    }
+
+    static boolean isSelectItemOfTable(final SelectItem selectItem, final FromItem fromItem,
+            final Table table) {
+        final FromItem selectedFromItem = selectItem.getFromItem();
+        if (selectedFromItem != null) {
+            return selectedFromItem.equals(fromItem);
+        }
+        // the select item does not specify a specific from-item - we assume
+        // that if the table matches, we will use the column
+        final Column selectedColumn = selectItem.getColumn();
+        return selectedColumn != null && selectedColumn.getTable() != null && selectedColumn.getTable().equals(table);
+    }
+
+    /**
+     * Gets the select items that are materialized for a table from item.
+     */
+    static List<SelectItem> getSelectItemsToMaterialize(final FromItem fromItem, final List<SelectItem> selectItems) {
+        final Table table = MetaModelHelper.resolveTable(fromItem);
+        final List<SelectItem> selectItemsToMaterialize = new ArrayList<SelectItem>();
+        for (final SelectItem selectItem : selectItems) {
+            if (isSelectItemOfTable(selectItem, fromItem, table)) {
+                selectItemsToMaterialize.add(selectItem.replaceFunction(null));
+            }
+        }
+        return selectItemsToMaterialize;
+    }
+
     protected DataSet materializeFromItem(final FromItem fromItem, final List<SelectItem> selectItems) {
+        return materializeFromItem(fromItem, selectItems, Collections.emptyList());
+    }
+
+    /**
+     * Materializes a from item.
+     * 
+     * @param fromItem
+     *            the from item to materialize
+     * @param selectItems
+     *            the select items that are needed to execute the query
+     * @param whereItems
+     *            WHERE items that only concern the from item, if it is a table. These are applied when
+     *            materializing the table, and are not evaluated again after joining the from items.
+     * @return the materialized from item
+     */
+    protected DataSet materializeFromItem(final FromItem fromItem, final List<SelectItem> selectItems,
+            final List<FilterItem> whereItems) {
         DataSet dataSet;
         JoinType joinType = fromItem.getJoin();
         if (fromItem.getTable() != null) {
             // We need to materialize a single table
             final Table table = MetaModelHelper.resolveTable(fromItem);
-            final List<SelectItem> selectItemsToMaterialize = new ArrayList<SelectItem>();
-            
-            for (final SelectItem selectItem : selectItems) {
-                final FromItem selectedFromItem = selectItem.getFromItem();
-                if (selectedFromItem != null) {
-                    if (selectedFromItem.equals(fromItem)) {
-                        selectItemsToMaterialize.add(selectItem.replaceFunction(null));
-                    }
-                } else {
-                    // the select item does not specify a specific
-                    // from-item
-                    final Column selectedColumn = selectItem.getColumn();
-                    if (selectedColumn != null) {
-                        // we assume that if the table matches, we will use the
-                        // column
-                        if (selectedColumn.getTable() != null && selectedColumn.getTable().equals(table)) {
-                            selectItemsToMaterialize.add(selectItem.replaceFunction(null));
-                        }
-                    }
-                }
-            }
+            final List<SelectItem> selectItemsToMaterialize = getSelectItemsToMaterialize(fromItem, selectItems);
 
             if (logger.isDebugEnabled()) {
-                logger.debug("calling materializeTable(" + table.getName() + "," + selectItemsToMaterialize + ",1,-1");
+                logger.debug("calling materializeTable(" + table.getName() + "," + selectItemsToMaterialize + ","
+                        + whereItems + ",1,-1");
             }
 
             // Dispatching to the concrete subclass of
             // QueryPostprocessDataContextStrategy
-            dataSet = materializeTable(table, selectItemsToMaterialize, Collections.emptyList(), 1, -1);
+            dataSet = materializeTable(table, selectItemsToMaterialize, whereItems, 1, -1);
 
         } else if (joinType != null) {
             // We need to (recursively) materialize a joined FromItem
@@ -366,6 +569,110 @@ public abstract class QueryPostprocessDataContext extends AbstractDataContext im
         return dataSet;
     }
 
+    /**
+     * Explains the materialization of the from items of a query, see
+     * {@link #materializeFromItems(List, List, List)}.
+     */
+    QueryPlan[] explainFromItems(final List<FromItem> fromItems, final List<SelectItem> selectItems,
+            final List<FilterItem> whereItems) {
+        final QueryPlan[] fromPlans = new QueryPlan[fromItems.size()];
+        for (int i = 0; i < fromPlans.length; i++) {
+            final FromItem fromItem = fromItems.get(i);
+            fromPlans[i] = explainFromItem(fromItem, selectItems, getTableWhereItems(fromItems, fromItem, whereItems));
+        }
+        return fromPlans;
+    }
+
+    /**
+     * Explains the materialization of a from item, see {@link #materializeFromItem(FromItem, List, List)}.
+     */
+    final QueryPlan explainFromItem(final FromItem fromItem, final List<SelectItem> selectItems,
+            final List<FilterItem> whereItems) {
+        if (fromItem.getTable() != null) {
+            final Table table = MetaModelHelper.resolveTable(fromItem);
+            return explainTable(table, getSelectItemsToMaterialize(fromItem, selectItems), whereItems, 1, -1);
+        }
+        final JoinType joinType = fromItem.getJoin();
+        if (joinType != null) {
+            if (fromItem.getLeftSide() == null || fromItem.getRightSide() == null) {
+                throw new IllegalArgumentException("Joined FromItem requires both left and right side: " + fromItem);
+            }
+            final List<SelectItem> leftOn = Arrays.asList(fromItem.getLeftOn());
+            final List<SelectItem> leftSelectItems = CollectionUtils.concat(true, selectItems, leftOn);
+            final List<SelectItem> rightOn = Arrays.asList(fromItem.getRightOn());
+            final List<SelectItem> rightSelectItems = CollectionUtils.concat(true, selectItems, rightOn);
+
+            final List<FilterItem> onConditions = new ArrayList<>(leftOn.size());
+            for (int i = 0; i < leftOn.size(); i++) {
+                onConditions.add(new FilterItem(leftOn.get(i), OperatorType.EQUALS_TO, rightOn.get(i)));
+            }
+            final List<FilterItem> joinFilters = MetaModelHelper.getJoinFilters(onConditions,
+                    QueryPostprocessPlan.getMaterializedSelectItems(fromItem.getLeftSide(), leftSelectItems),
+                    QueryPostprocessPlan.getMaterializedSelectItems(fromItem.getRightSide(), rightSelectItems));
+
+            return QueryPostprocessPlan.explainJoin(joinType,
+                    explainFromItem(fromItem.getLeftSide(), leftSelectItems, Collections.emptyList()),
+                    explainFromItem(fromItem.getRightSide(), rightSelectItems, Collections.emptyList()), joinFilters,
+                    null);
+        }
+        if (fromItem.getSubQuery() != null) {
+            final QueryPlan subQueryPlan = explain(fromItem.getSubQuery());
+            return new QueryPlan("sub-query", Execution.STREAMING, fromItem.getAlias(),
+                    subQueryPlan.getEstimatedRowCount(), subQueryPlan);
+        }
+        throw new IllegalArgumentException("FromItem type not supported: " + fromItem);
+    }
+
+    /**
+     * Explains the materialization of a table, see {@link #materializeTable(Table, List, List, int, int)}.
+     */
+    final QueryPlan explainTable(final Table table, List<SelectItem> selectItems,
+            final List<FilterItem> whereItems, final int firstRow, final int maxRows) {
+        if (selectItems.isEmpty() && !table.getColumns().isEmpty()) {
+            // any column is materialized (typically because of COUNT(*) queries)
+            selectItems = Collections.singletonList(new SelectItem(table.getColumns().get(0)));
+        }
+        final Schema schema = table.getSchema();
+        if (schema != null && INFORMATION_SCHEMA_NAME.equals(schema.getName())) {
+            QueryPlan plan = new QueryPlan("scan", Execution.STREAMING, QueryPostprocessPlan.describeQuery(
+                    buildWorkingSelectItems(selectItems, whereItems), table, Collections.emptyList(), 1, -1), null);
+            plan = QueryPostprocessPlan.explainFilter(plan, whereItems, null);
+            return QueryPostprocessPlan.explainPaging(plan, firstRow, maxRows);
+        }
+        return explainMainSchemaTable(table, selectItems, whereItems, firstRow, maxRows);
+    }
+
+    /**
+     * Explains the materialization of a table in the main schema, see
+     * {@link #materializeMainSchemaTable(Table, List, List, int, int)}. Subclasses that override the materialization
+     * to push WHERE items or paging down to the datastore should override this method accordingly, so that the plan
+     * shows the native query that the datastore receives.
+     * 
+     * @param table
+     * @param selectItems
+     * @param whereItems
+     * @param firstRow
+     * @param maxRows
+     * @return the plan of the materialization
+     */
+    protected QueryPlan explainMainSchemaTable(Table table, List<SelectItem> selectItems, List<FilterItem> whereItems,
+            int firstRow, int maxRows) {
+        final Long rowCount = estimateRowCount(table, Collections.emptyList());
+        if (whereItems.isEmpty()) {
+            // paging is pushed down to materializeMainSchemaTable
+            return new QueryPlan("scan", Execution.DATASTORE, QueryPostprocessPlan.describeQuery(selectItems, table,
+                    whereItems, firstRow, maxRows), QueryPostprocessPlan.getPagedRowCount(rowCount, firstRow, maxRows));
+        }
+        QueryPlan plan = new QueryPlan("scan", Execution.DATASTORE, QueryPostprocessPlan.describeQuery(
+                buildWorkingSelectItems(selectItems, whereItems), table, Collections.emptyList(), 1, -1), rowCount);
+        Long filteredRowCount = estimateRowCount(table, whereItems);
+        if (filteredRowCount == null && rowCount != null) {
+            filteredRowCount = JoinPlanner.getFilteredRowCount(rowCount, whereItems);
+        }
+        plan = QueryPostprocessPlan.explainFilter(plan, whereItems, filteredRowCount);
+        return QueryPostprocessPlan.explainPaging(plan, firstRow, maxRows);
+    }
+
     protected DataSet materializeTable(final Table table, final List<SelectItem> selectItems,
             final List<FilterItem> whereItems, final int firstRow, final int maxRows) {
         if (table == null) {
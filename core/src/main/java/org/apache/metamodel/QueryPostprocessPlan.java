@@ -0,0 +1,657 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.metamodel;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+import org.apache.metamodel.data.DataSet;
+import org.apache.metamodel.data.DataSetHeader;
+import org.apache.metamodel.data.DefaultRow;
+import org.apache.metamodel.data.EmptyDataSet;
+import org.apache.metamodel.data.InMemoryDataSet;
+import org.apache.metamodel.data.Row;
+import org.apache.metamodel.data.SimpleDataSetHeader;
+import org.apache.metamodel.query.FilterItem;
+import org.apache.metamodel.query.FromItem;
+import org.apache.metamodel.query.GroupByItem;
+import org.apache.metamodel.query.JoinType;
+import org.apache.metamodel.query.OperatorType;
+import org.apache.metamodel.query.OrderByItem;
+import org.apache.metamodel.query.Query;
+import org.apache.metamodel.query.QueryPlan;
+import org.apache.metamodel.query.QueryPlan.Execution;
+import org.apache.metamodel.query.SelectClause;
+import org.apache.metamodel.query.SelectItem;
+import org.apache.metamodel.schema.Column;
+import org.apache.metamodel.schema.Table;
+import org.apache.metamodel.util.CollectionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The execution plan of a {@link Query} in a {@link QueryPostprocessDataContext}. All decisions that do not depend on
+ * the operands of the WHERE items are made once when the plan is created, so that a plan can be executed repeatedly
+ * with different WHERE items of the same shape, see {@link QueryPostprocessCompiledQuery}.
+ */
+final class QueryPostprocessPlan {
+
+    private static final Logger logger = LoggerFactory.getLogger(QueryPostprocessPlan.class);
+
+    private final QueryPostprocessDataContext _dataContext;
+    private final List<SelectItem> _selectItems;
+    private final List<FromItem> _fromItems;
+    private final List<GroupByItem> _groupByItems;
+    private final List<FilterItem> _havingItems;
+    private final List<OrderByItem> _orderByItems;
+    private final List<SelectItem> _workSelectItems;
+    private final List<SelectItem> _postFilterSelectItems;
+    private final boolean _distinct;
+    private final int _firstRow;
+    private final int _maxRows;
+    private final boolean _parallelPostprocessingApplicable;
+
+    // the table of the common query types that can often be optimized by subclasses
+    private final Table _table;
+    private final SelectItem _countSelectItem;
+    private final Column _primaryKeyColumn;
+    private final boolean _materializeTable;
+
+    public QueryPostprocessPlan(QueryPostprocessDataContext dataContext, Query query) {
+        _dataContext = dataContext;
+        _selectItems = new ArrayList<>(query.getSelectClause().getItems());
+        _fromItems = new ArrayList<>(query.getFromClause().getItems());
+        _groupByItems = new ArrayList<>(query.getGroupByClause().getItems());
+        _havingItems = new ArrayList<>(query.getHavingClause().getItems());
+        _orderByItems = new ArrayList<>(query.getOrderByClause().getItems());
+        _distinct = query.getSelectClause().isDistinct();
+        _firstRow = (query.getFirstRow() == null ? 1 : query.getFirstRow());
+        _maxRows = (query.getMaxRows() == null ? -1 : query.getMaxRows());
+
+        final List<FilterItem> whereItems = query.getWhereClause().getItems();
+        final List<SelectItem> whereSelectItems = query.getWhereClause().getEvaluatedSelectItems();
+        final List<SelectItem> groupBySelectItems = query.getGroupByClause().getEvaluatedSelectItems();
+        final List<SelectItem> havingSelectItems = query.getHavingClause().getEvaluatedSelectItems();
+        final List<SelectItem> orderBySelectItems = query.getOrderByClause().getEvaluatedSelectItems();
+
+        // Creates a list for all select items that are needed to execute query
+        // (some may only be used as part of a filter, but not shown in result)
+        _workSelectItems = CollectionUtils.concat(true, _selectItems, whereSelectItems, groupBySelectItems,
+                havingSelectItems, orderBySelectItems);
+
+        // we can exclude the select items imposed by the WHERE clause after
+        // filtering (and should, to make the aggregation process faster)
+        _postFilterSelectItems = CollectionUtils.concat(true, _selectItems, groupBySelectItems, havingSelectItems,
+                orderBySelectItems);
+
+        final boolean singleFromItem = _fromItems.size() == 1;
+        _parallelPostprocessingApplicable = singleFromItem
+                && ParallelPostprocessor.isApplicable(_postFilterSelectItems, _groupByItems);
+
+        // check certain common query types that can often be optimized by
+        // subclasses
+        final boolean noGrouping = _groupByItems.isEmpty() && _havingItems.isEmpty();
+        final Table table;
+        if (singleFromItem && noGrouping) {
+            table = MetaModelHelper.resolveTable(_fromItems.get(0));
+        } else {
+            table = null;
+        }
+        _table = table;
+
+        SelectItem countSelectItem = null;
+        Column primaryKeyColumn = null;
+        boolean materializeTable = false;
+        if (table != null) {
+            // check for SELECT COUNT(*) queries
+            if (_selectItems.size() == 1 && SelectItem.isCountAllItem(_selectItems.get(0))
+                    && dataContext.isMainSchemaTable(table)) {
+                countSelectItem = _selectItems.get(0);
+            }
+
+            if (isSimpleSelect(query.getSelectClause())) {
+                // check for lookup query by primary key
+                if (whereItems.size() == 1) {
+                    final FilterItem whereItem = whereItems.get(0);
+                    final SelectItem selectItem = whereItem.getSelectItem();
+                    if (!whereItem.isCompoundFilter() && selectItem != null && !selectItem.hasFunction()
+                            && selectItem.getColumn() != null) {
+                        final Column column = selectItem.getColumn();
+                        if (column.isPrimaryKey() && OperatorType.EQUALS_TO.equals(whereItem.getOperator())
+                                && dataContext.isMainSchemaTable(table)) {
+                            primaryKeyColumn = column;
+                        }
+                    }
+                }
+
+                // check for simple queries with or without simple criteria
+                materializeTable = _orderByItems.isEmpty();
+            }
+        }
+        _countSelectItem = countSelectItem;
+        _primaryKeyColumn = primaryKeyColumn;
+        _materializeTable = materializeTable;
+    }
+
+    /**
+     * Determines if all the select items are 'simple' meaning that they just represent scans of values in columns.
+     *
+     * @param clause
+     * @return
+     */
+    private static boolean isSimpleSelect(SelectClause clause) {
+        if (clause.isDistinct()) {
+            return false;
+        }
+        for (SelectItem item : clause.getItems()) {
+            if (item.getAggregateFunction() != null || item.getExpression() != null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Executes the plan.
+     * 
+     * @param whereItems
+     *            the WHERE items of the query, which must have the same select items and operators as the WHERE items
+     *            of the query that the plan was created for.
+     * @param tracker
+     *            the tracker to report the execution to, or null if the execution is not tracked
+     * @return the result of the query
+     */
+    public DataSet execute(final List<FilterItem> whereItems, final QueryExecutionTracker tracker) {
+        if (tracker == null) {
+            return executeInternal(whereItems, null);
+        }
+        final QueryExecutionTracker previousTracker = tracker.activate();
+        try {
+            return executeInternal(whereItems, tracker);
+        } finally {
+            QueryExecutionTracker.restore(previousTracker);
+        }
+    }
+
+    private DataSet executeInternal(final List<FilterItem> whereItems, final QueryExecutionTracker tracker) {
+        if (_maxRows == 0) {
+            // no rows requested - no reason to do anything
+            return new EmptyDataSet(_selectItems);
+        }
+
+        if (_countSelectItem != null) {
+            logger.debug("Query is a COUNT query with {} where items. Trying executeCountQuery(...)",
+                    whereItems.size());
+            strategyChosen(tracker, QueryExecutionStrategy.COUNT_QUERY);
+            final long startNanos = startNanos(tracker);
+            final Number count = _dataContext.executeCountQuery(_table, whereItems,
+                    _countSelectItem.isFunctionApproximationAllowed());
+            if (count == null) {
+                logger.debug("DataContext did not return any count query results. Proceeding with manual counting.");
+            } else {
+                final List<Row> data = new ArrayList<Row>(1);
+                final DataSetHeader header = new SimpleDataSetHeader(new SelectItem[] { _countSelectItem });
+                data.add(new DefaultRow(header, new Object[] { count }));
+                return track(tracker, "count", new InMemoryDataSet(header, data), startNanos);
+            }
+        }
+
+        if (_primaryKeyColumn != null) {
+            logger.debug("Query is a primary key lookup query. Trying executePrimaryKeyLookupQuery(...)");
+            strategyChosen(tracker, QueryExecutionStrategy.PRIMARY_KEY_LOOKUP);
+            final long startNanos = startNanos(tracker);
+            final Object operand = whereItems.get(0).getOperand();
+            final Row row = _dataContext.executePrimaryKeyLookupQuery(_table, _selectItems, _primaryKeyColumn,
+                    operand);
+            if (row == null) {
+                logger.debug("DataContext did not return any GET query results. Proceeding with manual lookup.");
+            } else {
+                final DataSetHeader header = new SimpleDataSetHeader(_selectItems);
+                return track(tracker, "primary key lookup", new InMemoryDataSet(header, row), startNanos);
+            }
+        }
+
+        if (_materializeTable) {
+            strategyChosen(tracker, QueryExecutionStrategy.MATERIALIZE_TABLE);
+            final long startNanos = startNanos(tracker);
+            final DataSet dataSet = _dataContext.materializeTable(_table, _selectItems, whereItems, _firstRow,
+                    _maxRows);
+            return track(tracker, "materialize table", dataSet, startNanos);
+        }
+
+        strategyChosen(tracker, QueryExecutionStrategy.POSTPROCESS);
+
+        // Plan the join order before the tables are materialized
+        final int[] joinOrder = getJoinOrder(whereItems);
+
+        // Materialize the tables in the from clause
+        long startNanos = startNanos(tracker);
+        final DataSet[] fromDataSets = _dataContext.materializeFromItems(_fromItems, _workSelectItems, whereItems);
+        if (tracker != null) {
+            for (int i = 0; i < fromDataSets.length; i++) {
+                fromDataSets[i] = tracker.track("materialize " + _fromItems.get(i).toSql(), fromDataSets[i],
+                        startNanos);
+            }
+            startNanos = System.nanoTime();
+        }
+
+        // the WHERE items that only concern one table were applied when materializing it
+        final List<FilterItem> joinWhereItems = _dataContext.getJoinWhereItems(_fromItems, whereItems);
+
+        DataSet dataSet;
+        final ForkJoinPool parallelExecutionPool = _dataContext.getParallelExecutionPool();
+        if (parallelExecutionPool != null && _parallelPostprocessingApplicable) {
+            dataSet = new ParallelPostprocessor(parallelExecutionPool, _postFilterSelectItems, joinWhereItems,
+                    _groupByItems).postprocess(fromDataSets[0]);
+            dataSet = track(tracker, "parallel filter and aggregate", dataSet, startNanos, fromDataSets[0]);
+        } else {
+            // Execute the query using the raw data
+            if (joinOrder == null) {
+                dataSet = MetaModelHelper.getCarthesianProduct(fromDataSets, joinWhereItems);
+            } else {
+                final DataSet[] orderedDataSets = new DataSet[fromDataSets.length];
+                for (int i = 0; i < joinOrder.length; i++) {
+                    orderedDataSets[i] = fromDataSets[joinOrder[i]];
+                }
+                logger.debug("Joining from items in order: {}", joinOrder);
+                dataSet = MetaModelHelper.getCarthesianProduct(orderedDataSets, joinWhereItems);
+            }
+            if (tracker != null) {
+                dataSet = tracker.track(fromDataSets.length == 1 ? "filter" : "join", dataSet, startNanos,
+                        fromDataSets);
+            }
+
+            DataSet input = dataSet;
+            startNanos = startNanos(tracker);
+            if (_groupByItems.size() > 0) {
+                dataSet = MetaModelHelper.getGrouped(_postFilterSelectItems, dataSet, _groupByItems);
+                dataSet = track(tracker, "group", dataSet, startNanos, input);
+            } else {
+                dataSet = MetaModelHelper.getAggregated(_postFilterSelectItems, dataSet);
+                if (dataSet != input) {
+                    dataSet = track(tracker, "aggregate", dataSet, startNanos, input);
+                }
+            }
+        }
+
+        if (!_havingItems.isEmpty()) {
+            final DataSet input = dataSet;
+            startNanos = startNanos(tracker);
+            dataSet = MetaModelHelper.getFiltered(dataSet, _havingItems);
+            dataSet = track(tracker, "having", dataSet, startNanos, input);
+        }
+
+        if (_distinct) {
+            dataSet = MetaModelHelper.getSelection(_selectItems, dataSet);
+            final DataSet input = dataSet;
+            startNanos = startNanos(tracker);
+            dataSet = MetaModelHelper.getDistinct(dataSet, _dataContext.getDistinctBufferSize());
+            dataSet = track(tracker, "distinct", dataSet, startNanos, input);
+            dataSet = getOrdered(dataSet, tracker);
+        } else {
+            dataSet = getOrdered(dataSet, tracker);
+            dataSet = MetaModelHelper.getSelection(_selectItems, dataSet);
+        }
+
+        dataSet = MetaModelHelper.getPaged(dataSet, _firstRow, _maxRows);
+        return dataSet;
+    }
+
+    /**
+     * Explains the plan, see {@link DataContext#explain(Query)}. COUNT and primary key lookup queries are explained as
+     * handled by the datastore if the {@link DataContext} implements them, without executing them. Such queries are
+     * still postprocessed if the datastore turns out not to support a particular query when the plan is executed.
+     * 
+     * @param whereItems
+     *            the WHERE items of the query
+     * @return the explained plan
+     */
+    public QueryPlan explain(final List<FilterItem> whereItems) {
+        if (_maxRows == 0) {
+            return new QueryPlan("empty", Execution.STREAMING, "no rows requested", 0L);
+        }
+
+        if (_countSelectItem != null && _dataContext.isCountQueryImplemented()) {
+            return new QueryPlan("count", Execution.DATASTORE, describeQuery(_selectItems, _table, whereItems, 1, -1),
+                    1L);
+        }
+
+        if (_primaryKeyColumn != null && _dataContext.isPrimaryKeyLookupQueryImplemented()) {
+            return new QueryPlan("primary key lookup", Execution.DATASTORE,
+                    describeQuery(_selectItems, _table, whereItems, 1, -1), 1L);
+        }
+
+        if (_materializeTable) {
+            return _dataContext.explainTable(_table, _selectItems, whereItems, _firstRow, _maxRows);
+        }
+
+        final QueryPlan[] fromPlans = _dataContext.explainFromItems(_fromItems, _workSelectItems, whereItems);
+
+        QueryPlan plan;
+        final ForkJoinPool parallelExecutionPool = _dataContext.getParallelExecutionPool();
+        if (parallelExecutionPool != null && _parallelPostprocessingApplicable) {
+            plan = new QueryPlan("parallel filter and aggregate", Execution.BUFFERING,
+                    join(" ", describeWhere(whereItems), describeGroupBy()), null, fromPlans[0]);
+        } else {
+            plan = explainWhere(fromPlans, whereItems);
+            if (!_groupByItems.isEmpty()) {
+                plan = new QueryPlan("group", Execution.BUFFERING, describeGroupBy(), null, plan);
+            } else if (!MetaModelHelper.getAggregateFunctionSelectItems(_postFilterSelectItems).isEmpty()) {
+                plan = new QueryPlan("aggregate", Execution.STREAMING, null, 1L, plan);
+            }
+        }
+
+        if (!_havingItems.isEmpty()) {
+            plan = new QueryPlan("having", Execution.STREAMING, "HAVING " + describeFilters(_havingItems), null,
+                    plan);
+        }
+
+        if (_distinct) {
+            final int distinctBufferSize = _dataContext.getDistinctBufferSize();
+            plan = new QueryPlan("distinct", Execution.BUFFERING,
+                    distinctBufferSize < 0 ? null : "buffer size: " + distinctBufferSize, null, plan);
+        }
+
+        if (!_orderByItems.isEmpty()) {
+            final String orderBy = "ORDER BY " + _orderByItems.stream().map(OrderByItem::toSql).collect(
+                    Collectors.joining(", "));
+            final int sortBufferSize = _dataContext.getSortBufferSize();
+            final long topN = _maxRows == -1 ? -1 : _firstRow - 1L + _maxRows;
+            if (topN != -1 && topN <= sortBufferSize) {
+                plan = new QueryPlan("top-n sort", Execution.BUFFERING, orderBy + " (keeping " + topN + " rows)",
+                        plan.getEstimatedRowCount(), plan);
+            } else {
+                plan = new QueryPlan("sort", Execution.BUFFERING, orderBy + " (sort buffer size: " + sortBufferSize
+                        + ")", plan.getEstimatedRowCount(), plan);
+            }
+        }
+
+        return explainPaging(plan, _firstRow, _maxRows);
+    }
+
+    private QueryPlan explainWhere(final QueryPlan[] fromPlans, final List<FilterItem> whereItems) {
+        if (fromPlans.length == 1) {
+            final FromItem fromItem = _fromItems.get(0);
+            final Long estimatedRowCount;
+            if (fromItem.getTable() == null || whereItems.isEmpty()) {
+                estimatedRowCount = null;
+            } else {
+                estimatedRowCount = _dataContext.estimateRowCount(MetaModelHelper.resolveTable(fromItem), whereItems);
+            }
+            return explainFilter(fromPlans[0], whereItems, estimatedRowCount);
+        }
+
+        final List<List<SelectItem>> inputSelectItems = getMaterializedSelectItems();
+
+        // joins are left-deep, in the planned order or the order of the FROM clause
+        final JoinPlanner joinPlanner = getJoinPlanner(inputSelectItems, whereItems);
+        final int[] joinOrder;
+        final long[] joinRowCounts;
+        if (joinPlanner == null) {
+            joinOrder = new int[fromPlans.length];
+            for (int i = 0; i < joinOrder.length; i++) {
+                joinOrder[i] = i;
+            }
+            joinRowCounts = null;
+        } else {
+            joinOrder = joinPlanner.getJoinOrder();
+            joinRowCounts = joinPlanner.getJoinRowCounts(joinOrder);
+        }
+
+        QueryPlan plan = fromPlans[joinOrder[0]];
+        List<SelectItem> leftItems = inputSelectItems.get(joinOrder[0]);
+        for (int i = 1; i < joinOrder.length; i++) {
+            final List<SelectItem> rightItems = inputSelectItems.get(joinOrder[i]);
+            plan = explainJoin(JoinType.INNER, plan, fromPlans[joinOrder[i]],
+                    MetaModelHelper.getJoinFilters(whereItems, leftItems, rightItems),
+                    joinRowCounts == null ? null : joinRowCounts[i - 1]);
+            leftItems = CollectionUtils.concat(false, leftItems, rightItems);
+        }
+        return plan;
+    }
+
+    private String describeGroupBy() {
+        if (_groupByItems.isEmpty()) {
+            return null;
+        }
+        return "GROUP BY " + _groupByItems.stream().map(GroupByItem::toSql).collect(Collectors.joining(", "));
+    }
+
+    /**
+     * Explains the join of two materialized from items.
+     * 
+     * @param joinType
+     *            the type of join
+     * @param left
+     *            the plan of the left side of the join
+     * @param right
+     *            the plan of the right side of the join
+     * @param joinFilters
+     *            the filters that relate the two sides, see
+     *            {@link MetaModelHelper#getJoinFilters(java.util.Collection, List, List)}
+     * @param estimatedRowCount
+     *            the estimated row count of the join, or null if unknown
+     * @return the plan of the join
+     */
+    static QueryPlan explainJoin(final JoinType joinType, final QueryPlan left, final QueryPlan right,
+            final List<FilterItem> joinFilters, final Long estimatedRowCount) {
+        final String description = joinFilters.isEmpty() ? null : "ON " + describeFilters(joinFilters);
+        switch (joinType) {
+        case LEFT:
+            return new QueryPlan("hash left join", Execution.BUFFERING, description, estimatedRowCount, left, right);
+        case RIGHT:
+            return new QueryPlan("hash right join", Execution.BUFFERING, description, estimatedRowCount, left,
+                    right);
+        default:
+            for (FilterItem joinFilter : joinFilters) {
+                if (!joinFilter.isCompoundFilter() && OperatorType.EQUALS_TO.equals(joinFilter.getOperator())) {
+                    return new QueryPlan("hash join", Execution.BUFFERING, description, estimatedRowCount, left,
+                            right);
+                }
+            }
+            return new QueryPlan("nested loop join", Execution.BUFFERING, description, estimatedRowCount, left,
+                    right);
+        }
+    }
+
+    /**
+     * Gets the select items of the {@link DataSet} that a from item is materialized to.
+     */
+    static List<SelectItem> getMaterializedSelectItems(final FromItem fromItem, final List<SelectItem> selectItems) {
+        if (fromItem.getTable() != null) {
+            return QueryPostprocessDataContext.getSelectItemsToMaterialize(fromItem, selectItems);
+        }
+        if (fromItem.getJoin() != null && fromItem.getLeftSide() != null && fromItem.getRightSide() != null) {
+            final List<SelectItem> leftItems = getMaterializedSelectItems(fromItem.getLeftSide(),
+                    CollectionUtils.concat(true, selectItems, Arrays.asList(fromItem.getLeftOn())));
+            final List<SelectItem> rightItems = getMaterializedSelectItems(fromItem.getRightSide(),
+                    CollectionUtils.concat(true, selectItems, Arrays.asList(fromItem.getRightOn())));
+            return CollectionUtils.concat(false, leftItems, rightItems);
+        }
+        if (fromItem.getSubQuery() != null) {
+            return fromItem.getSubQuery().getSelectClause().getItems();
+        }
+        return Collections.emptyList();
+    }
+
+    /**
+     * Wraps a plan in an in-memory filter operator, if there are any WHERE items to apply.
+     */
+    static QueryPlan explainFilter(final QueryPlan plan, final List<FilterItem> whereItems,
+            final Long estimatedRowCount) {
+        if (whereItems.isEmpty()) {
+            return plan;
+        }
+        return new QueryPlan("filter", Execution.STREAMING, describeWhere(whereItems), estimatedRowCount, plan);
+    }
+
+    /**
+     * Wraps a plan in an in-memory paging operator, if a first row or max rows is specified.
+     */
+    static QueryPlan explainPaging(final QueryPlan plan, final int firstRow, final int maxRows) {
+        if (firstRow <= 1 && maxRows < 0) {
+            return plan;
+        }
+        return new QueryPlan("page", Execution.STREAMING, describePaging(firstRow, maxRows),
+                getPagedRowCount(plan.getEstimatedRowCount(), firstRow, maxRows), plan);
+    }
+
+    static Long getPagedRowCount(final Long rowCount, final int firstRow, final int maxRows) {
+        if (rowCount == null) {
+            return maxRows < 0 ? null : Long.valueOf(maxRows);
+        }
+        final long rowsAfterFirstRow = Math.max(0, rowCount - Math.max(0, firstRow - 1));
+        return maxRows < 0 ? rowsAfterFirstRow : Math.min(rowsAfterFirstRow, maxRows);
+    }
+
+    /**
+     * Describes a single-table query, eg. as received by a datastore.
+     */
+    static String describeQuery(final List<SelectItem> selectItems, final Table table,
+            final List<FilterItem> whereItems, final int firstRow, final int maxRows) {
+        final String select = "SELECT " + selectItems.stream().map(SelectItem::toSql).collect(
+                Collectors.joining(", ")) + " FROM " + table.getQualifiedLabel();
+        return join(" ", select, describeWhere(whereItems), describePaging(firstRow, maxRows));
+    }
+
+    private static String describeWhere(final List<FilterItem> whereItems) {
+        if (whereItems.isEmpty()) {
+            return null;
+        }
+        return "WHERE " + describeFilters(whereItems);
+    }
+
+    private static String describeFilters(final List<FilterItem> filterItems) {
+        return filterItems.stream().map(FilterItem::toSql).collect(Collectors.joining(" AND "));
+    }
+
+    private static String describePaging(final int firstRow, final int maxRows) {
+        final List<String> paging = new ArrayList<>(2);
+        if (firstRow > 1) {
+            paging.add("FIRST ROW " + firstRow);
+        }
+        if (maxRows >= 0) {
+            paging.add("MAX ROWS " + maxRows);
+        }
+        return paging.isEmpty() ? null : String.join(" ", paging);
+    }
+
+    private static String join(final String delimiter, final String... parts) {
+        return Arrays.stream(parts).filter(part -> part != null).collect(Collectors.joining(delimiter));
+    }
+
+    private List<List<SelectItem>> getMaterializedSelectItems() {
+        final List<List<SelectItem>> result = new ArrayList<>(_fromItems.size());
+        for (FromItem fromItem : _fromItems) {
+            result.add(getMaterializedSelectItems(fromItem, _workSelectItems));
+        }
+        return result;
+    }
+
+    /**
+     * Plans the order in which the from items are joined, see {@link JoinPlanner}.
+     * 
+     * @param whereItems
+     *            the WHERE items of the query
+     * @return the indexes of the from items in the order that they should be joined, or null if they should be joined
+     *         in the order of the FROM clause
+     */
+    private int[] getJoinOrder(final List<FilterItem> whereItems) {
+        if (!isJoinReorderingApplicable()) {
+            // avoid resolving the materialized select items
+            return null;
+        }
+        final JoinPlanner joinPlanner = getJoinPlanner(getMaterializedSelectItems(), whereItems);
+        if (joinPlanner == null) {
+            return null;
+        }
+        final int[] joinOrder = joinPlanner.getJoinOrder();
+        for (int i = 0; i < joinOrder.length; i++) {
+            if (joinOrder[i] != i) {
+                return joinOrder;
+            }
+        }
+        return null;
+    }
+
+    private boolean isJoinReorderingApplicable() {
+        return _fromItems.size() >= 2 && _dataContext.isJoinReorderingEnabled()
+                && _dataContext.isCountQueryImplemented();
+    }
+
+    /**
+     * Creates a {@link JoinPlanner} for the from items, if join reordering is enabled, there are several from items
+     * and all of them have an estimated row count.
+     */
+    private JoinPlanner getJoinPlanner(final List<List<SelectItem>> inputSelectItems,
+            final List<FilterItem> whereItems) {
+        if (!isJoinReorderingApplicable()) {
+            return null;
+        }
+        final long[] rowCounts = new long[_fromItems.size()];
+        for (int i = 0; i < rowCounts.length; i++) {
+            final FromItem fromItem = _fromItems.get(i);
+            final Long rowCount = _dataContext.estimateRowCount(fromItem,
+                    _dataContext.getTableWhereItems(_fromItems, fromItem, whereItems));
+            if (rowCount == null) {
+                return null;
+            }
+            rowCounts[i] = rowCount;
+        }
+        return new JoinPlanner(inputSelectItems, rowCounts, whereItems);
+    }
+
+    private DataSet getOrdered(final DataSet dataSet, final QueryExecutionTracker tracker) {
+        if (_orderByItems.isEmpty()) {
+            return dataSet;
+        }
+        final long startNanos = startNanos(tracker);
+        final DataSet orderedDataSet = _dataContext.getOrdered(dataSet, _orderByItems, _firstRow, _maxRows);
+        return track(tracker, "order", orderedDataSet, startNanos, dataSet);
+    }
+
+    private static void strategyChosen(QueryExecutionTracker tracker, QueryExecutionStrategy strategy) {
+        if (tracker != null) {
+            tracker.strategyChosen(strategy);
+        }
+    }
+
+    private static long startNanos(QueryExecutionTracker tracker) {
+        return tracker == null ? 0 : System.nanoTime();
+    }
+
+    private static DataSet track(QueryExecutionTracker tracker, String operator, DataSet dataSet, long startNanos) {
+        if (tracker == null) {
+            return dataSet;
+        }
+        return tracker.track(operator, dataSet, startNanos);
+    }
+
+    private static DataSet track(QueryExecutionTracker tracker, String operator, DataSet dataSet, long startNanos,
+            DataSet input) {
+        if (tracker == null) {
+            return dataSet;
+        }
+        return tracker.track(operator, dataSet, startNanos, input);
+    }
+}
@@ -0,0 +1,157 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.metamodel.data;
+
+/**
+ * Represents the values of a single column in a {@link DataSetBatch}. Whether a value is null is kept in a bitmap, so
+ * that subclasses can hold the non-null values in primitive arrays.
+ * 
+ * @see LongColumnVector
+ * @see DoubleColumnVector
+ * @see ObjectColumnVector
+ */
+public abstract class ColumnVector {
+
+    private final int _size;
+    private final long[] _nullBitmap;
+
+    protected ColumnVector(int size, long[] nullBitmap) {
+        _size = size;
+        _nullBitmap = nullBitmap;
+    }
+
+    /**
+     * Creates a {@link ColumnVector} for a set of values. If all non-null values are of the same primitive wrapper
+     * type, a {@link LongColumnVector} or {@link DoubleColumnVector} is created, otherwise an
+     * {@link ObjectColumnVector}.
+     * 
+     * @param values
+     *            the values of the column
+     * @param size
+     *            the number of values, which may be less than the length of the array
+     * @return a column vector holding the values
+     */
+    public static ColumnVector of(Object[] values, int size) {
+        Class<?> valueClass = null;
+        for (int i = 0; i < size; i++) {
+            final Object value = values[i];
+            if (value != null) {
+                if (valueClass == null) {
+                    valueClass = value.getClass();
+                } else if (valueClass != value.getClass()) {
+                    return new ObjectColumnVector(values, size);
+                }
+            }
+        }
+
+        if (ColumnVectorBuilder.isLongClass(valueClass)) {
+            final long[] longValues = new long[size];
+            final long[] nullBitmap = createNullBitmap(size);
+            for (int i = 0; i < size; i++) {
+                final Object value = values[i];
+                if (value == null) {
+                    setBit(nullBitmap, i);
+                } else {
+                    longValues[i] = ((Number) value).longValue();
+                }
+            }
+            return new LongColumnVector(valueClass, longValues, size, nullBitmap);
+        }
+        if (ColumnVectorBuilder.isDoubleClass(valueClass)) {
+            final double[] doubleValues = new double[size];
+            final long[] nullBitmap = createNullBitmap(size);
+            for (int i = 0; i < size; i++) {
+                final Object value = values[i];
+                if (value == null) {
+                    setBit(nullBitmap, i);
+                } else {
+                    doubleValues[i] = ((Number) value).doubleValue();
+                }
+            }
+            return new DoubleColumnVector(valueClass, doubleValues, size, nullBitmap);
+        }
+        return new ObjectColumnVector(values, size);
+    }
+
+    /**
+     * Gets the number of values in this vector.
+     * 
+     * @return the number of values in this vector
+     */
+    public final int size() {
+        return _size;
+    }
+
+    /**
+     * Determines if the value at a particular index is null.
+     * 
+     * @param index
+     * @return true if the value is null
+     */
+    public final boolean isNull(int index) {
+        return (_nullBitmap[index >> 6] & (1L << index)) != 0;
+    }
+
+    /**
+     * Gets the bitmap of null values, where bit <code>i % 64</code> of element <code>i / 64</code> is set if the value
+     * at index <code>i</code> is null.
+     * 
+     * @return the null bitmap of this vector
+     */
+    public final long[] getNullBitmap() {
+        return _nullBitmap;
+    }
+
+    /**
+     * Gets the value at a particular index, as the same type of object that a {@link Row} would hold.
+     * 
+     * @param index
+     * @return the value, or null
+     */
+    public abstract Object getValue(int index);
+
+    /**
+     * Creates a new vector with the values at a selection of indexes.
+     * 
+     * @param indexes
+     *            the (ascending) indexes of the values to select
+     * @param count
+     *            the number of indexes to use
+     * @return a new vector
+     */
+    public abstract ColumnVector select(int[] indexes, int count);
+
+    protected static long[] createNullBitmap(int size) {
+        return new long[(size + 63) >> 6];
+    }
+
+    protected static void setBit(long[] bitmap, int index) {
+        bitmap[index >> 6] |= 1L << index;
+    }
+
+    protected final long[] selectNullBitmap(int[] indexes, int count) {
+        final long[] nullBitmap = createNullBitmap(count);
+        for (int i = 0; i < count; i++) {
+            if (isNull(indexes[i])) {
+                setBit(nullBitmap, i);
+            }
+        }
+        return nullBitmap;
+    }
+}
@@ -0,0 +1,125 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.metamodel.data;
+
+/**
+ * Builds a {@link ColumnVector} value by value. Values are put directly into a primitive array as long as they are all
+ * of the same integer or floating point wrapper type, and are only kept as objects once types are mixed.
+ * 
+ * Used by {@link DataSet} implementations that read the values of a batch directly from their source, see
+ * {@link DataSetBatch#of(DataSetHeader, ColumnVectorBuilder[], int)}.
+ * 
+ * @see ColumnVector#of(Object[], int)
+ */
+public final class ColumnVectorBuilder {
+
+    private final int _capacity;
+    private final long[] _nullBitmap;
+    private Class<?> _valueClass;
+    private long[] _longValues;
+    private double[] _doubleValues;
+    private Object[] _objectValues;
+    private int _size;
+
+    /**
+     * Creates builders for the columns of a batch.
+     * 
+     * @param columnCount
+     *            the number of columns of the batch
+     * @param capacity
+     *            the maximum number of rows of the batch
+     * @return an array of empty builders
+     */
+    public static ColumnVectorBuilder[] create(int columnCount, int capacity) {
+        final ColumnVectorBuilder[] builders = new ColumnVectorBuilder[columnCount];
+        for (int i = 0; i < builders.length; i++) {
+            builders[i] = new ColumnVectorBuilder(capacity);
+        }
+        return builders;
+    }
+
+    public ColumnVectorBuilder(int capacity) {
+        _capacity = capacity;
+        _nullBitmap = ColumnVector.createNullBitmap(capacity);
+    }
+
+    /**
+     * Adds the next value of the column. At most <code>capacity</code> values can be added.
+     * 
+     * @param value
+     *            the value to add, may be null
+     */
+    public void add(Object value) {
+        if (value == null) {
+            ColumnVector.setBit(_nullBitmap, _size);
+        } else if (_objectValues != null) {
+            _objectValues[_size] = value;
+        } else if (_valueClass == null) {
+            _valueClass = value.getClass();
+            if (isLongClass(_valueClass)) {
+                _longValues = new long[_capacity];
+                _longValues[_size] = ((Number) value).longValue();
+            } else if (isDoubleClass(_valueClass)) {
+                _doubleValues = new double[_capacity];
+                _doubleValues[_size] = ((Number) value).doubleValue();
+            } else {
+                _objectValues = new Object[_capacity];
+                _objectValues[_size] = value;
+            }
+        } else if (_valueClass != value.getClass()) {
+            // types are mixed, so the values already added have to be kept as objects
+            final ColumnVector vector = build();
+            _objectValues = new Object[_capacity];
+            for (int i = 0; i < _size; i++) {
+                _objectValues[i] = vector.getValue(i);
+            }
+            _longValues = null;
+            _doubleValues = null;
+            _objectValues[_size] = value;
+        } else if (_longValues != null) {
+            _longValues[_size] = ((Number) value).longValue();
+        } else {
+            _doubleValues[_size] = ((Number) value).doubleValue();
+        }
+        _size++;
+    }
+
+    public ColumnVector build() {
+        if (_longValues != null) {
+            return new LongColumnVector(_valueClass, _longValues, _size, _nullBitmap);
+        }
+        if (_doubleValues != null) {
+            return new DoubleColumnVector(_valueClass, _doubleValues, _size, _nullBitmap);
+        }
+        if (_objectValues == null) {
+            // only null values
+            return new ObjectColumnVector(new Object[_size], _size);
+        }
+        return new ObjectColumnVector(_objectValues, _size);
+    }
+
+    static boolean isLongClass(Class<?> valueClass) {
+        return valueClass == Long.class || valueClass == Integer.class || valueClass == Short.class
+                || valueClass == Byte.class;
+    }
+
+    static boolean isDoubleClass(Class<?> valueClass) {
+        return valueClass == Double.class || valueClass == Float.class;
+    }
+}
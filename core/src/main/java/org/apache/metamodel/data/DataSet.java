@@ -58,6 +58,44 @@ public interface DataSet extends Closeable, Iterable<Row> {
      */
     public Row getRow();
 
+    /**
+     * Moves forward up to a number of rows and gets them as a batch of column vectors. This allows consumers of
+     * large data sets to process values column by column, without a {@link Row} object per record.
+     * 
+     * Calls to {@link #next()} and {@link #nextBatch(int)} can be mixed. After invoking this method, the current row
+     * (see {@link #getRow()}) is undefined until {@link #next()} is invoked.
+     * 
+     * The default implementation reads the rows of the batch using {@link #next()} and {@link #getRow()}, putting the
+     * values directly into the column vectors of the batch.
+     * 
+     * @param maxRows
+     *            the maximum number of rows in the batch
+     * @return a batch of at least one row, or null if there are no more rows.
+     */
+    public default DataSetBatch nextBatch(int maxRows) {
+        if (maxRows <= 0) {
+            throw new IllegalArgumentException("Max rows must be positive, got: " + maxRows);
+        }
+        DataSetHeader header = null;
+        ColumnVectorBuilder[] columns = null;
+        int size = 0;
+        while (size < maxRows && next()) {
+            final Row row = getRow();
+            if (columns == null) {
+                header = new SimpleDataSetHeader(getSelectItems());
+                columns = ColumnVectorBuilder.create(header.size(), maxRows);
+            }
+            for (int i = 0; i < columns.length; i++) {
+                columns[i].add(row.getValue(i));
+            }
+            size++;
+        }
+        if (size == 0) {
+            return null;
+        }
+        return DataSetBatch.of(header, columns, size);
+    }
+
     /**
      * Closes the DataSet and any resources it may be holding.
      */
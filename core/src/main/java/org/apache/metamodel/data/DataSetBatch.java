@@ -0,0 +1,122 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.metamodel.data;
+
+import java.util.List;
+
+import org.apache.metamodel.query.SelectItem;
+
+/**
+ * A batch of consecutive rows of a {@link DataSet}, represented as a {@link ColumnVector} per select item. Batches
+ * hold only the values of the rows, not their {@link Style}s.
+ * 
+ * @see DataSet#nextBatch(int)
+ */
+public final class DataSetBatch {
+
+    private final DataSetHeader _header;
+    private final ColumnVector[] _columns;
+    private final int _size;
+
+    public DataSetBatch(DataSetHeader header, ColumnVector[] columns, int size) {
+        if (header.size() != columns.length) {
+            throw new IllegalArgumentException("Header size (" + header.size() + ") and number of columns ("
+                    + columns.length + ") differ");
+        }
+        _header = header;
+        _columns = columns;
+        _size = size;
+    }
+
+    /**
+     * Creates a batch from the column vectors of a set of builders.
+     * 
+     * @param header
+     *            the header of the batch
+     * @param columns
+     *            the builders of each column, which have all been given the values of the batch
+     * @param size
+     *            the number of rows in the batch
+     * @return a batch of the values
+     */
+    public static DataSetBatch of(DataSetHeader header, ColumnVectorBuilder[] columns, int size) {
+        final ColumnVector[] vectors = new ColumnVector[columns.length];
+        for (int i = 0; i < vectors.length; i++) {
+            vectors[i] = columns[i].build();
+        }
+        return new DataSetBatch(header, vectors, size);
+    }
+
+    /**
+     * Gets the number of rows in this batch.
+     * 
+     * @return the number of rows in this batch
+     */
+    public int size() {
+        return _size;
+    }
+
+    public DataSetHeader getHeader() {
+        return _header;
+    }
+
+    public List<SelectItem> getSelectItems() {
+        return _header.getSelectItems();
+    }
+
+    public int indexOf(SelectItem item) {
+        return _header.indexOf(item);
+    }
+
+    public ColumnVector getColumn(int index) {
+        return _columns[index];
+    }
+
+    /**
+     * Gets a row of this batch. Note that this creates a new {@link Row} object.
+     * 
+     * @param index
+     *            the index of the row within this batch
+     * @return the row at the index
+     */
+    public Row getRow(int index) {
+        final Object[] values = new Object[_columns.length];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = _columns[i].getValue(index);
+        }
+        return new DefaultRow(_header, values);
+    }
+
+    /**
+     * Creates a new batch with a selection of the rows of this batch.
+     * 
+     * @param indexes
+     *            the (ascending) indexes of the rows to select
+     * @param count
+     *            the number of indexes to use
+     * @return a new batch
+     */
+    public DataSetBatch select(int[] indexes, int count) {
+        final ColumnVector[] columns = new ColumnVector[_columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = _columns[i].select(indexes, count);
+        }
+        return new DataSetBatch(_header, columns, count);
+    }
+}
@@ -0,0 +1,302 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.metamodel.data;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.apache.metamodel.util.FileHelper;
+
+/**
+ * {@link DataSet} that removes duplicate rows from another {@link DataSet}. Rows are emitted as soon as they are first
+ * seen, so iteration can be stopped early without reading the whole wrapped {@link DataSet}.
+ * 
+ * By default all distinct rows seen are kept in memory. If a maximum number of rows in memory is specified, rows that
+ * are not already known once that limit is reached are partitioned by hash into temporary files, which are
+ * deduplicated one by one after the wrapped {@link DataSet} has been exhausted. In that case rows are no longer
+ * guaranteed to be emitted in the order they were first seen. Rows containing values that cannot be serialized are
+ * always kept in memory.
+ */
+public final class DistinctDataSet extends AbstractDataSet implements WrappingDataSet {
+
+    private static final int PARTITION_COUNT = 16;
+    private static final int MAX_PARTITIONING_DEPTH = 8;
+
+    private final DataSet _dataSet;
+    private final int _maxRowsInMemory;
+    private final int _depth;
+    private final Set<Key> _seen;
+    private final RowSerializer _serializer;
+
+    private Partition[] _partitions;
+    private int _partitionIndex;
+    private DataSet _partitionDataSet;
+    private boolean _dataSetExhausted;
+    private Row _row;
+
+    public DistinctDataSet(DataSet dataSet) {
+        this(dataSet, -1);
+    }
+
+    /**
+     * Creates a {@link DistinctDataSet}.
+     * 
+     * @param dataSet
+     *            the {@link DataSet} to remove duplicates from
+     * @param maxRowsInMemory
+     *            the maximum number of distinct rows to keep in memory, or -1 if unbounded
+     */
+    public DistinctDataSet(DataSet dataSet, int maxRowsInMemory) {
+        this(dataSet, maxRowsInMemory, 0);
+    }
+
+    private DistinctDataSet(DataSet dataSet, int maxRowsInMemory, int depth) {
+        super(dataSet);
+        if (maxRowsInMemory == 0 || maxRowsInMemory < -1) {
+            throw new IllegalArgumentException("Max rows in memory must be a positive number or -1");
+        }
+        _dataSet = dataSet;
+        _maxRowsInMemory = (depth >= MAX_PARTITIONING_DEPTH ? -1 : maxRowsInMemory);
+        _depth = depth;
+        _seen = new HashSet<>();
+        _serializer = new RowSerializer(getHeader());
+    }
+
+    @Override
+    public DataSet getWrappedDataSet() {
+        return _dataSet;
+    }
+
+    @Override
+    public boolean next() {
+        if (!_dataSetExhausted) {
+            while (_dataSet.next()) {
+                final Row row = _dataSet.getRow();
+                final Key key = new Key(row.getValues(), _depth);
+                if (_maxRowsInMemory == -1 || _seen.size() < _maxRowsInMemory || !_serializer.isWritable(row)) {
+                    if (_seen.add(key)) {
+                        _row = row;
+                        return true;
+                    }
+                } else if (!_seen.contains(key)) {
+                    getPartition(key).write(row);
+                }
+            }
+            _dataSetExhausted = true;
+            _dataSet.close();
+            _seen.clear();
+            if (_partitions != null) {
+                for (Partition partition : _partitions) {
+                    if (partition != null) {
+                        partition.finishWriting();
+                    }
+                }
+            }
+        }
+
+        while (_partitions != null) {
+            if (_partitionDataSet == null) {
+                final Partition partition = nextPartition();
+                if (partition == null) {
+                    break;
+                }
+                _partitionDataSet = new DistinctDataSet(partition.read(), _maxRowsInMemory, _depth + 1);
+            }
+            if (_partitionDataSet.next()) {
+                _row = _partitionDataSet.getRow();
+                return true;
+            }
+            _partitionDataSet.close();
+            _partitionDataSet = null;
+        }
+
+        _row = null;
+        return false;
+    }
+
+    @Override
+    public Row getRow() {
+        return _row;
+    }
+
+    @Override
+    public void close() {
+        super.close();
+        _dataSet.close();
+        if (_partitionDataSet != null) {
+            _partitionDataSet.close();
+            _partitionDataSet = null;
+        }
+        if (_partitions != null) {
+            for (Partition partition : _partitions) {
+                if (partition != null) {
+                    partition.delete();
+                }
+            }
+            _partitions = null;
+        }
+    }
+
+    private Partition getPartition(Key key) {
+        if (_partitions == null) {
+            _partitions = new Partition[PARTITION_COUNT];
+        }
+        final int index = (key.hashCode() >>> 16) % PARTITION_COUNT;
+        Partition partition = _partitions[index];
+        if (partition == null) {
+            partition = new Partition(_serializer);
+            _partitions[index] = partition;
+        }
+        return partition;
+    }
+
+    private Partition nextPartition() {
+        while (_partitionIndex < _partitions.length) {
+            final Partition partition = _partitions[_partitionIndex];
+            _partitionIndex++;
+            if (partition != null) {
+                return partition;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Key of a distinct row. The hash code is salted with the partitioning depth so that rows colliding in one
+     * partition are spread out when that partition is partitioned again.
+     */
+    private static final class Key {
+
+        private final Object[] _values;
+        private final int _hashCode;
+
+        public Key(Object[] values, int depth) {
+            _values = values;
+            int hash = Arrays.hashCode(values) + depth * 0x9E3779B9;
+            hash ^= hash >>> 16;
+            hash *= 0x85EBCA6B;
+            hash ^= hash >>> 13;
+            _hashCode = hash;
+        }
+
+        @Override
+        public int hashCode() {
+            return _hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Key && Arrays.equals(_values, ((Key) obj)._values);
+        }
+    }
+
+    /**
+     * A temporary file of rows that have been deferred for later deduplication.
+     */
+    private final class Partition {
+
+        private final RowSerializer _serializer;
+        private final File _file;
+        private ObjectOutputStream _out;
+        private int _rowCount;
+
+        public Partition(RowSerializer serializer) {
+            _serializer = serializer;
+            _file = FileHelper.createTempFile("metamodel_distinct", ".bin");
+            try {
+                _out = new ObjectOutputStream(FileHelper.getOutputStream(_file));
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not write rows to temporary file: " + _file, e);
+            }
+        }
+
+        public void write(Row row) {
+            try {
+                if (_rowCount > 0 && _rowCount % RowSerializer.RESET_INTERVAL == 0) {
+                    _out.reset();
+                }
+                _serializer.write(_out, row);
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not write rows to temporary file: " + _file, e);
+            }
+            _rowCount++;
+        }
+
+        public void finishWriting() {
+            FileHelper.safeClose(_out);
+            _out = null;
+        }
+
+        public DataSet read() {
+            final ObjectInputStream in;
+            try {
+                in = new ObjectInputStream(FileHelper.getInputStream(_file));
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not read rows from temporary file: " + _file, e);
+            }
+            final int rowCount = _rowCount;
+            return new AbstractDataSet(getHeader()) {
+
+                private int _rowsLeft = rowCount;
+                private Row _current;
+
+                @Override
+                public boolean next() {
+                    if (_rowsLeft == 0) {
+                        _current = null;
+                        return false;
+                    }
+                    try {
+                        _current = _serializer.read(in);
+                    } catch (IOException e) {
+                        throw new IllegalStateException("Could not read rows from temporary file: " + _file, e);
+                    }
+                    _rowsLeft--;
+                    return true;
+                }
+
+                @Override
+                public Row getRow() {
+                    return _current;
+                }
+
+                @Override
+                public void close() {
+                    super.close();
+                    FileHelper.safeClose(in);
+                    delete();
+                }
+            };
+        }
+
+        public void delete() {
+            if (_out != null) {
+                finishWriting();
+            }
+            if (_file.exists() && !_file.delete()) {
+                _file.deleteOnExit();
+            }
+        }
+    }
+}
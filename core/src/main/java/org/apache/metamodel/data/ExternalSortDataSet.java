@@ -0,0 +1,284 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.metamodel.data;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import org.apache.metamodel.util.FileHelper;
+
+/**
+ * {@link DataSet} that sorts the rows of another {@link DataSet} using an external merge sort. At most
+ * <code>maxRowsInMemory</code> rows are held in memory at a time. When the wrapped {@link DataSet} contains more rows
+ * than that, sorted runs are spilled to temporary files (see {@link RowSerializer}) and k-way merged while iterating.
+ * If a row contains a value that cannot be serialized, spilling stops and the remaining rows are sorted in memory.
+ * 
+ * The sort is stable, ie. rows that compare as equal retain their original order.
+ */
+public final class ExternalSortDataSet extends AbstractDataSet implements WrappingDataSet {
+
+    private final DataSet _dataSet;
+    private final Comparator<Row> _comparator;
+    private final int _maxRowsInMemory;
+    private final RowSerializer _serializer;
+    private final List<Run> _runs;
+
+    private boolean _spillable;
+    private boolean _sorted;
+    private boolean _closed;
+    private Iterator<Row> _memoryIterator;
+    private PriorityQueue<Run> _mergeQueue;
+    private Row _row;
+
+    public ExternalSortDataSet(DataSet dataSet, Comparator<Row> comparator, int maxRowsInMemory) {
+        super(dataSet);
+        if (maxRowsInMemory < 1) {
+            throw new IllegalArgumentException("Max rows in memory must be a positive number");
+        }
+        _dataSet = dataSet;
+        _comparator = comparator;
+        _maxRowsInMemory = maxRowsInMemory;
+        _serializer = new RowSerializer(getHeader());
+        _runs = new ArrayList<>();
+        _spillable = true;
+    }
+
+    @Override
+    public DataSet getWrappedDataSet() {
+        return _dataSet;
+    }
+
+    /**
+     * Gets the number of sorted runs that was spilled to disk. Only available once iteration has begun.
+     * 
+     * @return the number of sorted runs spilled to disk
+     */
+    public int getSpilledRunCount() {
+        return _runs.size();
+    }
+
+    @Override
+    public boolean next() {
+        if (_closed) {
+            _row = null;
+            return false;
+        }
+        if (!_sorted) {
+            sort();
+            _sorted = true;
+        }
+
+        if (_memoryIterator != null) {
+            if (_memoryIterator.hasNext()) {
+                _row = _memoryIterator.next();
+                return true;
+            }
+            _row = null;
+            return false;
+        }
+
+        final Run run = _mergeQueue.poll();
+        if (run == null) {
+            _row = null;
+            return false;
+        }
+        _row = run.current();
+        if (run.advance()) {
+            _mergeQueue.add(run);
+        } else {
+            run.close();
+        }
+        return true;
+    }
+
+    @Override
+    public Row getRow() {
+        return _row;
+    }
+
+    @Override
+    public void close() {
+        super.close();
+        _closed = true;
+        _row = null;
+        _dataSet.close();
+        _memoryIterator = null;
+        _mergeQueue = null;
+        for (Run run : _runs) {
+            run.close();
+            run.delete();
+        }
+    }
+
+    private void sort() {
+        List<Row> buffer = new ArrayList<>();
+        try {
+            while (_dataSet.next()) {
+                final Row row = _dataSet.getRow();
+                if (_spillable && !_serializer.isWritable(row)) {
+                    // keep this and all following rows in memory
+                    _spillable = false;
+                }
+                if (_spillable && buffer.size() == _maxRowsInMemory) {
+                    spill(buffer);
+                    buffer = new ArrayList<>();
+                }
+                buffer.add(row);
+            }
+        } finally {
+            _dataSet.close();
+        }
+
+        Collections.sort(buffer, _comparator);
+
+        if (_runs.isEmpty()) {
+            _memoryIterator = buffer.iterator();
+            return;
+        }
+
+        final Run memoryRun;
+        if (_spillable) {
+            spill(buffer);
+            memoryRun = null;
+        } else {
+            memoryRun = new Run(_runs.size(), buffer);
+        }
+        buffer = null;
+
+        _mergeQueue = new PriorityQueue<>(_runs.size(), new Comparator<Run>() {
+            @Override
+            public int compare(Run o1, Run o2) {
+                final int compare = _comparator.compare(o1.current(), o2.current());
+                if (compare != 0) {
+                    return compare;
+                }
+                // earlier runs contain earlier rows, which keeps the sort stable
+                return Integer.compare(o1._index, o2._index);
+            }
+        });
+        for (Run run : _runs) {
+            run.open();
+            if (run.advance()) {
+                _mergeQueue.add(run);
+            } else {
+                run.close();
+            }
+        }
+        if (memoryRun != null && memoryRun.advance()) {
+            _mergeQueue.add(memoryRun);
+        }
+    }
+
+    private void spill(List<Row> rows) {
+        Collections.sort(rows, _comparator);
+
+        final File file = FileHelper.createTempFile("metamodel_sort", ".bin");
+        final Run run = new Run(_runs.size(), file, rows.size());
+        _runs.add(run);
+
+        try (ObjectOutputStream out = new ObjectOutputStream(FileHelper.getOutputStream(file))) {
+            for (int i = 0; i < rows.size(); i++) {
+                if (i > 0 && i % RowSerializer.RESET_INTERVAL == 0) {
+                    out.reset();
+                }
+                _serializer.write(out, rows.get(i));
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not write sorted rows to temporary file: " + file, e);
+        }
+    }
+
+    /**
+     * A sorted run of rows, either spilled to a temporary file or kept in memory.
+     */
+    private final class Run {
+
+        private final int _index;
+        private final File _file;
+        private final Iterator<Row> _memoryRows;
+        private int _rowsLeft;
+        private ObjectInputStream _in;
+        private Row _current;
+
+        public Run(int index, File file, int rowCount) {
+            _index = index;
+            _file = file;
+            _memoryRows = null;
+            _rowsLeft = rowCount;
+        }
+
+        public Run(int index, List<Row> rows) {
+            _index = index;
+            _file = null;
+            _memoryRows = rows.iterator();
+            _rowsLeft = rows.size();
+        }
+
+        public void open() {
+            try {
+                _in = new ObjectInputStream(FileHelper.getInputStream(_file));
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not read sorted rows from temporary file: " + _file, e);
+            }
+        }
+
+        public Row current() {
+            return _current;
+        }
+
+        public boolean advance() {
+            if (_rowsLeft == 0) {
+                _current = null;
+                return false;
+            }
+            if (_memoryRows != null) {
+                _current = _memoryRows.next();
+            } else {
+                try {
+                    _current = _serializer.read(_in);
+                } catch (IOException e) {
+                    throw new IllegalStateException("Could not read sorted rows from temporary file: " + _file, e);
+                }
+            }
+            _rowsLeft--;
+            return true;
+        }
+
+        public void close() {
+            if (_in != null) {
+                FileHelper.safeClose(_in);
+                _in = null;
+            }
+        }
+
+        public void delete() {
+            if (!_file.delete()) {
+                _file.deleteOnExit();
+            }
+        }
+    }
+}
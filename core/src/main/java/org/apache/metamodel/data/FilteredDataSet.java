@@ -20,6 +20,8 @@ package org.apache.metamodel.data;
 
 import java.util.Collection;
 
+import org.apache.metamodel.query.FilterItem;
+
 /**
  * Wraps another DataSet and transparently applies a set of filters to it.
  */
@@ -36,7 +38,23 @@ public final class FilteredDataSet extends AbstractDataSet implements WrappingDa
     public FilteredDataSet(DataSet dataSet, IRowFilter... filters) {
         super(dataSet);
         _dataSet = dataSet;
-        _filters = filters;
+        _filters = compile(filters, getHeader());
+    }
+
+    /**
+     * Compiles any {@link FilterItem}s among a set of filters for evaluation of rows with a particular header.
+     */
+    static IRowFilter[] compile(IRowFilter[] filters, DataSetHeader header) {
+        final IRowFilter[] result = new IRowFilter[filters.length];
+        for (int i = 0; i < filters.length; i++) {
+            final IRowFilter filter = filters[i];
+            if (filter instanceof FilterItem) {
+                result[i] = ((FilterItem) filter).compile(header);
+            } else {
+                result[i] = filter;
+            }
+        }
+        return result;
     }
 
     @Override
@@ -69,8 +87,77 @@ public final class FilteredDataSet extends AbstractDataSet implements WrappingDa
         return next;
     }
 
+    /**
+     * {@inheritDoc}
+     * 
+     * The filters are evaluated on a reusable view of each row of the batches of the wrapped {@link DataSet}, instead
+     * of on separate {@link Row} objects. Note that the evaluation is not vectorized: each filter is still applied
+     * row by row through {@link IRowFilter#accept(Row)}, boxing primitive column values as they are read. Only the
+     * selection of the accepted rows works on the column vectors of the batch.
+     */
+    @Override
+    public DataSetBatch nextBatch(int maxRows) {
+        _row = null;
+        DataSetBatch batch;
+        while ((batch = _dataSet.nextBatch(maxRows)) != null) {
+            final BatchRow row = new BatchRow(batch);
+            final int[] selectedIndexes = new int[batch.size()];
+            int selectedCount = 0;
+            for (int i = 0; i < selectedIndexes.length; i++) {
+                row._index = i;
+                boolean accept = true;
+                for (IRowFilter filter : _filters) {
+                    if (!filter.accept(row)) {
+                        accept = false;
+                        break;
+                    }
+                }
+                if (accept) {
+                    selectedIndexes[selectedCount++] = i;
+                }
+            }
+            if (selectedCount == batch.size()) {
+                return batch;
+            }
+            if (selectedCount > 0) {
+                return batch.select(selectedIndexes, selectedCount);
+            }
+        }
+        return null;
+    }
+
     @Override
     public Row getRow() {
         return _row;
     }
+
+    /**
+     * A view of a row of a {@link DataSetBatch}, which can be moved from row to row.
+     */
+    private static final class BatchRow extends AbstractRow {
+
+        private static final long serialVersionUID = 1L;
+
+        private final DataSetBatch _batch;
+        private int _index;
+
+        public BatchRow(DataSetBatch batch) {
+            _batch = batch;
+        }
+
+        @Override
+        protected DataSetHeader getHeader() {
+            return _batch.getHeader();
+        }
+
+        @Override
+        public Object getValue(int index) throws IndexOutOfBoundsException {
+            return _batch.getColumn(index).getValue(_index);
+        }
+
+        @Override
+        public Style getStyle(int index) throws IndexOutOfBoundsException {
+            return Style.NO_STYLE;
+        }
+    }
 }
\ No newline at end of file
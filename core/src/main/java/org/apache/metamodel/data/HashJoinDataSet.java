@@ -0,0 +1,359 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.metamodel.data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.metamodel.query.SelectItem;
+import org.apache.metamodel.util.BooleanComparator;
+import org.apache.metamodel.util.CollectionUtils;
+import org.apache.metamodel.util.NumberComparator;
+
+/**
+ * {@link DataSet} that performs a join of two data sets using an in-memory hash table. One side (the build side) is
+ * read fully and hashed on its join key values, while the other side (the probe side) is streamed through the hash
+ * table, producing joined rows on demand.
+ *
+ * The resulting rows always contain the values of the left data set followed by the values of the right data set,
+ * regardless of which side is used for building the hash table. If the join is an outer join, rows of the probe side
+ * that have no matching build rows are included with null values in place of the build side's values. A join without
+ * any keys will match every probe row against every build row.
+ *
+ * Join key values are normalized so that values which are considered equal by the
+ * {@link org.apache.metamodel.util.ObjectComparator} (used by {@link org.apache.metamodel.query.FilterItem}s) end up
+ * in the same hash bucket. Whenever a probe value cannot safely be hashed (eg. when the two sides hold values of
+ * different kinds) the probe row is matched against all build rows instead. Every candidate pair is finally verified
+ * using the join filters, so the result is always the same as that of a nested loop join.
+ */
+public final class HashJoinDataSet extends AbstractDataSet implements WrappingDataSet {
+
+    private static final int KIND_NULL = 0;
+    private static final int KIND_NUMBER = 1;
+    private static final int KIND_STRING = 2;
+    private static final int KIND_BOOLEAN = 4;
+    private static final int KIND_TIME = 8;
+    private static final int KIND_OTHER = 16;
+
+    // doubles can represent all integers up to this value exactly
+    private static final long MAX_EXACT_DOUBLE_INTEGER = 1L << 53;
+
+    private final DataSet _leftDataSet;
+    private final DataSet _rightDataSet;
+    private final boolean _buildLeft;
+    private final boolean _outer;
+    private final int[] _probeKeyIndexes;
+    private final int[] _buildKeyIndexes;
+    private final IRowFilter[] _joinFilters;
+    private final int _leftSize;
+    private final int _rightSize;
+
+    private Map<Object, List<Row>> _hashTable;
+    private List<Row> _buildRows;
+    private int[] _buildKinds;
+
+    private Row _probeRow;
+    private boolean _probeRowMatched;
+    private List<Row> _candidates;
+    private int _candidateIndex;
+    private Row _row;
+
+    /**
+     * Creates a hash join data set.
+     *
+     * @param leftDataSet the left side of the join
+     * @param rightDataSet the right side of the join
+     * @param leftKeys the join key select items of the left side
+     * @param rightKeys the join key select items of the right side, matching the order of the left keys
+     * @param joinFilters the filters that each joined row must satisfy (typically including the equality filters
+     *            that the keys were derived from)
+     * @param buildLeft whether to build the hash table on the left side (and stream the right side) or the other way
+     *            around. It is generally advisable to build on the smaller side.
+     */
+    public HashJoinDataSet(DataSet leftDataSet, DataSet rightDataSet, List<SelectItem> leftKeys,
+            List<SelectItem> rightKeys, Collection<? extends IRowFilter> joinFilters, boolean buildLeft) {
+        this(leftDataSet, rightDataSet, leftKeys, rightKeys, joinFilters, buildLeft, false);
+    }
+
+    /**
+     * Creates a hash join data set.
+     *
+     * @param leftDataSet the left side of the join
+     * @param rightDataSet the right side of the join
+     * @param leftKeys the join key select items of the left side
+     * @param rightKeys the join key select items of the right side, matching the order of the left keys
+     * @param joinFilters the filters that each joined row must satisfy (typically including the equality filters
+     *            that the keys were derived from)
+     * @param buildLeft whether to build the hash table on the left side (and stream the right side) or the other way
+     *            around.
+     * @param outer whether rows of the probe side without any matches should be retained (making this a left outer
+     *            join if the right side is built, or a right outer join if the left side is built).
+     */
+    public HashJoinDataSet(DataSet leftDataSet, DataSet rightDataSet, List<SelectItem> leftKeys,
+            List<SelectItem> rightKeys, Collection<? extends IRowFilter> joinFilters, boolean buildLeft,
+            boolean outer) {
+        super(CollectionUtils.concat(false, leftDataSet.getSelectItems(), rightDataSet.getSelectItems()));
+        if (leftKeys.size() != rightKeys.size()) {
+            throw new IllegalArgumentException("Left and right join keys must be of equal size");
+        }
+        _leftDataSet = leftDataSet;
+        _rightDataSet = rightDataSet;
+        _buildLeft = buildLeft;
+        _outer = outer;
+        _joinFilters = FilteredDataSet.compile(joinFilters.toArray(new IRowFilter[joinFilters.size()]), getHeader());
+        _leftSize = leftDataSet.getSelectItems().size();
+        _rightSize = rightDataSet.getSelectItems().size();
+
+        final int[] leftKeyIndexes = getIndexes(leftDataSet, leftKeys);
+        final int[] rightKeyIndexes = getIndexes(rightDataSet, rightKeys);
+        _buildKeyIndexes = buildLeft ? leftKeyIndexes : rightKeyIndexes;
+        _probeKeyIndexes = buildLeft ? rightKeyIndexes : leftKeyIndexes;
+    }
+
+    private static int[] getIndexes(DataSet dataSet, List<SelectItem> keys) {
+        final int[] indexes = new int[keys.size()];
+        for (int i = 0; i < indexes.length; i++) {
+            indexes[i] = dataSet.indexOf(keys.get(i));
+            if (indexes[i] == -1) {
+                throw new IllegalArgumentException("Join key " + keys.get(i) + " not found in " + dataSet);
+            }
+        }
+        return indexes;
+    }
+
+    @Override
+    public DataSet getWrappedDataSet() {
+        return getProbeDataSet();
+    }
+
+    private DataSet getProbeDataSet() {
+        return _buildLeft ? _rightDataSet : _leftDataSet;
+    }
+
+    private DataSet getBuildDataSet() {
+        return _buildLeft ? _leftDataSet : _rightDataSet;
+    }
+
+    @Override
+    public boolean next() {
+        if (_hashTable == null) {
+            buildHashTable();
+        }
+
+        final DataSet probeDataSet = getProbeDataSet();
+        while (true) {
+            while (_candidates != null && _candidateIndex < _candidates.size()) {
+                final Row buildRow = _candidates.get(_candidateIndex++);
+                final Row joinedRow = _buildLeft ? join(buildRow, _probeRow) : join(_probeRow, buildRow);
+                if (accept(joinedRow)) {
+                    _probeRowMatched = true;
+                    _row = joinedRow;
+                    return true;
+                }
+            }
+
+            if (_outer && _probeRow != null && !_probeRowMatched) {
+                // retain the unmatched probe row
+                _row = _buildLeft ? join(null, _probeRow) : join(_probeRow, null);
+                _probeRow = null;
+                _candidates = null;
+                return true;
+            }
+
+            if ((!_outer && _buildRows.isEmpty()) || !probeDataSet.next()) {
+                _row = null;
+                _probeRow = null;
+                _candidates = null;
+                return false;
+            }
+            _probeRow = probeDataSet.getRow();
+            _probeRowMatched = false;
+            _candidates = getCandidates(_probeRow);
+            _candidateIndex = 0;
+        }
+    }
+
+    @Override
+    public Row getRow() {
+        return _row;
+    }
+
+    @Override
+    public void close() {
+        super.close();
+        _leftDataSet.close();
+        _rightDataSet.close();
+        _hashTable = null;
+        _buildRows = null;
+        _candidates = null;
+    }
+
+    private void buildHashTable() {
+        final int keyCount = _buildKeyIndexes.length;
+        final Map<Object, List<Row>> hashTable = new HashMap<>();
+        final List<Row> buildRows = new ArrayList<>();
+        final int[] buildKinds = new int[keyCount];
+
+        final DataSet buildDataSet = getBuildDataSet();
+        try {
+            while (buildDataSet.next()) {
+                final Row row = buildDataSet.getRow();
+                if (keyCount > 0) {
+                    final Object key = createKey(row, _buildKeyIndexes, buildKinds);
+                    hashTable.computeIfAbsent(key, k -> new ArrayList<>(1)).add(row);
+                }
+                buildRows.add(row);
+            }
+        } finally {
+            buildDataSet.close();
+        }
+
+        _hashTable = hashTable;
+        _buildRows = buildRows;
+        _buildKinds = buildKinds;
+    }
+
+    private List<Row> getCandidates(Row probeRow) {
+        if (_probeKeyIndexes.length == 0) {
+            // every build row is a candidate
+            return _buildRows;
+        }
+        final int[] probeKinds = new int[_probeKeyIndexes.length];
+        final Object key = createKey(probeRow, _probeKeyIndexes, probeKinds);
+        for (int i = 0; i < probeKinds.length; i++) {
+            final int probeKind = probeKinds[i];
+            final int buildKinds = _buildKinds[i];
+            if (probeKind == KIND_OTHER || (buildKinds & KIND_OTHER) != 0) {
+                // no normalized form available - fall back to a scan
+                return _buildRows;
+            }
+            if (probeKind != KIND_NULL && buildKinds != KIND_NULL && buildKinds != probeKind) {
+                // values of different kinds may still be comparable, eg. a
+                // number and a numeric string - fall back to a scan
+                return _buildRows;
+            }
+        }
+        final List<Row> rows = _hashTable.get(key);
+        if (rows == null) {
+            return Collections.emptyList();
+        }
+        return rows;
+    }
+
+    private boolean accept(Row joinedRow) {
+        for (IRowFilter filter : _joinFilters) {
+            if (!filter.accept(joinedRow)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Row join(Row leftRow, Row rightRow) {
+        final Object[] values = new Object[_leftSize + _rightSize];
+        if (leftRow != null) {
+            System.arraycopy(leftRow.getValues(), 0, values, 0, _leftSize);
+        }
+        if (rightRow != null) {
+            System.arraycopy(rightRow.getValues(), 0, values, _leftSize, _rightSize);
+        }
+        return new DefaultRow(getHeader(), values);
+    }
+
+    private static Object createKey(Row row, int[] keyIndexes, int[] kinds) {
+        if (keyIndexes.length == 1) {
+            final Object value = row.getValue(keyIndexes[0]);
+            kinds[0] |= getKind(value);
+            return normalize(value);
+        }
+        final Object[] key = new Object[keyIndexes.length];
+        for (int i = 0; i < key.length; i++) {
+            final Object value = row.getValue(keyIndexes[i]);
+            kinds[i] |= getKind(value);
+            key[i] = normalize(value);
+        }
+        return Arrays.asList(key);
+    }
+
+    private static int getKind(Object value) {
+        if (value == null) {
+            return KIND_NULL;
+        } else if (value instanceof Number) {
+            return KIND_NUMBER;
+        } else if (BooleanComparator.isBoolean(value)) {
+            return KIND_BOOLEAN;
+        } else if (value instanceof String) {
+            return KIND_STRING;
+        } else if (value instanceof Date || value instanceof Calendar) {
+            return KIND_TIME;
+        }
+        return KIND_OTHER;
+    }
+
+    /**
+     * Normalizes a value to a form where values that are equal according to the
+     * {@link org.apache.metamodel.util.ObjectComparator} (within a single kind of values) are also equal according to
+     * {@link Object#equals(Object)}. The normalization may cause distinct values to collide (eg. very large numbers),
+     * which is acceptable since all candidates are verified by the join filters.
+     */
+    private static Object normalize(Object value) {
+        if (value == null) {
+            return null;
+        } else if (value instanceof Number) {
+            return normalizeNumber((Number) value);
+        } else if (value instanceof Boolean) {
+            return value;
+        } else if (value instanceof String) {
+            if (BooleanComparator.isBoolean(value)) {
+                return Boolean.valueOf((String) value);
+            }
+            return value;
+        } else if (value instanceof Date) {
+            return ((Date) value).getTime();
+        } else if (value instanceof Calendar) {
+            return ((Calendar) value).getTimeInMillis();
+        }
+        return value;
+    }
+
+    private static Object normalizeNumber(Number number) {
+        if (NumberComparator.isIntegerType(number)) {
+            final long longValue = number.longValue();
+            if (Math.abs(longValue) < MAX_EXACT_DOUBLE_INTEGER) {
+                return longValue;
+            }
+            return number.doubleValue();
+        }
+        // other number types (including BigInteger and BigDecimal) are
+        // represented by their double value, which is also what the
+        // comparator uses when comparing them to other number types
+        final double doubleValue = number.doubleValue();
+        if (doubleValue == Math.rint(doubleValue) && Math.abs(doubleValue) < MAX_EXACT_DOUBLE_INTEGER) {
+            return (long) doubleValue;
+        }
+        return doubleValue;
+    }
+}
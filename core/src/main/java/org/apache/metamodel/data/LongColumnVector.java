@@ -0,0 +1,88 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.metamodel.data;
+
+/**
+ * {@link ColumnVector} holding integer values (of type {@link Long}, {@link Integer}, {@link Short} or
+ * {@link Byte}) in a primitive array.
+ */
+public final class LongColumnVector extends ColumnVector {
+
+    private final Class<?> _valueClass;
+    private final long[] _values;
+
+    public LongColumnVector(Class<?> valueClass, long[] values, int size, long[] nullBitmap) {
+        super(size, nullBitmap);
+        _valueClass = valueClass;
+        _values = values;
+    }
+
+    /**
+     * Gets the type of the boxed values of this vector.
+     * 
+     * @return the type of the boxed values of this vector
+     */
+    public Class<?> getValueClass() {
+        return _valueClass;
+    }
+
+    /**
+     * Gets the value at a particular index without boxing it. The result is undefined if the value is null.
+     * 
+     * @param index
+     * @return the value at the index
+     */
+    public long getLong(int index) {
+        return _values[index];
+    }
+
+    /**
+     * Gets the primitive values of this vector. Values that are null are undefined.
+     * 
+     * @return the primitive values of this vector
+     */
+    public long[] getLongValues() {
+        return _values;
+    }
+
+    @Override
+    public Object getValue(int index) {
+        if (isNull(index)) {
+            return null;
+        }
+        final long value = _values[index];
+        if (_valueClass == Integer.class) {
+            return (int) value;
+        } else if (_valueClass == Short.class) {
+            return (short) value;
+        } else if (_valueClass == Byte.class) {
+            return (byte) value;
+        }
+        return value;
+    }
+
+    @Override
+    public ColumnVector select(int[] indexes, int count) {
+        final long[] values = new long[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = _values[indexes[i]];
+        }
+        return new LongColumnVector(_valueClass, values, count, selectNullBitmap(indexes, count));
+    }
+}
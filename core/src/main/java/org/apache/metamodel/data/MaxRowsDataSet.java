@@ -58,4 +58,16 @@ public final class MaxRowsDataSet extends AbstractDataSet implements WrappingDat
         }
         return false;
     }
+
+    @Override
+    public DataSetBatch nextBatch(int maxRows) {
+        if (_rowsLeft > 0) {
+            final DataSetBatch batch = _dataSet.nextBatch(Math.min(maxRows, _rowsLeft));
+            if (batch != null) {
+                _rowsLeft -= batch.size();
+            }
+            return batch;
+        }
+        return null;
+    }
 }
\ No newline at end of file
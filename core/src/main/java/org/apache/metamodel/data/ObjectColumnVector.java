@@ -0,0 +1,56 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.metamodel.data;
+
+/**
+ * {@link ColumnVector} holding values of any type as objects.
+ */
+public final class ObjectColumnVector extends ColumnVector {
+
+    private final Object[] _values;
+
+    public ObjectColumnVector(Object[] values, int size) {
+        super(size, createNullBitmap(values, size));
+        _values = values;
+    }
+
+    private static long[] createNullBitmap(Object[] values, int size) {
+        final long[] nullBitmap = createNullBitmap(size);
+        for (int i = 0; i < size; i++) {
+            if (values[i] == null) {
+                setBit(nullBitmap, i);
+            }
+        }
+        return nullBitmap;
+    }
+
+    @Override
+    public Object getValue(int index) {
+        return _values[index];
+    }
+
+    @Override
+    public ColumnVector select(int[] indexes, int count) {
+        final Object[] values = new Object[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = _values[indexes[i]];
+        }
+        return new ObjectColumnVector(values, count);
+    }
+}
@@ -36,9 +36,18 @@ import org.slf4j.LoggerFactory;
  */
 public final class RowPublisherDataSet extends AbstractDataSet {
 
+    /**
+     * System property for the default number of rows that may be buffered
+     * between the publishing action and the consumer of the data set.
+     */
+    public static final String SYSTEM_PROPERTY_BUFFER_SIZE = "metamodel.rowpublisher.buffer.size";
+
+    public static final int DEFAULT_BUFFER_SIZE = 1024;
+
     private static final Logger logger = LoggerFactory.getLogger(RowPublisherDataSet.class);
 
     private final int _maxRows;
+    private final int _bufferSize;
     private final Action<RowPublisher> _publishAction;
     private final Closeable[] _closeables;
     private RowPublisherImpl _rowPublisher;
@@ -50,8 +59,29 @@ public final class RowPublisherDataSet extends AbstractDataSet {
 
     public RowPublisherDataSet(SelectItem[] selectItems, int maxRows, Action<RowPublisher> publishAction,
             Closeable... closeables) {
+        this(selectItems, maxRows, Integer.getInteger(SYSTEM_PROPERTY_BUFFER_SIZE, DEFAULT_BUFFER_SIZE),
+                publishAction, closeables);
+    }
+
+    /**
+     * Creates a {@link RowPublisherDataSet} with a specific buffer size.
+     * 
+     * @param selectItems
+     * @param maxRows
+     * @param bufferSize
+     *            the number of rows that may be buffered between the
+     *            publishing action and the consumer of the data set
+     * @param publishAction
+     * @param closeables
+     */
+    public RowPublisherDataSet(SelectItem[] selectItems, int maxRows, int bufferSize,
+            Action<RowPublisher> publishAction, Closeable... closeables) {
         super(selectItems);
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("Buffer size must be positive, got: " + bufferSize);
+        }
         _maxRows = maxRows;
+        _bufferSize = bufferSize;
         _publishAction = publishAction;
         _closed = false;
         _closeables = closeables;
@@ -61,12 +91,16 @@ public final class RowPublisherDataSet extends AbstractDataSet {
         return _maxRows;
     }
 
+    public int getBufferSize() {
+        return _bufferSize;
+    }
+
     @Override
     public void close() {
         super.close();
         _closed = true;
         if (_rowPublisher != null) {
-            _rowPublisher.finished();
+            _rowPublisher.close();
             _rowPublisher = null;
         }
         if (_closeables != null) {
@@ -86,20 +120,21 @@ public final class RowPublisherDataSet extends AbstractDataSet {
     public boolean next() {
         if (_rowPublisher == null) {
             // first time, create the publisher
-            _rowPublisher = new RowPublisherImpl(this);
+            final RowPublisherImpl rowPublisher = new RowPublisherImpl(this, _bufferSize);
+            _rowPublisher = rowPublisher;
             logger.info("Starting separate thread for publishing action: {}", _publishAction);
             Runnable runnable = new Runnable() {
                 public void run() {
                     boolean successful = false;
                     try {
-                        _publishAction.run(_rowPublisher);
+                        _publishAction.run(rowPublisher);
                         logger.debug("Publshing action finished!");
                         successful = true;
                     } catch (Exception e) {
-                        _rowPublisher.failed(e);
+                        rowPublisher.failed(e);
                     }
                     if (successful) {
-                        _rowPublisher.finished();
+                        rowPublisher.finished();
                     }
                 };
             };
@@ -18,61 +18,82 @@
  */
 package org.apache.metamodel.data;
 
-import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
 
 import org.apache.metamodel.MetaModelException;
 
 /**
  * Row publisher implementation used by {@link RowPublisherDataSet}.
+ * 
+ * Rows are handed from the publishing thread to the consuming thread in
+ * chunks, through a bounded single-producer/single-consumer ring buffer. A
+ * thread only parks when the ring is full (producer) or empty (consumer), and
+ * the other side unparks it when it makes progress. A partially filled chunk
+ * is handed over right away if the consumer is waiting for rows.
  */
 class RowPublisherImpl implements RowPublisher {
 
-	public static final int BUFFER_SIZE = 20;
+	static final int MAX_CHUNK_SIZE = 64;
 
 	private final RowPublisherDataSet _dataSet;
-	private final BlockingQueue<Row> _queue;
-	private final AtomicBoolean _finished;
-	private final AtomicInteger _rowCount;
-	private volatile Row _currentRow;
+	private final int _chunkSize;
+	private final Row[][] _ring;
+	private final int _mask;
+
+	// index of the next chunk to publish, only written by the producer
+	private volatile long _tail;
+	// index of the next chunk to consume, only written by the consumer
+	private volatile long _head;
+	private volatile Thread _waitingProducer;
+	private volatile Thread _waitingConsumer;
+	private volatile boolean _finished;
+	private volatile boolean _closed;
 	private volatile Exception _error;
 
-	public RowPublisherImpl(RowPublisherDataSet dataSet) {
+	// state of the producer
+	private Row[] _pendingChunk;
+	private int _pendingCount;
+	private int _rowCount;
+
+	// state of the consumer
+	private Row[] _currentChunk;
+	private int _currentIndex;
+	private Row _currentRow;
+
+	public RowPublisherImpl(RowPublisherDataSet dataSet, int bufferSize) {
+		if (bufferSize <= 0) {
+			throw new IllegalArgumentException(
+					"Buffer size must be positive, got: " + bufferSize);
+		}
 		_dataSet = dataSet;
-		_queue = new ArrayBlockingQueue<Row>(BUFFER_SIZE);
-		_finished = new AtomicBoolean(false);
-		_rowCount = new AtomicInteger();
+		_chunkSize = Math.max(1, Math.min(MAX_CHUNK_SIZE, bufferSize / 4));
+		final int chunks = Math.max(2, (bufferSize + _chunkSize - 1)
+				/ _chunkSize);
+		final int capacity = Integer.highestOneBit(chunks - 1) << 1;
+		_ring = new Row[capacity][];
+		_mask = capacity - 1;
 	}
 
 	@Override
 	public boolean publish(Row row) {
-		if (_finished.get()) {
+		if (_finished || _closed) {
 			return false;
 		}
-		while (!offer(row)) {
-			if (_finished.get()) {
-				return false;
-			}
-			// wait one more cycle
+		if (_pendingChunk == null) {
+			_pendingChunk = new Row[_chunkSize];
 		}
-		int rowCount = _rowCount.incrementAndGet();
-		if (_dataSet.getMaxRows() > 0 && rowCount >= _dataSet.getMaxRows()) {
+		_pendingChunk[_pendingCount++] = row;
+		_rowCount++;
+
+		final int maxRows = _dataSet.getMaxRows();
+		if (maxRows > 0 && _rowCount >= maxRows) {
 			finished();
 			return false;
 		}
-		return true;
-	}
-
-	private boolean offer(Row row) {
-		try {
-			return _queue.offer(row, 1000, TimeUnit.MICROSECONDS);
-		} catch (InterruptedException e) {
-			// do nothing
-			return false;
+		if (_pendingCount == _chunkSize || _waitingConsumer != null) {
+			return flush();
 		}
+		return true;
 	}
 
 	@Override
@@ -87,38 +108,147 @@ class RowPublisherImpl implements RowPublisher {
 		return publish(row);
 	}
 
+	/**
+	 * Hands the pending chunk over to the consumer, waiting for room in the
+	 * ring if necessary.
+	 * 
+	 * @return false if the data set was closed while waiting
+	 */
+	private boolean flush() {
+		final long tail = _tail;
+		while (tail - _head >= _ring.length) {
+			if (_closed) {
+				return false;
+			}
+			_waitingProducer = Thread.currentThread();
+			if (tail - _head >= _ring.length && !_closed) {
+				LockSupport.park(this);
+			}
+			_waitingProducer = null;
+			if (Thread.currentThread().isInterrupted()) {
+				return false;
+			}
+		}
+		_ring[(int) tail & _mask] = _pendingChunk;
+		_tail = tail + 1;
+		_pendingChunk = null;
+		_pendingCount = 0;
+		signalConsumer();
+		return true;
+	}
+
 	@Override
 	public void finished() {
-		_finished.set(true);
+		if (_finished) {
+			return;
+		}
+		if (_pendingCount > 0) {
+			flush();
+		}
+		_finished = true;
+		signalConsumer();
+	}
+
+	public void failed(Exception error) {
+		_error = error;
+		finished();
+	}
+
+	/**
+	 * Invoked by the consumer when the data set is closed, to release a
+	 * producer that is waiting for room in the ring.
+	 */
+	public void close() {
+		_closed = true;
+		signalProducer();
 	}
 
 	public boolean next() {
-		if (_queue.isEmpty() && _finished.get()) {
+		if (_currentChunk != null) {
+			if (_currentIndex < _currentChunk.length) {
+				final Row row = _currentChunk[_currentIndex];
+				if (row != null) {
+					_currentIndex++;
+					_currentRow = row;
+					return true;
+				}
+			}
+			_currentChunk = null;
+		}
+
+		final Row[] chunk = takeChunk();
+		if (chunk == null) {
+			_currentRow = null;
 			return false;
 		}
-		try {
-			_currentRow = _queue.poll(1000, TimeUnit.MILLISECONDS);
-		} catch (InterruptedException e) {
-			// do nothing
+		_currentChunk = chunk;
+		_currentIndex = 1;
+		_currentRow = chunk[0];
+		return true;
+	}
+
+	private Row[] takeChunk() {
+		final long head = _head;
+		while (true) {
+			if (head < _tail) {
+				final int index = (int) head & _mask;
+				final Row[] chunk = _ring[index];
+				_ring[index] = null;
+				_head = head + 1;
+				signalProducer();
+				return chunk;
+			}
+			if (_finished) {
+				if (head < _tail) {
+					// the last chunk was published while finishing
+					continue;
+				}
+				final Exception error = _error;
+				if (error != null) {
+					if (error instanceof RuntimeException) {
+						throw (RuntimeException) error;
+					}
+					throw new MetaModelException(error);
+				}
+				return null;
+			}
+			_waitingConsumer = Thread.currentThread();
+			if (head == _tail && !_finished) {
+				LockSupport.park(this);
+			}
+			_waitingConsumer = null;
+			if (Thread.currentThread().isInterrupted()) {
+				throw new MetaModelException(
+						"Interrupted while waiting for rows to be published");
+			}
 		}
-		if (_currentRow != null) {
-			return true;
+	}
+
+	/**
+	 * Wakes up the consumer if it is waiting for rows. The waiting thread is
+	 * cleared right away, so that the producer does not keep handing over
+	 * partial chunks until the consumer gets to run again.
+	 */
+	private void signalConsumer() {
+		final Thread consumer = _waitingConsumer;
+		if (consumer != null) {
+			_waitingConsumer = null;
+			LockSupport.unpark(consumer);
 		}
-		if (_error != null) {
-			if (_error instanceof RuntimeException) {
-				throw (RuntimeException) _error;
-			}
-			throw new MetaModelException(_error);
+	}
+
+	/**
+	 * Wakes up the producer if it is waiting for room in the ring.
+	 */
+	private void signalProducer() {
+		final Thread producer = _waitingProducer;
+		if (producer != null) {
+			_waitingProducer = null;
+			LockSupport.unpark(producer);
 		}
-		// "busy" (1 second) wait
-		return next();
 	}
 
 	public Row getRow() {
 		return _currentRow;
 	}
-
-	public void failed(Exception error) {
-		_error = error;
-	}
 }
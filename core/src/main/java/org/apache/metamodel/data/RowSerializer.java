@@ -0,0 +1,428 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.metamodel.data;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.List;
+
+import org.apache.metamodel.query.SelectItem;
+import org.apache.metamodel.schema.ColumnType;
+import org.apache.metamodel.schema.SuperColumnType;
+
+/**
+ * Serializes {@link Row}s to and from a compact binary form, eg. for spilling rows to disk. Rows are written to an
+ * {@link ObjectOutput}, which should be kept open for all rows of a file, so that the stream header and class
+ * descriptors of values written using Java serialization are only written once. Each column is assigned an
+ * expected value codec based on the {@link ColumnType} of its {@link SelectItem}. Values matching the expected codec
+ * are written without any type information, while other values are prefixed with a type tag. A row is written as:
+ * 
+ * <ul>
+ * <li>a flag byte, indicating if styles follow the values</li>
+ * <li>a bitmap of null values</li>
+ * <li>a bitmap of values that do not match the expected codec of their column</li>
+ * <li>the non-null values, each prefixed with a type tag if it does not match the expected codec</li>
+ * <li>the styles of the values, if any</li>
+ * </ul>
+ */
+final class RowSerializer {
+
+    /**
+     * The number of rows after which writers should reset their {@link java.io.ObjectOutputStream}, so that it does
+     * not hold on to references to every object written.
+     */
+    static final int RESET_INTERVAL = 1000;
+
+    private static final int FLAG_STYLES = 1;
+
+    private enum Codec {
+
+        STRING(String.class) {
+            @Override
+            void write(ObjectOutput out, Object value) throws IOException {
+                writeBytes(out, ((String) value).getBytes(StandardCharsets.UTF_8));
+            }
+
+            @Override
+            Object read(ObjectInput in) throws IOException {
+                return new String(readBytes(in), StandardCharsets.UTF_8);
+            }
+        },
+        INTEGER(Integer.class) {
+            @Override
+            void write(ObjectOutput out, Object value) throws IOException {
+                out.writeInt((Integer) value);
+            }
+
+            @Override
+            Object read(ObjectInput in) throws IOException {
+                return in.readInt();
+            }
+        },
+        LONG(Long.class) {
+            @Override
+            void write(ObjectOutput out, Object value) throws IOException {
+                out.writeLong((Long) value);
+            }
+
+            @Override
+            Object read(ObjectInput in) throws IOException {
+                return in.readLong();
+            }
+        },
+        SHORT(Short.class) {
+            @Override
+            void write(ObjectOutput out, Object value) throws IOException {
+                out.writeShort((Short) value);
+            }
+
+            @Override
+            Object read(ObjectInput in) throws IOException {
+                return in.readShort();
+            }
+        },
+        BYTE(Byte.class) {
+            @Override
+            void write(ObjectOutput out, Object value) throws IOException {
+                out.writeByte((Byte) value);
+            }
+
+            @Override
+            Object read(ObjectInput in) throws IOException {
+                return in.readByte();
+            }
+        },
+        DOUBLE(Double.class) {
+            @Override
+            void write(ObjectOutput out, Object value) throws IOException {
+                out.writeDouble((Double) value);
+            }
+
+            @Override
+            Object read(ObjectInput in) throws IOException {
+                return in.readDouble();
+            }
+        },
+        FLOAT(Float.class) {
+            @Override
+            void write(ObjectOutput out, Object value) throws IOException {
+                out.writeFloat((Float) value);
+            }
+
+            @Override
+            Object read(ObjectInput in) throws IOException {
+                return in.readFloat();
+            }
+        },
+        BOOLEAN(Boolean.class) {
+            @Override
+            void write(ObjectOutput out, Object value) throws IOException {
+                out.writeBoolean((Boolean) value);
+            }
+
+            @Override
+            Object read(ObjectInput in) throws IOException {
+                return in.readBoolean();
+            }
+        },
+        BIG_DECIMAL(BigDecimal.class) {
+            @Override
+            void write(ObjectOutput out, Object value) throws IOException {
+                final BigDecimal bigDecimal = (BigDecimal) value;
+                out.writeInt(bigDecimal.scale());
+                writeBytes(out, bigDecimal.unscaledValue().toByteArray());
+            }
+
+            @Override
+            Object read(ObjectInput in) throws IOException {
+                final int scale = in.readInt();
+                return new BigDecimal(new BigInteger(readBytes(in)), scale);
+            }
+        },
+        BIG_INTEGER(BigInteger.class) {
+            @Override
+            void write(ObjectOutput out, Object value) throws IOException {
+                writeBytes(out, ((BigInteger) value).toByteArray());
+            }
+
+            @Override
+            Object read(ObjectInput in) throws IOException {
+                return new BigInteger(readBytes(in));
+            }
+        },
+        DATE(Date.class) {
+            @Override
+            void write(ObjectOutput out, Object value) throws IOException {
+                out.writeLong(((Date) value).getTime());
+            }
+
+            @Override
+            Object read(ObjectInput in) throws IOException {
+                return new Date(in.readLong());
+            }
+        },
+        SQL_DATE(java.sql.Date.class) {
+            @Override
+            void write(ObjectOutput out, Object value) throws IOException {
+                out.writeLong(((Date) value).getTime());
+            }
+
+            @Override
+            Object read(ObjectInput in) throws IOException {
+                return new java.sql.Date(in.readLong());
+            }
+        },
+        SQL_TIME(java.sql.Time.class) {
+            @Override
+            void write(ObjectOutput out, Object value) throws IOException {
+                out.writeLong(((Date) value).getTime());
+            }
+
+            @Override
+            Object read(ObjectInput in) throws IOException {
+                return new java.sql.Time(in.readLong());
+            }
+        },
+        SQL_TIMESTAMP(java.sql.Timestamp.class) {
+            @Override
+            void write(ObjectOutput out, Object value) throws IOException {
+                final java.sql.Timestamp timestamp = (java.sql.Timestamp) value;
+                out.writeLong(timestamp.getTime());
+                out.writeInt(timestamp.getNanos());
+            }
+
+            @Override
+            Object read(ObjectInput in) throws IOException {
+                final java.sql.Timestamp timestamp = new java.sql.Timestamp(in.readLong());
+                timestamp.setNanos(in.readInt());
+                return timestamp;
+            }
+        },
+        OBJECT(Object.class) {
+            @Override
+            void write(ObjectOutput out, Object value) throws IOException {
+                out.writeObject(value);
+            }
+
+            @Override
+            Object read(ObjectInput in) throws IOException {
+                try {
+                    return in.readObject();
+                } catch (ClassNotFoundException e) {
+                    throw new IOException(e);
+                }
+            }
+        };
+
+        private final Class<?> _valueClass;
+
+        private Codec(Class<?> valueClass) {
+            _valueClass = valueClass;
+        }
+
+        boolean matches(Object value) {
+            return this == OBJECT || value.getClass() == _valueClass;
+        }
+
+        abstract void write(ObjectOutput out, Object value) throws IOException;
+
+        abstract Object read(ObjectInput in) throws IOException;
+
+        static Codec forValue(Object value) {
+            for (Codec codec : values()) {
+                if (codec.matches(value)) {
+                    return codec;
+                }
+            }
+            return OBJECT;
+        }
+
+        static Codec forColumnType(ColumnType columnType) {
+            if (columnType == null) {
+                return OBJECT;
+            }
+            if (columnType == ColumnType.INTEGER) {
+                return INTEGER;
+            }
+            if (columnType == ColumnType.BIGINT) {
+                return LONG;
+            }
+            if (columnType == ColumnType.TINYINT || columnType == ColumnType.SMALLINT) {
+                return SHORT;
+            }
+            if (columnType == ColumnType.DECIMAL || columnType == ColumnType.NUMERIC) {
+                return BIG_DECIMAL;
+            }
+            if (columnType == ColumnType.DATE) {
+                return DATE;
+            }
+            if (columnType == ColumnType.TIME) {
+                return SQL_TIME;
+            }
+            if (columnType == ColumnType.TIMESTAMP) {
+                return SQL_TIMESTAMP;
+            }
+            final SuperColumnType superType = columnType.getSuperType();
+            if (superType == SuperColumnType.LITERAL_TYPE && !columnType.isLargeObject()) {
+                return STRING;
+            }
+            if (superType == SuperColumnType.NUMBER_TYPE && columnType != ColumnType.UUID) {
+                return DOUBLE;
+            }
+            if (superType == SuperColumnType.BOOLEAN_TYPE) {
+                return BOOLEAN;
+            }
+            return OBJECT;
+        }
+    }
+
+    private final DataSetHeader _header;
+    private final Codec[] _codecs;
+    private final int _bitmapSize;
+
+    public RowSerializer(DataSetHeader header) {
+        _header = header;
+        final List<SelectItem> selectItems = header.getSelectItems();
+        _codecs = new Codec[selectItems.size()];
+        for (int i = 0; i < _codecs.length; i++) {
+            _codecs[i] = Codec.forColumnType(selectItems.get(i).getExpectedColumnType());
+        }
+        _bitmapSize = (_codecs.length + 7) / 8;
+    }
+
+    /**
+     * Determines if a row can be written by this serializer. Values that have no dedicated codec are written using
+     * Java serialization, so rows containing such values that are not {@link Serializable} cannot be written.
+     * 
+     * @param row
+     *            the row to check
+     * @return true if the row can be written, false otherwise
+     */
+    public boolean isWritable(Row row) {
+        for (Object value : row.getValues()) {
+            // all values with a dedicated codec are serializable too
+            if (value != null && !(value instanceof Serializable)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public void write(ObjectOutput out, Row row) throws IOException {
+        final Object[] values = row.getValues();
+        final Style[] styles = getStyles(row);
+
+        final byte[] nullBitmap = new byte[_bitmapSize];
+        final byte[] taggedBitmap = new byte[_bitmapSize];
+        for (int i = 0; i < values.length; i++) {
+            final Object value = values[i];
+            if (value == null) {
+                nullBitmap[i >> 3] |= 1 << (i & 7);
+            } else if (!_codecs[i].matches(value)) {
+                taggedBitmap[i >> 3] |= 1 << (i & 7);
+            }
+        }
+
+        out.writeByte(styles == null ? 0 : FLAG_STYLES);
+        out.write(nullBitmap);
+        out.write(taggedBitmap);
+
+        for (int i = 0; i < values.length; i++) {
+            final Object value = values[i];
+            if (value != null) {
+                if (isSet(taggedBitmap, i)) {
+                    final Codec codec = Codec.forValue(value);
+                    out.writeByte(codec.ordinal());
+                    codec.write(out, value);
+                } else {
+                    _codecs[i].write(out, value);
+                }
+            }
+        }
+
+        if (styles != null) {
+            for (Style style : styles) {
+                Codec.OBJECT.write(out, style);
+            }
+        }
+    }
+
+    public Row read(ObjectInput in) throws IOException {
+        final int flags = in.readByte();
+        final byte[] nullBitmap = new byte[_bitmapSize];
+        final byte[] taggedBitmap = new byte[_bitmapSize];
+        in.readFully(nullBitmap);
+        in.readFully(taggedBitmap);
+
+        final Object[] values = new Object[_codecs.length];
+        for (int i = 0; i < values.length; i++) {
+            if (!isSet(nullBitmap, i)) {
+                if (isSet(taggedBitmap, i)) {
+                    final Codec codec = Codec.values()[in.readByte()];
+                    values[i] = codec.read(in);
+                } else {
+                    values[i] = _codecs[i].read(in);
+                }
+            }
+        }
+
+        Style[] styles = null;
+        if ((flags & FLAG_STYLES) != 0) {
+            styles = new Style[values.length];
+            for (int i = 0; i < styles.length; i++) {
+                styles[i] = (Style) Codec.OBJECT.read(in);
+            }
+        }
+
+        return new DefaultRow(_header, values, styles);
+    }
+
+    private static Style[] getStyles(Row row) {
+        final Style[] styles = row.getStyles();
+        if (styles != null) {
+            for (Style style : styles) {
+                if (!Style.NO_STYLE.equals(style)) {
+                    return styles;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static boolean isSet(byte[] bitmap, int index) {
+        return (bitmap[index >> 3] & (1 << (index & 7))) != 0;
+    }
+
+    private static void writeBytes(ObjectOutput out, byte[] bytes) throws IOException {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static byte[] readBytes(ObjectInput in) throws IOException {
+        final byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return bytes;
+    }
+}
@@ -18,6 +18,8 @@
  */
 package org.apache.metamodel.data;
 
+import java.io.ObjectStreamException;
+import java.util.Arrays;
 import java.util.List;
 
 import org.apache.metamodel.query.ScalarFunction;
@@ -25,19 +27,25 @@ import org.apache.metamodel.query.SelectItem;
 
 /**
  * A {@link Row} implementation that applies {@link ScalarFunction}s when
- * requested. This class closely interacts with the
- * {@link ScalarFunctionDataSet}.
+ * requested. Each function is evaluated at most once per row, so that views on
+ * this row (such as a {@link SubSelectionRow}) can read its values repeatedly.
+ * This class closely interacts with the {@link ScalarFunctionDataSet}.
  */
 final class ScalarFunctionRow extends AbstractRow {
 
     private static final long serialVersionUID = 1L;
 
+    private static final Object NOT_EVALUATED = new Object();
+
     private final ScalarFunctionDataSet _scalarFunctionDataSet;
     private final Row _row;
+    private final Object[] _evaluatedValues;
 
     public ScalarFunctionRow(ScalarFunctionDataSet scalarFunctionDataSet, Row row) {
         _scalarFunctionDataSet = scalarFunctionDataSet;
         _row = row;
+        _evaluatedValues = new Object[scalarFunctionDataSet.getScalarFunctionSelectItemsToEvaluate().size()];
+        Arrays.fill(_evaluatedValues, NOT_EVALUATED);
     }
 
     @Override
@@ -48,9 +56,15 @@ final class ScalarFunctionRow extends AbstractRow {
         if (index >= scalarFunctionCount) {
             return _row.getValue(index - scalarFunctionCount);
         }
-        final SelectItem selectItem = scalarFunctionSelectItems.get(index);
-        final SelectItem selectItemWithoutFunction = selectItem.replaceFunction(null);
-        return selectItem.getScalarFunction().evaluate(_row, selectItem.getFunctionParameters(), selectItemWithoutFunction);
+        Object value = _evaluatedValues[index];
+        if (value == NOT_EVALUATED) {
+            final SelectItem selectItem = scalarFunctionSelectItems.get(index);
+            final SelectItem selectItemWithoutFunction = selectItem.replaceFunction(null);
+            value = selectItem.getScalarFunction().evaluate(_row, selectItem.getFunctionParameters(),
+                    selectItemWithoutFunction);
+            _evaluatedValues[index] = value;
+        }
+        return value;
     }
 
     @Override
@@ -69,4 +83,12 @@ final class ScalarFunctionRow extends AbstractRow {
         return _scalarFunctionDataSet.getHeader();
     }
 
+    /**
+     * Serializes the row as a {@link DefaultRow}, so that the evaluated values are written instead of the
+     * {@link ScalarFunctionDataSet}.
+     */
+    private Object writeReplace() throws ObjectStreamException {
+        return new DefaultRow(getHeader(), getValues(), getStyles());
+    }
+
 }
@@ -18,25 +18,37 @@
  */
 package org.apache.metamodel.data;
 
+import java.util.Arrays;
 import java.util.List;
 
 import org.apache.metamodel.query.SelectItem;
 
 /**
- * {@link DataSet} wrapper for doing subselection.
+ * {@link DataSet} wrapper for doing subselection. The rows of the subselection are views on the rows of the wrapped
+ * {@link DataSet}, so no values are copied. When wrapping another {@link SubSelectionDataSet}, the two subselections
+ * are fused so that the rows are views directly on the rows of the innermost {@link DataSet}.
  */
 public final class SubSelectionDataSet extends AbstractDataSet implements WrappingDataSet {
 
     private final DataSet _dataSet;
+    private final SubSelectionRow.Mapping _wrappedMapping;
+
+    private DataSetHeader _mappedHeader;
+    private SubSelectionRow.Mapping _mapping;
 
     public SubSelectionDataSet(SelectItem[] selectItemsArray, DataSet dataSet) {
-        super(selectItemsArray);
-        _dataSet = dataSet;
+        this(Arrays.asList(selectItemsArray), dataSet);
     }
 
     public SubSelectionDataSet(List<SelectItem> selectItems, DataSet dataSet) {
         super(selectItems);
         _dataSet = dataSet;
+        if (dataSet instanceof SubSelectionDataSet) {
+            final DataSetHeader wrappedHeader = ((SubSelectionDataSet) dataSet).getHeader();
+            _wrappedMapping = SubSelectionRow.Mapping.create(getHeader(), wrappedHeader::indexOf);
+        } else {
+            _wrappedMapping = null;
+        }
     }
 
     @Override
@@ -51,8 +63,51 @@ public final class SubSelectionDataSet extends AbstractDataSet implements Wrappi
 
     @Override
     public Row getRow() {
-        final DataSetHeader header = getHeader();
-        return _dataSet.getRow().getSubSelection(header);
+        final Row sourceRow = getSourceRow();
+        if (sourceRow == null) {
+            return null;
+        }
+        final SubSelectionRow.Mapping mapping = getMapping(sourceRow);
+        if (mapping == null) {
+            // the subselections could not be fused
+            return new SubSelectionRow(getHeader(), _dataSet.getRow(), _wrappedMapping);
+        }
+        return new SubSelectionRow(getHeader(), sourceRow, mapping);
+    }
+
+    /**
+     * Gets the current row of the innermost (non-subselection) {@link DataSet}.
+     */
+    private Row getSourceRow() {
+        if (_wrappedMapping != null) {
+            return ((SubSelectionDataSet) _dataSet).getSourceRow();
+        }
+        return _dataSet.getRow();
+    }
+
+    /**
+     * Gets the mapping of this subselection to a row of the innermost {@link DataSet}. The mapping is reused for as
+     * long as the source rows share the same header, which is typically the case for all rows of a {@link DataSet}.
+     * 
+     * @return the mapping, or null if the subselections could not be fused
+     */
+    private SubSelectionRow.Mapping getMapping(Row sourceRow) {
+        final DataSetHeader sourceHeader =
+                sourceRow instanceof AbstractRow ? ((AbstractRow) sourceRow).getHeader() : null;
+        if (sourceHeader != null && sourceHeader == _mappedHeader) {
+            return _mapping;
+        }
+
+        final SubSelectionRow.Mapping mapping;
+        if (_wrappedMapping == null) {
+            mapping = SubSelectionRow.Mapping.create(getHeader(), sourceRow::indexOf);
+        } else {
+            final SubSelectionRow.Mapping sourceMapping = ((SubSelectionDataSet) _dataSet).getMapping(sourceRow);
+            mapping = sourceMapping == null ? null : _wrappedMapping.fuse(sourceMapping);
+        }
+        _mappedHeader = sourceHeader;
+        _mapping = mapping;
+        return mapping;
     }
 
     @Override
@@ -0,0 +1,155 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.metamodel.data;
+
+import java.io.ObjectStreamException;
+import java.util.Arrays;
+import java.util.function.ToIntFunction;
+
+import org.apache.metamodel.query.SelectItem;
+
+/**
+ * A {@link Row} implementation that provides a view on a subselection of the values of another row, using a
+ * precomputed mapping of value indexes instead of copying the values. This class closely interacts with the
+ * {@link SubSelectionDataSet}.
+ */
+final class SubSelectionRow extends AbstractRow {
+
+    private static final long serialVersionUID = 1L;
+
+    private final DataSetHeader _header;
+    private final Row _row;
+    private final Mapping _mapping;
+
+    public SubSelectionRow(DataSetHeader header, Row row, Mapping mapping) {
+        _header = header;
+        _row = row;
+        _mapping = mapping;
+    }
+
+    @Override
+    public Object getValue(int index) throws IndexOutOfBoundsException {
+        final Object value = getSourceValue(_mapping._indexes[index]);
+        if (value == null && _mapping._fallbackIndexes != null) {
+            return getSourceValue(_mapping._fallbackIndexes[index]);
+        }
+        return value;
+    }
+
+    @Override
+    public Style getStyle(int index) throws IndexOutOfBoundsException {
+        if (_mapping._fallbackIndexes != null && getSourceValue(_mapping._indexes[index]) == null) {
+            return getSourceStyle(_mapping._fallbackIndexes[index]);
+        }
+        return getSourceStyle(_mapping._indexes[index]);
+    }
+
+    private Object getSourceValue(int sourceIndex) {
+        if (sourceIndex == -1) {
+            return null;
+        }
+        return _row.getValue(sourceIndex);
+    }
+
+    private Style getSourceStyle(int sourceIndex) {
+        if (sourceIndex == -1) {
+            return Style.NO_STYLE;
+        }
+        return _row.getStyle(sourceIndex);
+    }
+
+    @Override
+    protected DataSetHeader getHeader() {
+        return _header;
+    }
+
+    /**
+     * Serializes the row as a {@link DefaultRow}, so that only the subselected values are written.
+     */
+    private Object writeReplace() throws ObjectStreamException {
+        return new DefaultRow(_header, getValues(), getStyles());
+    }
+
+    /**
+     * The mapping of the value indexes of a {@link SubSelectionRow} to those of its source row. Select items of a
+     * sub query are resolved by the select item of the sub query first, and (if that yields no value) by the select
+     * item itself, which is represented by an additional array of fallback indexes.
+     */
+    static final class Mapping {
+
+        private final int[] _indexes;
+        private final int[] _fallbackIndexes;
+
+        private Mapping(int[] indexes, int[] fallbackIndexes) {
+            _indexes = indexes;
+            _fallbackIndexes = Arrays.equals(indexes, fallbackIndexes) ? null : fallbackIndexes;
+        }
+
+        /**
+         * Creates the mapping of a header to a source row (or header).
+         * 
+         * @param header the header of the subselection
+         * @param sourceIndexOf function that resolves the index of a select item in the source
+         * @return the mapping
+         */
+        public static Mapping create(DataSetHeader header, ToIntFunction<SelectItem> sourceIndexOf) {
+            final int size = header.size();
+            final int[] indexes = new int[size];
+            final int[] fallbackIndexes = new int[size];
+            for (int i = 0; i < size; i++) {
+                final SelectItem selectItem = header.getSelectItem(i);
+                fallbackIndexes[i] = sourceIndexOf.applyAsInt(selectItem);
+                if (selectItem.getSubQuerySelectItem() == null) {
+                    indexes[i] = fallbackIndexes[i];
+                } else {
+                    indexes[i] = sourceIndexOf.applyAsInt(selectItem.getSubQuerySelectItem());
+                }
+            }
+            return new Mapping(indexes, fallbackIndexes);
+        }
+
+        /**
+         * Fuses this mapping with the mapping of its source, so that a subselection of a subselection can be
+         * resolved directly against the source of the latter.
+         * 
+         * @param sourceMapping the mapping of the source of this mapping
+         * @return the fused mapping, or null if both mappings have fallback indexes, which cannot be fused
+         */
+        public Mapping fuse(Mapping sourceMapping) {
+            if (_fallbackIndexes == null) {
+                final int[] fallbackIndexes = sourceMapping._fallbackIndexes == null ? sourceMapping._indexes
+                        : sourceMapping._fallbackIndexes;
+                return new Mapping(map(_indexes, sourceMapping._indexes), map(_indexes, fallbackIndexes));
+            }
+            if (sourceMapping._fallbackIndexes == null) {
+                return new Mapping(map(_indexes, sourceMapping._indexes),
+                        map(_fallbackIndexes, sourceMapping._indexes));
+            }
+            return null;
+        }
+
+        private static int[] map(int[] indexes, int[] sourceIndexes) {
+            final int[] result = new int[indexes.length];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = indexes[i] == -1 ? -1 : sourceIndexes[indexes[i]];
+            }
+            return result;
+        }
+    }
+}
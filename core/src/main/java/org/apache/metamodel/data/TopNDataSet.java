@@ -0,0 +1,141 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.metamodel.data;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * {@link DataSet} that yields only the first N rows of another {@link DataSet}, in the order imposed by a
+ * {@link Comparator}. Instead of sorting all rows, a bounded heap of at most N rows is maintained while reading the
+ * wrapped {@link DataSet}.
+ * 
+ * Like a full sort, the result is stable, ie. rows that compare as equal retain their original order.
+ */
+public final class TopNDataSet extends AbstractDataSet implements WrappingDataSet {
+
+    private final DataSet _dataSet;
+    private final Comparator<Row> _comparator;
+    private final int _n;
+
+    private Iterator<Row> _iterator;
+    private Row _row;
+
+    public TopNDataSet(DataSet dataSet, Comparator<Row> comparator, int n) {
+        super(dataSet);
+        if (n < 0) {
+            throw new IllegalArgumentException("N cannot be negative");
+        }
+        _dataSet = dataSet;
+        _comparator = comparator;
+        _n = n;
+    }
+
+    @Override
+    public DataSet getWrappedDataSet() {
+        return _dataSet;
+    }
+
+    @Override
+    public boolean next() {
+        if (_iterator == null) {
+            _iterator = readTopRows().iterator();
+        }
+        if (_iterator.hasNext()) {
+            _row = _iterator.next();
+            return true;
+        }
+        _row = null;
+        return false;
+    }
+
+    @Override
+    public Row getRow() {
+        return _row;
+    }
+
+    @Override
+    public void close() {
+        super.close();
+        _dataSet.close();
+    }
+
+    private List<Row> readTopRows() {
+        if (_n == 0) {
+            _dataSet.close();
+            return Collections.emptyList();
+        }
+
+        // entries are ordered by the comparator and then by their original position. The heap is reversed so that
+        // the head is always the entry that is first to be evicted.
+        final Comparator<Entry> entryComparator = new Comparator<Entry>() {
+            @Override
+            public int compare(Entry o1, Entry o2) {
+                final int compare = _comparator.compare(o1._row, o2._row);
+                if (compare != 0) {
+                    return compare;
+                }
+                return Long.compare(o1._position, o2._position);
+            }
+        };
+        final PriorityQueue<Entry> heap = new PriorityQueue<>(Math.min(_n, 1024), Collections.reverseOrder(
+                entryComparator));
+
+        long position = 0;
+        try {
+            while (_dataSet.next()) {
+                final Row row = _dataSet.getRow();
+                if (heap.size() < _n) {
+                    heap.add(new Entry(row, position));
+                } else if (_comparator.compare(row, heap.peek()._row) < 0) {
+                    // rows comparing as equal to the head are discarded since they come later in the data set
+                    heap.poll();
+                    heap.add(new Entry(row, position));
+                }
+                position++;
+            }
+        } finally {
+            _dataSet.close();
+        }
+
+        final List<Entry> entries = new ArrayList<>(heap);
+        Collections.sort(entries, entryComparator);
+
+        final List<Row> rows = new ArrayList<>(entries.size());
+        for (Entry entry : entries) {
+            rows.add(entry._row);
+        }
+        return rows;
+    }
+
+    private static final class Entry {
+
+        private final Row _row;
+        private final long _position;
+
+        public Entry(Row row, long position) {
+            _row = row;
+            _position = position;
+        }
+    }
+}
@@ -50,6 +50,20 @@ public class UnionDataSet extends AbstractDataSet implements WrappingDataSet {
         return new UnionDataSet(header, dataSets.stream().map(ds -> ImmutableRef.of(ds)).collect(Collectors.toList()));
     }
 
+    /**
+     * Creates a union of data sets that are only created once the preceding
+     * data sets have been consumed.
+     * 
+     * @param header
+     *            the header of the union, shared by all the data sets
+     * @param dataSetProviders
+     *            the suppliers of the data sets
+     * @return the union data set
+     */
+    public static DataSet ofDataSetProviders(DataSetHeader header, Collection<Supplier<DataSet>> dataSetProviders) {
+        return new UnionDataSet(header, dataSetProviders);
+    }
+
     private UnionDataSet(DataSetHeader header, Iterable<Supplier<DataSet>> dataSetProviders) {
         super(header);
         _dataSetProviders = Objects.requireNonNull(dataSetProviders);
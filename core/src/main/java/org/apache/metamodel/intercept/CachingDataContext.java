@@ -0,0 +1,475 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.metamodel.intercept;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.metamodel.BatchUpdateScript;
+import org.apache.metamodel.DataContext;
+import org.apache.metamodel.MetaModelException;
+import org.apache.metamodel.MetaModelHelper;
+import org.apache.metamodel.UpdateScript;
+import org.apache.metamodel.UpdateSummary;
+import org.apache.metamodel.UpdateableDataContext;
+import org.apache.metamodel.data.AbstractDataSet;
+import org.apache.metamodel.data.DataSet;
+import org.apache.metamodel.data.DataSetHeader;
+import org.apache.metamodel.data.InMemoryDataSet;
+import org.apache.metamodel.data.Row;
+import org.apache.metamodel.data.SimpleDataSetHeader;
+import org.apache.metamodel.data.WrappingDataSet;
+import org.apache.metamodel.query.CompiledQuery;
+import org.apache.metamodel.query.FilterItem;
+import org.apache.metamodel.query.FromItem;
+import org.apache.metamodel.query.Query;
+import org.apache.metamodel.query.QueryPlan;
+import org.apache.metamodel.query.builder.InitFromBuilder;
+import org.apache.metamodel.query.builder.InitFromBuilderImpl;
+import org.apache.metamodel.schema.Column;
+import org.apache.metamodel.schema.Schema;
+import org.apache.metamodel.schema.Table;
+
+/**
+ * {@link DataContext} wrapper that caches the results of queries. Results are cached by the SQL representation of the
+ * query, and are evicted when they are older than the time to live, or when the least recently used results have to
+ * make room for new ones because the total number of cached rows exceeds the maximum. Results that on their own exceed
+ * the maximum are not cached.
+ * 
+ * Update scripts that are executed through this {@link DataContext} invalidate the cached results of queries on the
+ * tables that they touch. Updates that bypass it are not detected and only expire with the time to live.
+ * 
+ * Compiled queries are executed by the delegate without caching.
+ */
+public class CachingDataContext implements UpdateableDataContext {
+
+    public static final int DEFAULT_MAX_CACHED_ROWS = 100000;
+
+    public static final long DEFAULT_TIME_TO_LIVE_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+    private final DataContext _delegate;
+    private final int _maxCachedRows;
+    private final long _timeToLiveNanos;
+    private final LinkedHashMap<String, CacheEntry> _entries;
+    private final AtomicLong _hitCount;
+    private final AtomicLong _missCount;
+
+    // guarded by _entries
+    private int _cachedRows;
+    private long _generation;
+
+    public CachingDataContext(DataContext delegate) {
+        this(delegate, DEFAULT_MAX_CACHED_ROWS, DEFAULT_TIME_TO_LIVE_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Creates a {@link CachingDataContext}.
+     * 
+     * @param delegate
+     *            the {@link DataContext} to cache the query results of
+     * @param maxCachedRows
+     *            the maximum total number of rows to keep in the cache
+     * @param timeToLive
+     *            the time that a query result is cached
+     * @param timeUnit
+     *            the unit of the time to live
+     */
+    public CachingDataContext(DataContext delegate, int maxCachedRows, long timeToLive, TimeUnit timeUnit) {
+        if (delegate == null) {
+            throw new IllegalArgumentException("Delegate cannot be null");
+        }
+        if (maxCachedRows <= 0) {
+            throw new IllegalArgumentException("Max cached rows must be positive, got: " + maxCachedRows);
+        }
+        if (timeToLive <= 0) {
+            throw new IllegalArgumentException("Time to live must be positive, got: " + timeToLive);
+        }
+        _delegate = delegate;
+        _maxCachedRows = maxCachedRows;
+        _timeToLiveNanos = timeUnit.toNanos(timeToLive);
+        _entries = new LinkedHashMap<>(16, 0.75f, true);
+        _hitCount = new AtomicLong();
+        _missCount = new AtomicLong();
+    }
+
+    public DataContext getDelegate() {
+        return _delegate;
+    }
+
+    /**
+     * Gets the number of queries that were answered from the cache.
+     * 
+     * @return the number of cache hits
+     */
+    public long getHitCount() {
+        return _hitCount.get();
+    }
+
+    /**
+     * Gets the number of queries that were executed by the delegate.
+     * 
+     * @return the number of cache misses
+     */
+    public long getMissCount() {
+        return _missCount.get();
+    }
+
+    /**
+     * Gets the number of query results currently in the cache. Expired results are counted until they are evicted.
+     * 
+     * @return the number of cached query results
+     */
+    public int getCachedQueryCount() {
+        synchronized (_entries) {
+            return _entries.size();
+        }
+    }
+
+    /**
+     * Gets the total number of rows currently in the cache.
+     * 
+     * @return the number of cached rows
+     */
+    public int getCachedRowCount() {
+        synchronized (_entries) {
+            return _cachedRows;
+        }
+    }
+
+    /**
+     * Removes the cached results of all queries on a table.
+     * 
+     * @param table
+     */
+    public void invalidate(Table table) {
+        invalidate(Collections.singleton(table.getQualifiedLabel()));
+    }
+
+    /**
+     * Removes all cached query results.
+     */
+    public void invalidateAll() {
+        synchronized (_entries) {
+            _generation++;
+            _entries.clear();
+            _cachedRows = 0;
+        }
+    }
+
+    private void invalidate(Collection<String> tables) {
+        if (tables.isEmpty()) {
+            return;
+        }
+        synchronized (_entries) {
+            _generation++;
+            final Iterator<CacheEntry> it = _entries.values().iterator();
+            while (it.hasNext()) {
+                final CacheEntry entry = it.next();
+                if (!Collections.disjoint(entry.tables, tables)) {
+                    it.remove();
+                    _cachedRows -= entry.getWeight();
+                }
+            }
+        }
+    }
+
+    @Override
+    public DataSet executeQuery(Query query) throws MetaModelException {
+        final String key = getCacheKey(query);
+        final CacheEntry cachedEntry = getEntry(key);
+        if (cachedEntry != null) {
+            _hitCount.incrementAndGet();
+            return new InMemoryDataSet(cachedEntry.header, cachedEntry.rows);
+        }
+        _missCount.incrementAndGet();
+
+        final long generation;
+        synchronized (_entries) {
+            generation = _generation;
+        }
+
+        final DataSet dataSet = _delegate.executeQuery(query);
+        final List<Row> rows = new ArrayList<>();
+        while (dataSet.next()) {
+            rows.add(dataSet.getRow());
+            if (rows.size() > _maxCachedRows) {
+                // too big to be cached, continue with the rest of the result
+                return new BufferedDataSet(rows, dataSet);
+            }
+        }
+        dataSet.close();
+
+        final DataSetHeader header = new SimpleDataSetHeader(dataSet.getSelectItems());
+        final Set<String> tables = new HashSet<>();
+        collectTables(query, tables);
+        putEntry(key, new CacheEntry(header, rows, tables, System.nanoTime()), generation);
+        return new InMemoryDataSet(header, rows);
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * If the result of the query is currently cached, the plan consists of reading the cached rows.
+     */
+    @Override
+    public QueryPlan explain(Query query) throws MetaModelException {
+        final CacheEntry cachedEntry = getEntry(getCacheKey(query));
+        if (cachedEntry != null) {
+            final long rowCount = cachedEntry.rows.size();
+            return new QueryPlan("cached result", QueryPlan.Execution.STREAMING, null, rowCount);
+        }
+        return _delegate.explain(query);
+    }
+
+    /**
+     * Gets the key of the cached result of a query. The paging of a query is not part of its SQL, so it has to be
+     * added to the key separately.
+     */
+    private static String getCacheKey(Query query) {
+        final String sql = query.toSql();
+        final Integer firstRow = query.getFirstRow();
+        final Integer maxRows = query.getMaxRows();
+        if (firstRow == null && maxRows == null) {
+            return sql;
+        }
+        return sql + " FIRST ROW " + firstRow + " MAX ROWS " + maxRows;
+    }
+
+    private CacheEntry getEntry(String key) {
+        synchronized (_entries) {
+            final CacheEntry entry = _entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (System.nanoTime() - entry.createdNanos > _timeToLiveNanos) {
+                _entries.remove(key);
+                _cachedRows -= entry.getWeight();
+                return null;
+            }
+            return entry;
+        }
+    }
+
+    private void putEntry(String key, CacheEntry entry, long generation) {
+        synchronized (_entries) {
+            if (generation != _generation) {
+                // the result might predate an update
+                return;
+            }
+            final CacheEntry previousEntry = _entries.put(key, entry);
+            if (previousEntry != null) {
+                _cachedRows -= previousEntry.getWeight();
+            }
+            _cachedRows += entry.getWeight();
+
+            // evict the least recently used entries
+            final Iterator<CacheEntry> it = _entries.values().iterator();
+            while (_cachedRows > _maxCachedRows && it.hasNext()) {
+                final CacheEntry evictedEntry = it.next();
+                if (evictedEntry != entry) {
+                    it.remove();
+                    _cachedRows -= evictedEntry.getWeight();
+                }
+            }
+        }
+    }
+
+    private static void collectTables(Query query, Set<String> tables) {
+        for (FromItem fromItem : MetaModelHelper.getTableFromItems(query)) {
+            tables.add(fromItem.getTable().getQualifiedLabel());
+        }
+        for (FilterItem filterItem : query.getWhereClause().getItems()) {
+            collectTables(filterItem, tables);
+        }
+        for (FilterItem filterItem : query.getHavingClause().getItems()) {
+            collectTables(filterItem, tables);
+        }
+    }
+
+    private static void collectTables(FilterItem filterItem, Set<String> tables) {
+        if (filterItem.isCompoundFilter()) {
+            for (FilterItem childItem : filterItem.getChildItems()) {
+                collectTables(childItem, tables);
+            }
+        } else if (filterItem.getOperand() instanceof Query) {
+            collectTables((Query) filterItem.getOperand(), tables);
+        }
+    }
+
+    @Override
+    public DataSet executeQuery(String queryString) throws MetaModelException {
+        final Query query = parseQuery(queryString);
+        return executeQuery(query);
+    }
+
+    @Override
+    public CompiledQuery compileQuery(Query query) throws MetaModelException {
+        return _delegate.compileQuery(query);
+    }
+
+    @Override
+    public DataSet executeQuery(CompiledQuery compiledQuery, Object... values) {
+        return _delegate.executeQuery(compiledQuery, values);
+    }
+
+    @Override
+    public UpdateSummary executeUpdate(UpdateScript update) {
+        if (!(_delegate instanceof UpdateableDataContext)) {
+            throw new UnsupportedOperationException("Delegate is not an UpdateableDataContext");
+        }
+        final UpdateableDataContext delegate = (UpdateableDataContext) _delegate;
+
+        final Set<String> touchedTables = ConcurrentHashMap.newKeySet();
+        final UpdateScript cachingUpdateScript;
+        if (update instanceof BatchUpdateScript) {
+            cachingUpdateScript = (BatchUpdateScript) callback -> update.run(new CachingUpdateCallback(this,
+                    callback, touchedTables));
+        } else {
+            cachingUpdateScript = callback -> update.run(new CachingUpdateCallback(this, callback, touchedTables));
+        }
+        try {
+            return delegate.executeUpdate(cachingUpdateScript);
+        } finally {
+            invalidate(touchedTables);
+        }
+    }
+
+    @Override
+    public UpdateableDataContext refreshSchemas() {
+        _delegate.refreshSchemas();
+        invalidateAll();
+        return this;
+    }
+
+    @Override
+    public List<Schema> getSchemas() throws MetaModelException {
+        return _delegate.getSchemas();
+    }
+
+    @Override
+    public List<String> getSchemaNames() throws MetaModelException {
+        return _delegate.getSchemaNames();
+    }
+
+    @Override
+    public Schema getDefaultSchema() throws MetaModelException {
+        return _delegate.getDefaultSchema();
+    }
+
+    @Override
+    public Schema getSchemaByName(String name) throws MetaModelException {
+        return _delegate.getSchemaByName(name);
+    }
+
+    @Override
+    public InitFromBuilder query() {
+        return new InitFromBuilderImpl(this);
+    }
+
+    @Override
+    public Query parseQuery(String queryString) throws MetaModelException {
+        return _delegate.parseQuery(queryString);
+    }
+
+    @Override
+    public Column getColumnByQualifiedLabel(String columnName) {
+        return _delegate.getColumnByQualifiedLabel(columnName);
+    }
+
+    @Override
+    public Table getTableByQualifiedLabel(String tableName) {
+        return _delegate.getTableByQualifiedLabel(tableName);
+    }
+
+    private static final class CacheEntry {
+
+        private final DataSetHeader header;
+        private final List<Row> rows;
+        private final Set<String> tables;
+        private final long createdNanos;
+
+        public CacheEntry(DataSetHeader header, List<Row> rows, Set<String> tables, long createdNanos) {
+            this.header = header;
+            this.rows = Collections.unmodifiableList(rows);
+            this.tables = tables;
+            this.createdNanos = createdNanos;
+        }
+
+        public int getWeight() {
+            // empty results also take up room in the cache
+            return Math.max(1, rows.size());
+        }
+    }
+
+    /**
+     * A result that was too big to be cached. The rows that were read before that was discovered are returned before
+     * the remaining rows of the original {@link DataSet}.
+     */
+    private static final class BufferedDataSet extends AbstractDataSet implements WrappingDataSet {
+
+        private final Iterator<Row> _bufferedRows;
+        private final DataSet _dataSet;
+        private Row _row;
+
+        public BufferedDataSet(List<Row> bufferedRows, DataSet dataSet) {
+            super(dataSet.getSelectItems());
+            _bufferedRows = bufferedRows.iterator();
+            _dataSet = dataSet;
+        }
+
+        @Override
+        public boolean next() {
+            if (_bufferedRows.hasNext()) {
+                _row = _bufferedRows.next();
+                return true;
+            }
+            if (_dataSet.next()) {
+                _row = _dataSet.getRow();
+                return true;
+            }
+            _row = null;
+            return false;
+        }
+
+        @Override
+        public Row getRow() {
+            return _row;
+        }
+
+        @Override
+        public DataSet getWrappedDataSet() {
+            return _dataSet;
+        }
+
+        @Override
+        public void close() {
+            super.close();
+            _dataSet.close();
+        }
+    }
+}
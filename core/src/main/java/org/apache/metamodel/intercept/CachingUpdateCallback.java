@@ -0,0 +1,109 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.metamodel.intercept;
+
+import java.util.Set;
+
+import org.apache.metamodel.AbstractUpdateCallback;
+import org.apache.metamodel.UpdateCallback;
+import org.apache.metamodel.create.TableCreationBuilder;
+import org.apache.metamodel.delete.RowDeletionBuilder;
+import org.apache.metamodel.drop.TableDropBuilder;
+import org.apache.metamodel.insert.RowInsertionBuilder;
+import org.apache.metamodel.schema.Schema;
+import org.apache.metamodel.schema.Table;
+import org.apache.metamodel.update.RowUpdationBuilder;
+
+/**
+ * {@link UpdateCallback} wrapper that records the tables that are touched by an update script, so that the cached
+ * query results of a {@link CachingDataContext} can be invalidated afterwards.
+ */
+final class CachingUpdateCallback extends AbstractUpdateCallback implements UpdateCallback {
+
+    private final UpdateCallback _updateCallback;
+    private final Set<String> _touchedTables;
+
+    public CachingUpdateCallback(CachingDataContext dataContext, UpdateCallback updateCallback,
+            Set<String> touchedTables) {
+        super(dataContext);
+        _updateCallback = updateCallback;
+        _touchedTables = touchedTables;
+    }
+
+    private void touch(Table table) {
+        if (table != null) {
+            _touchedTables.add(table.getQualifiedLabel());
+        }
+    }
+
+    @Override
+    public TableCreationBuilder createTable(Schema schema, String name) throws IllegalArgumentException,
+            IllegalStateException {
+        return _updateCallback.createTable(schema, name);
+    }
+
+    @Override
+    public RowInsertionBuilder insertInto(Table table) throws IllegalArgumentException, IllegalStateException {
+        touch(table);
+        return _updateCallback.insertInto(table);
+    }
+
+    @Override
+    public boolean isCreateTableSupported() {
+        return _updateCallback.isCreateTableSupported();
+    }
+
+    @Override
+    public boolean isDropTableSupported() {
+        return _updateCallback.isDropTableSupported();
+    }
+
+    @Override
+    public TableDropBuilder dropTable(Table table) {
+        touch(table);
+        return _updateCallback.dropTable(table);
+    }
+
+    @Override
+    public boolean isInsertSupported() {
+        return _updateCallback.isInsertSupported();
+    }
+
+    @Override
+    public boolean isUpdateSupported() {
+        return _updateCallback.isUpdateSupported();
+    }
+
+    @Override
+    public RowUpdationBuilder update(Table table) {
+        touch(table);
+        return _updateCallback.update(table);
+    }
+
+    @Override
+    public boolean isDeleteSupported() {
+        return _updateCallback.isDeleteSupported();
+    }
+
+    @Override
+    public RowDeletionBuilder deleteFrom(Table table) {
+        touch(table);
+        return _updateCallback.deleteFrom(table);
+    }
+}
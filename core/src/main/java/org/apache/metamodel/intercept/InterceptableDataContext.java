@@ -33,6 +33,7 @@ import org.apache.metamodel.drop.TableDropBuilder;
 import org.apache.metamodel.insert.RowInsertionBuilder;
 import org.apache.metamodel.query.CompiledQuery;
 import org.apache.metamodel.query.Query;
+import org.apache.metamodel.query.QueryPlan;
 import org.apache.metamodel.query.builder.InitFromBuilder;
 import org.apache.metamodel.query.builder.InitFromBuilderImpl;
 import org.apache.metamodel.schema.Column;
@@ -184,6 +185,12 @@ public class InterceptableDataContext implements UpdateableDataContext {
         return dataSet;
     }
 
+    @Override
+    public QueryPlan explain(Query query) throws MetaModelException {
+        query = _queryInterceptors.interceptAll(query);
+        return _delegate.explain(query);
+    }
+
     @Override
     public UpdateableDataContext refreshSchemas() {
         _delegate.refreshSchemas();
@@ -19,25 +19,54 @@
 package org.apache.metamodel.query;
 
 import org.apache.metamodel.util.AbstractNumberAggregateBuilder;
+import org.apache.metamodel.util.AggregateBuilder;
+import org.apache.metamodel.util.MergeableAggregateBuilder;
+import org.apache.metamodel.util.NumberComparator;
+import org.apache.metamodel.util.PrimitiveAggregateBuilder;
 
 /**
  * Aggregate builder for the {@link FunctionType#AVG} function
  */
-final class AverageAggregateBuilder extends AbstractNumberAggregateBuilder<Double> {
+final class AverageAggregateBuilder extends AbstractNumberAggregateBuilder<Double> implements
+		PrimitiveAggregateBuilder<Double>, MergeableAggregateBuilder<Double> {
+
+	private final SumAggregateBuilder _sum = new SumAggregateBuilder();
+	private long _numValues;
 
-	public double _average;
-	public int _numValues;
-	
 	@Override
 	protected void add(Number number) {
-		double total = _average * _numValues + number.doubleValue();
+		if (NumberComparator.isIntegerType(number)) {
+			add(number.longValue());
+		} else {
+			add(number.doubleValue());
+		}
+	}
+
+	@Override
+	public void add(long value) {
+		_sum.add(value);
 		_numValues++;
-		_average = total / _numValues;
+	}
+
+	@Override
+	public void add(double value) {
+		_sum.add(value);
+		_numValues++;
+	}
+
+	@Override
+	public void merge(AggregateBuilder<Double> other) {
+		final AverageAggregateBuilder otherAverage = (AverageAggregateBuilder) other;
+		_sum.merge(otherAverage._sum);
+		_numValues += otherAverage._numValues;
 	}
 
 	@Override
 	public Double getAggregate() {
-		return _average;
+		if (_numValues == 0) {
+			return 0d;
+		}
+		return _sum.getAggregate() / _numValues;
 	}
 
 }
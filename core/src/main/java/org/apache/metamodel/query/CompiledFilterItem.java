@@ -0,0 +1,262 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.metamodel.query;
+
+import java.util.Comparator;
+import java.util.Set;
+
+import org.apache.metamodel.data.DataSetHeader;
+import org.apache.metamodel.data.IRowFilter;
+import org.apache.metamodel.data.Row;
+import org.apache.metamodel.util.BooleanComparator;
+import org.apache.metamodel.util.NumberComparator;
+import org.apache.metamodel.util.ObjectComparator;
+import org.apache.metamodel.util.TimeComparator;
+import org.apache.metamodel.util.WildcardPattern;
+
+/**
+ * Compiles {@link FilterItem}s into {@link IRowFilter}s that are specialized for evaluating rows of a particular
+ * {@link DataSetHeader}. Compared to {@link FilterItem#evaluate(Row)}, the row indexes of the select items are
+ * resolved only once, operands are converted only once, LIKE patterns are parsed only once and the operator is not
+ * dispatched for every row. The result of evaluating a row is the same.
+ * 
+ * @see FilterItem#compile(DataSetHeader)
+ */
+final class CompiledFilterItem {
+
+    private CompiledFilterItem() {
+        // prevent instantiation
+    }
+
+    public static IRowFilter compile(FilterItem filterItem, DataSetHeader header) {
+        if (filterItem.getClass() != FilterItem.class) {
+            // subclasses might evaluate rows differently
+            return filterItem;
+        }
+        if (filterItem.getExpression() != null) {
+            // will fail when evaluated, like the filter item itself
+            return filterItem;
+        }
+
+        final FilterItem[] childItems = filterItem.getChildItems();
+        if (childItems != null) {
+            final IRowFilter[] childFilters = new IRowFilter[childItems.length];
+            for (int i = 0; i < childItems.length; i++) {
+                childFilters[i] = compile(childItems[i], header);
+            }
+            if (filterItem.getLogicalOperator() == LogicalOperator.AND) {
+                return new AndFilter(childFilters);
+            }
+            return new OrFilter(childFilters);
+        }
+
+        final int index = header.indexOf(filterItem.getSelectItem());
+        if (index == -1) {
+            return filterItem;
+        }
+
+        final Object operand = filterItem.getOperand();
+        if (operand instanceof SelectItem) {
+            final int operandIndex = header.indexOf((SelectItem) operand);
+            if (operandIndex == -1) {
+                return filterItem;
+            }
+            return new SelectItemOperandFilter(filterItem, index, operandIndex);
+        }
+
+        final OperatorType operator = filterItem.getOperator();
+        if (operand == null) {
+            if (operator == OperatorType.DIFFERENT_FROM) {
+                return row -> row.getValue(index) != null;
+            } else if (operator == OperatorType.EQUALS_TO) {
+                return row -> row.getValue(index) == null;
+            } else {
+                return row -> false;
+            }
+        }
+
+        if ((operator == OperatorType.LIKE || operator == OperatorType.NOT_LIKE) && operand instanceof String) {
+            final WildcardPattern pattern = new WildcardPattern((String) operand, '%');
+            final boolean like = (operator == OperatorType.LIKE);
+            return row -> {
+                final Object value = row.getValue(index);
+                return value != null && pattern.matches((String) value) == like;
+            };
+        }
+
+        if (operator == OperatorType.IN || operator == OperatorType.NOT_IN) {
+            final Set<?> inValues = filterItem.getInValues();
+            final boolean in = (operator == OperatorType.IN);
+            return row -> {
+                final Object value = row.getValue(index);
+                return value != null && inValues.contains(value) == in;
+            };
+        }
+
+        final ConstantOperand constantOperand = new ConstantOperand(operand);
+        if (operator == OperatorType.DIFFERENT_FROM) {
+            return row -> {
+                final Object value = row.getValue(index);
+                return value == null || constantOperand.compareValue(value) != 0;
+            };
+        } else if (operator == OperatorType.EQUALS_TO) {
+            return row -> {
+                final Object value = row.getValue(index);
+                return value != null && constantOperand.compareValue(value) == 0;
+            };
+        } else if (operator == OperatorType.GREATER_THAN) {
+            return row -> {
+                final Object value = row.getValue(index);
+                return value != null && constantOperand.compareValue(value) > 0;
+            };
+        } else if (operator == OperatorType.GREATER_THAN_OR_EQUAL) {
+            return row -> {
+                final Object value = row.getValue(index);
+                return value != null && constantOperand.compareValue(value) >= 0;
+            };
+        } else if (operator == OperatorType.LESS_THAN) {
+            return row -> {
+                final Object value = row.getValue(index);
+                return value != null && constantOperand.compareValue(value) < 0;
+            };
+        } else if (operator == OperatorType.LESS_THAN_OR_EQUAL) {
+            return row -> {
+                final Object value = row.getValue(index);
+                return value != null && constantOperand.compareValue(value) <= 0;
+            };
+        }
+        return filterItem;
+    }
+
+    private static final class AndFilter implements IRowFilter {
+
+        private final IRowFilter[] _filters;
+
+        public AndFilter(IRowFilter[] filters) {
+            _filters = filters;
+        }
+
+        @Override
+        public boolean accept(Row row) {
+            for (IRowFilter filter : _filters) {
+                if (!filter.accept(row)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static final class OrFilter implements IRowFilter {
+
+        private final IRowFilter[] _filters;
+
+        public OrFilter(IRowFilter[] filters) {
+            _filters = filters;
+        }
+
+        @Override
+        public boolean accept(Row row) {
+            for (IRowFilter filter : _filters) {
+                if (filter.accept(row)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Filter comparing the values of two select items of the same row. This requires the full evaluation logic of the
+     * filter item, except for resolving the values.
+     */
+    private static final class SelectItemOperandFilter implements IRowFilter {
+
+        private final FilterItem _filterItem;
+        private final int _index;
+        private final int _operandIndex;
+
+        public SelectItemOperandFilter(FilterItem filterItem, int index, int operandIndex) {
+            _filterItem = filterItem;
+            _index = index;
+            _operandIndex = operandIndex;
+        }
+
+        @Override
+        public boolean accept(Row row) {
+            return _filterItem.evaluate(row.getValue(_index), row.getValue(_operandIndex));
+        }
+    }
+
+    /**
+     * A constant operand, which compares to values the same way as {@link ObjectComparator}, but with the conversions
+     * of the operand already done.
+     */
+    private static final class ConstantOperand {
+
+        private static final Object NOT_CONVERTED = new Object();
+
+        private final Object _operand;
+        private final boolean _timeBased;
+        private final boolean _booleanBased;
+        private final boolean _comparable;
+        private Object _number = NOT_CONVERTED;
+
+        public ConstantOperand(Object operand) {
+            _operand = operand;
+            _timeBased = TimeComparator.isTimeBased(operand);
+            _booleanBased = BooleanComparator.isBoolean(operand);
+            _comparable = operand instanceof Comparable;
+        }
+
+        /**
+         * Compares a (non-null) value to the operand.
+         * 
+         * @return a negative number, zero or a positive number if the value is less than, equal to or greater than the
+         *         operand.
+         */
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        public int compareValue(Object value) {
+            if (value instanceof Number) {
+                return NumberComparator.getComparator().compare(value, getNumber());
+            }
+            if (_timeBased && TimeComparator.isTimeBased(value)) {
+                return TimeComparator.getComparator().compare(value, _operand);
+            }
+            if (_booleanBased && BooleanComparator.isBoolean(value)) {
+                return BooleanComparator.getComparator().compare(value, _operand);
+            }
+            if (_comparable && value.getClass() == _operand.getClass()) {
+                return ((Comparable) value).compareTo(_operand);
+            }
+            final Comparator<Object> comparator = ObjectComparator.getComparator();
+            return comparator.compare(value, _operand);
+        }
+
+        private Object getNumber() {
+            // converted lazily since the operand might never be compared to numbers
+            Object number = _number;
+            if (number == NOT_CONVERTED) {
+                number = NumberComparator.toNumber(_operand);
+                _number = number;
+            }
+            return number;
+        }
+    }
+}
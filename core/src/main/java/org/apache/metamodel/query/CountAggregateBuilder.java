@@ -19,8 +19,10 @@
 package org.apache.metamodel.query;
 
 import org.apache.metamodel.util.AggregateBuilder;
+import org.apache.metamodel.util.MergeableAggregateBuilder;
+import org.apache.metamodel.util.PrimitiveAggregateBuilder;
 
-final class CountAggregateBuilder implements AggregateBuilder<Long> {
+final class CountAggregateBuilder implements PrimitiveAggregateBuilder<Long>, MergeableAggregateBuilder<Long> {
 
 	private long counter = 0;
 
@@ -31,6 +33,21 @@ final class CountAggregateBuilder implements AggregateBuilder<Long> {
 		}
 	}
 
+	@Override
+	public void add(long value) {
+		counter++;
+	}
+
+	@Override
+	public void add(double value) {
+		counter++;
+	}
+
+	@Override
+	public void merge(AggregateBuilder<Long> other) {
+		counter += ((CountAggregateBuilder) other).counter;
+	}
+
 	@Override
 	public Long getAggregate() {
 		return counter;
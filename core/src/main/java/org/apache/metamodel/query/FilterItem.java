@@ -25,6 +25,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
+import org.apache.metamodel.data.DataSetHeader;
 import org.apache.metamodel.data.IRowFilter;
 import org.apache.metamodel.data.Row;
 import org.apache.metamodel.schema.Column;
@@ -316,23 +317,7 @@ public class FilterItem extends BaseObject implements QueryItem, Cloneable, IRow
                 final SelectItem selectItem = (SelectItem) _operand;
                 operandValue = row.getValue(selectItem);
             }
-            if (operandValue == null) {
-                if (_operator == OperatorType.DIFFERENT_FROM) {
-                    return (selectItemValue != null);
-                } else if (_operator == OperatorType.EQUALS_TO) {
-                    return (selectItemValue == null);
-                } else {
-                    return false;
-                }
-            } else if (selectItemValue == null) {
-                if (_operator == OperatorType.DIFFERENT_FROM) {
-                    return true;
-                } else {
-                    return false;
-                }
-            } else {
-                return compare(selectItemValue, operandValue);
-            }
+            return evaluate(selectItemValue, operandValue);
         } else {
 
             // Evaluate several constraints
@@ -358,6 +343,42 @@ public class FilterItem extends BaseObject implements QueryItem, Cloneable, IRow
         }
     }
 
+    /**
+     * Evaluates a single constraint, given the values of the select item and the operand.
+     */
+    boolean evaluate(Object selectItemValue, Object operandValue) {
+        if (operandValue == null) {
+            if (_operator == OperatorType.DIFFERENT_FROM) {
+                return (selectItemValue != null);
+            } else if (_operator == OperatorType.EQUALS_TO) {
+                return (selectItemValue == null);
+            } else {
+                return false;
+            }
+        } else if (selectItemValue == null) {
+            if (_operator == OperatorType.DIFFERENT_FROM) {
+                return true;
+            } else {
+                return false;
+            }
+        } else {
+            return compare(selectItemValue, operandValue);
+        }
+    }
+
+    /**
+     * Compiles this filter item into a {@link IRowFilter} which evaluates rows of a particular {@link DataSetHeader}
+     * more efficiently than {@link #evaluate(Row)}. Rows passed to the compiled filter must have the select items of
+     * the header, at the same indexes.
+     *
+     * @param header
+     *            the header of the rows to evaluate
+     * @return a compiled filter, equivalent to this filter item
+     */
+    public IRowFilter compile(DataSetHeader header) {
+        return CompiledFilterItem.compile(this, header);
+    }
+
     private boolean compare(Object selectItemValue, Object operandValue) {
         Comparator<Object> comparator = ObjectComparator.getComparator();
         if (_operator == OperatorType.DIFFERENT_FROM) {
@@ -394,7 +415,7 @@ public class FilterItem extends BaseObject implements QueryItem, Cloneable, IRow
      *
      * @return a hash set appropriate for IN clause evaluation
      */
-    private Set<?> getInValues() {
+    Set<?> getInValues() {
         if (_inValues == null) {
             if (_operand instanceof Set) {
                 _inValues = (Set<?>) _operand;
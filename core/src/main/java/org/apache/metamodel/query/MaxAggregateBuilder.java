@@ -18,11 +18,16 @@
  */
 package org.apache.metamodel.query;
 
+import java.util.Comparator;
+
 import org.apache.metamodel.util.AggregateBuilder;
+import org.apache.metamodel.util.MergeableAggregateBuilder;
 import org.apache.metamodel.util.ObjectComparator;
+import org.apache.metamodel.util.PrimitiveAggregateBuilder;
 
-final class MaxAggregateBuilder implements AggregateBuilder<Object> {
+final class MaxAggregateBuilder implements PrimitiveAggregateBuilder<Object>, MergeableAggregateBuilder<Object> {
 
+	private final Comparator<Object> comparator = ObjectComparator.getComparator();
 	private Object max;
 
 	@Override
@@ -32,17 +37,43 @@ final class MaxAggregateBuilder implements AggregateBuilder<Object> {
 		}
 		if (max == null) {
 			max = o;
+		} else if (comparator.compare(max, o) < 0) {
+			max = o;
+		}
+	}
+
+	@Override
+	public void add(long value) {
+		if (max instanceof Long) {
+			// compare without boxing the value
+			if (value > ((Long) max).longValue()) {
+				max = value;
+			}
 		} else {
-			Comparable<Object> comparable = ObjectComparator.getComparable(max);
-			if (comparable.compareTo(o) < 0) {
-				max = o;
+			add((Object) value);
+		}
+	}
+
+	@Override
+	public void add(double value) {
+		if (max instanceof Double) {
+			// compare without boxing the value
+			if (Double.compare(value, ((Double) max).doubleValue()) > 0) {
+				max = value;
 			}
+		} else {
+			add((Object) value);
 		}
 	}
 
+	@Override
+	public void merge(AggregateBuilder<Object> other) {
+		add(((MaxAggregateBuilder) other).max);
+	}
+
 	@Override
 	public Object getAggregate() {
-        return max;
+		return max;
 	}
 
 }
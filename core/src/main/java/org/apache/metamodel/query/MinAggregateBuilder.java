@@ -18,11 +18,16 @@
  */
 package org.apache.metamodel.query;
 
+import java.util.Comparator;
+
 import org.apache.metamodel.util.AggregateBuilder;
+import org.apache.metamodel.util.MergeableAggregateBuilder;
 import org.apache.metamodel.util.ObjectComparator;
+import org.apache.metamodel.util.PrimitiveAggregateBuilder;
 
-final class MinAggregateBuilder implements AggregateBuilder<Object> {
+final class MinAggregateBuilder implements PrimitiveAggregateBuilder<Object>, MergeableAggregateBuilder<Object> {
 
+	private final Comparator<Object> comparator = ObjectComparator.getComparator();
 	private Object min;
 
 	@Override
@@ -32,14 +37,40 @@ final class MinAggregateBuilder implements AggregateBuilder<Object> {
 		}
 		if (min == null) {
 			min = o;
+		} else if (comparator.compare(min, o) > 0) {
+			min = o;
+		}
+	}
+
+	@Override
+	public void add(long value) {
+		if (min instanceof Long) {
+			// compare without boxing the value
+			if (value < ((Long) min).longValue()) {
+				min = value;
+			}
 		} else {
-			Comparable<Object> comparable = ObjectComparator.getComparable(min);
-			if (comparable.compareTo(o) > 0) {
-				min = o;
+			add((Object) value);
+		}
+	}
+
+	@Override
+	public void add(double value) {
+		if (min instanceof Double) {
+			// compare without boxing the value
+			if (Double.compare(value, ((Double) min).doubleValue()) < 0) {
+				min = value;
 			}
+		} else {
+			add((Object) value);
 		}
 	}
 
+	@Override
+	public void merge(AggregateBuilder<Object> other) {
+		add(((MinAggregateBuilder) other).min);
+	}
+
 	@Override
 	public Object getAggregate() {
 		return min;
@@ -0,0 +1,210 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.metamodel.query;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.metamodel.DataContext;
+
+/**
+ * Describes how a {@link Query} will be executed by a {@link DataContext}, see
+ * {@link DataContext#explain(Query)}. A plan is a tree of operators, where the
+ * children of an operator produce the input of that operator.
+ */
+public final class QueryPlan implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Defines where and how an operator of a {@link QueryPlan} is executed.
+     */
+    public static enum Execution {
+
+        /**
+         * The operator is executed by the datastore, eg. as a native query.
+         */
+        DATASTORE,
+
+        /**
+         * The operator is executed in memory, one row at a time.
+         */
+        STREAMING,
+
+        /**
+         * The operator is executed in memory and keeps (parts of) its input in
+         * memory while executing. The memory usage of these operators grows
+         * with the number of rows they consume.
+         */
+        BUFFERING;
+    }
+
+    private final String _operator;
+    private final Execution _execution;
+    private final String _description;
+    private final Long _estimatedRowCount;
+    private final List<QueryPlan> _children;
+
+    public QueryPlan(String operator, Execution execution, String description, Long estimatedRowCount,
+            QueryPlan... children) {
+        this(operator, execution, description, estimatedRowCount, Arrays.asList(children));
+    }
+
+    public QueryPlan(String operator, Execution execution, String description, Long estimatedRowCount,
+            List<QueryPlan> children) {
+        if (operator == null) {
+            throw new IllegalArgumentException("Operator cannot be null");
+        }
+        if (execution == null) {
+            throw new IllegalArgumentException("Execution cannot be null");
+        }
+        _operator = operator;
+        _execution = execution;
+        _description = description;
+        _estimatedRowCount = estimatedRowCount;
+        _children = Collections.unmodifiableList(new ArrayList<>(children));
+    }
+
+    /**
+     * Gets the name of the operator, eg. "scan", "filter" or "hash join".
+     * 
+     * @return the name of the operator
+     */
+    public String getOperator() {
+        return _operator;
+    }
+
+    /**
+     * Gets where and how the operator is executed.
+     * 
+     * @return the execution of the operator
+     */
+    public Execution getExecution() {
+        return _execution;
+    }
+
+    /**
+     * Determines if the operator is executed in memory (as opposed to by the
+     * datastore).
+     * 
+     * @return true if the operator is executed in memory
+     */
+    public boolean isInMemory() {
+        return _execution != Execution.DATASTORE;
+    }
+
+    /**
+     * Gets a description of the operator. For operators executed by the
+     * datastore this is typically the native query that the datastore
+     * receives.
+     * 
+     * @return a description of the operator, or null if not available
+     */
+    public String getDescription() {
+        return _description;
+    }
+
+    /**
+     * Gets the estimated number of rows produced by the operator, if the
+     * datastore was able to provide an estimate.
+     * 
+     * @return the estimated number of rows, or null if unknown
+     */
+    public Long getEstimatedRowCount() {
+        return _estimatedRowCount;
+    }
+
+    /**
+     * Gets the operators that produce the input of this operator.
+     * 
+     * @return the child plans of this plan
+     */
+    public List<QueryPlan> getChildren() {
+        return _children;
+    }
+
+    /**
+     * Gets all operators of this plan in depth-first order, starting with this
+     * operator.
+     * 
+     * @return all operators of the plan tree
+     */
+    public List<QueryPlan> getOperators() {
+        final List<QueryPlan> result = new ArrayList<>();
+        addOperators(result);
+        return result;
+    }
+
+    private void addOperators(List<QueryPlan> result) {
+        result.add(this);
+        for (QueryPlan child : _children) {
+            child.addOperators(result);
+        }
+    }
+
+    /**
+     * Gets the operators of this plan that are executed in a particular way,
+     * eg. all {@link Execution#BUFFERING} operators.
+     * 
+     * @param execution
+     *            the execution to look for
+     * @return the matching operators in depth-first order
+     */
+    public List<QueryPlan> getOperators(Execution execution) {
+        final List<QueryPlan> result = new ArrayList<>();
+        for (QueryPlan plan : getOperators()) {
+            if (plan._execution == execution) {
+                result.add(plan);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        appendTo(sb, 0);
+        return sb.toString();
+    }
+
+    private void appendTo(StringBuilder sb, int depth) {
+        for (int i = 0; i < depth; i++) {
+            sb.append("  ");
+        }
+        sb.append(_operator);
+        sb.append(" [");
+        sb.append(_execution);
+        if (_estimatedRowCount != null) {
+            sb.append(", rows=");
+            sb.append(_estimatedRowCount);
+        }
+        sb.append(']');
+        if (_description != null) {
+            sb.append(": ");
+            sb.append(_description);
+        }
+        for (QueryPlan child : _children) {
+            sb.append('\n');
+            child.appendTo(sb, depth + 1);
+        }
+    }
+}
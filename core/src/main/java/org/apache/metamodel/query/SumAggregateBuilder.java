@@ -19,22 +19,57 @@
 package org.apache.metamodel.query;
 
 import org.apache.metamodel.util.AbstractNumberAggregateBuilder;
+import org.apache.metamodel.util.AggregateBuilder;
+import org.apache.metamodel.util.MergeableAggregateBuilder;
+import org.apache.metamodel.util.NumberComparator;
+import org.apache.metamodel.util.PrimitiveAggregateBuilder;
 
 /**
  * Aggregate builder for the {@link FunctionType#SUM} function
  */
-final class SumAggregateBuilder extends AbstractNumberAggregateBuilder<Double> {
+final class SumAggregateBuilder extends AbstractNumberAggregateBuilder<Double> implements
+        PrimitiveAggregateBuilder<Double>, MergeableAggregateBuilder<Double> {
 
-    private double sum;
+    // integer values are summed exactly for as long as they fit in a long
+    private long longSum;
+    private double doubleSum;
 
     @Override
     protected void add(Number number) {
-        sum += number.doubleValue();
+        if (NumberComparator.isIntegerType(number)) {
+            add(number.longValue());
+        } else {
+            add(number.doubleValue());
+        }
+    }
+
+    @Override
+    public void add(long value) {
+        final long result = longSum + value;
+        if (((longSum ^ result) & (value ^ result)) < 0) {
+            // overflow - move the current sum to the floating point sum
+            doubleSum += longSum;
+            longSum = value;
+        } else {
+            longSum = result;
+        }
+    }
+
+    @Override
+    public void add(double value) {
+        doubleSum += value;
+    }
+
+    @Override
+    public void merge(AggregateBuilder<Double> other) {
+        final SumAggregateBuilder otherSum = (SumAggregateBuilder) other;
+        add(otherSum.longSum);
+        doubleSum += otherSum.doubleSum;
     }
 
     @Override
     public Double getAggregate() {
-        return sum;
+        return doubleSum + longSum;
     }
 
 }
@@ -0,0 +1,38 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.metamodel.util;
+
+/**
+ * {@link AggregateBuilder} which can merge the partial aggregate of another
+ * builder into its own, eg. when aggregating partitions of a data set in
+ * parallel.
+ * 
+ * @param <E>
+ *            the aggregate result type
+ */
+public interface MergeableAggregateBuilder<E> extends AggregateBuilder<E> {
+
+    /**
+     * Merges the state of another aggregate builder into this one. The other
+     * builder must have been created by the same aggregate function.
+     * 
+     * @param other
+     */
+    public void merge(AggregateBuilder<E> other);
+}
@@ -0,0 +1,44 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.metamodel.util;
+
+/**
+ * {@link AggregateBuilder} which can also aggregate primitive number values
+ * directly, without requiring them to be boxed into {@link Number} objects
+ * first.
+ * 
+ * @param <E>
+ *            the aggregate result type
+ */
+public interface PrimitiveAggregateBuilder<E> extends AggregateBuilder<E> {
+
+    /**
+     * Adds an integer-type value to the aggregate calculation.
+     * 
+     * @param value
+     */
+    public void add(long value);
+
+    /**
+     * Adds a floating point value to the aggregate calculation.
+     * 
+     * @param value
+     */
+    public void add(double value);
+}
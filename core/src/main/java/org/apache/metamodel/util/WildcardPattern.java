@@ -19,6 +19,8 @@
 package org.apache.metamodel.util;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.StringTokenizer;
 
 import org.apache.metamodel.query.FilterItem;
@@ -36,6 +38,7 @@ public final class WildcardPattern implements Serializable {
 	private final boolean _endsWithDelim;
 	private String _pattern;
 	private char _wildcard;
+	private transient String[] _tokens;
 
 	public WildcardPattern(String pattern, char wildcard) {
 		_pattern = pattern;
@@ -52,12 +55,9 @@ public final class WildcardPattern implements Serializable {
 		if (value == null) {
 			return false;
 		}
-		StringTokenizer st = new StringTokenizer(_pattern,
-				Character.toString(_wildcard));
 		int charIndex = 0;
-		while (st.hasMoreTokens()) {
+		for (String token : getTokens()) {
 			int oldIndex = charIndex;
-			String token = st.nextToken();
 			charIndex = value.indexOf(token, charIndex);
 			if (charIndex == -1 || !_startsWithDelim && oldIndex == 0 && charIndex != 0) {
 				return false;
@@ -73,4 +73,22 @@ public final class WildcardPattern implements Serializable {
 		}
 		return true;
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Gets the tokens between the wildcards of the pattern. The tokens are
+	 * only determined once, since patterns are typically matched against many
+	 * values.
+	 */
+	private String[] getTokens() {
+		if (_tokens == null) {
+			final List<String> tokens = new ArrayList<String>();
+			final StringTokenizer st = new StringTokenizer(_pattern,
+					Character.toString(_wildcard));
+			while (st.hasMoreTokens()) {
+				tokens.add(st.nextToken());
+			}
+			_tokens = tokens.toArray(new String[tokens.size()]);
+		}
+		return _tokens;
+	}
+}
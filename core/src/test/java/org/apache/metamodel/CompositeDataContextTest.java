@@ -18,14 +18,24 @@
  */
 package org.apache.metamodel;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 import junit.framework.TestCase;
 
 import org.apache.metamodel.data.DataSet;
+import org.apache.metamodel.data.DataSetHeader;
+import org.apache.metamodel.data.DefaultRow;
+import org.apache.metamodel.data.InMemoryDataSet;
+import org.apache.metamodel.data.Row;
+import org.apache.metamodel.data.SimpleDataSetHeader;
 import org.apache.metamodel.query.Query;
+import org.apache.metamodel.schema.Column;
+import org.apache.metamodel.schema.ColumnType;
 import org.apache.metamodel.schema.CompositeSchema;
+import org.apache.metamodel.schema.MutableColumn;
 import org.apache.metamodel.schema.Schema;
 import org.apache.metamodel.schema.Table;
 
@@ -113,4 +123,221 @@ public class CompositeDataContextTest extends TestCase {
 		assertEquals("Row[values=[4, 4, yo, world]]", ds.getRow().toString());
 		assertFalse(ds.next());
 	}
-}
\ No newline at end of file
+
+	public void testFiltersArePushedDownToDelegates() throws Exception {
+		final List<String> executedQueries = Collections
+				.synchronizedList(new ArrayList<String>());
+		DataContext dc1 = new MockDataContext("schema1", "table1", "dc1") {
+			@Override
+			public DataSet executeQuery(Query query) {
+				executedQueries.add(query.toSql());
+				return super.executeQuery(query);
+			}
+		};
+		DataContext dc2 = new MockDataContext("schema2", "table2", "dc2") {
+			@Override
+			public DataSet executeQuery(Query query) {
+				executedQueries.add(query.toSql());
+				return super.executeQuery(query);
+			}
+		};
+
+		CompositeDataContext composite = new CompositeDataContext(dc1, dc2);
+		Table table1 = dc1.getDefaultSchema().getTableByName("table1");
+		Table table2 = dc2.getDefaultSchema().getTableByName("table2");
+
+		Query q = composite.query().from(table1).as("t1").and(table2)
+				.as("t2").select("t1.foo", "t1.bar", "t2.baz")
+				.where("t1.foo").eq(table2.getColumnByName("foo"))
+				.where("t1.bar").isNotNull().where("t2.baz").eq("world")
+				.toQuery();
+
+		DataSet ds = composite.executeQuery(q);
+		assertEquals("[[1, hello, world], [2, dc1, world], [4, yo, world]]",
+				toString(ds.toObjectArrays()));
+
+		Collections.sort(executedQueries);
+		assertEquals(
+				"[SELECT table1.foo, table1.bar FROM schema1.table1 WHERE table1.bar IS NOT NULL, "
+						+ "SELECT table2.baz, table2.foo FROM schema2.table2 WHERE table2.baz = 'world']",
+				executedQueries.toString());
+	}
+
+	public void testSemiJoinPassesKeysOfSmallerSide() throws Exception {
+		final List<String> executedQueries = Collections
+				.synchronizedList(new ArrayList<String>());
+		DataContext dc1 = new MockDataContext("schema1", "table1", "dc1") {
+			@Override
+			public DataSet executeQuery(Query query) {
+				executedQueries.add(query.toSql());
+				return super.executeQuery(query);
+			}
+		};
+		DataContext dc2 = new MockDataContext("schema2", "table2", "dc2") {
+			@Override
+			public DataSet executeQuery(Query query) {
+				executedQueries.add(query.toSql());
+				return super.executeQuery(query);
+			}
+		};
+
+		CompositeDataContext composite = new CompositeDataContext(dc1, dc2);
+		composite.setSemiJoinMaxKeys(10000);
+		composite.setSemiJoinBatchSize(2);
+		Table table1 = dc1.getDefaultSchema().getTableByName("table1");
+		Table table2 = dc2.getDefaultSchema().getTableByName("table2");
+
+		Query q = composite.query().from(table1).as("t1").and(table2)
+				.as("t2").select("t1.foo", "t1.bar", "t2.baz")
+				.where("t1.foo").eq(table2.getColumnByName("foo"))
+				.where("t2.baz").eq("world").toQuery();
+
+		DataSet ds = composite.executeQuery(q);
+		assertEquals("[[1, hello, world], [2, dc1, world], [4, yo, world]]",
+				toString(ds.toObjectArrays()));
+
+		assertEquals(
+				"[SELECT APPROXIMATE COUNT(*) FROM schema1.table1, "
+						+ "SELECT APPROXIMATE COUNT(*) FROM schema2.table2 WHERE table2.baz = 'world', "
+						+ "SELECT table2.baz, table2.foo FROM schema2.table2 WHERE table2.baz = 'world', "
+						+ "SELECT table1.foo, table1.bar FROM schema1.table1 WHERE table1.foo IN ('1' , '2'), "
+						+ "SELECT table1.foo, table1.bar FROM schema1.table1 WHERE table1.foo IN ('4')]",
+				executedQueries.toString());
+	}
+
+	public void testExplainSemiJoin() throws Exception {
+		final List<String> executedQueries = Collections
+				.synchronizedList(new ArrayList<String>());
+		DataContext dc1 = new MockDataContext("schema1", "table1", "dc1") {
+			@Override
+			public DataSet executeQuery(Query query) {
+				executedQueries.add(query.toSql());
+				return super.executeQuery(query);
+			}
+		};
+		DataContext dc2 = new MockDataContext("schema2", "table2", "dc2");
+
+		CompositeDataContext composite = new CompositeDataContext(dc1, dc2);
+		composite.setSemiJoinMaxKeys(10000);
+		composite.setSemiJoinBatchSize(2);
+		Table table1 = dc1.getDefaultSchema().getTableByName("table1");
+		Table table2 = dc2.getDefaultSchema().getTableByName("table2");
+
+		Query q = composite.query().from(table1).as("t1").and(table2)
+				.as("t2").select("t1.foo", "t1.bar", "t2.baz")
+				.where("t1.foo").eq(table2.getColumnByName("foo"))
+				.where("t2.baz").eq("world").toQuery();
+
+		assertEquals(
+				"hash join [BUFFERING]: ON t1.foo = t2.foo\n"
+						+ "  semi-join [BUFFERING]: t1.foo IN (up to 3 keys of t2.foo), in batches of 2\n"
+						+ "    delegate query [DATASTORE]: MockDataContext\n"
+						+ "      query [DATASTORE]: SELECT table1.foo, table1.bar FROM schema1.table1\n"
+						+ "  delegate query [DATASTORE]: MockDataContext\n"
+						+ "    filter [STREAMING]: WHERE table2.baz = 'world'\n"
+						+ "      scan [DATASTORE]: SELECT table2.baz, table2.foo FROM schema2.table2",
+				composite.explain(q).toString());
+
+		// only the estimates are needed to plan the semi-join
+		assertEquals("[SELECT APPROXIMATE COUNT(*) FROM schema1.table1]",
+				executedQueries.toString());
+	}
+
+	public void testSemiJoinWithoutKeys() throws Exception {
+		final List<String> executedQueries = Collections
+				.synchronizedList(new ArrayList<String>());
+		DataContext dc1 = new MockDataContext("schema1", "table1", "dc1") {
+			@Override
+			public DataSet executeQuery(Query query) {
+				executedQueries.add(query.toSql());
+				return super.executeQuery(query);
+			}
+		};
+		DataContext dc2 = new MockDataContext("schema2", "table2", "dc2");
+
+		CompositeDataContext composite = new CompositeDataContext(dc1, dc2);
+		composite.setSemiJoinMaxKeys(10000);
+		Table table1 = dc1.getDefaultSchema().getTableByName("table1");
+		Table table2 = dc2.getDefaultSchema().getTableByName("table2");
+
+		Query q = composite.query().from(table1).as("t1").and(table2)
+				.as("t2").select("t1.foo", "t2.baz")
+				.where("t1.foo").eq(table2.getColumnByName("foo"))
+				.where("t2.baz").eq("foobar").toQuery();
+
+		DataSet ds = composite.executeQuery(q);
+		assertFalse(ds.next());
+		ds.close();
+
+		assertEquals("[SELECT APPROXIMATE COUNT(*) FROM schema1.table1]",
+				executedQueries.toString());
+	}
+
+	public void testSemiJoinNotUsedForKeysOfDifferentTypes() throws Exception {
+		final List<String> executedQueries = Collections
+				.synchronizedList(new ArrayList<String>());
+		DataContext dc1 = new MockDataContext("schema1", "table1", "dc1") {
+			@Override
+			public DataSet executeQuery(Query query) {
+				executedQueries.add(query.toSql());
+				return super.executeQuery(query);
+			}
+		};
+		DataContext dc2 = new MockDataContext("schema2", "table2", "dc2") {
+			@Override
+			protected Schema getMainSchema() throws MetaModelException {
+				final Schema schema = super.getMainSchema();
+				((MutableColumn) schema.getTableByName("table2")
+						.getColumnByName("foo")).setType(ColumnType.INTEGER);
+				return schema;
+			}
+
+			@Override
+			protected DataSet materializeMainSchemaTable(Table table,
+					List<Column> columns, int maxRows) {
+				final DataSet dataSet = super.materializeMainSchemaTable(
+						table, columns, maxRows);
+				final DataSetHeader header = new SimpleDataSetHeader(
+						dataSet.getSelectItems());
+				final int fooIndex = columns.indexOf(table
+						.getColumnByName("foo"));
+				final List<Row> rows = new ArrayList<>();
+				for (Row row : dataSet.toRows()) {
+					final Object[] values = row.getValues().clone();
+					if (fooIndex != -1) {
+						values[fooIndex] = Integer.parseInt((String) values[fooIndex]);
+					}
+					rows.add(new DefaultRow(header, values));
+				}
+				return new InMemoryDataSet(header, rows);
+			}
+		};
+
+		CompositeDataContext composite = new CompositeDataContext(dc1, dc2);
+		composite.setSemiJoinMaxKeys(10000);
+		Table table1 = dc1.getDefaultSchema().getTableByName("table1");
+		Table table2 = dc2.getDefaultSchema().getTableByName("table2");
+
+		Query q = composite.query().from(table1).as("t1").and(table2)
+				.as("t2").select("t1.foo", "t2.foo", "t2.baz")
+				.where("t1.foo").eq(table2.getColumnByName("foo"))
+				.where("t2.baz").eq("world").toQuery();
+
+		DataSet ds = composite.executeQuery(q);
+		assertEquals("[[1, 1, world], [2, 2, world], [4, 4, world]]",
+				toString(ds.toObjectArrays()));
+
+		// the VARCHAR keys are not filtered by the INTEGER keys
+		assertEquals(
+				"[SELECT table1.foo FROM schema1.table1]",
+				executedQueries.toString());
+	}
+
+	private static String toString(List<Object[]> objectArrays) {
+		final List<String> result = new ArrayList<>();
+		for (Object[] objectArray : objectArrays) {
+			result.add(Arrays.toString(objectArray));
+		}
+		return result.toString();
+	}
+}
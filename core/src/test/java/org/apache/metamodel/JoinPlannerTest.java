@@ -0,0 +1,101 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.metamodel;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.metamodel.query.FilterItem;
+import org.apache.metamodel.query.LogicalOperator;
+import org.apache.metamodel.query.OperatorType;
+import org.apache.metamodel.query.SelectItem;
+import org.apache.metamodel.schema.ColumnType;
+import org.apache.metamodel.schema.MutableColumn;
+import org.apache.metamodel.schema.MutableTable;
+
+import junit.framework.TestCase;
+
+public class JoinPlannerTest extends TestCase {
+
+    private final MutableTable orders = new MutableTable("orders");
+    private final SelectItem orderId = column(orders, "id");
+    private final SelectItem orderCustomerId = column(orders, "customer_id");
+    private final MutableTable customers = new MutableTable("customers");
+    private final SelectItem customerId = column(customers, "id");
+    private final SelectItem customerCountryId = column(customers, "country_id");
+    private final MutableTable countries = new MutableTable("countries");
+    private final SelectItem countryId = column(countries, "id");
+    private final SelectItem countryName = column(countries, "name");
+
+    private static SelectItem column(MutableTable table, String name) {
+        final MutableColumn column = new MutableColumn(name, ColumnType.VARCHAR, table, table.getColumnCount(), true);
+        table.addColumn(column);
+        return new SelectItem(column);
+    }
+
+    public void testAvoidCarthesianProduct() throws Exception {
+        // FROM orders, countries, customers - joining the first two would
+        // produce a carthesian product
+        final List<List<SelectItem>> inputs = Arrays.asList(Arrays.asList(orderId, orderCustomerId),
+                Arrays.asList(countryId, countryName), Arrays.asList(customerId, customerCountryId));
+        final List<FilterItem> filters = Arrays.asList(
+                new FilterItem(orderCustomerId, OperatorType.EQUALS_TO, customerId),
+                new FilterItem(customerCountryId, OperatorType.EQUALS_TO, countryId));
+
+        final JoinPlanner joinPlanner = new JoinPlanner(inputs, new long[] { 1000000, 100, 10000 }, filters);
+        final int[] joinOrder = joinPlanner.getJoinOrder();
+        assertEquals("[0, 2, 1]", Arrays.toString(joinOrder));
+        assertEquals("[1000000, 1000000]", Arrays.toString(joinPlanner.getJoinRowCounts(joinOrder)));
+    }
+
+    public void testSmallerInputIsJoinedLast() throws Exception {
+        final List<List<SelectItem>> inputs = Arrays.asList(Arrays.asList(customerId, customerCountryId),
+                Arrays.asList(orderId, orderCustomerId));
+        final List<FilterItem> filters = Arrays.asList(new FilterItem(orderCustomerId, OperatorType.EQUALS_TO,
+                customerId));
+
+        JoinPlanner joinPlanner = new JoinPlanner(inputs, new long[] { 10000, 1000000 }, filters);
+        assertEquals("[1, 0]", Arrays.toString(joinPlanner.getJoinOrder()));
+
+        joinPlanner = new JoinPlanner(inputs, new long[] { 10000, 100 }, filters);
+        assertEquals("[0, 1]", Arrays.toString(joinPlanner.getJoinOrder()));
+    }
+
+    public void testKeepOrderOfEqualCosts() throws Exception {
+        final List<List<SelectItem>> inputs = Arrays.asList(Arrays.asList(customerId), Arrays.asList(orderId));
+        final JoinPlanner joinPlanner = new JoinPlanner(inputs, new long[] { 10, 10 }, Collections.emptyList());
+        assertEquals("[0, 1]", Arrays.toString(joinPlanner.getJoinOrder()));
+    }
+
+    public void testFilteredRowCount() throws Exception {
+        assertEquals(1000, JoinPlanner.getFilteredRowCount(1000, Collections.emptyList()));
+        assertEquals(100, JoinPlanner.getFilteredRowCount(1000, Arrays.asList(new FilterItem(countryName,
+                OperatorType.EQUALS_TO, "Denmark"))));
+        assertEquals(300, JoinPlanner.getFilteredRowCount(1000, Arrays.asList(new FilterItem(countryName,
+                OperatorType.IN, new String[] { "Denmark", "Sweden", "Norway" }))));
+        assertEquals(33, JoinPlanner.getFilteredRowCount(1000, Arrays.asList(new FilterItem(countryName,
+                OperatorType.EQUALS_TO, "Denmark"), new FilterItem(countryId, OperatorType.GREATER_THAN, 5))));
+        assertEquals(190, JoinPlanner.getFilteredRowCount(1000, Arrays.asList(new FilterItem(LogicalOperator.OR,
+                new FilterItem(countryName, OperatorType.EQUALS_TO, "Denmark"), new FilterItem(countryName,
+                        OperatorType.EQUALS_TO, "Sweden")))));
+        assertEquals(1, JoinPlanner.getFilteredRowCount(1, Arrays.asList(new FilterItem(countryName,
+                OperatorType.EQUALS_TO, "Denmark"))));
+    }
+}
@@ -21,23 +21,32 @@ package org.apache.metamodel;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.google.common.collect.Lists;
 import org.apache.metamodel.data.DataSet;
 import org.apache.metamodel.data.DataSetHeader;
 import org.apache.metamodel.data.DefaultRow;
+import org.apache.metamodel.data.DistinctDataSet;
 import org.apache.metamodel.data.EmptyDataSet;
+import org.apache.metamodel.data.ExternalSortDataSet;
+import org.apache.metamodel.data.FilteredDataSet;
+import org.apache.metamodel.data.HashJoinDataSet;
 import org.apache.metamodel.data.InMemoryDataSet;
+import org.apache.metamodel.data.MaxRowsDataSet;
 import org.apache.metamodel.data.Row;
 import org.apache.metamodel.data.SimpleDataSetHeader;
 import org.apache.metamodel.data.SubSelectionDataSet;
+import org.apache.metamodel.data.TopNDataSet;
 import org.apache.metamodel.query.FilterItem;
 import org.apache.metamodel.query.FromItem;
 import org.apache.metamodel.query.FunctionType;
+import org.apache.metamodel.query.GroupByItem;
 import org.apache.metamodel.query.JoinType;
 import org.apache.metamodel.query.OperatorType;
 import org.apache.metamodel.query.OrderByItem;
 import org.apache.metamodel.query.Query;
+import org.apache.metamodel.query.ScalarFunction;
 import org.apache.metamodel.query.SelectItem;
 import org.apache.metamodel.schema.Column;
 import org.apache.metamodel.schema.ColumnType;
@@ -172,6 +181,51 @@ public class MetaModelHelperTest extends MetaModelTestCase {
         assertEquals("[yippie, ip]", Arrays.toString(resultRows.get(1)));
     }
 
+    @Test
+    public void testGetSelectionEvaluatesScalarFunctionOncePerRow() throws Exception {
+        final AtomicInteger evaluations = new AtomicInteger();
+        final ScalarFunction countingFunction = new ScalarFunction() {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public Object evaluate(Row row, Object[] parameters, SelectItem operandItem) {
+                evaluations.incrementAndGet();
+                return FunctionType.TO_STRING.evaluate(row, parameters, operandItem);
+            }
+
+            @Override
+            public ColumnType getExpectedColumnType(ColumnType type) {
+                return ColumnType.STRING;
+            }
+
+            @Override
+            public String getFunctionName() {
+                return "COUNTING";
+            }
+        };
+
+        final DataSet ds1 = createDataSet3(); // contains ["w00p",true] and ["yippie",false]
+        final SelectItem selectItem1 = ds1.getSelectItems().get(0);
+        final SelectItem functionItem = selectItem1.replaceFunction(countingFunction);
+        final DataSet ds2 = MetaModelHelper.getSelection(new SelectItem[] { functionItem, selectItem1 }, ds1);
+
+        assertTrue(ds2.next());
+        final Row row = ds2.getRow();
+        assertEquals("w00p", row.getValue(functionItem));
+        assertEquals("w00p", row.getValue(0));
+        assertEquals("[w00p, w00p]", Arrays.toString(row.getValues()));
+        assertEquals("w00p", row.getValue(0));
+        assertEquals(1, evaluations.get());
+
+        assertTrue(ds2.next());
+        assertEquals("[yippie, yippie]", Arrays.toString(ds2.getRow().getValues()));
+        assertEquals(2, evaluations.get());
+
+        assertFalse(ds2.next());
+        ds2.close();
+    }
+
     @Test
     public void testTripleCarthesianProduct() throws Exception {
         DataSet dataSet = MetaModelHelper.getCarthesianProduct(createDataSet1(), createDataSet2(), createDataSet3());
@@ -226,6 +280,305 @@ public class MetaModelHelperTest extends MetaModelTestCase {
         assertFalse(dataSet.next());
     }
 
+    @Test
+    public void testGetOrderedSpillingToDisk() throws Exception {
+        SelectItem si1 = new SelectItem(new MutableColumn("nr", ColumnType.INTEGER));
+        SelectItem si2 = new SelectItem(new MutableColumn("name", ColumnType.VARCHAR));
+        SelectItem si3 = new SelectItem(new MutableColumn("amount", ColumnType.DECIMAL));
+        SelectItem si4 = new SelectItem(new MutableColumn("created", ColumnType.TIMESTAMP));
+
+        List<Object[]> data = new ArrayList<Object[]>();
+        for (int i = 0; i < 20; i++) {
+            data.add(new Object[] { i % 4, "row " + i, new java.math.BigDecimal(i + ".5"),
+                    new java.sql.Timestamp(1000L * i) });
+        }
+        // values that do not match the expected types of the columns
+        data.add(new Object[] { null, null, null, null });
+        data.add(new Object[] { 2L, 42, 3.5d, new java.util.Date(0) });
+
+        DataSet dataSet = createDataSet(Lists.newArrayList(si1, si2, si3, si4), data);
+        // wrap the data set to avoid the in-memory shortcut
+        dataSet = new MaxRowsDataSet(dataSet, Integer.MAX_VALUE);
+
+        dataSet = MetaModelHelper.getOrdered(dataSet, 3, new OrderByItem(si1, OrderByItem.Direction.DESC));
+        assertTrue(dataSet instanceof ExternalSortDataSet);
+
+        final List<Row> rows = dataSet.toRows();
+        dataSet.close();
+        assertEquals(22, rows.size());
+        assertEquals(8, ((ExternalSortDataSet) dataSet).getSpilledRunCount());
+
+        assertEquals("Row[values=[3, row 3, 3.5, " + new java.sql.Timestamp(3000L) + "]]", rows.get(0).toString());
+        assertEquals("Row[values=[3, row 19, 19.5, " + new java.sql.Timestamp(19000L) + "]]",
+                rows.get(4).toString());
+        assertEquals("Row[values=[2, row 2, 2.5, " + new java.sql.Timestamp(2000L) + "]]", rows.get(5).toString());
+        assertEquals("Row[values=[2, 42, 3.5, " + new java.util.Date(0) + "]]", rows.get(10).toString());
+        assertEquals(Long.class, rows.get(10).getValue(0).getClass());
+        assertEquals(Integer.class, rows.get(10).getValue(1).getClass());
+        assertEquals("Row[values=[0, row 16, 16.5, " + new java.sql.Timestamp(16000L) + "]]",
+                rows.get(20).toString());
+        assertEquals("Row[values=[null, null, null, null]]", rows.get(21).toString());
+
+        // rows with equal sort values retain their original order
+        for (int i = 1; i < rows.size() - 1; i++) {
+            final Row previous = rows.get(i - 1);
+            final Row row = rows.get(i);
+            if (previous.getValue(0).equals(row.getValue(0)) && row.getValue(1) instanceof String
+                    && previous.getValue(1) instanceof String) {
+                final int previousNr = Integer.parseInt(((String) previous.getValue(1)).substring(4));
+                final int nr = Integer.parseInt(((String) row.getValue(1)).substring(4));
+                assertTrue(previousNr < nr);
+            }
+        }
+    }
+
+    @Test
+    public void testGetOrderedSpillingToDiskClosedEarly() throws Exception {
+        SelectItem si1 = new SelectItem(new MutableColumn("nr", ColumnType.INTEGER));
+
+        List<Object[]> data = new ArrayList<Object[]>();
+        for (int i = 0; i < 20; i++) {
+            data.add(new Object[] { i % 7 });
+        }
+
+        DataSet dataSet = createDataSet(Lists.newArrayList(si1), data);
+        dataSet = new MaxRowsDataSet(dataSet, Integer.MAX_VALUE);
+
+        dataSet = MetaModelHelper.getOrdered(dataSet, 5, new OrderByItem(si1));
+        assertTrue(dataSet.next());
+        assertTrue(dataSet.next());
+        dataSet.close();
+
+        assertFalse(dataSet.next());
+        assertNull(dataSet.getRow());
+    }
+
+    @Test
+    public void testGetOrderedSpillingToDiskWithNonSerializableValues() throws Exception {
+        SelectItem si1 = new SelectItem(new MutableColumn("nr", ColumnType.INTEGER));
+        SelectItem si2 = new SelectItem(new MutableColumn("obj", ColumnType.OTHER));
+
+        List<Object[]> data = new ArrayList<Object[]>();
+        for (int i = 0; i < 20; i++) {
+            data.add(new Object[] { i % 7, i == 12 ? new NonSerializableValue("value " + i) : "value " + i });
+        }
+
+        DataSet dataSet = createDataSet(Lists.newArrayList(si1, si2), data);
+        dataSet = new MaxRowsDataSet(dataSet, Integer.MAX_VALUE);
+
+        dataSet = MetaModelHelper.getOrdered(dataSet, 5, new OrderByItem(si1));
+        final List<Row> rows = dataSet.toRows();
+        dataSet.close();
+        assertEquals(20, rows.size());
+        // only the rows before the non-serializable value was encountered are spilled
+        assertEquals(2, ((ExternalSortDataSet) dataSet).getSpilledRunCount());
+
+        for (int i = 1; i < rows.size(); i++) {
+            assertTrue(((Integer) rows.get(i - 1).getValue(0)) <= ((Integer) rows.get(i).getValue(0)));
+        }
+        assertEquals("Row[values=[5, value 12]]", rows.get(16).toString());
+        assertTrue(rows.get(16).getValue(1) instanceof NonSerializableValue);
+    }
+
+    @Test
+    public void testGetTopN() throws Exception {
+        SelectItem si1 = new SelectItem(new MutableColumn("nr", ColumnType.INTEGER));
+        SelectItem si2 = new SelectItem(new MutableColumn("name", ColumnType.VARCHAR));
+
+        List<Object[]> data = new ArrayList<Object[]>();
+        data.add(new Object[] { 3, "a" });
+        data.add(new Object[] { 1, "b" });
+        data.add(new Object[] { 4, "c" });
+        data.add(new Object[] { 1, "d" });
+        data.add(new Object[] { 5, "e" });
+        data.add(new Object[] { null, "f" });
+        data.add(new Object[] { 4, "g" });
+
+        DataSet dataSet = MetaModelHelper.getTopN(createDataSet(Lists.newArrayList(si1, si2), data),
+                Arrays.asList(new OrderByItem(si1)), 4);
+        assertTrue(dataSet instanceof TopNDataSet);
+        assertEquals("[Row[values=[null, f]], Row[values=[1, b]], Row[values=[1, d]], Row[values=[3, a]]]",
+                dataSet.toRows().toString());
+
+        dataSet = MetaModelHelper.getTopN(createDataSet(Lists.newArrayList(si1, si2), data),
+                Arrays.asList(new OrderByItem(si1, OrderByItem.Direction.DESC)), 3);
+        assertEquals("[Row[values=[5, e]], Row[values=[4, c]], Row[values=[4, g]]]", dataSet.toRows().toString());
+
+        dataSet = MetaModelHelper.getTopN(createDataSet(Lists.newArrayList(si1, si2), data),
+                Arrays.asList(new OrderByItem(si1)), 10);
+        assertEquals(7, dataSet.toRows().size());
+
+        dataSet = MetaModelHelper.getTopN(createDataSet(Lists.newArrayList(si1, si2), data),
+                Arrays.asList(new OrderByItem(si1)), 0);
+        assertFalse(dataSet.next());
+    }
+
+    @Test
+    public void testGetDistinct() throws Exception {
+        SelectItem si1 = new SelectItem(new MutableColumn("nr", ColumnType.INTEGER));
+        SelectItem si2 = new SelectItem(new MutableColumn("name", ColumnType.VARCHAR));
+
+        List<Object[]> data = new ArrayList<Object[]>();
+        data.add(new Object[] { 1, "a" });
+        data.add(new Object[] { 2, "b" });
+        data.add(new Object[] { 1, "a" });
+        data.add(new Object[] { null, "c" });
+        data.add(new Object[] { 2, null });
+        data.add(new Object[] { null, "c" });
+        data.add(new Object[] { 2, "b" });
+
+        DataSet dataSet = MetaModelHelper.getDistinct(createDataSet(Lists.newArrayList(si1, si2), data));
+        assertTrue(dataSet instanceof DistinctDataSet);
+        assertEquals("[Row[values=[1, a]], Row[values=[2, b]], Row[values=[null, c]], Row[values=[2, null]]]",
+                dataSet.toRows().toString());
+
+        // rows are emitted without reading the whole data set
+        final InMemoryDataSet source = (InMemoryDataSet) createDataSet(Lists.newArrayList(si1, si2), data);
+        dataSet = MetaModelHelper.getDistinct(new MaxRowsDataSet(source, Integer.MAX_VALUE));
+        assertTrue(dataSet.next());
+        assertTrue(dataSet.next());
+        assertEquals("Row[values=[2, b]]", dataSet.getRow().toString());
+        dataSet.close();
+    }
+
+    @Test
+    public void testGetAggregatedColumnByColumn() throws Exception {
+        Column col1 = new MutableColumn("nr", ColumnType.INTEGER);
+        Column col2 = new MutableColumn("amount", ColumnType.DOUBLE);
+        Column col3 = new MutableColumn("name", ColumnType.VARCHAR);
+        SelectItem si1 = new SelectItem(col1);
+        SelectItem si2 = new SelectItem(col2);
+        SelectItem si3 = new SelectItem(col3);
+
+        List<Object[]> data = new ArrayList<Object[]>();
+        for (int i = 0; i < 3000; i++) {
+            final Integer nr = i % 7 == 0 ? null : i;
+            final Double amount = i % 11 == 0 ? null : i / 4d;
+            data.add(new Object[] { nr, amount, "name" + (i % 13) });
+        }
+
+        final List<SelectItem> functionItems = Lists.newArrayList(SelectItem.getCountAllItem(),
+                new SelectItem(FunctionType.COUNT, col1), new SelectItem(FunctionType.SUM, col1),
+                new SelectItem(FunctionType.MAX, col1), new SelectItem(FunctionType.AVG, col2),
+                new SelectItem(FunctionType.MIN, col2), new SelectItem(FunctionType.MAX, col3));
+
+        // only aggregates - the values are aggregated in batches
+        final DataSet batchResult = MetaModelHelper.getAggregated(functionItems,
+                createDataSet(Lists.newArrayList(si1, si2, si3), data));
+        assertTrue(batchResult.next());
+        final Row batchRow = batchResult.getRow();
+        assertFalse(batchResult.next());
+
+        // with a non-aggregated value - the values are aggregated row by row
+        final List<SelectItem> workSelectItems = new ArrayList<SelectItem>(functionItems);
+        workSelectItems.add(si3);
+        final DataSet rowResult = MetaModelHelper.getAggregated(workSelectItems,
+                createDataSet(Lists.newArrayList(si1, si2, si3), data));
+        assertTrue(rowResult.next());
+        final Row row = rowResult.getRow();
+        rowResult.close();
+
+        assertEquals("Row[values=[3000, 2571, 3855858.0, 2999, 374.96259625962597, 0.25, name9]]", batchRow.toString());
+        for (SelectItem functionItem : functionItems) {
+            assertEquals(row.getValue(functionItem), batchRow.getValue(functionItem));
+        }
+    }
+
+    public void testGetGroupedWithLongDoubleAndIntegerColumns() throws Exception {
+        Column nameColumn = new MutableColumn("name", ColumnType.VARCHAR);
+        Column longColumn = new MutableColumn("l", ColumnType.BIGINT);
+        Column doubleColumn = new MutableColumn("d", ColumnType.DOUBLE);
+        Column intColumn = new MutableColumn("i", ColumnType.INTEGER);
+        SelectItem nameItem = new SelectItem(nameColumn);
+
+        List<Object[]> data = new ArrayList<Object[]>();
+        data.add(new Object[] { "a", 1L, 1.5, 3 });
+        data.add(new Object[] { "a", 5L, null, 4 });
+        data.add(new Object[] { "a", null, -2.0, null });
+        data.add(new Object[] { "b", 10L, 0.25, 7 });
+        data.add(new Object[] { "b", 20L, 0.75, 8 });
+
+        final List<SelectItem> selectItems = Lists.newArrayList(nameItem,
+                new SelectItem(FunctionType.SUM, longColumn), new SelectItem(FunctionType.AVG, longColumn),
+                new SelectItem(FunctionType.MIN, longColumn), new SelectItem(FunctionType.MAX, longColumn),
+                new SelectItem(FunctionType.SUM, doubleColumn), new SelectItem(FunctionType.AVG, doubleColumn),
+                new SelectItem(FunctionType.MIN, doubleColumn), new SelectItem(FunctionType.MAX, doubleColumn),
+                new SelectItem(FunctionType.SUM, intColumn), new SelectItem(FunctionType.MIN, intColumn));
+
+        final DataSet dataSet = MetaModelHelper.getGrouped(selectItems,
+                createDataSet(Lists.newArrayList(nameItem, new SelectItem(longColumn), new SelectItem(doubleColumn),
+                        new SelectItem(intColumn)), data),
+                Arrays.asList(new GroupByItem(nameItem)));
+        final List<Row> rows = dataSet.toRows();
+        assertEquals(2, rows.size());
+        assertEquals("Row[values=[a, 6.0, 3.0, 1, 5, -0.5, -0.25, -2.0, 1.5, 7.0, 3]]", rows.get(0).toString());
+        assertEquals("Row[values=[b, 30.0, 15.0, 10, 20, 1.0, 0.5, 0.25, 0.75, 15.0, 7]]", rows.get(1).toString());
+
+        // MIN and MAX retain the type of the values
+        assertEquals(Long.class, rows.get(0).getValue(3).getClass());
+        assertEquals(Double.class, rows.get(0).getValue(7).getClass());
+        assertEquals(Integer.class, rows.get(0).getValue(10).getClass());
+    }
+
+    @Test
+    public void testGetDistinctSpillingToDisk() throws Exception {
+        SelectItem si1 = new SelectItem(new MutableColumn("nr", ColumnType.INTEGER));
+        SelectItem si2 = new SelectItem(new MutableColumn("name", ColumnType.VARCHAR));
+
+        List<Object[]> data = new ArrayList<Object[]>();
+        for (int i = 0; i < 300; i++) {
+            data.add(new Object[] { i % 50, "name " + (i % 25) });
+        }
+
+        DataSet dataSet = MetaModelHelper.getDistinct(createDataSet(Lists.newArrayList(si1, si2), data), 10);
+        final List<Row> rows = dataSet.toRows();
+        assertEquals(50, rows.size());
+        assertEquals(50, new java.util.HashSet<Row>(rows).size());
+        assertEquals("[Row[values=[0, name 0]], Row[values=[1, name 1]]]", rows.subList(0, 2).toString());
+    }
+
+    @Test
+    public void testGetDistinctSpillingToDiskWithNonSerializableValues() throws Exception {
+        SelectItem si1 = new SelectItem(new MutableColumn("nr", ColumnType.INTEGER));
+        SelectItem si2 = new SelectItem(new MutableColumn("obj", ColumnType.OTHER));
+
+        final NonSerializableValue value = new NonSerializableValue("foo");
+        List<Object[]> data = new ArrayList<Object[]>();
+        for (int i = 0; i < 300; i++) {
+            data.add(new Object[] { i % 50, i % 10 == 0 ? value : "name " + (i % 25) });
+        }
+
+        DataSet dataSet = MetaModelHelper.getDistinct(createDataSet(Lists.newArrayList(si1, si2), data), 10);
+        final List<Row> rows = dataSet.toRows();
+        assertEquals(new java.util.HashSet<Row>(rows).size(), rows.size());
+        assertEquals(new java.util.HashSet<Row>(createDataSet(Lists.newArrayList(si1, si2), data).toRows()),
+                new java.util.HashSet<Row>(rows));
+    }
+
+    private static final class NonSerializableValue {
+
+        private final String _str;
+
+        public NonSerializableValue(String str) {
+            _str = str;
+        }
+
+        @Override
+        public int hashCode() {
+            return _str.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof NonSerializableValue && _str.equals(((NonSerializableValue) obj)._str);
+        }
+
+        @Override
+        public String toString() {
+            return _str;
+        }
+    }
+
     private DataSet createDataSet1() {
         List<Object[]> data1 = new ArrayList<Object[]>();
         data1.add(new Object[] { "f" });
@@ -430,4 +783,165 @@ public class MetaModelHelperTest extends MetaModelTestCase {
 
         assertTrue(count == bigDataSetSize);
     }
+
+    @Test
+    public void testCarthesianProductWithEquiJoinUsesHashJoin() throws Exception {
+        SelectItem si1 = new SelectItem(new MutableColumn("person_id", ColumnType.INTEGER));
+        SelectItem si2 = new SelectItem(new MutableColumn("person_role_id", ColumnType.INTEGER));
+        SelectItem si3 = new SelectItem(new MutableColumn("role_id", ColumnType.BIGINT));
+        SelectItem si4 = new SelectItem(new MutableColumn("role_name", ColumnType.VARCHAR));
+
+        List<Object[]> data1 = new ArrayList<Object[]>();
+        data1.add(new Object[] { 1, 1 });
+        data1.add(new Object[] { 2, 2 });
+        data1.add(new Object[] { 3, null });
+        data1.add(new Object[] { 4, 2 });
+        data1.add(new Object[] { 5, 3 });
+
+        List<Object[]> data2 = new ArrayList<Object[]>();
+        data2.add(new Object[] { 1L, "class president" });
+        data2.add(new Object[] { 2L, "bad boy" });
+        data2.add(new Object[] { 2L, "trouble maker" });
+
+        DataSet ds1 = createDataSet(Lists.newArrayList(si1, si2), data1);
+        DataSet ds2 = createDataSet(Lists.newArrayList(si3, si4), data2);
+
+        FilterItem joinCondition = new FilterItem(si3, OperatorType.EQUALS_TO, si2);
+        FilterItem singleSideCondition = new FilterItem(si1, OperatorType.LESS_THAN, 4);
+
+        DataSet result = MetaModelHelper.getCarthesianProduct(new DataSet[] { ds1, ds2 }, joinCondition,
+                singleSideCondition);
+        assertEquals(HashJoinDataSet.class, result.getClass());
+        assertEquals(4, result.getSelectItems().size());
+
+        List<Object[]> objectArrays = result.toObjectArrays();
+        assertEquals(3, objectArrays.size());
+        assertEquals("[1, 1, 1, class president]", Arrays.toString(objectArrays.get(0)));
+        assertEquals("[2, 2, 2, bad boy]", Arrays.toString(objectArrays.get(1)));
+        assertEquals("[2, 2, 2, trouble maker]", Arrays.toString(objectArrays.get(2)));
+    }
+
+    @Test
+    public void testHashJoinWithDifferentKindsOfKeyValues() throws Exception {
+        SelectItem si1 = new SelectItem(new MutableColumn("id", ColumnType.INTEGER));
+        SelectItem si2 = new SelectItem(new MutableColumn("ref", ColumnType.VARCHAR));
+        SelectItem si3 = new SelectItem(new MutableColumn("name", ColumnType.VARCHAR));
+
+        List<Object[]> data1 = new ArrayList<Object[]>();
+        data1.add(new Object[] { 1 });
+        data1.add(new Object[] { 2 });
+        data1.add(new Object[] { 3.0 });
+
+        List<Object[]> data2 = new ArrayList<Object[]>();
+        data2.add(new Object[] { "2", "foo" });
+        data2.add(new Object[] { 3, "bar" });
+        data2.add(new Object[] { null, "baz" });
+
+        FilterItem joinCondition = new FilterItem(si1, OperatorType.EQUALS_TO, si2);
+
+        DataSet hashJoined = MetaModelHelper.getCarthesianProduct(
+                new DataSet[] { createDataSet(Lists.newArrayList(si1), data1),
+                        createDataSet(Lists.newArrayList(si2, si3), data2) }, joinCondition);
+        DataSet nestedLoopJoined = MetaModelHelper.nestedLoopJoin(createDataSet(Lists.newArrayList(si2, si3), data2),
+                createDataSet(Lists.newArrayList(si1), data1), Arrays.asList(joinCondition));
+
+        List<Object[]> objectArrays = hashJoined.toObjectArrays();
+        assertEquals(2, objectArrays.size());
+        assertEquals("[2, 2, foo]", Arrays.toString(objectArrays.get(0)));
+        assertEquals("[3.0, 3, bar]", Arrays.toString(objectArrays.get(1)));
+
+        List<Object[]> expectedArrays = nestedLoopJoined.toObjectArrays();
+        assertEquals(expectedArrays.size(), objectArrays.size());
+        for (int i = 0; i < expectedArrays.size(); i++) {
+            assertEquals(Arrays.toString(expectedArrays.get(i)), Arrays.toString(objectArrays.get(i)));
+        }
+    }
+
+    @Test
+    public void testNestedLoopJoinIsLazy() throws Exception {
+        SelectItem si1 = new SelectItem(new MutableColumn("id", ColumnType.INTEGER));
+        SelectItem si2 = new SelectItem(new MutableColumn("code", ColumnType.INTEGER));
+
+        List<Object[]> data1 = new ArrayList<Object[]>();
+        for (int i = 0; i < 1000; i++) {
+            data1.add(new Object[] { i });
+        }
+        List<Object[]> data2 = new ArrayList<Object[]>();
+        data2.add(new Object[] { 1 });
+        data2.add(new Object[] { 2 });
+
+        final AtomicInteger outerRowsRead = new AtomicInteger();
+        DataSet outerDs = new FilteredDataSet(createDataSet(Lists.newArrayList(si1), data1), row -> {
+            outerRowsRead.incrementAndGet();
+            return true;
+        });
+        FilterItem joinCondition = new FilterItem(si1, OperatorType.GREATER_THAN, si2);
+
+        DataSet joined = MetaModelHelper.nestedLoopJoin(createDataSet(Lists.newArrayList(si2), data2), outerDs,
+                Arrays.asList(joinCondition));
+        assertEquals(0, outerRowsRead.get());
+
+        List<Object[]> objectArrays = new MaxRowsDataSet(joined, 3).toObjectArrays();
+        assertEquals(3, objectArrays.size());
+        assertEquals("[2, 1]", Arrays.toString(objectArrays.get(0)));
+        assertEquals("[3, 1]", Arrays.toString(objectArrays.get(1)));
+        assertEquals("[3, 2]", Arrays.toString(objectArrays.get(2)));
+        assertEquals(4, outerRowsRead.get());
+    }
+
+    @Test
+    public void testLeftJoinWithConditionsOnBothSides() throws Exception {
+        SelectItem si1 = new SelectItem(new MutableColumn("person_id", ColumnType.INTEGER));
+        SelectItem si2 = new SelectItem(new MutableColumn("person_age", ColumnType.INTEGER));
+        SelectItem si3 = new SelectItem(new MutableColumn("min_age", ColumnType.INTEGER));
+        SelectItem si4 = new SelectItem(new MutableColumn("role_name", ColumnType.VARCHAR));
+
+        List<Object[]> data1 = new ArrayList<Object[]>();
+        data1.add(new Object[] { 1, 17 });
+        data1.add(new Object[] { 2, 19 });
+        data1.add(new Object[] { 3, 30 });
+
+        List<Object[]> data2 = new ArrayList<Object[]>();
+        data2.add(new Object[] { 18, "voter" });
+        data2.add(new Object[] { 25, "senator" });
+
+        DataSet ds1 = createDataSet(Lists.newArrayList(si1, si2), data1);
+        DataSet ds2 = createDataSet(Lists.newArrayList(si3, si4), data2);
+
+        // a non-equi join condition and a condition that only concerns the
+        // left side, which must not remove any left rows from the result
+        FilterItem[] onConditions = new FilterItem[] { new FilterItem(si2, OperatorType.GREATER_THAN_OR_EQUAL, si3),
+                new FilterItem(si1, OperatorType.DIFFERENT_FROM, 2) };
+
+        DataSet result = MetaModelHelper.getLeftJoin(ds1, ds2, onConditions);
+        assertEquals(HashJoinDataSet.class, result.getClass());
+
+        List<Object[]> objectArrays = result.toObjectArrays();
+        assertEquals(4, objectArrays.size());
+        assertEquals("[1, 17, null, null]", Arrays.toString(objectArrays.get(0)));
+        assertEquals("[2, 19, null, null]", Arrays.toString(objectArrays.get(1)));
+        assertEquals("[3, 30, 18, voter]", Arrays.toString(objectArrays.get(2)));
+        assertEquals("[3, 30, 25, senator]", Arrays.toString(objectArrays.get(3)));
+    }
+
+    @Test
+    public void testRightJoinEmptyLeftSide() throws Exception {
+        SelectItem si1 = new SelectItem(new MutableColumn("person_role_id", ColumnType.INTEGER));
+        SelectItem si2 = new SelectItem(new MutableColumn("role_id", ColumnType.INTEGER));
+        SelectItem si3 = new SelectItem(new MutableColumn("role_name", ColumnType.VARCHAR));
+
+        List<Object[]> data2 = new ArrayList<Object[]>();
+        data2.add(new Object[] { 1, "class president" });
+        data2.add(new Object[] { 2, "bad boy" });
+
+        DataSet ds1 = new EmptyDataSet(Lists.newArrayList(si1));
+        DataSet ds2 = createDataSet(Lists.newArrayList(si2, si3), data2);
+
+        DataSet result = MetaModelHelper.getRightJoin(ds1, ds2,
+                new FilterItem[] { new FilterItem(si1, OperatorType.EQUALS_TO, si2) });
+        List<Object[]> objectArrays = result.toObjectArrays();
+        assertEquals(2, objectArrays.size());
+        assertEquals("[null, 1, class president]", Arrays.toString(objectArrays.get(0)));
+        assertEquals("[null, 2, bad boy]", Arrays.toString(objectArrays.get(1)));
+    }
 }
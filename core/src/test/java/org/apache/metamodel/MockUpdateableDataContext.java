@@ -84,6 +84,9 @@ public class MockUpdateableDataContext extends QueryPostprocessDataContext imple
         CachingDataSetHeader header = new CachingDataSetHeader(items);
 
         for (final Object[] values : _values) {
+            if (maxRows >= 0 && rows.size() == maxRows) {
+                break;
+            }
             Object[] rowValues = new Object[columns.size()];
             for (int i = 0; i < columns.size(); i++) {
                 int columnNumber = columns.get(i).getColumnNumber();
@@ -21,7 +21,13 @@ package org.apache.metamodel;
 import java.nio.channels.UnsupportedAddressTypeException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 import javax.swing.table.TableModel;
@@ -35,18 +41,22 @@ import org.apache.metamodel.data.InMemoryDataSet;
 import org.apache.metamodel.data.Row;
 import org.apache.metamodel.data.SimpleDataSetHeader;
 import org.apache.metamodel.query.CompiledQuery;
+import org.apache.metamodel.query.DefaultCompiledQuery;
 import org.apache.metamodel.query.FilterItem;
 import org.apache.metamodel.query.FromItem;
 import org.apache.metamodel.query.FunctionType;
 import org.apache.metamodel.query.GroupByItem;
 import org.apache.metamodel.query.JoinType;
+import org.apache.metamodel.query.LogicalOperator;
 import org.apache.metamodel.query.OperatorType;
 import org.apache.metamodel.query.OrderByItem;
 import org.apache.metamodel.query.OrderByItem.Direction;
 import org.apache.metamodel.query.Query;
 import org.apache.metamodel.query.QueryParameter;
+import org.apache.metamodel.query.QueryPlan;
 import org.apache.metamodel.query.SelectItem;
 import org.apache.metamodel.schema.Column;
+import org.apache.metamodel.schema.ColumnType;
 import org.apache.metamodel.schema.MutableColumn;
 import org.apache.metamodel.schema.MutableSchema;
 import org.apache.metamodel.schema.MutableTable;
@@ -384,59 +394,85 @@ public class QueryPostprocessDataContextTest extends MetaModelTestCase {
     }
 
     private DataContext getDataContext() {
-        QueryPostprocessDataContext dataContext = new QueryPostprocessDataContext() {
+        return getDataContext(false);
+    }
 
+    /**
+     * @param estimateRowCounts
+     *            whether the DataContext provides (approximated) row counts of its tables
+     */
+    private DataContext getDataContext(final boolean estimateRowCounts) {
+        if (!estimateRowCounts) {
+            return new TestDataContext();
+        }
+        return new TestDataContext() {
             @Override
-            public DataSet materializeMainSchemaTable(Table table, List<Column> columns, int maxRows) {
-                if (table == table1) {
-                    List<Column> columns1 = table1.getColumns();
-                    List<SelectItem> selectItems = columns1.stream().map(SelectItem::new).collect(Collectors.toList());
-                    List<Object[]> data = new ArrayList<Object[]>();
-                    data.add(new Object[] { 1, "kasper", "denmark" });
-                    data.add(new Object[] { 2, "asbjorn", "denmark" });
-                    data.add(new Object[] { 3, "johny", "israel" });
-                    data.add(new Object[] { 4, "daniel", "canada" });
-                    data.add(new Object[] { 5, "sasidhar", "unknown" });
-                    data.add(new Object[] { 6, "jesper", "denmark" });
-                    if (maxRows != -1) {
-                        for (int i = data.size() - 1; i >= maxRows; i--) {
-                            data.remove(i);
-                        }
-                    }
-                    return createDataSet(selectItems, data);
-                } else if (table == table2) {
-                    List<SelectItem> selectItems =
-                            table2.getColumns().stream().map(SelectItem::new).collect(Collectors.toList());
-                    List<Object[]> data = new ArrayList<Object[]>();
-                    data.add(new Object[] { 1, 1, "founder" });
-                    data.add(new Object[] { 1, 1, "developer" });
-                    data.add(new Object[] { 1, 2, "developer" });
-                    data.add(new Object[] { 2, 1, "developer" });
-                    data.add(new Object[] { 2, 3, "developer" });
-                    data.add(new Object[] { 4, 1, "advisor" });
-                    data.add(new Object[] { 5, 2, "developer" });
-                    data.add(new Object[] { 6, 1, "founder" });
-                    if (maxRows != -1) {
-                        for (int i = data.size() - 1; i >= maxRows; i--) {
-                            data.remove(i);
-                        }
-                    }
-                    return createDataSet(selectItems, data);
+            protected Number executeCountQuery(Table table, List<FilterItem> whereItems,
+                    boolean functionApproximationAllowed) {
+                if (!functionApproximationAllowed || !whereItems.isEmpty()) {
+                    return null;
                 }
-                throw new IllegalArgumentException("This test only accepts table1 and table2");
+                return table == table1 ? 6 : 8;
             }
 
             @Override
-            protected String getMainSchemaName() throws MetaModelException {
-                return schema.getName();
+            protected boolean isJoinReorderingEnabled() {
+                return true;
             }
+        };
+    }
 
-            @Override
-            protected Schema getMainSchema() throws MetaModelException {
-                return schema;
+    private class TestDataContext extends QueryPostprocessDataContext {
+
+        @Override
+        public DataSet materializeMainSchemaTable(Table table, List<Column> columns, int maxRows) {
+            if (table == table1) {
+                List<Column> columns1 = table1.getColumns();
+                List<SelectItem> selectItems = columns1.stream().map(SelectItem::new).collect(Collectors.toList());
+                List<Object[]> data = new ArrayList<Object[]>();
+                data.add(new Object[] { 1, "kasper", "denmark" });
+                data.add(new Object[] { 2, "asbjorn", "denmark" });
+                data.add(new Object[] { 3, "johny", "israel" });
+                data.add(new Object[] { 4, "daniel", "canada" });
+                data.add(new Object[] { 5, "sasidhar", "unknown" });
+                data.add(new Object[] { 6, "jesper", "denmark" });
+                if (maxRows != -1) {
+                    for (int i = data.size() - 1; i >= maxRows; i--) {
+                        data.remove(i);
+                    }
+                }
+                return createDataSet(selectItems, data);
+            } else if (table == table2) {
+                List<SelectItem> selectItems =
+                        table2.getColumns().stream().map(SelectItem::new).collect(Collectors.toList());
+                List<Object[]> data = new ArrayList<Object[]>();
+                data.add(new Object[] { 1, 1, "founder" });
+                data.add(new Object[] { 1, 1, "developer" });
+                data.add(new Object[] { 1, 2, "developer" });
+                data.add(new Object[] { 2, 1, "developer" });
+                data.add(new Object[] { 2, 3, "developer" });
+                data.add(new Object[] { 4, 1, "advisor" });
+                data.add(new Object[] { 5, 2, "developer" });
+                data.add(new Object[] { 6, 1, "founder" });
+                if (maxRows != -1) {
+                    for (int i = data.size() - 1; i >= maxRows; i--) {
+                        data.remove(i);
+                    }
+                }
+                return createDataSet(selectItems, data);
             }
-        };
-        return dataContext;
+            throw new IllegalArgumentException("This test only accepts table1 and table2");
+        }
+
+        @Override
+        protected String getMainSchemaName() throws MetaModelException {
+            return schema.getName();
+        }
+
+        @Override
+        protected Schema getMainSchema() throws MetaModelException {
+            return schema;
+        }
     }
 
     public void testDistinct() throws Exception {
@@ -732,6 +768,338 @@ public class QueryPostprocessDataContextTest extends MetaModelTestCase {
         }
     }
 
+    public void testCompiledQueryIsPlannedOnce() throws Exception {
+        final DataContext dc = getDataContext();
+        final Column idColumn = table1.getColumnByName(COLUMN_CONTRIBUTOR_CONTRIBUTOR_ID);
+        final Column nameColumn = table1.getColumnByName(COLUMN_CONTRIBUTOR_NAME);
+        final Column countryColumn = table1.getColumnByName(COLUMN_CONTRIBUTOR_COUNTRY);
+
+        final Query query = new Query().select(nameColumn).from(table1)
+                .where(new FilterItem(LogicalOperator.OR,
+                        new FilterItem(new SelectItem(countryColumn), OperatorType.EQUALS_TO, new QueryParameter()),
+                        new FilterItem(new SelectItem(idColumn), OperatorType.GREATER_THAN, new QueryParameter())))
+                .where(nameColumn, OperatorType.DIFFERENT_FROM, "johny").orderBy(nameColumn);
+
+        final CompiledQuery compiledQuery = dc.compileQuery(query);
+        try {
+            assertEquals(QueryPostprocessCompiledQuery.class, compiledQuery.getClass());
+            assertEquals(2, compiledQuery.getParameters().size());
+
+            DataSet ds = dc.executeQuery(compiledQuery, "canada", 5);
+            assertEquals("[[daniel], [jesper]]", ds.toObjectArrays().stream().map(Arrays::toString).collect(Collectors.toList()).toString());
+
+            ds = dc.executeQuery(compiledQuery, "denmark", 2);
+            assertEquals("[[asbjorn], [daniel], [jesper], [kasper], [sasidhar]]", ds.toObjectArrays().stream().map(Arrays::toString).collect(Collectors.toList()).toString());
+
+            // the same results as when cloning the query with the parameter values
+            ds = dc.executeQuery(new DefaultCompiledQuery(query).cloneWithParameterValues(new Object[] { "denmark",
+                    2 }));
+            assertEquals("[[asbjorn], [daniel], [jesper], [kasper], [sasidhar]]", ds.toObjectArrays().stream().map(Arrays::toString).collect(Collectors.toList()).toString());
+
+            try {
+                dc.executeQuery(compiledQuery, "denmark");
+                fail("Exception expected");
+            } catch (IllegalArgumentException e) {
+                assertEquals("Expected 2 parameter values, got: 1", e.getMessage());
+            }
+        } finally {
+            compiledQuery.close();
+        }
+    }
+
+    public void testCompiledPrimaryKeyLookupQuery() throws Exception {
+        final List<Object> lookedUpKeys = new ArrayList<>();
+        final QueryPostprocessDataContext delegate = (QueryPostprocessDataContext) getDataContext();
+        final DataContext dc = new QueryPostprocessDataContext() {
+            @Override
+            protected Row executePrimaryKeyLookupQuery(Table table, List<SelectItem> selectItems,
+                    Column primaryKeyColumn, Object keyValue) {
+                lookedUpKeys.add(keyValue);
+                return null;
+            }
+
+            @Override
+            protected DataSet materializeMainSchemaTable(Table table, List<Column> columns, int maxRows) {
+                return delegate.materializeMainSchemaTable(table, columns, maxRows);
+            }
+
+            @Override
+            protected String getMainSchemaName() throws MetaModelException {
+                return schema.getName();
+            }
+
+            @Override
+            protected Schema getMainSchema() throws MetaModelException {
+                return schema;
+            }
+        };
+
+        final CompiledQuery compiledQuery = dc.query().from(table1).select(COLUMN_CONTRIBUTOR_NAME).where(
+                COLUMN_CONTRIBUTOR_CONTRIBUTOR_ID).eq(new QueryParameter()).compile();
+        try {
+            for (int i = 1; i <= 3; i++) {
+                final DataSet ds = dc.executeQuery(compiledQuery, i);
+                assertEquals(1, ds.toObjectArrays().size());
+            }
+            assertEquals("[1, 2, 3]", lookedUpKeys.toString());
+        } finally {
+            compiledQuery.close();
+        }
+    }
+
+    public void testQueryExecutionListener() throws Exception {
+        final QueryPostprocessDataContext dc = (QueryPostprocessDataContext) getDataContext();
+        final List<String> events = new ArrayList<>();
+        final QueryExecutionListener listener = new QueryExecutionListener() {
+            @Override
+            public void onStrategyChosen(Query query, QueryExecutionStrategy strategy) {
+                events.add(strategy.name());
+            }
+
+            @Override
+            public void onOperatorFinished(Query query, String operator, long rowsIn, long rowsOut,
+                    long wallTimeNanos) {
+                assertTrue(wallTimeNanos >= 0);
+                events.add(operator + ": " + rowsIn + " -> " + rowsOut);
+            }
+        };
+
+        final Query query = dc.query().from(table1).select(COLUMN_CONTRIBUTOR_COUNTRY).selectCount().where(
+                COLUMN_CONTRIBUTOR_CONTRIBUTOR_ID).gt(1).groupBy(COLUMN_CONTRIBUTOR_COUNTRY).orderBy(
+                        COLUMN_CONTRIBUTOR_COUNTRY).toQuery();
+
+        // no events without a listener
+        dc.executeQuery(query).toRows();
+        assertEquals(0, events.size());
+
+        dc.addQueryExecutionListener(listener);
+        assertEquals(4, dc.executeQuery(query).toRows().size());
+        assertEquals("[POSTPROCESS, materialize MetaModelSchema.contributor: -1 -> 6, filter: 6 -> 5, group: 5 -> 4, order: 4 -> 4]",
+                events.toString());
+
+        events.clear();
+        dc.query().from(table1).select(COLUMN_CONTRIBUTOR_NAME).execute().toRows();
+        assertEquals("[MATERIALIZE_TABLE, materialize table: -1 -> 6]", events.toString());
+
+        events.clear();
+        dc.removeQueryExecutionListener(listener);
+        dc.executeQuery(query).toRows();
+        assertEquals(0, events.size());
+    }
+
+    public void testJoinAppliesCompoundFilterOfSeveralTables() throws Exception {
+        final DataContext dc = getDataContext();
+        final Query query = dc.parseQuery("SELECT c.name, r.name FROM contributor c, role r "
+                + "WHERE c.contributor_id = r.contributor_id AND (c.country = 'canada' OR r.name = 'founder')");
+        assertEquals("[Row[values=[kasper, founder]], Row[values=[daniel, advisor]], Row[values=[jesper, founder]]]",
+                dc.executeQuery(query).toRows().toString());
+    }
+
+    public void testTableWhereItemsAreNotEvaluatedAgainAfterJoin() throws Exception {
+        final List<String> pushedDownWhereItems = new ArrayList<>();
+        final DataContext dc = new TestDataContext() {
+            @Override
+            protected DataSet materializeMainSchemaTable(Table table, List<SelectItem> selectItems,
+                    List<FilterItem> whereItems, int firstRow, int maxRows) {
+                pushedDownWhereItems.add(table.getName() + ": " + whereItems);
+                // a datastore that is trusted to apply the WHERE items, but ignores them
+                return super.materializeMainSchemaTable(table, selectItems, Collections.emptyList(), firstRow,
+                        maxRows);
+            }
+        };
+        final Query query = dc.parseQuery("SELECT c.name, r.name FROM contributor c, role r "
+                + "WHERE c.contributor_id = r.contributor_id AND r.name = 'advisor'");
+
+        assertEquals(8, dc.executeQuery(query).toRows().size());
+        assertEquals("[contributor: [], role: [r.name = 'advisor']]", pushedDownWhereItems.toString());
+
+        // the WHERE items are evaluated after joining when the table materialization does not receive them
+        final DataContext dc2 = new TestDataContext() {
+            @Override
+            protected DataSet materializeFromItem(FromItem fromItem, List<SelectItem> selectItems) {
+                return super.materializeFromItem(fromItem, selectItems);
+            }
+        };
+        assertEquals("[Row[values=[daniel, advisor]]]", dc2.executeQuery(query).toRows().toString());
+    }
+
+    public void testJoinOrderBasedOnEstimatedRowCounts() throws Exception {
+        final DataContext dc = getDataContext(true);
+        Query query = dc.parseQuery("SELECT c.name, r.name FROM contributor c, role r "
+                + "WHERE c.contributor_id = r.contributor_id ORDER BY c.name, r.name");
+
+        // the contributors are expected to be fewer than the roles, so they
+        // are kept in memory while the roles are streamed through the join
+        assertEquals("sort [BUFFERING, rows=8]: ORDER BY c.name ASC, r.name ASC (sort buffer size: 250000)\n"
+                + "  hash join [BUFFERING, rows=8]: ON c.contributor_id = r.contributor_id\n"
+                + "    scan [DATASTORE, rows=8]: SELECT r.name, r.contributor_id FROM MetaModelSchema.role\n"
+                + "    scan [DATASTORE, rows=6]: SELECT c.name, c.contributor_id FROM MetaModelSchema.contributor",
+                dc.explain(query).toString());
+        assertEquals(getDataContext().executeQuery(query).toRows().toString(), dc.executeQuery(query).toRows()
+                .toString());
+
+        // unless filtering is expected to make the roles fewer
+        query = dc.parseQuery("SELECT c.name, r.name FROM contributor c, role r "
+                + "WHERE c.contributor_id = r.contributor_id AND r.name = 'developer' ORDER BY c.name, r.name");
+        assertEquals("sort [BUFFERING, rows=6]: ORDER BY c.name ASC, r.name ASC (sort buffer size: 250000)\n"
+                + "  hash join [BUFFERING, rows=6]: ON c.contributor_id = r.contributor_id\n"
+                + "    scan [DATASTORE, rows=6]: SELECT c.name, c.contributor_id FROM MetaModelSchema.contributor\n"
+                + "    filter [STREAMING, rows=1]: WHERE r.name = 'developer'\n"
+                + "      scan [DATASTORE, rows=8]: SELECT r.name, r.contributor_id FROM MetaModelSchema.role",
+                dc.explain(query).toString());
+        assertEquals(getDataContext().executeQuery(query).toRows().toString(), dc.executeQuery(query).toRows()
+                .toString());
+    }
+
+    public void testJoinReorderingIsOptIn() throws Exception {
+        final AtomicInteger countQueries = new AtomicInteger();
+        final DataContext dc = new TestDataContext() {
+            @Override
+            protected Number executeCountQuery(Table table, List<FilterItem> whereItems,
+                    boolean functionApproximationAllowed) {
+                countQueries.incrementAndGet();
+                return table == table1 ? 6 : 8;
+            }
+        };
+        final Query query = dc.parseQuery("SELECT c.name, r.name FROM contributor c, role r "
+                + "WHERE c.contributor_id = r.contributor_id ORDER BY c.name, r.name");
+
+        assertEquals(getDataContext().executeQuery(query).toRows().toString(), dc.executeQuery(query).toRows()
+                .toString());
+        assertEquals(0, countQueries.get());
+    }
+
+    public void testExplain() throws Exception {
+        final DataContext dc = getDataContext();
+
+        Query query = dc.query().from(table1).select(COLUMN_CONTRIBUTOR_NAME).where(COLUMN_CONTRIBUTOR_COUNTRY)
+                .eq("denmark").toQuery();
+        assertEquals("filter [STREAMING]: WHERE contributor.country = 'denmark'\n"
+                + "  scan [DATASTORE]: SELECT contributor.name, contributor.country FROM MetaModelSchema.contributor",
+                dc.explain(query).toString());
+
+        query = dc.query().from(table1).select(COLUMN_CONTRIBUTOR_COUNTRY).selectCount().groupBy(
+                COLUMN_CONTRIBUTOR_COUNTRY).orderBy(COLUMN_CONTRIBUTOR_COUNTRY).limit(2).toQuery();
+        assertEquals("page [STREAMING, rows=2]: MAX ROWS 2\n"
+                + "  top-n sort [BUFFERING]: ORDER BY contributor.country ASC (keeping 2 rows)\n"
+                + "    group [BUFFERING]: GROUP BY contributor.country\n"
+                + "      scan [DATASTORE]: SELECT contributor.country FROM MetaModelSchema.contributor",
+                dc.explain(query).toString());
+
+        query = dc.parseQuery("SELECT c.name, r.name FROM contributor c, role r "
+                + "WHERE c.contributor_id = r.contributor_id AND c.country = 'denmark' ORDER BY c.name");
+        final QueryPlan plan = dc.explain(query);
+        assertEquals("sort [BUFFERING]: ORDER BY c.name ASC (sort buffer size: 250000)\n"
+                + "  hash join [BUFFERING]: ON c.contributor_id = r.contributor_id\n"
+                + "    filter [STREAMING]: WHERE c.country = 'denmark'\n"
+                + "      scan [DATASTORE]: SELECT c.name, c.contributor_id, c.country FROM MetaModelSchema.contributor\n"
+                + "    scan [DATASTORE]: SELECT r.name, r.contributor_id FROM MetaModelSchema.role", plan.toString());
+        assertEquals(5, plan.getOperators().size());
+        assertEquals(2, plan.getOperators(QueryPlan.Execution.BUFFERING).size());
+        assertEquals(2, plan.getOperators(QueryPlan.Execution.DATASTORE).size());
+
+        query = dc.parseQuery(
+                "SELECT c.name, r.name FROM contributor c LEFT JOIN role r ON c.contributor_id = r.contributor_id");
+        assertEquals("hash left join [BUFFERING]: ON c.contributor_id = r.contributor_id\n"
+                + "  scan [DATASTORE]: SELECT c.name, c.contributor_id FROM MetaModelSchema.contributor\n"
+                + "  scan [DATASTORE]: SELECT r.name, r.contributor_id FROM MetaModelSchema.role",
+                dc.explain(query).toString());
+
+        query = dc.parseQuery(
+                "SELECT DISTINCT c.country FROM contributor c, role r WHERE c.contributor_id > r.contributor_id");
+        assertEquals("distinct [BUFFERING]\n"
+                + "  nested loop join [BUFFERING]: ON c.contributor_id > r.contributor_id\n"
+                + "    scan [DATASTORE]: SELECT c.country, c.contributor_id FROM MetaModelSchema.contributor\n"
+                + "    scan [DATASTORE]: SELECT r.contributor_id FROM MetaModelSchema.role",
+                dc.explain(query).toString());
+
+        query = dc.parseQuery("SELECT COUNT(*) FROM contributor");
+        assertEquals("aggregate [STREAMING, rows=1]\n"
+                + "  scan [DATASTORE]: SELECT contributor.contributor_id FROM MetaModelSchema.contributor",
+                dc.explain(query).toString());
+    }
+
+    public void testExplainWithEstimatedRowCounts() throws Exception {
+        final QueryPostprocessDataContext dc = new QueryPostprocessDataContext() {
+            @Override
+            protected Number executeCountQuery(Table table, List<FilterItem> whereItems,
+                    boolean functionApproximationAllowed) {
+                return whereItems.isEmpty() ? 6 : 2;
+            }
+
+            @Override
+            protected DataSet materializeMainSchemaTable(Table table, List<Column> columns, int maxRows) {
+                throw new UnsupportedOperationException("Query should not be executed");
+            }
+
+            @Override
+            protected String getMainSchemaName() throws MetaModelException {
+                return schema.getName();
+            }
+
+            @Override
+            protected Schema getMainSchema() throws MetaModelException {
+                return schema;
+            }
+        };
+
+        Query query = dc.query().from(table1).select(COLUMN_CONTRIBUTOR_NAME).where(COLUMN_CONTRIBUTOR_COUNTRY)
+                .eq("denmark").toQuery();
+        QueryPlan plan = dc.explain(query);
+        assertEquals("filter [STREAMING, rows=2]: WHERE contributor.country = 'denmark'\n"
+                + "  scan [DATASTORE, rows=6]: SELECT contributor.name, contributor.country "
+                + "FROM MetaModelSchema.contributor", plan.toString());
+        assertTrue(plan.isInMemory());
+        assertFalse(plan.getChildren().get(0).isInMemory());
+
+        query = dc.query().from(table1).selectCount().toQuery();
+        assertEquals("count [DATASTORE, rows=1]: SELECT COUNT(*) FROM MetaModelSchema.contributor",
+                dc.explain(query).toString());
+    }
+
+    public void testExplainDoesNotExecuteCountOrPrimaryKeyLookupQueries() throws Exception {
+        final QueryPostprocessDataContext dc = new QueryPostprocessDataContext() {
+            @Override
+            protected Number executeCountQuery(Table table, List<FilterItem> whereItems,
+                    boolean functionApproximationAllowed) {
+                if (!functionApproximationAllowed) {
+                    throw new UnsupportedOperationException("Count query should not be executed");
+                }
+                return null;
+            }
+
+            @Override
+            protected Row executePrimaryKeyLookupQuery(Table table, List<SelectItem> selectItems,
+                    Column primaryKeyColumn, Object keyValue) {
+                throw new UnsupportedOperationException("Lookup query should not be executed");
+            }
+
+            @Override
+            protected DataSet materializeMainSchemaTable(Table table, List<Column> columns, int maxRows) {
+                throw new UnsupportedOperationException("Query should not be executed");
+            }
+
+            @Override
+            protected String getMainSchemaName() throws MetaModelException {
+                return schema.getName();
+            }
+
+            @Override
+            protected Schema getMainSchema() throws MetaModelException {
+                return schema;
+            }
+        };
+
+        Query query = dc.query().from(table1).selectCount().toQuery();
+        assertEquals("count [DATASTORE, rows=1]: SELECT COUNT(*) FROM MetaModelSchema.contributor",
+                dc.explain(query).toString());
+
+        query = dc.query().from(table1).select(COLUMN_CONTRIBUTOR_NAME).where(COLUMN_CONTRIBUTOR_CONTRIBUTOR_ID)
+                .eq(1).toQuery();
+        assertEquals("primary key lookup [DATASTORE, rows=1]: SELECT contributor.name FROM "
+                + "MetaModelSchema.contributor WHERE contributor.contributor_id = 1", dc.explain(query).toString());
+    }
+
     public void testCompiledQueryParameterInSubQuery() throws Exception {
         final DataContext dc = getDataContext();
 
@@ -1247,4 +1615,96 @@ public class QueryPostprocessDataContextTest extends MetaModelTestCase {
             assertFalse(ds.next());
         }
     }
-}
\ No newline at end of file
+
+    public void testParallelExecution() throws Exception {
+        final MutableSchema schema = new MutableSchema("sch");
+        final MutableTable table = new MutableTable("tab").setSchema(schema);
+        table.addColumn(new MutableColumn("id", ColumnType.INTEGER).setColumnNumber(0).setTable(table));
+        table.addColumn(new MutableColumn("grp", ColumnType.VARCHAR).setColumnNumber(1).setTable(table));
+        table.addColumn(new MutableColumn("amount", ColumnType.INTEGER).setColumnNumber(2).setTable(table));
+        schema.addTable(table);
+
+        final QueryPostprocessDataContext dc = new QueryPostprocessDataContext(false) {
+            @Override
+            protected DataSet materializeMainSchemaTable(Table table, List<Column> columns, int maxRows) {
+                final List<SelectItem> selectItems = columns.stream().map(SelectItem::new).collect(Collectors
+                        .toList());
+                final DataSetHeader header = new SimpleDataSetHeader(selectItems);
+                final List<Row> rows = new ArrayList<>();
+                for (int i = 0; i < 3 * ParallelPostprocessor.BATCH_SIZE + 17; i++) {
+                    final Object[] values = new Object[columns.size()];
+                    for (int j = 0; j < values.length; j++) {
+                        switch (columns.get(j).getName()) {
+                        case "id":
+                            values[j] = i;
+                            break;
+                        case "grp":
+                            values[j] = (i % 13 == 0 ? null : "g" + (i % 7));
+                            break;
+                        default:
+                            values[j] = (i % 11 == 0 ? null : i % 101);
+                        }
+                    }
+                    rows.add(new DefaultRow(header, values));
+                }
+                return new InMemoryDataSet(header, rows);
+            }
+
+            @Override
+            protected String getMainSchemaName() throws MetaModelException {
+                return schema.getName();
+            }
+
+            @Override
+            protected Schema getMainSchema() throws MetaModelException {
+                return schema;
+            }
+        };
+
+        final String[] queries = new String[] {
+                "SELECT grp, COUNT(*), COUNT(amount), SUM(amount), AVG(amount), MIN(amount), MAX(amount) FROM tab "
+                        + "WHERE amount > 10 GROUP BY grp",
+                "SELECT grp, MAX(id) FROM tab WHERE (grp LIKE 'g1%' OR amount = 5) GROUP BY grp ORDER BY grp",
+                "SELECT COUNT(*), SUM(amount), MIN(grp) FROM tab WHERE id > 4999",
+                "SELECT COUNT(*), SUM(amount) FROM tab WHERE amount < 0" };
+
+        final List<List<Row>> expectedResults = new ArrayList<>();
+        for (String query : queries) {
+            try (DataSet ds = dc.executeQuery(query)) {
+                expectedResults.add(ds.toRows());
+            }
+        }
+
+        final AtomicInteger submittedTasks = new AtomicInteger();
+        final AtomicInteger tasksOnWorkerThreads = new AtomicInteger();
+        final ForkJoinPool pool = new ForkJoinPool(4) {
+            @Override
+            public <T> ForkJoinTask<T> submit(Callable<T> task) {
+                submittedTasks.incrementAndGet();
+                return super.submit(() -> {
+                    if (Thread.currentThread() instanceof ForkJoinWorkerThread) {
+                        tasksOnWorkerThreads.incrementAndGet();
+                    }
+                    return task.call();
+                });
+            }
+        };
+        try {
+            dc.setParallelExecutionPool(pool);
+            for (int i = 0; i < queries.length; i++) {
+                try (DataSet ds = dc.executeQuery(queries[i])) {
+                    assertEquals(queries[i], expectedResults.get(i).toString(), ds.toRows().toString());
+                }
+            }
+        } finally {
+            dc.setParallelExecutionPool(null);
+            pool.shutdown();
+        }
+
+        // every query is split into 4 batches, each filtered and aggregated by a task on the pool
+        assertEquals(4 * queries.length, submittedTasks.get());
+        assertEquals(4 * queries.length, tasksOnWorkerThreads.get());
+
+        assertEquals("[Row[values=[0, 0.0]]]", expectedResults.get(3).toString());
+    }
+}
@@ -0,0 +1,157 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.metamodel.data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.metamodel.query.FilterItem;
+import org.apache.metamodel.query.OperatorType;
+import org.apache.metamodel.query.SelectItem;
+import org.apache.metamodel.schema.MutableColumn;
+
+import junit.framework.TestCase;
+
+public class DataSetBatchTest extends TestCase {
+
+    private SelectItem[] items = new SelectItem[] { new SelectItem(new MutableColumn("id")),
+            new SelectItem(new MutableColumn("amount")), new SelectItem(new MutableColumn("name")) };
+    private DataSetHeader header = new SimpleDataSetHeader(items);
+    private InMemoryDataSet dataSet;
+
+    protected void setUp() throws Exception {
+        List<Row> rows = new ArrayList<Row>();
+        for (int i = 0; i < 10; i++) {
+            final Double amount = i % 3 == 0 ? null : i * 1.5;
+            rows.add(new DefaultRow(header, new Object[] { i, amount, "name" + i }));
+        }
+        dataSet = new InMemoryDataSet(header, rows);
+    }
+
+    public void testColumnVectorTypes() throws Exception {
+        final DataSetBatch batch = dataSet.nextBatch(4);
+        assertEquals(4, batch.size());
+
+        final LongColumnVector ids = (LongColumnVector) batch.getColumn(0);
+        assertEquals(Integer.class, ids.getValueClass());
+        assertEquals(3, ids.getLong(3));
+        assertEquals(3, ids.getValue(3));
+
+        final DoubleColumnVector amounts = (DoubleColumnVector) batch.getColumn(1);
+        assertTrue(amounts.isNull(0));
+        assertNull(amounts.getValue(0));
+        assertFalse(amounts.isNull(1));
+        assertEquals(1.5, amounts.getDouble(1));
+
+        assertTrue(batch.getColumn(2) instanceof ObjectColumnVector);
+        assertEquals("name2", batch.getColumn(2).getValue(2));
+
+        assertEquals("Row[values=[2, 3.0, name2]]", batch.getRow(2).toString());
+    }
+
+    public void testMixedNumberTypesAreNotPrimitive() throws Exception {
+        final ColumnVector column = ColumnVector.of(new Object[] { 1, 2L, null }, 3);
+        assertTrue(column instanceof ObjectColumnVector);
+        assertEquals(1, column.getValue(0));
+        assertEquals(2L, column.getValue(1));
+        assertTrue(column.isNull(2));
+    }
+
+    public void testBatchWithMixedNumberTypes() throws Exception {
+        final List<Row> rows = new ArrayList<Row>();
+        rows.add(new DefaultRow(header, new Object[] { 1, 1.5, null }));
+        rows.add(new DefaultRow(header, new Object[] { null, 2.5, null }));
+        rows.add(new DefaultRow(header, new Object[] { 3L, 3.5f, null }));
+
+        final DataSetBatch batch = new InMemoryDataSet(header, rows).nextBatch(10);
+        assertEquals(3, batch.size());
+
+        final ColumnVector ids = batch.getColumn(0);
+        assertTrue(ids instanceof ObjectColumnVector);
+        assertEquals(1, ids.getValue(0));
+        assertTrue(ids.isNull(1));
+        assertEquals(3L, ids.getValue(2));
+
+        final ColumnVector amounts = batch.getColumn(1);
+        assertTrue(amounts instanceof ObjectColumnVector);
+        assertEquals(1.5, amounts.getValue(0));
+        assertEquals(3.5f, amounts.getValue(2));
+
+        assertTrue(batch.getColumn(2).isNull(2));
+        assertEquals("Row[values=[3, 3.5, null]]", batch.getRow(2).toString());
+    }
+
+    public void testBatchesAndRowsCanBeMixed() throws Exception {
+        assertTrue(dataSet.next());
+        assertEquals(0, dataSet.getRow().getValue(0));
+
+        DataSetBatch batch = dataSet.nextBatch(6);
+        assertEquals(6, batch.size());
+        assertEquals(1, batch.getColumn(0).getValue(0));
+        assertEquals(6, batch.getColumn(0).getValue(5));
+
+        assertTrue(dataSet.next());
+        assertEquals(7, dataSet.getRow().getValue(0));
+
+        batch = dataSet.nextBatch(6);
+        assertEquals(2, batch.size());
+        assertNull(dataSet.nextBatch(6));
+    }
+
+    public void testFilteredBatches() throws Exception {
+        final FilterItem filter = new FilterItem(items[1], OperatorType.DIFFERENT_FROM, null);
+        final DataSet ds = new FilteredDataSet(dataSet, filter);
+
+        final DataSetBatch batch1 = ds.nextBatch(4);
+        assertEquals(2, batch1.size());
+        assertEquals(1, batch1.getColumn(0).getValue(0));
+        assertEquals(2, batch1.getColumn(0).getValue(1));
+        assertFalse(batch1.getColumn(1).isNull(0));
+        assertEquals(3.0, batch1.getColumn(1).getValue(1));
+
+        final DataSetBatch batch2 = ds.nextBatch(4);
+        assertEquals(3, batch2.size());
+        assertEquals(4, batch2.getColumn(0).getValue(0));
+        assertEquals(7, batch2.getColumn(0).getValue(2));
+
+        final DataSetBatch batch3 = ds.nextBatch(4);
+        assertEquals(1, batch3.size());
+        assertEquals(8, batch3.getColumn(0).getValue(0));
+
+        assertNull(ds.nextBatch(4));
+        ds.close();
+    }
+
+    public void testMaxRowsBatches() throws Exception {
+        final DataSet ds = new MaxRowsDataSet(dataSet, 5);
+        assertEquals(3, ds.nextBatch(3).size());
+        assertEquals(2, ds.nextBatch(3).size());
+        assertNull(ds.nextBatch(3));
+        ds.close();
+    }
+
+    public void testIllegalBatchSize() throws Exception {
+        try {
+            dataSet.nextBatch(0);
+            fail("Exception expected");
+        } catch (IllegalArgumentException e) {
+            assertEquals("Max rows must be positive, got: 0", e.getMessage());
+        }
+    }
+}
@@ -18,6 +18,9 @@
  */
 package org.apache.metamodel.data;
 
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
 import junit.framework.TestCase;
 
 import org.apache.metamodel.query.SelectItem;
@@ -36,7 +39,7 @@ public class RowPublisherDataSetTest extends TestCase {
 					public void run(RowPublisher publisher) throws Exception {
 
 						// we want to exceed the buffer size
-						int iterations = RowPublisherImpl.BUFFER_SIZE * 2;
+						int iterations = RowPublisherDataSet.DEFAULT_BUFFER_SIZE * 2;
 
 						for (int i = 0; i < iterations; i++) {
 							publisher.publish(new Object[] { "foo" + i,
@@ -86,4 +89,50 @@ public class RowPublisherDataSetTest extends TestCase {
 		    ds.close();
 		}
 	}
+
+	public void testManyRowsWithSmallBuffer() throws Exception {
+		SelectItem[] selectItems = new SelectItem[1];
+		selectItems[0] = new SelectItem(new MutableColumn("foos"));
+		final int rows = 10000;
+		DataSet ds = new RowPublisherDataSet(selectItems, -1, 3,
+				new Action<RowPublisher>() {
+					@Override
+					public void run(RowPublisher publisher) throws Exception {
+						for (int i = 0; i < rows; i++) {
+							publisher.publish(new Object[] { i });
+						}
+					}
+				});
+
+		int count = 0;
+		while (ds.next()) {
+			assertEquals(count, ds.getRow().getValue(0));
+			count++;
+		}
+		assertEquals(rows, count);
+		ds.close();
+	}
+
+	public void testCloseReleasesWaitingPublisher() throws Exception {
+		SelectItem[] selectItems = new SelectItem[1];
+		selectItems[0] = new SelectItem(new MutableColumn("foos"));
+		final CountDownLatch latch = new CountDownLatch(1);
+		DataSet ds = new RowPublisherDataSet(selectItems, -1, 4,
+				new Action<RowPublisher>() {
+					@Override
+					public void run(RowPublisher publisher) throws Exception {
+						int i = 0;
+						while (publisher.publish(new Object[] { i })) {
+							i++;
+						}
+						latch.countDown();
+					}
+				});
+
+		assertTrue(ds.next());
+		assertEquals(0, ds.getRow().getValue(0));
+		ds.close();
+
+		assertTrue(latch.await(10, TimeUnit.SECONDS));
+	}
 }
@@ -0,0 +1,122 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.metamodel.data;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.apache.metamodel.query.FromItem;
+import org.apache.metamodel.query.Query;
+import org.apache.metamodel.query.SelectItem;
+import org.apache.metamodel.schema.ColumnType;
+import org.apache.metamodel.schema.MutableColumn;
+
+public class SubSelectionDataSetTest extends TestCase {
+
+    private final SelectItem a = new SelectItem(new MutableColumn("a", ColumnType.INTEGER));
+    private final SelectItem b = new SelectItem(new MutableColumn("b", ColumnType.VARCHAR));
+    private final SelectItem c = new SelectItem(new MutableColumn("c", ColumnType.VARCHAR));
+
+    private DataSet createDataSet() {
+        final DataSetHeader header = new CachingDataSetHeader(Arrays.asList(a, b, c));
+        final Style bold = new StyleBuilder().bold().create();
+        final List<Row> rows = new ArrayList<>();
+        rows.add(new DefaultRow(header, new Object[] { 1, "foo", "bar" }));
+        rows.add(new DefaultRow(header, new Object[] { 2, "baz", null },
+                new Style[] { Style.NO_STYLE, bold, Style.NO_STYLE }));
+        return new InMemoryDataSet(header, rows);
+    }
+
+    public void testSubSelection() throws Exception {
+        final DataSet dataSet = new SubSelectionDataSet(Arrays.asList(c, a), createDataSet());
+        assertEquals("[c, a]", dataSet.getSelectItems().toString());
+
+        assertTrue(dataSet.next());
+        Row row = dataSet.getRow();
+        assertEquals("Row[values=[bar, 1]]", row.toString());
+        assertEquals("bar", row.getValue(c));
+        assertEquals(null, row.getValue(b));
+
+        assertTrue(dataSet.next());
+        row = dataSet.getRow();
+        assertEquals("Row[values=[null, 2]]", row.toString());
+        assertEquals(Style.NO_STYLE, row.getStyle(0));
+
+        assertFalse(dataSet.next());
+        dataSet.close();
+    }
+
+    public void testFusedSubSelections() throws Exception {
+        final DataSet inner = new SubSelectionDataSet(Arrays.asList(c, b, a), createDataSet());
+        final DataSet outer = new SubSelectionDataSet(Arrays.asList(b, a), inner);
+        assertSame(inner, ((WrappingDataSet) outer).getWrappedDataSet());
+
+        final List<Row> rows = outer.toRows();
+        assertEquals(2, rows.size());
+        assertEquals("Row[values=[foo, 1]]", rows.get(0).toString());
+        assertEquals("Row[values=[baz, 2]]", rows.get(1).toString());
+        assertTrue(rows.get(1).getStyle(0).isBold());
+        assertEquals(Style.NO_STYLE, rows.get(1).getStyle(1));
+    }
+
+    public void testSubQuerySelectItem() throws Exception {
+        final SelectItem subQueryItem = new SelectItem(a, new FromItem(new Query().select(a)));
+        final DataSetHeader header = new CachingDataSetHeader(Arrays.asList(a, subQueryItem, b));
+        final List<Row> rows = new ArrayList<>();
+        rows.add(new DefaultRow(header, new Object[] { 1, 10, "foo" }));
+        rows.add(new DefaultRow(header, new Object[] { null, 20, "bar" }));
+
+        final DataSetHeader subSelectionHeader = new SimpleDataSetHeader(Arrays.asList(b, subQueryItem));
+        final DataSet inner = new SubSelectionDataSet(Arrays.asList(subQueryItem, b),
+                new InMemoryDataSet(header, rows));
+        final DataSet outer = new SubSelectionDataSet(subSelectionHeader.getSelectItems(), inner);
+
+        final List<Row> result = outer.toRows();
+        assertEquals(2, result.size());
+        for (int i = 0; i < result.size(); i++) {
+            final Row expected = rows.get(i).getSubSelection(subSelectionHeader);
+            assertEquals(Arrays.toString(expected.getValues()), Arrays.toString(result.get(i).getValues()));
+        }
+        assertEquals("Row[values=[bar, 20]]", result.get(1).toString());
+    }
+
+    public void testSerializeAsDefaultRow() throws Exception {
+        final DataSet dataSet = new SubSelectionDataSet(Arrays.asList(b), createDataSet());
+        assertTrue(dataSet.next());
+        final Row row = dataSet.getRow();
+        dataSet.close();
+
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(row);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            final Row deserialized = (Row) in.readObject();
+            assertEquals(DefaultRow.class, deserialized.getClass());
+            assertEquals("Row[values=[foo]]", deserialized.toString());
+        }
+    }
+}
@@ -0,0 +1,143 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.metamodel.intercept;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.metamodel.MockUpdateableDataContext;
+import org.apache.metamodel.data.DataSet;
+import org.apache.metamodel.query.Query;
+import org.apache.metamodel.schema.Table;
+
+import junit.framework.TestCase;
+
+public class CachingDataContextTest extends TestCase {
+
+    private final AtomicInteger executedQueries = new AtomicInteger();
+    private final MockUpdateableDataContext delegateDataContext = new MockUpdateableDataContext() {
+        @Override
+        public DataSet executeQuery(Query query) {
+            executedQueries.incrementAndGet();
+            return super.executeQuery(query);
+        }
+    };
+    private final Table table = delegateDataContext.getDefaultSchema().getTableByName("table");
+
+    public void testCacheHitsAndMisses() throws Exception {
+        final CachingDataContext dc = new CachingDataContext(delegateDataContext);
+
+        assertEquals(3, dc.query().from(table).selectAll().execute().toRows().size());
+        assertEquals(3, dc.query().from(table).selectAll().execute().toRows().size());
+        assertEquals(1, dc.executeQuery("SELECT * FROM schema.table WHERE foo = '2'").toRows().size());
+        assertEquals("[[1, hello], [2, there], [3, world]]", toString(dc.query().from(table).selectAll().execute()));
+
+        assertEquals(2, executedQueries.get());
+        assertEquals(2, dc.getHitCount());
+        assertEquals(2, dc.getMissCount());
+        assertEquals(2, dc.getCachedQueryCount());
+        assertEquals(4, dc.getCachedRowCount());
+    }
+
+    public void testPagedQueriesAreCachedSeparately() throws Exception {
+        final CachingDataContext dc = new CachingDataContext(delegateDataContext);
+
+        assertEquals("[[1, hello], [2, there]]",
+                toString(dc.query().from(table).selectAll().firstRow(1).maxRows(2).execute()));
+        assertEquals("[[3, world]]", toString(dc.query().from(table).selectAll().firstRow(3).maxRows(2).execute()));
+        assertEquals("[[1, hello]]", toString(dc.query().from(table).selectAll().maxRows(1).execute()));
+        assertEquals("[[1, hello], [2, there], [3, world]]", toString(dc.query().from(table).selectAll().execute()));
+        assertEquals(4, executedQueries.get());
+        assertEquals(0, dc.getHitCount());
+
+        assertEquals("[[3, world]]", toString(dc.query().from(table).selectAll().firstRow(3).maxRows(2).execute()));
+        assertEquals(1, dc.getHitCount());
+        assertEquals(4, dc.getCachedQueryCount());
+    }
+
+    public void testUpdateInvalidatesTable() throws Exception {
+        final CachingDataContext dc = new CachingDataContext(delegateDataContext);
+
+        assertEquals("[[3]]", toString(dc.query().from(table).selectCount().execute()));
+        assertEquals("[[3]]", toString(dc.query().from(table).selectCount().execute()));
+
+        dc.executeUpdate(callback -> callback.insertInto(table).value("foo", "4").value("bar", "you").execute());
+
+        assertEquals("[[4]]", toString(dc.query().from(table).selectCount().execute()));
+        assertEquals(2, executedQueries.get());
+        assertEquals(1, dc.getCachedQueryCount());
+
+        dc.invalidate(table);
+        assertEquals(0, dc.getCachedQueryCount());
+    }
+
+    public void testLeastRecentlyUsedEviction() throws Exception {
+        final CachingDataContext dc = new CachingDataContext(delegateDataContext, 3, 1, TimeUnit.MINUTES);
+
+        dc.executeQuery("SELECT foo FROM schema.table WHERE foo = '1'").toRows();
+        dc.executeQuery("SELECT foo FROM schema.table WHERE foo = '2'").toRows();
+        dc.executeQuery("SELECT foo FROM schema.table WHERE foo = '3'").toRows();
+        dc.executeQuery("SELECT foo FROM schema.table WHERE foo = '1'").toRows();
+        assertEquals(1, dc.getHitCount());
+
+        // evicts the query on foo = '2'
+        dc.executeQuery("SELECT foo FROM schema.table WHERE foo = '4'").toRows();
+        assertEquals(3, dc.getCachedRowCount());
+
+        dc.executeQuery("SELECT foo FROM schema.table WHERE foo = '1'").toRows();
+        assertEquals(2, dc.getHitCount());
+        dc.executeQuery("SELECT foo FROM schema.table WHERE foo = '2'").toRows();
+        assertEquals(2, dc.getHitCount());
+        assertEquals(5, executedQueries.get());
+    }
+
+    public void testResultsTooBigToCache() throws Exception {
+        final CachingDataContext dc = new CachingDataContext(delegateDataContext, 2, 1, TimeUnit.MINUTES);
+
+        assertEquals("[[1, hello], [2, there], [3, world]]", toString(dc.query().from(table).selectAll().execute()));
+        assertEquals("[[1, hello], [2, there], [3, world]]", toString(dc.query().from(table).selectAll().execute()));
+        assertEquals(0, dc.getCachedQueryCount());
+        assertEquals(0, dc.getHitCount());
+        assertEquals(2, executedQueries.get());
+    }
+
+    public void testTimeToLive() throws Exception {
+        final CachingDataContext dc = new CachingDataContext(delegateDataContext, 100, 1, TimeUnit.MILLISECONDS);
+
+        dc.query().from(table).selectAll().execute().toRows();
+        Thread.sleep(10);
+        dc.query().from(table).selectAll().execute().toRows();
+
+        assertEquals(0, dc.getHitCount());
+        assertEquals(2, dc.getMissCount());
+    }
+
+    private static String toString(DataSet dataSet) {
+        final StringBuilder sb = new StringBuilder("[");
+        while (dataSet.next()) {
+            if (sb.length() > 1) {
+                sb.append(", ");
+            }
+            sb.append(Arrays.toString(dataSet.getRow().getValues()));
+        }
+        dataSet.close();
+        return sb.append(']').toString();
+    }
+}
@@ -31,6 +31,7 @@ import org.apache.metamodel.data.CachingDataSetHeader;
 import org.apache.metamodel.data.DataSet;
 import org.apache.metamodel.data.DataSetHeader;
 import org.apache.metamodel.data.DefaultRow;
+import org.apache.metamodel.data.IRowFilter;
 import org.apache.metamodel.data.InMemoryDataSet;
 import org.apache.metamodel.data.Row;
 import org.apache.metamodel.data.SimpleDataSetHeader;
@@ -469,4 +470,54 @@ public class FilterItemTest extends TestCase {
         assertTrue(filterItem.evaluate(new DefaultRow(header, new Object[] { "bar" })));
         assertFalse(filterItem.evaluate(new DefaultRow(header, new Object[] { "foobar" })));
     }
-}
\ No newline at end of file
+
+    public void testCompiledFilterItemsEvaluateLikeFilterItems() throws Exception {
+        SelectItem s1 = new SelectItem(new MutableColumn("Col1", ColumnType.VARCHAR));
+        SelectItem s2 = new SelectItem(new MutableColumn("Col2", ColumnType.INTEGER));
+        SelectItem notInHeader = new SelectItem(new MutableColumn("Col3", ColumnType.INTEGER));
+        DataSetHeader header = new SimpleDataSetHeader(new SelectItem[] { s1, s2 });
+
+        Object[] values = new Object[] { null, 1, 2L, 1.5d, new java.math.BigDecimal("1.0"), "1", "abc", "abcd",
+                "true", Boolean.TRUE, new java.util.Date(0), "" };
+        Object[] operands = new Object[] { null, 1, 1.5d, "1", "abc", "ab%", "%c%", "true", Boolean.FALSE,
+                new java.util.Date(0), new String[] { "abc", "1" }, s2, notInHeader };
+
+        List<FilterItem> filterItems = new ArrayList<>();
+        for (Object operand : operands) {
+            for (OperatorType operator : OperatorType.BUILT_IN_OPERATORS) {
+                try {
+                    filterItems.add(new FilterItem(s1, operator, operand));
+                } catch (IllegalArgumentException e) {
+                    // not a valid combination of operator and operand
+                }
+            }
+        }
+        filterItems.add(new FilterItem(LogicalOperator.OR, new FilterItem(s1, OperatorType.EQUALS_TO, "abc"),
+                new FilterItem(s1, OperatorType.GREATER_THAN, 1)));
+        filterItems.add(new FilterItem(LogicalOperator.AND, new FilterItem(s1, OperatorType.LIKE, "a%"),
+                new FilterItem(s2, OperatorType.DIFFERENT_FROM, null)));
+        filterItems.add(new FilterItem(notInHeader, OperatorType.EQUALS_TO, null));
+
+        for (FilterItem filterItem : filterItems) {
+            IRowFilter compiled = filterItem.compile(header);
+            for (Object value : values) {
+                for (Object value2 : values) {
+                    Row row = new DefaultRow(header, new Object[] { value, value2 });
+                    String expected;
+                    try {
+                        expected = String.valueOf(filterItem.evaluate(row));
+                    } catch (RuntimeException e) {
+                        expected = e.getClass().getName();
+                    }
+                    String actual;
+                    try {
+                        actual = String.valueOf(compiled.accept(row));
+                    } catch (RuntimeException e) {
+                        actual = e.getClass().getName();
+                    }
+                    assertEquals(filterItem + " on " + row, expected, actual);
+                }
+            }
+        }
+    }
+}
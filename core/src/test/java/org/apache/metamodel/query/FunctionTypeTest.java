@@ -18,6 +18,8 @@
  */
 package org.apache.metamodel.query;
 
+import org.apache.metamodel.util.PrimitiveAggregateBuilder;
+
 import junit.framework.TestCase;
 
 public class FunctionTypeTest extends TestCase {
@@ -39,4 +41,25 @@ public class FunctionTypeTest extends TestCase {
 		assertEquals("a", FunctionType.MIN.evaluate("abc", "a", null, "bcd"));
 		assertEquals("bcd", FunctionType.MAX.evaluate("abc", "a", null, "bcd"));
 	}
-}
\ No newline at end of file
+
+	public void testPrimitiveAggregateBuilders() throws Exception {
+		final AggregateFunction[] functions = { FunctionType.AVG, FunctionType.SUM, FunctionType.COUNT,
+				FunctionType.MIN, FunctionType.MAX };
+		final Object[] expected = { 2.5, 10.0, 4l, 1.5, 3.5 };
+		for (int i = 0; i < functions.length; i++) {
+			final PrimitiveAggregateBuilder<?> builder = (PrimitiveAggregateBuilder<?>) functions[i]
+					.createAggregateBuilder();
+			builder.add(1.5d);
+			builder.add(2l);
+			builder.add((Object) null);
+			builder.add(3l);
+			builder.add(3.5d);
+			assertEquals(functions[i].toString(), expected[i], builder.getAggregate());
+		}
+	}
+
+	public void testSumOfLargeIntegers() throws Exception {
+		assertEquals((double) Long.MAX_VALUE + 2, FunctionType.SUM.evaluate(Long.MAX_VALUE, 1, 1));
+		assertEquals(Long.MAX_VALUE / 2d, FunctionType.AVG.evaluate(Long.MAX_VALUE, Long.MAX_VALUE, 0, 0));
+	}
+}
@@ -274,7 +274,8 @@ public final class CsvDataContext extends QueryPostprocessDataContext implements
         final int lineNumber = _configuration.getColumnNameLineNumber();
         final int columnCount = table.getColumnCount();
 
-        final BufferedReader reader = FileHelper.getBufferedReader(_resource.read(), _configuration.getEncoding());
+        final BufferedReader reader = FileHelper.getBufferedReader(trackBytesRead(_resource.getName(),
+                _resource.read()), _configuration.getEncoding());
 
         try {
             // skip column header lines
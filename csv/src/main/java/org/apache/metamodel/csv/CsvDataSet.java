@@ -24,6 +24,8 @@ import java.util.stream.Collectors;
 
 import org.apache.metamodel.MetaModelException;
 import org.apache.metamodel.data.AbstractDataSet;
+import org.apache.metamodel.data.ColumnVectorBuilder;
+import org.apache.metamodel.data.DataSetBatch;
 import org.apache.metamodel.data.DefaultRow;
 import org.apache.metamodel.data.Row;
 import org.apache.metamodel.query.SelectItem;
@@ -43,6 +45,8 @@ final class CsvDataSet extends AbstractDataSet {
     private volatile int _rowNumber;
     private volatile Integer _rowsRemaining;
     private volatile Row _row;
+    private volatile boolean _closed;
+    private int[] _columnNumbers;
 
     public CsvDataSet(CSVReader reader, List<Column> columns, Integer maxRows, int columnsInTable,
                       boolean failOnInconsistentRowLength) {
@@ -57,6 +61,7 @@ final class CsvDataSet extends AbstractDataSet {
     @Override
     public void close() {
         FileHelper.safeClose(_reader);
+        _closed = true;
         _row = null;
         _rowsRemaining = null;
     }
@@ -84,48 +89,115 @@ final class CsvDataSet extends AbstractDataSet {
         }
     }
 
-    private boolean nextInternal() {
-        if (_reader == null) {
-            return false;
+    @Override
+    public DataSetBatch nextBatch(int maxRows) {
+        if (maxRows <= 0) {
+            throw new IllegalArgumentException("Max rows must be positive, got: " + maxRows);
+        }
+        _row = null;
+        final int batchSize = _rowsRemaining == null ? maxRows : Math.min(maxRows, _rowsRemaining);
+        final int[] columnNumbers = getColumnNumbers();
+        ColumnVectorBuilder[] columns = null;
+        int size = 0;
+        while (size < batchSize) {
+            final String[] csvValues = readNextValues();
+            if (csvValues == null) {
+                break;
+            }
+            if (columns == null) {
+                columns = ColumnVectorBuilder.create(columnNumbers.length, batchSize);
+            }
+            for (int i = 0; i < columnNumbers.length; i++) {
+                columns[i].add(columnNumbers[i] < csvValues.length ? csvValues[columnNumbers[i]] : null);
+            }
+            size++;
+            if (_rowsRemaining != null) {
+                _rowsRemaining--;
+            }
+            checkRowLength(csvValues);
         }
-        final String[] csvValues;
-        try {
-            csvValues = _reader.readNext();
-        } catch (IOException e) {
-            throw new IllegalStateException("Exception reading from file", e);
+        if (size == 0) {
+            return null;
         }
+        return DataSetBatch.of(getHeader(), columns, size);
+    }
+
+    private boolean nextInternal() {
+        final String[] csvValues = readNextValues();
         if (csvValues == null) {
-            close();
             return false;
         }
 
-        if (csvValues.length == 1 && "".equals(csvValues[0])) {
-            // blank line - move to next line
-            return nextInternal();
+        _row = createRow(csvValues);
+
+        checkRowLength(csvValues);
+
+        return true;
+    }
+
+    /**
+     * Reads the values of the next non-blank line, or closes the reader if there are no more lines.
+     * 
+     * @return the values of the line, or null if there are no more lines
+     */
+    private String[] readNextValues() {
+        if (_reader == null || _closed) {
+            return null;
         }
+        while (true) {
+            final String[] csvValues;
+            try {
+                csvValues = _reader.readNext();
+            } catch (IOException e) {
+                throw new IllegalStateException("Exception reading from file", e);
+            }
+            if (csvValues == null) {
+                close();
+                return null;
+            }
 
-        final int size = getHeader().size();
-        final Object[] rowValues = new Object[size];
-        for (int i = 0; i < size; i++) {
-            Column column = getHeader().getSelectItem(i).getColumn();
-            int columnNumber = column.getColumnNumber();
-            if (columnNumber < csvValues.length) {
-                rowValues[i] = csvValues[columnNumber];
-            } else {
-                // Ticket #125: Missing values should be enterpreted as
-                // null.
-                rowValues[i] = null;
+            if (csvValues.length == 1 && "".equals(csvValues[0])) {
+                // blank line - move to next line
+                continue;
             }
+            return csvValues;
         }
-        _row = new DefaultRow(getHeader(), rowValues);
+    }
 
+    private void checkRowLength(String[] csvValues) {
         if (_failOnInconsistentRowLength) {
             _rowNumber++;
             if (_columnsInTable != csvValues.length) {
-                throw new InconsistentRowLengthException(_columnsInTable, _row, csvValues, _rowNumber);
+                throw new InconsistentRowLengthException(_columnsInTable, createRow(csvValues), csvValues,
+                        _rowNumber);
             }
         }
+    }
 
-        return true;
+    private Row createRow(String[] csvValues) {
+        final int[] columnNumbers = getColumnNumbers();
+        final Object[] rowValues = new Object[columnNumbers.length];
+        for (int i = 0; i < columnNumbers.length; i++) {
+            if (columnNumbers[i] < csvValues.length) {
+                rowValues[i] = csvValues[columnNumbers[i]];
+            } else {
+                // Ticket #125: Missing values should be enterpreted as
+                // null.
+                rowValues[i] = null;
+            }
+        }
+        return new DefaultRow(getHeader(), rowValues);
+    }
+
+    private int[] getColumnNumbers() {
+        if (_columnNumbers == null) {
+            final int size = getHeader().size();
+            final int[] columnNumbers = new int[size];
+            for (int i = 0; i < size; i++) {
+                columnNumbers[i] = getHeader().getSelectItem(i).getColumn().getColumnNumber();
+            }
+            _columnNumbers = columnNumbers;
+        }
+        return _columnNumbers;
     }
-}
\ No newline at end of file
+}
@@ -25,11 +25,15 @@ import java.util.stream.Collectors;
 
 import org.apache.metamodel.MetaModelException;
 import org.apache.metamodel.data.AbstractDataSet;
+import org.apache.metamodel.data.ColumnVectorBuilder;
+import org.apache.metamodel.data.DataSetBatch;
 import org.apache.metamodel.data.DataSetHeader;
 import org.apache.metamodel.data.Row;
 import org.apache.metamodel.query.SelectItem;
 import org.apache.metamodel.schema.Column;
 import org.apache.metamodel.util.FileHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.opencsv.ICSVParser;
 
@@ -40,6 +44,8 @@ import com.opencsv.ICSVParser;
  */
 final class SingleLineCsvDataSet extends AbstractDataSet {
 
+    private static final Logger logger = LoggerFactory.getLogger(SingleLineCsvDataSet.class);
+
     private final BufferedReader _reader;
     private final ICSVParser _csvParser;
     private final int _columnsInTable;
@@ -48,6 +54,7 @@ final class SingleLineCsvDataSet extends AbstractDataSet {
     private volatile int _rowNumber;
     private volatile Integer _rowsRemaining;
     private volatile Row _row;
+    private volatile boolean _closed;
 
     public SingleLineCsvDataSet(BufferedReader reader, ICSVParser csvParser, List<Column> columns, Integer maxRows,
                                 int columnsInTable, boolean failOnInconsistentRowLength) {
@@ -63,6 +70,7 @@ final class SingleLineCsvDataSet extends AbstractDataSet {
     @Override
     public void close() {
         FileHelper.safeClose(_reader);
+        _closed = true;
         _row = null;
         _rowsRemaining = null;
     }
@@ -98,26 +106,113 @@ final class SingleLineCsvDataSet extends AbstractDataSet {
         return _csvParser;
     }
 
+    /**
+     * Parses a line of the CSV resource.
+     * 
+     * @param line
+     *            the line to parse
+     * @param rowNumber
+     *            the number of the line, used for error reporting
+     * @return the values of the line
+     */
+    String[] parseLine(String line, int rowNumber) {
+        try {
+            return _csvParser.parseLine(line);
+        } catch (IOException e) {
+            if (_failOnInconsistentRowLength) {
+                throw new MetaModelException("Failed to parse CSV line no. " + rowNumber + ": " + line, e);
+            } else {
+                logger.warn(
+                        "Encountered unparseable line no. {}, returning line as a single value with trailing nulls: {}",
+                        rowNumber, line);
+                String[] csvValues = new String[_columnsInTable];
+                csvValues[0] = line;
+                return csvValues;
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * The lines of the batch are parsed directly into the column vectors of the batch, without creating a
+     * {@link SingleLineCsvRow} per line.
+     */
+    @Override
+    public DataSetBatch nextBatch(int maxRows) {
+        if (maxRows <= 0) {
+            throw new IllegalArgumentException("Max rows must be positive, got: " + maxRows);
+        }
+        _row = null;
+        final int batchSize = _rowsRemaining == null ? maxRows : Math.min(maxRows, _rowsRemaining);
+        final DataSetHeader header = getHeader();
+        final int[] columnNumbers = new int[header.size()];
+        for (int i = 0; i < columnNumbers.length; i++) {
+            columnNumbers[i] = header.getSelectItem(i).getColumn().getColumnNumber();
+        }
+
+        ColumnVectorBuilder[] columns = null;
+        int size = 0;
+        while (size < batchSize) {
+            final String line = readNextLine();
+            if (line == null) {
+                break;
+            }
+            _rowNumber++;
+            if (_rowsRemaining != null) {
+                _rowsRemaining--;
+            }
+
+            final String[] csvValues = parseLine(line, _rowNumber);
+            if (_failOnInconsistentRowLength && _columnsInTable != csvValues.length) {
+                final Row row = new SingleLineCsvRow(this, line, _columnsInTable, false, _rowNumber);
+                throw new InconsistentRowLengthException(_columnsInTable, row, csvValues, _rowNumber);
+            }
+
+            if (columns == null) {
+                columns = ColumnVectorBuilder.create(columnNumbers.length, batchSize);
+            }
+            for (int i = 0; i < columnNumbers.length; i++) {
+                columns[i].add(columnNumbers[i] < csvValues.length ? csvValues[columnNumbers[i]] : null);
+            }
+            size++;
+        }
+        if (size == 0) {
+            return null;
+        }
+        return DataSetBatch.of(header, columns, size);
+    }
+
     public boolean nextInternal() {
-        if (_reader == null) {
+        final String line = readNextLine();
+        if (line == null) {
             return false;
         }
+        _rowNumber++;
+        _row = new SingleLineCsvRow(this, line, _columnsInTable, _failOnInconsistentRowLength, _rowNumber);
+        return true;
+    }
+
+    /**
+     * Reads the next non-blank line, or closes the reader if there are no more lines.
+     * 
+     * @return the next line, or null if there are no more lines
+     */
+    private String readNextLine() {
+        if (_reader == null || _closed) {
+            return null;
+        }
 
         try {
-            final String line = _reader.readLine();
+            String line = _reader.readLine();
+            while ("".equals(line)) {
+                // blank line - move to next line
+                line = _reader.readLine();
+            }
             if (line == null) {
                 close();
-                return false;
-            }
-
-            if ("".equals(line)) {
-                // blank line - move to next line
-                return nextInternal();
             }
-
-            _rowNumber++;
-            _row = new SingleLineCsvRow(this, line, _columnsInTable, _failOnInconsistentRowLength, _rowNumber);
-            return true;
+            return line;
         } catch (IOException e) {
             close();
             throw new MetaModelException("IOException occurred while reading next line of CSV resource", e);
@@ -20,13 +20,16 @@ package org.apache.metamodel.csv;
 
 import java.io.File;
 import java.io.FileInputStream;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.swing.table.TableModel;
 
 import org.apache.metamodel.DataContext;
+import org.apache.metamodel.QueryExecutionListener;
 import org.apache.metamodel.QueryPostprocessDataContext;
 import org.apache.metamodel.UpdateCallback;
 import org.apache.metamodel.UpdateScript;
@@ -35,6 +38,7 @@ import org.apache.metamodel.convert.StringToBooleanConverter;
 import org.apache.metamodel.convert.StringToIntegerConverter;
 import org.apache.metamodel.convert.TypeConverter;
 import org.apache.metamodel.data.DataSet;
+import org.apache.metamodel.data.DataSetBatch;
 import org.apache.metamodel.data.DataSetTableModel;
 import org.apache.metamodel.data.Row;
 import org.apache.metamodel.query.FilterItem;
@@ -93,6 +97,29 @@ public class CsvDataContextTest extends TestCase {
         ds.close();
     }
 
+    public void testQueryExecutionListenerBytesRead() throws Exception {
+        final File file = new File("src/test/resources/csv_people.csv");
+        final CsvDataContext dc = new CsvDataContext(file);
+        final List<String> resources = new ArrayList<>();
+        final AtomicLong bytes = new AtomicLong();
+        dc.addQueryExecutionListener(new QueryExecutionListener() {
+            @Override
+            public void onBytesRead(Query query, String resourceName, long bytesRead) {
+                resources.add(resourceName);
+                bytes.addAndGet(bytesRead);
+            }
+        });
+
+        final DataSet ds = dc.query().from("csv_people.csv").select("name").execute();
+        while (ds.next()) {
+            // consume all rows
+        }
+        ds.close();
+
+        assertEquals("[csv_people.csv]", resources.toString());
+        assertEquals(file.length(), bytes.get());
+    }
+
     public void testEmptyFileTableCreation() throws Exception {
         final File file = new File("target/testEmptyFileNoColumnHeaderLine.csv");
         FileHelper.copy(new File("src/test/resources/empty_file.csv"), file);
@@ -176,6 +203,44 @@ public class CsvDataContextTest extends TestCase {
         ds.close();
     }
 
+    public void testNextBatchMultipleLinesSupport() throws Exception {
+        DataContext dc = new CsvDataContext(new File("src/test/resources/csv_people.csv"),
+                new CsvConfiguration(1, false, true));
+        testNextBatch(dc);
+    }
+
+    public void testNextBatchSingleLinesSupport() throws Exception {
+        DataContext dc = new CsvDataContext(new File("src/test/resources/csv_people.csv"),
+                new CsvConfiguration(1, false, false));
+        testNextBatch(dc);
+    }
+
+    private void testNextBatch(DataContext dc) throws Exception {
+        DataSet ds = dc.query().from(dc.getDefaultSchema().getTable(0)).select("id", "name").maxRows(7).execute();
+        assertTrue(ds.next());
+        assertEquals("Row[values=[1, mike]]", ds.getRow().toString());
+
+        DataSetBatch batch = ds.nextBatch(4);
+        assertEquals(4, batch.size());
+        assertEquals("Row[values=[2, michael]]", batch.getRow(0).toString());
+        assertEquals("5", batch.getColumn(0).getValue(3));
+
+        batch = ds.nextBatch(4);
+        assertEquals(2, batch.size());
+        assertEquals("Row[values=[7, hillary]]", batch.getRow(1).toString());
+
+        assertNull(ds.nextBatch(4));
+        assertFalse(ds.next());
+        ds.close();
+
+        // read until the end of the file
+        ds = dc.query().from(dc.getDefaultSchema().getTable(0)).select("id").execute();
+        assertEquals(9, ds.nextBatch(10).size());
+        assertNull(ds.nextBatch(10));
+        assertFalse(ds.next());
+        ds.close();
+    }
+
     public void testEmptyFileNoHeaderLine() throws Exception {
         DataContext dc = new CsvDataContext(new File("src/test/resources/empty_file.csv"), new CsvConfiguration(
                 CsvConfiguration.NO_COLUMN_NAME_LINE));
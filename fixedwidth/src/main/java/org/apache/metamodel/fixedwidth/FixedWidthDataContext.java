@@ -151,11 +151,13 @@ public class FixedWidthDataContext extends QueryPostprocessDataContext {
     }
 
     private FixedWidthReader createReader() {
-        final InputStream inputStream = _resource.read();
+        final InputStream inputStream = trackBytesRead(_resource.getName(), _resource.read());
         final FixedWidthReader reader;
         
         if (_configuration instanceof EbcdicConfiguration) {
-            reader = new EbcdicReader((BufferedInputStream) inputStream, _configuration.getEncoding(),
+            final BufferedInputStream bufferedInputStream = inputStream instanceof BufferedInputStream
+                    ? (BufferedInputStream) inputStream : new BufferedInputStream(inputStream);
+            reader = new EbcdicReader(bufferedInputStream, _configuration.getEncoding(),
                     _configuration.getValueWidths(), _configuration.isFailOnInconsistentLineWidth(), 
                     ((EbcdicConfiguration) _configuration).isSkipEbcdicHeader(), 
                     ((EbcdicConfiguration) _configuration).isEolPresent());
@@ -19,6 +19,8 @@
 package org.apache.metamodel.fixedwidth;
 
 import org.apache.metamodel.data.AbstractDataSet;
+import org.apache.metamodel.data.ColumnVectorBuilder;
+import org.apache.metamodel.data.DataSetBatch;
 import org.apache.metamodel.data.DefaultRow;
 import org.apache.metamodel.data.Row;
 import org.apache.metamodel.query.SelectItem;
@@ -36,6 +38,9 @@ class FixedWidthDataSet extends AbstractDataSet {
 	private final FixedWidthReader _reader;
 	private volatile Integer _rowsRemaining;
 	private volatile Row _row;
+	private volatile boolean _closed;
+	private int[] _columnNumbers;
+	private InconsistentValueWidthException _pendingException;
 
 	public FixedWidthDataSet(FixedWidthReader reader, List<Column> columns,
 			Integer maxRows) {
@@ -47,6 +52,7 @@ class FixedWidthDataSet extends AbstractDataSet {
 	@Override
 	public void close() {
 		FileHelper.safeClose(_reader);
+		_closed = true;
 		_row = null;
 		_rowsRemaining = null;
 	}
@@ -64,6 +70,7 @@ class FixedWidthDataSet extends AbstractDataSet {
 
 	@Override
 	public boolean next() {
+		throwPendingException();
 		if (_rowsRemaining != null && _rowsRemaining > 0) {
 			_rowsRemaining--;
 			return nextInternal();
@@ -74,8 +81,69 @@ class FixedWidthDataSet extends AbstractDataSet {
 		}
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * If a line with inconsistent value widths is encountered, the lines
+	 * before it are returned as a batch, and the
+	 * {@link InconsistentValueWidthException} is thrown by the subsequent
+	 * invocation.
+	 */
+	@Override
+	public DataSetBatch nextBatch(int maxRows) {
+		if (maxRows <= 0) {
+			throw new IllegalArgumentException("Max rows must be positive, got: " + maxRows);
+		}
+		throwPendingException();
+		_row = null;
+		if (_reader == null || _closed) {
+			return null;
+		}
+		final int batchSize = _rowsRemaining == null ? maxRows : Math.min(maxRows, _rowsRemaining);
+		final int[] columnNumbers = getColumnNumbers();
+
+		ColumnVectorBuilder[] columns = null;
+		int size = 0;
+		while (size < batchSize) {
+			final String[] stringValues;
+			try {
+				stringValues = _reader.readLine();
+			} catch (InconsistentValueWidthException e) {
+				if (_rowsRemaining != null) {
+					_rowsRemaining--;
+				}
+				_row = createRow(e.getSourceResult());
+				final InconsistentValueWidthException exception = new InconsistentValueWidthException(_row, e);
+				if (size == 0) {
+					throw exception;
+				}
+				_pendingException = exception;
+				break;
+			}
+			if (stringValues == null) {
+				close();
+				break;
+			}
+			if (_rowsRemaining != null) {
+				_rowsRemaining--;
+			}
+
+			if (columns == null) {
+				columns = ColumnVectorBuilder.create(columnNumbers.length, batchSize);
+			}
+			for (int i = 0; i < columnNumbers.length; i++) {
+				columns[i].add(columnNumbers[i] < stringValues.length ? stringValues[columnNumbers[i]] : null);
+			}
+			size++;
+		}
+		if (size == 0) {
+			return null;
+		}
+		return DataSetBatch.of(getHeader(), columns, size);
+	}
+
 	private boolean nextInternal() {
-		if (_reader == null) {
+		if (_reader == null || _closed) {
 			return false;
 		}
 
@@ -92,24 +160,46 @@ class FixedWidthDataSet extends AbstractDataSet {
 			close();
 			return false;
 		}
-		
-		final int size = getHeader().size();
-        Object[] rowValues = new Object[size];
-		for (int i = 0; i < size; i++) {
-			Column column = getHeader().getSelectItem(i).getColumn();
-			int columnNumber = column.getColumnNumber();
-			if (columnNumber < stringValues.length) {
-				rowValues[i] = stringValues[columnNumber];
+
+		_row = createRow(stringValues);
+
+		if (exception != null) {
+			throw new InconsistentValueWidthException(_row, exception);
+		}
+		return true;
+	}
+
+	private void throwPendingException() {
+		final InconsistentValueWidthException exception = _pendingException;
+		if (exception != null) {
+			_pendingException = null;
+			throw exception;
+		}
+	}
+
+	private Row createRow(String[] stringValues) {
+		final int[] columnNumbers = getColumnNumbers();
+		final Object[] rowValues = new Object[columnNumbers.length];
+		for (int i = 0; i < columnNumbers.length; i++) {
+			if (columnNumbers[i] < stringValues.length) {
+				rowValues[i] = stringValues[columnNumbers[i]];
 			} else {
 				// Ticket #125: Missing values should be interpreted as null.
 				rowValues[i] = null;
 			}
 		}
-		_row = new DefaultRow(getHeader(), rowValues);
+		return new DefaultRow(getHeader(), rowValues);
+	}
 
-		if (exception != null) {
-			throw new InconsistentValueWidthException(_row, exception);
+	private int[] getColumnNumbers() {
+		if (_columnNumbers == null) {
+			final int size = getHeader().size();
+			final int[] columnNumbers = new int[size];
+			for (int i = 0; i < size; i++) {
+				columnNumbers[i] = getHeader().getSelectItem(i).getColumn().getColumnNumber();
+			}
+			_columnNumbers = columnNumbers;
 		}
-		return true;
+		return _columnNumbers;
 	}
-}
\ No newline at end of file
+}
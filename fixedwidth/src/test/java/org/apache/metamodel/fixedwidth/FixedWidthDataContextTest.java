@@ -19,11 +19,15 @@
 package org.apache.metamodel.fixedwidth;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 import junit.framework.TestCase;
 
 import org.apache.metamodel.DataContext;
+import org.apache.metamodel.QueryExecutionListener;
 import org.apache.metamodel.data.DataSet;
 import org.apache.metamodel.query.Query;
 import org.apache.metamodel.schema.Schema;
@@ -62,6 +66,30 @@ public class FixedWidthDataContextTest extends TestCase {
         assertEquals(0, table.getColumnCount());
     }
 
+    public void testQueryExecutionListenerBytesRead() throws Exception {
+        final File file = new File("src/test/resources/example_simple1.txt");
+        final FixedWidthDataContext dc = new FixedWidthDataContext(file, new FixedWidthConfiguration(10));
+        final List<String> resources = new ArrayList<>();
+        final AtomicLong bytes = new AtomicLong();
+        dc.addQueryExecutionListener(new QueryExecutionListener() {
+            @Override
+            public void onBytesRead(Query query, String resourceName, long bytesRead) {
+                resources.add(resourceName);
+                bytes.addAndGet(bytesRead);
+            }
+        });
+
+        final Table table = dc.getDefaultSchema().getTableByName("example_simple1.txt");
+        final DataSet ds = dc.query().from(table).select(table.getColumns()).execute();
+        while (ds.next()) {
+            // consume all rows
+        }
+        ds.close();
+
+        assertEquals("[example_simple1.txt]", resources.toString());
+        assertEquals(file.length(), bytes.get());
+    }
+
     public void testExampleSimple1() throws Exception {
         FixedWidthConfiguration conf = new FixedWidthConfiguration(10);
         FixedWidthDataContext dc = new FixedWidthDataContext(new File("src/test/resources/example_simple1.txt"), conf);
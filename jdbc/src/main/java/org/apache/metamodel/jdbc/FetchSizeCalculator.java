@@ -18,12 +18,18 @@
  */
 package org.apache.metamodel.jdbc;
 
+import java.sql.Blob;
+import java.sql.Clob;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.metamodel.query.Query;
 import org.apache.metamodel.query.SelectItem;
 import org.apache.metamodel.schema.Column;
 import org.apache.metamodel.schema.ColumnType;
+import org.apache.metamodel.schema.Table;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -34,6 +40,10 @@ import org.slf4j.LoggerFactory;
  * Oracle's caching size, see <a href=
  * "http://www.oracle.com/technetwork/database/enterprise-edition/memory.pdf"
  * >JDBC Memory Management</a>, section "Where does it all go?".
+ * 
+ * Value sizes that have been observed while fetching (see
+ * {@link RowSizeSampler}) are recorded per table and column, and take
+ * precedence over the sizes estimated from the column declarations.
  */
 final class FetchSizeCalculator {
 
@@ -55,8 +65,70 @@ final class FetchSizeCalculator {
 	private static final int MAX_FETCH_SIZE = 25000;
 	private final int _bytesInMemory;
 
+	/**
+	 * Learned value sizes (in bytes), keyed by the qualified label of the
+	 * table and the name of the column.
+	 */
+	private final Map<String, Map<String, Integer>> _learnedValueSizes;
+
 	public FetchSizeCalculator(int bytesInMemory) {
 		_bytesInMemory = bytesInMemory;
+		_learnedValueSizes = new ConcurrentHashMap<>();
+	}
+
+	/**
+	 * Records the observed (average) size of the values of a column, to be
+	 * used instead of the estimated size in subsequent calculations.
+	 * 
+	 * The observation is blended with the previously learned size, if any. A
+	 * larger size is adopted right away, since underestimating the value size
+	 * makes the fetch size (and thereby the memory used) too large, whereas a
+	 * smaller size only moves the learned size a quarter of the way towards
+	 * it, so that a single query of unusually small values does not undo what
+	 * has been learned.
+	 * 
+	 * @param column
+	 *            the column
+	 * @param valueSize
+	 *            the observed size (in bytes) of a value of the column
+	 */
+	public void recordValueSize(Column column, int valueSize) {
+		final Table table = column.getTable();
+		if (table == null) {
+			return;
+		}
+		final Map<String, Integer> valueSizes = _learnedValueSizes
+				.computeIfAbsent(table.getQualifiedLabel(),
+						k -> new ConcurrentHashMap<>());
+		valueSizes.merge(column.getName(), Math.max(1, valueSize),
+				FetchSizeCalculator::blendValueSize);
+	}
+
+	private static int blendValueSize(int learnedValueSize, int valueSize) {
+		if (valueSize >= learnedValueSize) {
+			return valueSize;
+		}
+		return (int) ((3L * learnedValueSize + valueSize) / 4);
+	}
+
+	/**
+	 * Gets the learned size of the values of a column, if any.
+	 * 
+	 * @param column
+	 * @return the learned size (in bytes), or null if no size has been
+	 *         recorded for the column
+	 */
+	protected Integer getLearnedValueSize(Column column) {
+		final Table table = column.getTable();
+		if (table == null) {
+			return null;
+		}
+		final Map<String, Integer> valueSizes = _learnedValueSizes.get(table
+				.getQualifiedLabel());
+		if (valueSizes == null) {
+			return null;
+		}
+		return valueSizes.get(column.getName());
 	}
 
 	/**
@@ -193,6 +265,10 @@ final class FetchSizeCalculator {
 	 * Gets the size (in bytes) of a single {@link Column}
 	 */
 	protected int getValueSize(Column column) {
+		final Integer learnedValueSize = getLearnedValueSize(column);
+		if (learnedValueSize != null) {
+			return learnedValueSize;
+		}
 		ColumnType type = column.getType();
 		if (type == null) {
 			return DEFAULT_COLUMN_SIZE;
@@ -212,6 +288,32 @@ final class FetchSizeCalculator {
 		}
 	}
 
+	/**
+	 * Gets the (approximate) size (in bytes) of a value that has been fetched,
+	 * measured in the same way as the estimated sizes of the column types.
+	 */
+	protected int getFetchedValueSize(Object value) {
+		if (value == null) {
+			return 0;
+		} else if (value instanceof String) {
+			return 2 * ((String) value).length();
+		} else if (value instanceof byte[]) {
+			return ((byte[]) value).length;
+		} else if (value instanceof Boolean) {
+			return 2;
+		} else if (value instanceof Number) {
+			return 16;
+		} else if (value instanceof Blob || value instanceof Clob) {
+			// reading the length of a LOB may require a round-trip
+			return 4 * KB;
+		} else if (value instanceof Map || value instanceof Collection) {
+			// eg. JSON documents
+			return Math.max(DEFAULT_COLUMN_SIZE, 2 * value.toString().length());
+		} else {
+			return DEFAULT_COLUMN_SIZE;
+		}
+	}
+
 	/**
 	 * Gets the size (in bytes) of a column with a specific {@link ColumnType}
 	 * and size
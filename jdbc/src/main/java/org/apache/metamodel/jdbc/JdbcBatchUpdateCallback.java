@@ -21,8 +21,14 @@ package org.apache.metamodel.jdbc;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.apache.metamodel.UpdateCallback;
+import org.apache.metamodel.jdbc.JdbcUtils.JdbcActionType;
+import org.apache.metamodel.jdbc.dialects.BulkLoader;
+import org.apache.metamodel.jdbc.dialects.IQueryRewriter;
+import org.apache.metamodel.schema.Column;
 import org.apache.metamodel.util.FileHelper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -30,17 +36,89 @@ import org.slf4j.LoggerFactory;
 /**
  * Jdbc {@link UpdateCallback} for databases that support the JDBC Batch
  * features.
+ * 
+ * The batch of a prepared statement is executed whenever a configurable number
+ * of rows have been added to it (see
+ * {@link JdbcDataContext#SYSTEM_PROPERTY_BATCH_SIZE}), so that the driver does
+ * not have to hold all of the updates of a large script in memory.
+ * 
+ * Optionally (see
+ * {@link JdbcDataContext#SYSTEM_PROPERTY_BATCH_MULTI_ROW_INSERTS}) consecutive
+ * inserts into the same columns of a table are collected into multi-row INSERT
+ * statements, if supported by the {@link IQueryRewriter}.
+ * 
+ * Optionally (see {@link JdbcDataContext#SYSTEM_PROPERTY_BATCH_BULK_LOAD})
+ * such inserts are instead loaded using the {@link BulkLoader} of the
+ * {@link IQueryRewriter}, falling back to INSERT statements if the bulk-load
+ * facility is not available.
  */
 final class JdbcBatchUpdateCallback extends JdbcUpdateCallback {
 
     private static final Logger logger = LoggerFactory.getLogger(JdbcBatchUpdateCallback.class);
 
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+
+    private final int _batchSize;
+    private final boolean _multiRowInserts;
+    private BulkLoader _bulkLoader;
+
+    private PreparedStatement _batchStatement;
+    private int _batchRowCount;
+
+    private String _insertSql;
+    private String _insertTableLabel;
+    private List<String> _insertColumnNames;
+    private Column[] _insertColumns;
+    private int _insertMaxRows;
+    private boolean _insertBulkLoad;
+    private final List<Object[]> _insertRows;
+
     public JdbcBatchUpdateCallback(JdbcDataContext dataContext) {
+        this(dataContext, getBatchSize(),
+                "true".equals(System.getProperty(JdbcDataContext.SYSTEM_PROPERTY_BATCH_MULTI_ROW_INSERTS)),
+                "true".equals(System.getProperty(JdbcDataContext.SYSTEM_PROPERTY_BATCH_BULK_LOAD)));
+    }
+
+    public JdbcBatchUpdateCallback(JdbcDataContext dataContext, int batchSize, boolean multiRowInserts,
+            boolean bulkLoad) {
         super(dataContext);
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be at least 1");
+        }
+        _batchSize = batchSize;
+        _multiRowInserts = multiRowInserts;
+        _bulkLoader = bulkLoad ? dataContext.getQueryRewriter().getBulkLoader() : null;
+        _insertRows = new ArrayList<>();
+    }
+
+    private static int getBatchSize() {
+        final String str = System.getProperty(JdbcDataContext.SYSTEM_PROPERTY_BATCH_SIZE);
+        if (str == null) {
+            return DEFAULT_BATCH_SIZE;
+        }
+        try {
+            return Math.max(1, Integer.parseInt(str));
+        } catch (NumberFormatException e) {
+            logger.debug("Failed to parse system property '{}': '{}'", JdbcDataContext.SYSTEM_PROPERTY_BATCH_SIZE,
+                    str);
+            return DEFAULT_BATCH_SIZE;
+        }
     }
 
     @Override
     protected void closePreparedStatement(PreparedStatement preparedStatement) {
+        try {
+            executeBatch(preparedStatement);
+        } finally {
+            if (preparedStatement == _batchStatement) {
+                _batchStatement = null;
+                _batchRowCount = 0;
+            }
+            FileHelper.safeClose(preparedStatement);
+        }
+    }
+
+    private void executeBatch(PreparedStatement preparedStatement) {
         try {
             int[] results = preparedStatement.executeBatch();
             if (logger.isDebugEnabled()) {
@@ -61,18 +139,155 @@ final class JdbcBatchUpdateCallback extends JdbcUpdateCallback {
                 }
             }
         } catch (SQLException e) {
-            throw JdbcUtils.wrapException(e, "execute batch: " + preparedStatement, JdbcUtils.JdbcActionType.UPDATE);
-        } finally {
-            FileHelper.safeClose(preparedStatement);
+            throw JdbcUtils.wrapException(e, "execute batch: " + preparedStatement, JdbcActionType.UPDATE);
         }
     }
 
     @Override
     protected int executePreparedStatement(PreparedStatement st) throws SQLException {
-        st.addBatch();
+        addBatch(st, 1);
         return -1;
     }
-    
+
+    /**
+     * Adds the current parameters of a statement to its batch, and executes the
+     * batch if it has reached the batch size.
+     * 
+     * @param st
+     * @param rows
+     *            the number of rows affected by the statement
+     * @throws SQLException
+     */
+    private void addBatch(PreparedStatement st, int rows) throws SQLException {
+        st.addBatch();
+        if (st != _batchStatement) {
+            _batchStatement = st;
+            _batchRowCount = 0;
+        }
+        _batchRowCount += rows;
+        if (_batchRowCount >= _batchSize) {
+            logger.debug("Executing batch of {} rows", _batchRowCount);
+            executeBatch(st);
+            _batchRowCount = 0;
+        }
+    }
+
+    @Override
+    public boolean isMultiRowInsertEnabled() {
+        return _multiRowInserts || _bulkLoader != null;
+    }
+
+    @Override
+    public boolean addMultiRowInsert(String sql, String tableLabel, List<String> columnNames, Column[] columns,
+            Object[] values) {
+        if (columns.length == 0) {
+            return false;
+        }
+        if (!sql.equals(_insertSql)) {
+            // flush first, since a failed bulk load disables further bulk loads
+            flushMultiRowInserts();
+            final boolean bulkLoad = _bulkLoader != null && _bulkLoader.isSupported(columns);
+            final int maxRows = bulkLoad ? _batchSize : getMultiRowInsertMaxRows(columns.length);
+            if (maxRows <= 1) {
+                return false;
+            }
+            _insertSql = sql;
+            _insertTableLabel = tableLabel;
+            _insertColumnNames = columnNames;
+            _insertColumns = columns;
+            _insertMaxRows = maxRows;
+            _insertBulkLoad = bulkLoad;
+        }
+
+        _insertRows.add(values);
+        if (_insertRows.size() >= _insertMaxRows) {
+            flushMultiRowInserts();
+        }
+        return true;
+    }
+
+    private int getMultiRowInsertMaxRows(int columnCount) {
+        if (!_multiRowInserts) {
+            return 1;
+        }
+        return getJdbcDataContext().getQueryRewriter().getMultiRowInsertMaxRows(columnCount);
+    }
+
+    @Override
+    protected void flushMultiRowInserts() {
+        if (_insertRows.isEmpty()) {
+            return;
+        }
+        final String sql = _insertSql;
+        final List<Object[]> rows = new ArrayList<>(_insertRows);
+        _insertRows.clear();
+
+        if (_insertBulkLoad) {
+            if (bulkLoad(rows)) {
+                getUpdateSummaryBuilder().addInserts(rows.size());
+                return;
+            }
+            logger.info("Bulk loading is not available, falling back to INSERT statements");
+            _bulkLoader = null;
+            _insertBulkLoad = false;
+            _insertSql = null;
+        }
+
+        final int maxRows = getMultiRowInsertMaxRows(_insertColumns.length);
+        if (maxRows > 1) {
+            for (int i = 0; i < rows.size(); i += maxRows) {
+                insertMultiRow(rows.subList(i, Math.min(rows.size(), i + maxRows)));
+            }
+        } else {
+            insertRowByRow(sql, rows);
+        }
+    }
+
+    private boolean bulkLoad(List<Object[]> rows) {
+        // execute any pending batch first, to retain the order of updates
+        closeReusedPreparedStatement();
+        try {
+            return _bulkLoader.load(getConnection(), _insertTableLabel, _insertColumnNames, _insertColumns, rows);
+        } catch (SQLException e) {
+            throw JdbcUtils.wrapException(e, "bulk load into " + _insertTableLabel, JdbcActionType.UPDATE);
+        }
+    }
+
+    private void insertMultiRow(List<Object[]> rows) {
+        final IQueryRewriter queryRewriter = getJdbcDataContext().getQueryRewriter();
+        final String sql = queryRewriter.rewriteMultiRowInsert(_insertTableLabel, _insertColumnNames, rows.size());
+        final PreparedStatement st = getPreparedStatement(sql, true, false);
+        try {
+            int parameterIndex = 1;
+            for (Object[] values : rows) {
+                for (int i = 0; i < _insertColumns.length; i++) {
+                    queryRewriter.setStatementParameter(st, parameterIndex, _insertColumns[i], values[i]);
+                    parameterIndex++;
+                }
+            }
+            addBatch(st, rows.size());
+        } catch (SQLException e) {
+            throw JdbcUtils.wrapException(e, "execute insert statement: " + sql, JdbcActionType.UPDATE);
+        }
+        getUpdateSummaryBuilder().addInserts(rows.size());
+    }
+
+    private void insertRowByRow(String sql, List<Object[]> rows) {
+        final IQueryRewriter queryRewriter = getJdbcDataContext().getQueryRewriter();
+        final PreparedStatement st = getPreparedStatement(sql, true, false);
+        try {
+            for (Object[] values : rows) {
+                for (int i = 0; i < _insertColumns.length; i++) {
+                    queryRewriter.setStatementParameter(st, i + 1, _insertColumns[i], values[i]);
+                }
+                addBatch(st, 1);
+            }
+        } catch (SQLException e) {
+            throw JdbcUtils.wrapException(e, "execute insert statement: " + sql, JdbcActionType.UPDATE);
+        }
+        getUpdateSummaryBuilder().addInserts(rows.size());
+    }
+
     @Override
     protected boolean isGeneratedKeysCollectionEnabled() {
         return false;
@@ -30,6 +30,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
 import java.util.StringTokenizer;
+import java.util.stream.Collectors;
 
 import javax.sql.DataSource;
 
@@ -59,6 +60,7 @@ import org.apache.metamodel.jdbc.dialects.SQLiteQueryRewriter;
 import org.apache.metamodel.query.AggregateFunction;
 import org.apache.metamodel.query.CompiledQuery;
 import org.apache.metamodel.query.Query;
+import org.apache.metamodel.query.QueryPlan;
 import org.apache.metamodel.query.SelectItem;
 import org.apache.metamodel.schema.ColumnType;
 import org.apache.metamodel.schema.ColumnTypeImpl;
@@ -75,8 +77,21 @@ import org.slf4j.LoggerFactory;
 public class JdbcDataContext extends AbstractDataContext implements UpdateableDataContext {
 
     public static final String SYSTEM_PROPERTY_BATCH_UPDATES = "metamodel.jdbc.batch.updates";
+    public static final String SYSTEM_PROPERTY_BATCH_SIZE = "metamodel.jdbc.batch.size";
+    public static final String SYSTEM_PROPERTY_BATCH_MULTI_ROW_INSERTS = "metamodel.jdbc.batch.multirow.inserts";
+    public static final String SYSTEM_PROPERTY_BATCH_BULK_LOAD = "metamodel.jdbc.batch.bulk.load";
     public static final String SYSTEM_PROPERTY_CONVERT_LOBS = "metamodel.jdbc.convert.lobs";
 
+    /**
+     * System property for the number of rows to read ahead of the consumer of a query's DataSet, on a background
+     * thread. Prefetching only applies to {@link JdbcDataContext}s that are based on a {@link DataSource}, since
+     * the background thread reads from the query's {@link ResultSet} while the consumer may use this
+     * {@link JdbcDataContext} for other queries, which many drivers do not allow on a single {@link Connection}.
+     */
+    public static final String SYSTEM_PROPERTY_PREFETCH_ROWS = "metamodel.jdbc.prefetch.rows";
+
+    public static final String SYSTEM_PROPERTY_ADAPTIVE_FETCH_SIZE = "metamodel.jdbc.fetchsize.adaptive";
+
     public static final String SYSTEM_PROPERTY_COMPILED_QUERY_POOL_MAX_SIZE =
             "metamodel.jdbc.compiledquery.pool.max.size";
     public static final String SYSTEM_PROPERTY_COMPILED_QUERY_POOL_MIN_EVICTABLE_IDLE_TIME_MILLIS =
@@ -344,19 +359,7 @@ public class JdbcDataContext extends AbstractDataContext implements UpdateableDa
             return new EmptyDataSet(selectItems);
         }
 
-        if (MetaModelHelper.containsNonSelectScalaFunctions(query)) {
-            throw new MetaModelException(
-                    "Scalar functions outside of SELECT clause is not supported for JDBC databases. Query rejected: "
-                            + query);
-        }
-
-        for (SelectItem selectItem : selectItems) {
-            final AggregateFunction aggregateFunction = selectItem.getAggregateFunction();
-            if (aggregateFunction != null && !_queryRewriter.isAggregateFunctionSupported(aggregateFunction)) {
-                throw new MetaModelException("Aggregate function '" + aggregateFunction.getFunctionName()
-                        + "' is not supported on this JDBC database. Query rejected: " + query);
-            }
-        }
+        validateQuery(query);
 
         if (_databaseProductName.equals(DATABASE_PRODUCT_POSTGRESQL)) {
             try {
@@ -463,10 +466,25 @@ public class JdbcDataContext extends AbstractDataContext implements UpdateableDa
                 }
             }
 
+            final JdbcDataSet jdbcDataSet;
             if (lease == null) {
-                dataSet = new JdbcDataSet(query, this, connection, statement, resultSet, closeConnectionOnCloseDataSet);
+                jdbcDataSet = new JdbcDataSet(query, this, connection, statement, resultSet,
+                        closeConnectionOnCloseDataSet);
             } else {
-                dataSet = new JdbcDataSet(compiledQuery, lease, resultSet);
+                jdbcDataSet = new JdbcDataSet(compiledQuery, lease, resultSet);
+            }
+
+            // a negative fetch size means that the driver is streaming rows (MySQL)
+            if (fetchSize > 0 && "true".equals(System.getProperty(SYSTEM_PROPERTY_ADAPTIVE_FETCH_SIZE))) {
+                jdbcDataSet.setRowSizeSampler(new RowSizeSampler(_fetchSizeCalculator, query, fetchSize));
+            }
+
+            final int prefetchRows = getPrefetchRows();
+            if (prefetchRows > 0) {
+                logger.debug("Prefetching up to {} rows", prefetchRows);
+                dataSet = new PrefetchingJdbcDataSet(jdbcDataSet, prefetchRows);
+            } else {
+                dataSet = jdbcDataSet;
             }
 
             if (postProcessMaxRows) {
@@ -487,11 +505,107 @@ public class JdbcDataContext extends AbstractDataContext implements UpdateableDa
         return dataSet;
     }
 
+    /**
+     * Rejects queries that cannot be executed by the database and are not post-processed either.
+     * 
+     * @throws MetaModelException
+     *             if the query contains scalar functions outside of the SELECT clause or aggregate functions that
+     *             are not supported by the {@link IQueryRewriter}
+     */
+    private void validateQuery(Query query) throws MetaModelException {
+        if (MetaModelHelper.containsNonSelectScalaFunctions(query)) {
+            throw new MetaModelException(
+                    "Scalar functions outside of SELECT clause is not supported for JDBC databases. Query rejected: "
+                            + query);
+        }
+
+        for (SelectItem selectItem : query.getSelectClause().getItems()) {
+            final AggregateFunction aggregateFunction = selectItem.getAggregateFunction();
+            if (aggregateFunction != null && !_queryRewriter.isAggregateFunctionSupported(aggregateFunction)) {
+                throw new MetaModelException("Aggregate function '" + aggregateFunction.getFunctionName()
+                        + "' is not supported on this JDBC database. Query rejected: " + query);
+            }
+        }
+    }
+
+    /**
+     * Gets the number of rows to read ahead of the consumer of a DataSet, as configured by
+     * {@link #SYSTEM_PROPERTY_PREFETCH_ROWS}.
+     * 
+     * @return the number of rows to prefetch, or 0 if prefetching is disabled or this {@link JdbcDataContext} uses
+     *         a single {@link Connection}
+     */
+    private int getPrefetchRows() {
+        if (isSingleConnection()) {
+            return 0;
+        }
+        final String str = System.getProperty(SYSTEM_PROPERTY_PREFETCH_ROWS);
+        if (str == null) {
+            return 0;
+        }
+        try {
+            return Math.max(0, Integer.parseInt(str));
+        } catch (NumberFormatException e) {
+            logger.debug("Failed to parse system property '{}': '{}'", SYSTEM_PROPERTY_PREFETCH_ROWS, str);
+            return 0;
+        }
+    }
+
     public DataSet executeQuery(Query query) throws MetaModelException {
         final Connection connection = getConnection();
         return executeQuery(connection, query, true);
     }
 
+    /**
+     * {@inheritDoc}
+     * 
+     * The plan shows the SQL that the database receives, as produced by the {@link IQueryRewriter} of this
+     * DataContext, and the operators that are applied to the result on the client side, if any. Queries that would be
+     * rejected by {@link #executeQuery(Query)} are rejected with the same exception.
+     */
+    @Override
+    public QueryPlan explain(Query query) throws MetaModelException {
+        Integer maxRows = query.getMaxRows();
+        if (maxRows != null && maxRows.intValue() == 0) {
+            return new QueryPlan("empty", QueryPlan.Execution.STREAMING, "no rows requested", 0L);
+        }
+
+        validateQuery(query);
+
+        final Integer firstRow = query.getFirstRow();
+        final boolean postProcessFirstRow = firstRow != null && !_queryRewriter.isFirstRowSupported(query);
+        if (postProcessFirstRow && maxRows != null) {
+            // see execute(...)
+            maxRows = maxRows + (firstRow - 1);
+            query = query.clone().setMaxRows(maxRows);
+        }
+
+        String sql = _queryRewriter.rewriteQuery(query);
+        if (maxRows != null && !_queryRewriter.isMaxRowsSupported()) {
+            sql = sql + " (max rows set on statement: " + maxRows + ")";
+        }
+        QueryPlan plan = new QueryPlan("query", QueryPlan.Execution.DATASTORE, sql, null);
+
+        if (postProcessFirstRow) {
+            plan = new QueryPlan("skip rows", QueryPlan.Execution.STREAMING, "FIRST ROW " + firstRow, null, plan);
+        }
+
+        final int prefetchRows = getPrefetchRows();
+        if (prefetchRows > 0) {
+            plan = new QueryPlan("prefetch", QueryPlan.Execution.STREAMING, "up to " + prefetchRows
+                    + " rows read ahead on a background thread", null, plan);
+        }
+
+        final List<SelectItem> scalarFunctionSelectItems = MetaModelHelper.getScalarFunctionSelectItems(query
+                .getSelectClause().getItems()).stream().filter(selectItem -> !_queryRewriter.isScalarFunctionSupported(
+                        selectItem.getScalarFunction())).collect(Collectors.toList());
+        if (!scalarFunctionSelectItems.isEmpty()) {
+            plan = new QueryPlan("scalar functions", QueryPlan.Execution.STREAMING, scalarFunctionSelectItems.stream()
+                    .map(SelectItem::toSql).collect(Collectors.joining(", ")), null, plan);
+        }
+        return plan;
+    }
+
     protected DataSet executeQuery(Connection connection, Query query, boolean closeConnectionOnCloseDataSet) {
         final Statement statement;
         try {
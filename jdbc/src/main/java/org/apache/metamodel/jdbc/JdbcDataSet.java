@@ -25,6 +25,8 @@ import java.sql.Statement;
 
 import org.apache.metamodel.MetaModelException;
 import org.apache.metamodel.data.AbstractDataSet;
+import org.apache.metamodel.data.ColumnVectorBuilder;
+import org.apache.metamodel.data.DataSetBatch;
 import org.apache.metamodel.data.DefaultRow;
 import org.apache.metamodel.data.Row;
 import org.apache.metamodel.jdbc.JdbcUtils.JdbcActionType;
@@ -51,6 +53,7 @@ final class JdbcDataSet extends AbstractDataSet {
     private final JdbcDataContext _jdbcDataContext;
     private final Connection _connection;
     private final boolean _closeConnectionOnCloseDataSet;
+    private RowSizeSampler _rowSizeSampler;
     private Row _row;
     private boolean _closed;
 
@@ -120,26 +123,23 @@ final class JdbcDataSet extends AbstractDataSet {
         try {
             boolean result = _resultSet.next();
             if (result) {
+                final IQueryRewriter queryRewriter = getQueryRewriter();
                 Object[] values = new Object[getHeader().size()];
                 for (int i = 0; i < values.length; i++) {
-
-                    values[i] = getValue(_resultSet, i);
-
-                    try {
-                        // some drivers return boxed primitive types in stead of
-                        // nulls (such as false in stead of null for a Boolean
-                        // column)
-                        if (_resultSet.wasNull()) {
-                            values[i] = null;
-                        }
-                    } catch (Exception e) {
-                        logger.debug("Could not invoke wasNull() method on resultset, error message: {}", e
-                                .getMessage());
-                    }
+                    values[i] = getValue(_resultSet, i, queryRewriter);
                 }
                 _row = new DefaultRow(getHeader(), values);
+                if (_rowSizeSampler != null) {
+                    for (int i = 0; i < values.length; i++) {
+                        _rowSizeSampler.sample(i, values[i]);
+                    }
+                    if (_rowSizeSampler.nextRow()) {
+                        finishRowSizeSampling(_resultSet);
+                    }
+                }
             } else {
                 _row = null;
+                finishRowSizeSampling(null);
             }
             return result;
         } catch (SQLException e) {
@@ -147,22 +147,117 @@ final class JdbcDataSet extends AbstractDataSet {
         }
     }
 
-    private Object getValue(ResultSet resultSet, int i) throws SQLException {
+    /**
+     * {@inheritDoc}
+     * 
+     * The values of the resultset are read directly into the column vectors of the batch, without creating a
+     * {@link Row} per record.
+     */
+    @Override
+    public DataSetBatch nextBatch(int maxRows) throws MetaModelException {
+        if (maxRows <= 0) {
+            throw new IllegalArgumentException("Max rows must be positive, got: " + maxRows);
+        }
+        _row = null;
+        try {
+            final IQueryRewriter queryRewriter = getQueryRewriter();
+            final int columnCount = getHeader().size();
+            ColumnVectorBuilder[] columns = null;
+            int size = 0;
+            while (size < maxRows) {
+                if (!_resultSet.next()) {
+                    finishRowSizeSampling(null);
+                    break;
+                }
+                if (columns == null) {
+                    columns = ColumnVectorBuilder.create(columnCount, maxRows);
+                }
+                final RowSizeSampler rowSizeSampler = _rowSizeSampler;
+                for (int i = 0; i < columnCount; i++) {
+                    final Object value = getValue(_resultSet, i, queryRewriter);
+                    columns[i].add(value);
+                    if (rowSizeSampler != null) {
+                        rowSizeSampler.sample(i, value);
+                    }
+                }
+                if (rowSizeSampler != null && rowSizeSampler.nextRow()) {
+                    finishRowSizeSampling(_resultSet);
+                }
+                size++;
+            }
+            if (size == 0) {
+                return null;
+            }
+            return DataSetBatch.of(getHeader(), columns, size);
+        } catch (SQLException e) {
+            throw JdbcUtils.wrapException(e, "get next records in resultset", JdbcActionType.QUERY);
+        }
+    }
+
+    /**
+     * Sets a {@link RowSizeSampler} to measure the first rows of this DataSet with.
+     * 
+     * @param rowSizeSampler
+     */
+    void setRowSizeSampler(RowSizeSampler rowSizeSampler) {
+        _rowSizeSampler = rowSizeSampler;
+    }
+
+    private void finishRowSizeSampling(ResultSet resultSet) {
+        if (_rowSizeSampler != null) {
+            _rowSizeSampler.finish(resultSet);
+            _rowSizeSampler = null;
+        }
+    }
+
+    private IQueryRewriter getQueryRewriter() {
+        if (_jdbcDataContext == null) {
+            return new DefaultQueryRewriter(null);
+        } else {
+            return _jdbcDataContext.getQueryRewriter();
+        }
+    }
+
+    private Object getValue(ResultSet resultSet, int i, IQueryRewriter queryRewriter) throws SQLException {
         final SelectItem selectItem = getHeader().getSelectItem(i);
         final int columnIndex = i + 1;
-        if (selectItem.getAggregateFunction() == null) {
-            final Column column = selectItem.getColumn();
-            if (column != null) {
-                final IQueryRewriter queryRewriter;
-                if (_jdbcDataContext == null) {
-                    queryRewriter = new DefaultQueryRewriter(null);
-                } else {
-                    queryRewriter = _jdbcDataContext.getQueryRewriter();
-                }
-                return queryRewriter.getResultSetValue(resultSet, columnIndex, column);
+        final Object value;
+        final Column column = selectItem.getColumn();
+        if (selectItem.getAggregateFunction() == null && column != null) {
+            value = queryRewriter.getResultSetValue(resultSet, columnIndex, column);
+        } else {
+            value = resultSet.getObject(columnIndex);
+        }
+
+        try {
+            // some drivers return boxed primitive types in stead of
+            // nulls (such as false in stead of null for a Boolean
+            // column)
+            if (resultSet.wasNull()) {
+                return null;
+            }
+        } catch (Exception e) {
+            logger.debug("Could not invoke wasNull() method on resultset, error message: {}", e.getMessage());
+        }
+        return value;
+    }
+
+    /**
+     * Cancels the execution of the statement, eg. to abort the fetching of records by another thread. Statements of
+     * compiled queries are not cancelled, since they are returned to a pool of leases and reused by later queries.
+     */
+    void cancel() {
+        if (_compiledQuery != null) {
+            return;
+        }
+        try {
+            final Statement statement = _statement == null ? _resultSet.getStatement() : _statement;
+            if (statement != null) {
+                statement.cancel();
             }
+        } catch (Exception e) {
+            logger.debug("Could not cancel statement, error message: {}", e.getMessage());
         }
-        return resultSet.getObject(columnIndex);
     }
 
     /**
@@ -174,6 +269,9 @@ final class JdbcDataSet extends AbstractDataSet {
             return;
         }
 
+        // record what has been sampled, if the DataSet is closed early
+        finishRowSizeSampling(null);
+
         FileHelper.safeClose(_resultSet);
 
         if (_jdbcDataContext != null) {
@@ -20,7 +20,9 @@ package org.apache.metamodel.jdbc;
 
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
 import org.apache.metamodel.insert.AbstractRowInsertionBuilder;
 import org.apache.metamodel.insert.RowInsertionBuilder;
@@ -67,6 +69,9 @@ final class JdbcInsertBuilder extends AbstractRowInsertionBuilder<JdbcUpdateCall
 		}
 		final JdbcUpdateCallback updateCallback = getUpdateCallback();
 		final boolean reuseStatement = !_inlineValues;
+		if (reuseStatement && updateCallback.isMultiRowInsertEnabled() && addMultiRowInsert(updateCallback, sql)) {
+			return;
+		}
 		final PreparedStatement st = updateCallback.getPreparedStatement(sql, reuseStatement, true);
 		try {
 			if (reuseStatement) {
@@ -92,6 +97,29 @@ final class JdbcInsertBuilder extends AbstractRowInsertionBuilder<JdbcUpdateCall
 		}
 	}
 	
+	/**
+	 * Offers the row to the update callback for inclusion in a multi-row
+	 * INSERT statement.
+	 */
+	private boolean addMultiRowInsert(JdbcUpdateCallback updateCallback, String sql) {
+		final Column[] columns = getColumns();
+		final Object[] values = getValues();
+		final boolean[] explicitNulls = getExplicitNulls();
+		final List<Column> insertColumns = new ArrayList<>();
+		final List<String> insertColumnNames = new ArrayList<>();
+		final List<Object> insertValues = new ArrayList<>();
+		for (int i = 0; i < columns.length; i++) {
+			if (values[i] != null || explicitNulls[i]) {
+				insertColumns.add(columns[i]);
+				insertColumnNames.add(updateCallback.quoteIfNescesary(columns[i].getName()));
+				insertValues.add(values[i]);
+			}
+		}
+		final String tableLabel = _queryRewriter.rewriteFromItem(new FromItem(getTable()));
+		return updateCallback.addMultiRowInsert(sql, tableLabel, insertColumnNames,
+				insertColumns.toArray(new Column[insertColumns.size()]), insertValues.toArray());
+	}
+
 	protected String createSqlStatement() {
 	    return createSqlStatement(_inlineValues);
 	}
@@ -24,6 +24,7 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.SQLFeatureNotSupportedException;
 import java.sql.Statement;
+import java.util.List;
 
 import org.apache.metamodel.AbstractUpdateCallback;
 import org.apache.metamodel.DataContext;
@@ -35,6 +36,7 @@ import org.apache.metamodel.delete.RowDeletionBuilder;
 import org.apache.metamodel.drop.TableDropBuilder;
 import org.apache.metamodel.insert.RowInsertionBuilder;
 import org.apache.metamodel.jdbc.JdbcUtils.JdbcActionType;
+import org.apache.metamodel.schema.Column;
 import org.apache.metamodel.schema.Schema;
 import org.apache.metamodel.schema.Table;
 import org.apache.metamodel.update.RowUpdationBuilder;
@@ -66,6 +68,41 @@ abstract class JdbcUpdateCallback extends AbstractUpdateCallback implements Upda
 
     protected abstract int executePreparedStatement(PreparedStatement preparedStatement) throws SQLException;
 
+    /**
+     * Determines whether rows to insert should be offered to {@link #addMultiRowInsert(String, String, List, Column[],
+     * Object[])}.
+     * 
+     * @return whether multi-row INSERT statements are enabled
+     */
+    public boolean isMultiRowInsertEnabled() {
+        return false;
+    }
+
+    /**
+     * Offers a row to be inserted as part of a multi-row INSERT statement (or a bulk load) instead of executing its
+     * own INSERT statement. This default implementation does not support multi-row INSERT statements.
+     * 
+     * @param sql the (parameterized) single-row INSERT statement of the row, which identifies the rows that can be
+     *            inserted by the same multi-row INSERT statement
+     * @param tableLabel the table to insert into, as rewritten by the query rewriter
+     * @param columnNames the (quoted, if necessary) names of the columns to insert values into
+     * @param columns the columns to insert values into
+     * @param values the values of the row, matching the columns
+     * @return whether the row will be inserted by a multi-row INSERT statement. If not, the caller must execute the
+     *         single-row INSERT statement itself.
+     */
+    public boolean addMultiRowInsert(String sql, String tableLabel, List<String> columnNames, Column[] columns,
+            Object[] values) {
+        return false;
+    }
+
+    /**
+     * Executes any rows that have been collected for multi-row INSERT statements (or bulk loads). Invoked before any other statement
+     * is prepared, so that the order of updates is retained.
+     */
+    protected void flushMultiRowInserts() {
+    }
+
     public int executePreparedStatement(PreparedStatement preparedStatement, boolean reusedStatement,
             boolean collectGeneratedKeys) throws SQLException {
         final int result = executePreparedStatement(preparedStatement);
@@ -110,7 +147,24 @@ abstract class JdbcUpdateCallback extends AbstractUpdateCallback implements Upda
         return _connection;
     }
 
+    /**
+     * Closes the prepared statement that is currently being reused (if any),
+     * eg. to have its batch executed before updating the database by other
+     * means than prepared statements.
+     */
+    protected final void closeReusedPreparedStatement() {
+        if (_preparedStatement != null) {
+            final PreparedStatement preparedStatement = _preparedStatement;
+            _preparedStatement = null;
+            _preparedStatementSql = null;
+            closePreparedStatement(preparedStatement);
+        }
+    }
+
     public final void close(boolean success) {
+        if (success) {
+            flushMultiRowInserts();
+        }
         if (_connection != null) {
             if (success && _preparedStatement != null) {
                 closePreparedStatement(_preparedStatement);
@@ -197,6 +251,8 @@ abstract class JdbcUpdateCallback extends AbstractUpdateCallback implements Upda
 
     public final PreparedStatement getPreparedStatement(String sql, boolean reuseStatement,
             boolean returnGeneratedKeys) {
+        flushMultiRowInserts();
+
         final PreparedStatement preparedStatement;
         if (reuseStatement) {
             if (sql.equals(_preparedStatementSql)) {
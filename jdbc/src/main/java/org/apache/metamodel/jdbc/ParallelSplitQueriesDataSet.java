@@ -0,0 +1,188 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.metamodel.jdbc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.metamodel.DataContext;
+import org.apache.metamodel.MetaModelException;
+import org.apache.metamodel.data.AbstractDataSet;
+import org.apache.metamodel.data.DataSet;
+import org.apache.metamodel.data.Row;
+import org.apache.metamodel.query.Query;
+import org.apache.metamodel.util.SharedExecutorService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * DataSet for split queries that executes the queries concurrently. A number of worker tasks (the degree of
+ * parallelism) each execute one query at a time, and push its rows into a bounded queue, from which the rows are
+ * consumed. Since {@link DataContext#executeQuery(Query)} of a {@link JdbcDataContext} that is based on a
+ * {@link javax.sql.DataSource} obtains a connection per query, the queries are executed on separate connections.
+ * 
+ * If the order of the split queries is to be preserved, every query has its own queue which is consumed in turn.
+ * Otherwise the rows of all queries are consumed from a single queue, in the order that they arrive.
+ * 
+ * @see org.apache.metamodel.jdbc.QuerySplitter
+ */
+final class ParallelSplitQueriesDataSet extends AbstractDataSet {
+
+    private static final Logger logger = LoggerFactory.getLogger(ParallelSplitQueriesDataSet.class);
+
+    private static final Object END_OF_QUERY = new Object();
+
+    private final DataContext _dataContext;
+    private final List<Query> _splitQueries;
+    private final boolean _preserveOrder;
+    private final List<BlockingQueue<Object>> _queues;
+    private final AtomicInteger _nextQueryIndex;
+    private final List<Future<?>> _futures;
+    private volatile boolean _closed;
+    private int _finishedQueries;
+    private Row _row;
+
+    /**
+     * Creates a DataSet that executes split queries concurrently.
+     * 
+     * @param dataContext the DataContext to execute the queries with
+     * @param splitQueries the split queries
+     * @param parallelism the maximum number of queries to execute at the same time
+     * @param prefetchSize the maximum number of rows to fetch ahead of the consumer for each query that is being
+     *            executed
+     * @param preserveOrder whether to produce the rows of the queries in the order of the queries
+     */
+    public ParallelSplitQueriesDataSet(DataContext dataContext, List<Query> splitQueries, int parallelism,
+            int prefetchSize, boolean preserveOrder) {
+        super(splitQueries.get(0).getSelectClause().getItems());
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1");
+        }
+        if (prefetchSize < 1) {
+            throw new IllegalArgumentException("Prefetch size must be at least 1");
+        }
+        _dataContext = dataContext;
+        _splitQueries = splitQueries;
+        _preserveOrder = preserveOrder;
+        _nextQueryIndex = new AtomicInteger();
+
+        final int workerCount = Math.min(parallelism, splitQueries.size());
+        _queues = new ArrayList<>();
+        if (preserveOrder) {
+            for (int i = 0; i < splitQueries.size(); i++) {
+                _queues.add(new ArrayBlockingQueue<>(prefetchSize + 1));
+            }
+        } else {
+            _queues.add(new ArrayBlockingQueue<>(workerCount * prefetchSize + 1));
+        }
+
+        // the queries are taken in order by the workers, so the query that is
+        // consumed from (when preserving order) is always being executed
+        _futures = new ArrayList<>(workerCount);
+        for (int i = 0; i < workerCount; i++) {
+            _futures.add(SharedExecutorService.get().submit(this::executeQueries));
+        }
+    }
+
+    private void executeQueries() {
+        int queryIndex;
+        while (!_closed && (queryIndex = _nextQueryIndex.getAndIncrement()) < _splitQueries.size()) {
+            final BlockingQueue<Object> queue = _queues.get(_preserveOrder ? queryIndex : 0);
+            try {
+                executeQuery(_splitQueries.get(queryIndex), queue);
+                queue.put(END_OF_QUERY);
+            } catch (InterruptedException e) {
+                // the DataSet has been closed
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException | Error e) {
+                // hand over the failure to the consumer
+                try {
+                    queue.put(e);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                }
+                return;
+            }
+        }
+    }
+
+    private void executeQuery(Query query, BlockingQueue<Object> queue) throws InterruptedException {
+        logger.debug("Executing split query: {}", query);
+        try (DataSet dataSet = _dataContext.executeQuery(query)) {
+            while (!_closed && dataSet.next()) {
+                queue.put(dataSet.getRow());
+            }
+        }
+    }
+
+    @Override
+    public boolean next() {
+        while (!_closed && _finishedQueries < _splitQueries.size()) {
+            final BlockingQueue<Object> queue = _queues.get(_preserveOrder ? _finishedQueries : 0);
+            final Object element;
+            try {
+                element = queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                close();
+                throw new MetaModelException("Interrupted while waiting for the results of split queries", e);
+            }
+            if (element == END_OF_QUERY) {
+                _finishedQueries++;
+            } else if (element instanceof RuntimeException) {
+                close();
+                throw (RuntimeException) element;
+            } else if (element instanceof Error) {
+                close();
+                throw (Error) element;
+            } else {
+                _row = (Row) element;
+                return true;
+            }
+        }
+        _row = null;
+        return false;
+    }
+
+    @Override
+    public Row getRow() {
+        return _row;
+    }
+
+    @Override
+    public void close() {
+        super.close();
+        if (_closed) {
+            return;
+        }
+        _closed = true;
+        for (Future<?> future : _futures) {
+            future.cancel(true);
+        }
+        for (BlockingQueue<Object> queue : _queues) {
+            queue.clear();
+        }
+        _row = null;
+    }
+}
@@ -0,0 +1,210 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.metamodel.jdbc;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Future;
+
+import org.apache.metamodel.MetaModelException;
+import org.apache.metamodel.data.AbstractDataSet;
+import org.apache.metamodel.data.DataSetBatch;
+import org.apache.metamodel.data.Row;
+import org.apache.metamodel.util.SharedExecutorService;
+
+/**
+ * DataSet that reads a {@link JdbcDataSet} ahead of the consumer. A background
+ * task reads batches of records (converted to values by the
+ * {@link JdbcDataSet}) into a bounded queue, so that the JDBC round-trips
+ * overlap with the processing of the consumer.
+ * 
+ * When closed before all records have been read, the statement is cancelled
+ * and the {@link JdbcDataSet} is closed once any ongoing read has returned.
+ * Like any {@link JdbcDataSet}, this DataSet must be closed after use, since
+ * the background task otherwise waits for the consumer indefinitely.
+ * 
+ * @see JdbcDataContext#SYSTEM_PROPERTY_PREFETCH_ROWS
+ */
+final class PrefetchingJdbcDataSet extends AbstractDataSet {
+
+    public static final int DEFAULT_BATCH_SIZE = 100;
+
+    private static final Object END_OF_DATASET = new Object();
+
+    private final JdbcDataSet _dataSet;
+    private final int _batchSize;
+    private final BlockingQueue<Object> _queue;
+    private final Future<?> _future;
+    private volatile boolean _closed;
+    private volatile boolean _exhausted;
+    private DataSetBatch _batch;
+    private int _batchIndex;
+    private Row _row;
+
+    /**
+     * Creates a prefetching DataSet.
+     * 
+     * @param dataSet the DataSet to read ahead
+     * @param prefetchRows the (approximate) maximum number of rows to read ahead of the consumer
+     */
+    public PrefetchingJdbcDataSet(JdbcDataSet dataSet, int prefetchRows) {
+        super(dataSet);
+        if (prefetchRows < 1) {
+            throw new IllegalArgumentException("Prefetch rows must be at least 1");
+        }
+        _dataSet = dataSet;
+        _batchSize = Math.min(prefetchRows, DEFAULT_BATCH_SIZE);
+        // leave room for the end marker (or a failure) besides the batches
+        _queue = new ArrayBlockingQueue<>((prefetchRows + _batchSize - 1) / _batchSize + 1);
+        _future = SharedExecutorService.get().submit(this::prefetch);
+    }
+
+    private void prefetch() {
+        try {
+            while (!_closed) {
+                final DataSetBatch batch;
+                synchronized (_dataSet) {
+                    if (_closed) {
+                        return;
+                    }
+                    batch = _dataSet.nextBatch(_batchSize);
+                }
+                if (batch == null) {
+                    _exhausted = true;
+                    _queue.put(END_OF_DATASET);
+                    return;
+                }
+                _queue.put(batch);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException | Error e) {
+            _exhausted = true;
+            if (!_closed) {
+                // hand over the failure to the consumer
+                try {
+                    _queue.put(e);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    /**
+     * Takes the next batch from the queue.
+     * 
+     * @return the next batch, or null if there are no more records
+     */
+    private DataSetBatch takeBatch() {
+        if (_closed) {
+            return null;
+        }
+        final Object element;
+        try {
+            element = _queue.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            close();
+            throw new MetaModelException("Interrupted while waiting for prefetched records", e);
+        }
+        if (element == END_OF_DATASET) {
+            // leave the marker for any subsequent invocations
+            _queue.offer(END_OF_DATASET);
+            return null;
+        } else if (element instanceof RuntimeException) {
+            close();
+            throw (RuntimeException) element;
+        } else if (element instanceof Error) {
+            close();
+            throw (Error) element;
+        }
+        return (DataSetBatch) element;
+    }
+
+    @Override
+    public boolean next() {
+        if (_batch == null || _batchIndex >= _batch.size()) {
+            _batch = takeBatch();
+            _batchIndex = 0;
+            if (_batch == null) {
+                _row = null;
+                return false;
+            }
+        }
+        _row = _batch.getRow(_batchIndex);
+        _batchIndex++;
+        return true;
+    }
+
+    @Override
+    public Row getRow() {
+        return _row;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * Prefetched batches are returned as they are, if they fit within the max rows.
+     */
+    @Override
+    public DataSetBatch nextBatch(int maxRows) {
+        if (maxRows <= 0) {
+            throw new IllegalArgumentException("Max rows must be positive, got: " + maxRows);
+        }
+        if (_batch == null || _batchIndex >= _batch.size()) {
+            final DataSetBatch batch = takeBatch();
+            if (batch == null) {
+                _batch = null;
+                _row = null;
+                return null;
+            }
+            if (batch.size() <= maxRows) {
+                _batch = null;
+                _row = null;
+                return batch;
+            }
+            _batch = batch;
+            _batchIndex = 0;
+        }
+        return super.nextBatch(maxRows);
+    }
+
+    @Override
+    public void close() {
+        super.close();
+        if (_closed) {
+            return;
+        }
+        _closed = true;
+        _future.cancel(false);
+        if (!_exhausted) {
+            // abort any ongoing read of the background task (unless the statement is pooled)
+            _dataSet.cancel();
+        }
+        // make room for a background task that is waiting to queue a batch
+        _queue.clear();
+        synchronized (_dataSet) {
+            _dataSet.close();
+        }
+        _queue.clear();
+        _batch = null;
+        _row = null;
+    }
+}
@@ -50,12 +50,17 @@ import org.apache.metamodel.schema.Table;
  * the query since some queries will be executed in order to determine
  * reasonable intervals to use for the resulting queries WHERE clauses.
  * 
+ * The resulting queries can be executed one after another (the default), or
+ * concurrently by setting a degree of parallelism, see
+ * {@link #setParallelism(int)}.
+ * 
  * @see Query
  * @see DataContext
  */
 public final class QuerySplitter {
 
     public final static long DEFAULT_MAX_ROWS = 300000;
+    public final static int DEFAULT_PREFETCH_SIZE = 1000;
     private static final int MINIMUM_MAX_ROWS = 100;
     private final static Logger logger = LoggerFactory.getLogger(QuerySplitter.class);
 
@@ -63,6 +68,9 @@ public final class QuerySplitter {
     private final DataContext _dataContext;
     private long _maxRows = DEFAULT_MAX_ROWS;
     private Long _cachedRowCount = null;
+    private int _parallelism = 1;
+    private int _prefetchSize = DEFAULT_PREFETCH_SIZE;
+    private boolean _preserveOrder = false;
 
     public QuerySplitter(DataContext dc, Query q) {
         if (dc == null) {
@@ -328,7 +336,65 @@ public final class QuerySplitter {
         return executeQueries(splitQuery());
     }
 
+    /**
+     * Sets the number of split queries to execute concurrently when executing
+     * the queries using {@link #executeQueries()}. Each query is executed on a
+     * separate connection, so parallel execution requires a
+     * {@link JdbcDataContext} that is based on a {@link javax.sql.DataSource}
+     * (a DataContext based on a single connection will execute the queries one
+     * after another regardless of this setting). Defaults to 1, ie. no
+     * parallelism.
+     * 
+     * @param parallelism
+     */
+    public QuerySplitter setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be at least 1");
+        }
+        _parallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of rows to fetch ahead of the consumer for each
+     * split query that is being executed concurrently. Only applicable when
+     * executing queries in parallel, see {@link #setParallelism(int)}.
+     * 
+     * @param prefetchSize
+     */
+    public QuerySplitter setPrefetchSize(int prefetchSize) {
+        if (prefetchSize < 1) {
+            throw new IllegalArgumentException("prefetchSize must be at least 1");
+        }
+        _prefetchSize = prefetchSize;
+        return this;
+    }
+
+    /**
+     * Sets whether to retain the order of the split queries (and thereby the
+     * order of their rows) when executing queries in parallel, see
+     * {@link #setParallelism(int)}. If not, rows are produced in the order
+     * that they are fetched. Defaults to false.
+     * 
+     * @param preserveOrder
+     */
+    public QuerySplitter setPreserveOrder(boolean preserveOrder) {
+        _preserveOrder = preserveOrder;
+        return this;
+    }
+
     public DataSet executeQueries(List<Query> splitQueries) {
+        if (_parallelism > 1 && splitQueries.size() > 1 && !isSingleConnection()) {
+            return new ParallelSplitQueriesDataSet(_dataContext, splitQueries, _parallelism, _prefetchSize,
+                    _preserveOrder);
+        }
         return new SplitQueriesDataSet(_dataContext, splitQueries);
     }
+
+    private boolean isSingleConnection() {
+        if (_dataContext instanceof JdbcDataContext) {
+            return ((JdbcDataContext) _dataContext).isSingleConnection();
+        }
+        return false;
+    }
 }
\ No newline at end of file
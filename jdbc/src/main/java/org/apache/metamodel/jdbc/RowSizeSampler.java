@@ -0,0 +1,154 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.metamodel.jdbc;
+
+import java.sql.ResultSet;
+import java.util.List;
+
+import org.apache.metamodel.query.Query;
+import org.apache.metamodel.query.SelectItem;
+import org.apache.metamodel.schema.Column;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Measures the size of the first fetched rows of a {@link JdbcDataSet}, in
+ * order to adapt the fetch size of the {@link ResultSet} to the actual row
+ * size (rather than the size estimated from the column declarations) and to
+ * let the {@link FetchSizeCalculator} learn the value sizes of the columns for
+ * later queries.
+ * 
+ * @see JdbcDataContext#SYSTEM_PROPERTY_ADAPTIVE_FETCH_SIZE
+ */
+final class RowSizeSampler {
+
+    private static final Logger logger = LoggerFactory.getLogger(RowSizeSampler.class);
+
+    /**
+     * The maximum number of rows to sample. Fewer rows are sampled if the
+     * initial fetch size is smaller, so that the fetch size is adapted after
+     * the first fetch.
+     */
+    public static final int MAX_SAMPLE_ROWS = 100;
+
+    /**
+     * The minimum number of (non-null) values of a column that must have been
+     * sampled for its value size to be recorded, so that a few rows of a small
+     * or mostly-null result do not override the estimates of later queries.
+     */
+    public static final int MIN_SAMPLE_VALUES = 10;
+
+    private final FetchSizeCalculator _fetchSizeCalculator;
+    private final List<SelectItem> _selectItems;
+    private final Integer _maxRows;
+    private final int _fetchSize;
+    private final int _sampleRows;
+    private final long[] _valueSizes;
+    private final int[] _valueCounts;
+    private int _rows;
+
+    public RowSizeSampler(FetchSizeCalculator fetchSizeCalculator, Query query, int fetchSize) {
+        _fetchSizeCalculator = fetchSizeCalculator;
+        _selectItems = query.getSelectClause().getItems();
+        _maxRows = query.getMaxRows();
+        _fetchSize = fetchSize;
+        _sampleRows = Math.max(1, Math.min(MAX_SAMPLE_ROWS, fetchSize));
+        _valueSizes = new long[_selectItems.size()];
+        _valueCounts = new int[_selectItems.size()];
+        _rows = 0;
+    }
+
+    /**
+     * Samples a value of the current row. Null values do not count towards
+     * the value size of the column.
+     * 
+     * @param index
+     *            the index of the value's select item
+     * @param value
+     *            the value, as fetched
+     */
+    public void sample(int index, Object value) {
+        if (value != null) {
+            _valueSizes[index] += _fetchSizeCalculator.getFetchedValueSize(value);
+            _valueCounts[index]++;
+        }
+    }
+
+    /**
+     * Marks the end of the current row.
+     * 
+     * @return true if enough rows have been sampled, in which case
+     *         {@link #finish(ResultSet)} should be invoked
+     */
+    public boolean nextRow() {
+        _rows++;
+        return _rows >= _sampleRows;
+    }
+
+    /**
+     * Records the sampled value sizes and adapts the fetch size of the result
+     * set to the sampled row size. The value size of a column is the average
+     * size of its non-null values, and is only recorded if at least
+     * {@link #MIN_SAMPLE_VALUES} of them have been sampled. The row size is
+     * the average size of the sampled rows, in which null values take no
+     * space.
+     * 
+     * @param resultSet
+     *            the result set to adapt the fetch size of, or null if all
+     *            rows have already been fetched
+     */
+    public void finish(ResultSet resultSet) {
+        if (_rows == 0) {
+            return;
+        }
+
+        long bytesPerRow = 0;
+        for (int i = 0; i < _valueSizes.length; i++) {
+            bytesPerRow += _valueSizes[i] / _rows;
+
+            if (_valueCounts[i] < MIN_SAMPLE_VALUES) {
+                continue;
+            }
+            final SelectItem selectItem = _selectItems.get(i);
+            final Column column = selectItem.getColumn();
+            if (column != null && selectItem.getAggregateFunction() == null && selectItem.getScalarFunction() == null) {
+                _fetchSizeCalculator.recordValueSize(column, (int) (_valueSizes[i] / _valueCounts[i]));
+            }
+        }
+
+        if (resultSet == null) {
+            return;
+        }
+
+        int fetchSize = _fetchSizeCalculator.getFetchSize((int) Math.min(Integer.MAX_VALUE, Math.max(1,
+                bytesPerRow)));
+        if (_maxRows != null && fetchSize > _maxRows) {
+            fetchSize = _maxRows;
+        }
+        if (fetchSize != _fetchSize) {
+            logger.debug("Sampled {} bytes per row, adapting fetch size from {} to {}", bytesPerRow, _fetchSize,
+                    fetchSize);
+            try {
+                resultSet.setFetchSize(fetchSize);
+            } catch (Exception e) {
+                logger.debug("Could not adapt fetch size of ResultSet: {}", e.getMessage());
+            }
+        }
+    }
+}
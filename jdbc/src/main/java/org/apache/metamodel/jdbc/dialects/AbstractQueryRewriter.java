@@ -65,6 +65,13 @@ public abstract class AbstractQueryRewriter implements IQueryRewriter {
 
     private static final Logger logger = LoggerFactory.getLogger(AbstractQueryRewriter.class);
 
+    /**
+     * The default maximum number of rows of multi-row INSERT statements, for
+     * databases that support them. Larger statements yield little additional
+     * throughput, but cost more to parse.
+     */
+    protected static final int DEFAULT_MULTI_ROW_INSERT_MAX_ROWS = 1000;
+
     private final JdbcDataContext _dataContext;
 
     public AbstractQueryRewriter(JdbcDataContext dataContext) {
@@ -80,6 +87,30 @@ public abstract class AbstractQueryRewriter implements IQueryRewriter {
         return true;
     }
 
+    @Override
+    public String rewriteMultiRowInsert(String tableLabel, List<String> columnNames, int rowCount) {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("INSERT INTO ");
+        sb.append(tableLabel);
+        sb.append(" (");
+        sb.append(String.join(",", columnNames));
+        sb.append(") VALUES ");
+
+        final StringBuilder row = new StringBuilder("(");
+        for (int i = 0; i < columnNames.size(); i++) {
+            row.append(i == 0 ? "?" : ",?");
+        }
+        row.append(')');
+
+        for (int i = 0; i < rowCount; i++) {
+            if (i != 0) {
+                sb.append(',');
+            }
+            sb.append(row);
+        }
+        return sb.toString();
+    }
+
     @Override
     public ColumnType getColumnType(int jdbcType, String nativeType, Integer columnSize) {
         return ColumnTypeImpl.convertColumnType(jdbcType);
@@ -0,0 +1,69 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.metamodel.jdbc.dialects;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+import org.apache.metamodel.schema.Column;
+
+/**
+ * Strategy for inserting rows using a database specific bulk-load facility
+ * (such as PostgreSQL's COPY or MySQL's LOAD DATA) instead of INSERT
+ * statements. Bulk loaders are provided by
+ * {@link IQueryRewriter#getBulkLoader()}.
+ */
+public interface BulkLoader {
+
+    /**
+     * Determines whether rows for the given columns can be bulk loaded.
+     * 
+     * @param columns
+     *            the columns to insert values into
+     * @return true if values of the columns can be bulk loaded
+     */
+    public boolean isSupported(Column[] columns);
+
+    /**
+     * Loads a number of rows into a table.
+     * 
+     * @param connection
+     *            the connection to use. The rows are loaded as part of any
+     *            ongoing transaction of the connection.
+     * @param tableLabel
+     *            the table to insert into, as rewritten by
+     *            {@link IQueryRewriter#rewriteFromItem(org.apache.metamodel.query.FromItem)}
+     * @param columnNames
+     *            the (quoted, if necessary) names of the columns to insert
+     *            values into
+     * @param columns
+     *            the columns to insert values into
+     * @param rows
+     *            the rows to load, each with values matching the columns
+     * @return true if the rows were loaded, or false if the bulk-load
+     *         facility is not available on the connection (eg. because of
+     *         the JDBC driver or its configuration). In that case nothing
+     *         has been loaded and the caller should fall back to INSERT
+     *         statements.
+     * @throws SQLException
+     */
+    public boolean load(Connection connection, String tableLabel, List<String> columnNames, Column[] columns,
+            List<Object[]> rows) throws SQLException;
+}
@@ -0,0 +1,179 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.metamodel.jdbc.dialects;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.Date;
+import java.util.List;
+
+import org.apache.metamodel.schema.Column;
+import org.apache.metamodel.schema.ColumnType;
+
+/**
+ * Abstract {@link BulkLoader} for bulk-load facilities that read rows as CSV
+ * text. The rows are encoded lazily while the driver reads them from
+ * {@link #createInputStream(Column[], List)}, so the CSV text of the rows is
+ * never held in memory as a whole.
+ * 
+ * Values are always enclosed in double quotes (with embedded quotes doubled)
+ * and rows are terminated by a line feed. Null values are written as the
+ * (unquoted) null token of the subclass.
+ */
+public abstract class CsvBulkLoader implements BulkLoader {
+
+    @Override
+    public boolean isSupported(Column[] columns) {
+        for (Column column : columns) {
+            final ColumnType type = column.getType();
+            if (type == null) {
+                continue;
+            }
+            if (type.isLargeObject()
+                    || !(type.isLiteral() || type.isNumber() || type.isTimeBased() || type.isBoolean())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Creates an {@link InputStream} of the UTF-8 encoded CSV text of a list
+     * of rows.
+     * 
+     * @param columns
+     * @param rows
+     * @return
+     */
+    public final InputStream createInputStream(Column[] columns, List<Object[]> rows) {
+        return new CsvRowInputStream(columns, rows);
+    }
+
+    /**
+     * Gets the (unquoted) token which represents null values.
+     * 
+     * @return
+     */
+    protected abstract String getNullToken();
+
+    /**
+     * Formats a non-null value as it should appear (before quoting) in the
+     * CSV text.
+     * 
+     * @param column
+     * @param value
+     * @return
+     */
+    protected String formatValue(Column column, Object value) {
+        if (value instanceof BigDecimal) {
+            return ((BigDecimal) value).toPlainString();
+        }
+        if (value instanceof Date && !(value instanceof java.sql.Date || value instanceof Time
+                || value instanceof Timestamp)) {
+            final long time = ((Date) value).getTime();
+            final ColumnType type = column.getType();
+            if (type == ColumnType.DATE) {
+                return new java.sql.Date(time).toString();
+            }
+            if (type == ColumnType.TIME) {
+                return new Time(time).toString();
+            }
+            return new Timestamp(time).toString();
+        }
+        return value.toString();
+    }
+
+    final String toCsvLine(Column[] columns, Object[] values) {
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < columns.length; i++) {
+            if (i != 0) {
+                sb.append(',');
+            }
+            final Object value = values[i];
+            if (value == null) {
+                sb.append(getNullToken());
+            } else {
+                sb.append('"');
+                sb.append(formatValue(columns[i], value).replace("\"", "\"\""));
+                sb.append('"');
+            }
+        }
+        sb.append('\n');
+        return sb.toString();
+    }
+
+    /**
+     * {@link InputStream} which encodes one row at a time as it is read.
+     */
+    private final class CsvRowInputStream extends InputStream {
+
+        private final Column[] _columns;
+        private final List<Object[]> _rows;
+        private int _rowIndex;
+        private byte[] _buffer;
+        private int _bufferIndex;
+
+        public CsvRowInputStream(Column[] columns, List<Object[]> rows) {
+            _columns = columns;
+            _rows = rows;
+            _rowIndex = 0;
+            _buffer = new byte[0];
+            _bufferIndex = 0;
+        }
+
+        private boolean fillBuffer() {
+            while (_bufferIndex >= _buffer.length) {
+                if (_rowIndex >= _rows.size()) {
+                    return false;
+                }
+                _buffer = toCsvLine(_columns, _rows.get(_rowIndex)).getBytes(StandardCharsets.UTF_8);
+                _bufferIndex = 0;
+                _rowIndex++;
+            }
+            return true;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (!fillBuffer()) {
+                return -1;
+            }
+            return _buffer[_bufferIndex++] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            int count = 0;
+            while (count < len && fillBuffer()) {
+                final int n = Math.min(len - count, _buffer.length - _bufferIndex);
+                System.arraycopy(_buffer, _bufferIndex, b, off + count, n);
+                _bufferIndex += n;
+                count += n;
+            }
+            return count == 0 ? -1 : count;
+        }
+    }
+}
@@ -28,4 +28,9 @@ public class H2QueryRewriter extends LimitOffsetQueryRewriter {
     public H2QueryRewriter(JdbcDataContext dataContext) {
         super(dataContext);
     }
+
+    @Override
+    public int getMultiRowInsertMaxRows(int columnCount) {
+        return DEFAULT_MULTI_ROW_INSERT_MAX_ROWS;
+    }
 }
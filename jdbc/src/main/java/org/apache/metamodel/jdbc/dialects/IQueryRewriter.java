@@ -22,6 +22,7 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Types;
+import java.util.List;
 
 import org.apache.metamodel.jdbc.JdbcDataContext;
 import org.apache.metamodel.query.AggregateFunction;
@@ -162,4 +163,53 @@ public interface IQueryRewriter {
      * @return
      */
     public boolean isTransactional();
+
+    /**
+     * Gets the maximum number of rows that can be inserted by a single
+     * multi-row INSERT statement, as created by
+     * {@link #rewriteMultiRowInsert(String, List, int)}. Databases typically
+     * limit either the amount of rows in a VALUES clause or the amount of
+     * parameters of a statement.
+     * 
+     * @param columnCount
+     *            the number of columns (ie. parameters per row) of the
+     *            statement
+     * @return the maximum number of rows, or 1 if multi-row INSERT statements
+     *         are not supported
+     */
+    public default int getMultiRowInsertMaxRows(int columnCount) {
+        return 1;
+    }
+
+    /**
+     * Creates a parameterized INSERT statement that inserts several rows, ie.
+     * INSERT INTO table (columns) VALUES (?,?),(?,?),...
+     * 
+     * @param tableLabel
+     *            the table to insert into, as rewritten by
+     *            {@link #rewriteFromItem(FromItem)}
+     * @param columnNames
+     *            the (quoted, if necessary) names of the columns to insert
+     *            values into
+     * @param rowCount
+     *            the number of rows to insert
+     * @return the INSERT statement
+     * @throws UnsupportedOperationException
+     *             if multi-row INSERT statements are not supported, see
+     *             {@link #getMultiRowInsertMaxRows(int)}
+     */
+    public default String rewriteMultiRowInsert(String tableLabel, List<String> columnNames, int rowCount) {
+        throw new UnsupportedOperationException("Multi-row INSERT statements are not supported");
+    }
+
+    /**
+     * Gets a {@link BulkLoader} for loading rows using a database specific
+     * bulk-load facility, which is typically a lot faster than INSERT
+     * statements.
+     * 
+     * @return a bulk loader, or null if bulk loading is not supported
+     */
+    public default BulkLoader getBulkLoader() {
+        return null;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,116 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.metamodel.jdbc.dialects;
+
+import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import org.apache.metamodel.schema.Column;
+import org.apache.metamodel.util.FileHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link BulkLoader} which streams rows to MySQL using
+ * <code>LOAD DATA LOCAL INFILE</code>. The rows are handed to MySQL
+ * Connector/J as the statement's "local infile input stream" instead of a
+ * file.
+ * 
+ * The Connector/J API is invoked reflectively, since the driver is not a
+ * dependency of MetaModel. Note that the driver must be configured to allow
+ * local infiles (the "allowLoadLocalInfile" connection property).
+ */
+public class MysqlLoadDataBulkLoader extends CsvBulkLoader {
+
+    private static final Logger logger = LoggerFactory.getLogger(MysqlLoadDataBulkLoader.class);
+
+    private static final String[] STATEMENT_INTERFACE_NAMES = { "com.mysql.cj.jdbc.JdbcStatement",
+            "com.mysql.jdbc.Statement" };
+
+    private static final String SET_INPUT_STREAM_METHOD_NAME = "setLocalInfileInputStream";
+
+    @Override
+    protected String getNullToken() {
+        // an unquoted NULL is read as null when fields are enclosed by quotes
+        return "NULL";
+    }
+
+    @Override
+    protected String formatValue(Column column, Object value) {
+        if (value instanceof Boolean) {
+            return ((Boolean) value).booleanValue() ? "1" : "0";
+        }
+        return super.formatValue(column, value);
+    }
+
+    public String createLoadDataSql(String tableLabel, List<String> columnNames) {
+        return "LOAD DATA LOCAL INFILE 'metamodel.csv' INTO TABLE " + tableLabel
+                + " CHARACTER SET utf8mb4 FIELDS TERMINATED BY ',' OPTIONALLY ENCLOSED BY '\"' ESCAPED BY ''"
+                + " LINES TERMINATED BY '\\n' (" + String.join(",", columnNames) + ")";
+    }
+
+    @Override
+    public boolean load(Connection connection, String tableLabel, List<String> columnNames, Column[] columns,
+            List<Object[]> rows) throws SQLException {
+        final Statement statement = connection.createStatement();
+        try {
+            if (!setInputStream(statement, createInputStream(columns, rows))) {
+                return false;
+            }
+            final String sql = createLoadDataSql(tableLabel, columnNames);
+            final int count = statement.executeUpdate(sql);
+            logger.debug("Loaded {} rows using: {}", count, sql);
+            return true;
+        } finally {
+            FileHelper.safeClose(statement);
+        }
+    }
+
+    private boolean setInputStream(Statement statement, InputStream inputStream) throws SQLException {
+        final ClassLoader classLoader = statement.getClass().getClassLoader();
+        for (String interfaceName : STATEMENT_INTERFACE_NAMES) {
+            final Class<?> statementInterface;
+            try {
+                statementInterface = Class.forName(interfaceName, false, classLoader);
+            } catch (ClassNotFoundException e) {
+                continue;
+            }
+            if (!statement.isWrapperFor(statementInterface)) {
+                continue;
+            }
+            final Object mysqlStatement = statement.unwrap(statementInterface);
+            try {
+                final Method method = statementInterface.getMethod(SET_INPUT_STREAM_METHOD_NAME, InputStream.class);
+                method.invoke(mysqlStatement, inputStream);
+                return true;
+            } catch (NoSuchMethodException | IllegalAccessException e) {
+                logger.debug("Could not set local infile input stream on {}", statementInterface, e);
+            } catch (InvocationTargetException e) {
+                throw new SQLException("Failed to set local infile input stream", e.getCause());
+            }
+        }
+        logger.debug("Statement is not a MySQL Connector/J statement, cannot LOAD DATA: {}", statement);
+        return false;
+    }
+}
@@ -30,6 +30,16 @@ public class MysqlQueryRewriter extends LimitOffsetQueryRewriter {
         super(dataContext);
     }
 
+    @Override
+    public int getMultiRowInsertMaxRows(int columnCount) {
+        return DEFAULT_MULTI_ROW_INSERT_MAX_ROWS;
+    }
+
+    @Override
+    public BulkLoader getBulkLoader() {
+        return new MysqlLoadDataBulkLoader();
+    }
+
     @Override
     public String escapeQuotes(String filterItemOperand) {
         return filterItemOperand.replaceAll("\\'", "\\\\'");
@@ -0,0 +1,67 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.metamodel.jdbc.dialects;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+import org.apache.metamodel.schema.Column;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link BulkLoader} which streams rows to PostgreSQL using
+ * <code>COPY ... FROM STDIN</code> through the driver's {@link CopyManager}.
+ */
+public class PostgresqlCopyBulkLoader extends CsvBulkLoader {
+
+    private static final Logger logger = LoggerFactory.getLogger(PostgresqlCopyBulkLoader.class);
+
+    @Override
+    protected String getNullToken() {
+        // in CSV format an unquoted empty value represents null
+        return "";
+    }
+
+    public String createCopySql(String tableLabel, List<String> columnNames) {
+        return "COPY " + tableLabel + " (" + String.join(",", columnNames) + ") FROM STDIN WITH CSV";
+    }
+
+    @Override
+    public boolean load(Connection connection, String tableLabel, List<String> columnNames, Column[] columns,
+            List<Object[]> rows) throws SQLException {
+        if (!connection.isWrapperFor(PGConnection.class)) {
+            logger.debug("Connection is not a PostgreSQL connection, cannot COPY: {}", connection);
+            return false;
+        }
+        final CopyManager copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+        final String sql = createCopySql(tableLabel, columnNames);
+        try {
+            final long count = copyManager.copyIn(sql, createInputStream(columns, rows));
+            logger.debug("Copied {} rows using: {}", count, sql);
+        } catch (IOException e) {
+            throw new SQLException("Failed to stream rows to: " + sql, e);
+        }
+        return true;
+    }
+}
@@ -45,6 +45,17 @@ public class PostgresqlQueryRewriter extends LimitOffsetQueryRewriter {
         super(dataContext);
     }
 
+    @Override
+    public int getMultiRowInsertMaxRows(int columnCount) {
+        // the protocol allows at most 32767 parameters per statement
+        return Math.max(1, Math.min(DEFAULT_MULTI_ROW_INSERT_MAX_ROWS, Short.MAX_VALUE / Math.max(1, columnCount)));
+    }
+
+    @Override
+    public BulkLoader getBulkLoader() {
+        return new PostgresqlCopyBulkLoader();
+    }
+
     @Override
     public ColumnType getColumnType(int jdbcType, String nativeType, Integer columnSize) {
         switch (nativeType) {
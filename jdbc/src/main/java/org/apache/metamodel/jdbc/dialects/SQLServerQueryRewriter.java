@@ -35,6 +35,11 @@ public class SQLServerQueryRewriter extends OffsetFetchQueryRewriter {
 
     public static final int FIRST_FETCH_SUPPORTING_VERSION = 11;
 
+    /**
+     * SQL Server allows less than 2100 parameters per statement.
+     */
+    private static final int MAX_PARAMETERS = 2099;
+
     public SQLServerQueryRewriter(JdbcDataContext dataContext) {
         super(dataContext, FIRST_FETCH_SUPPORTING_VERSION, true);
     }
@@ -44,6 +49,12 @@ public class SQLServerQueryRewriter extends OffsetFetchQueryRewriter {
         return true;
     }
 
+    @Override
+    public int getMultiRowInsertMaxRows(int columnCount) {
+        // SQL Server also allows at most 1000 rows in a VALUES clause
+        return Math.max(1, Math.min(DEFAULT_MULTI_ROW_INSERT_MAX_ROWS, MAX_PARAMETERS / Math.max(1, columnCount)));
+    }
+
     /**
      * SQL server expects the fully qualified column name, including schema, in
      * select items.
@@ -18,6 +18,8 @@
  */
 package org.apache.metamodel.jdbc;
 
+import java.sql.ResultSet;
+
 import junit.framework.TestCase;
 
 import org.apache.metamodel.query.Query;
@@ -26,6 +28,7 @@ import org.apache.metamodel.schema.Column;
 import org.apache.metamodel.schema.ColumnType;
 import org.apache.metamodel.schema.MutableColumn;
 import org.apache.metamodel.schema.MutableTable;
+import org.easymock.EasyMock;
 
 public class FetchSizeCalculatorTest extends TestCase {
 
@@ -126,4 +129,96 @@ public class FetchSizeCalculatorTest extends TestCase {
 				ColumnType.VARCHAR).setColumnSize(4000), new MutableColumn("",
 				ColumnType.VARCHAR)));
 	}
+
+	public void testLearnedValueSize() throws Exception {
+		FetchSizeCalculator calc = new FetchSizeCalculator(8 * 1024 * 1024);
+		MutableTable table = new MutableTable("foo");
+		MutableColumn column = new MutableColumn("a", ColumnType.VARCHAR,
+				table, 0, true);
+		table.addColumn(column);
+
+		assertEquals(8192, calc.getFetchSize(column));
+
+		calc.recordValueSize(column, 20);
+		assertEquals(20, calc.getValueSize(column));
+		assertEquals(25000, calc.getFetchSize(column));
+
+		// larger sizes are adopted right away, smaller sizes are blended in
+		calc.recordValueSize(column, 400);
+		assertEquals(400, calc.getValueSize(column));
+		calc.recordValueSize(column, 100);
+		assertEquals(325, calc.getValueSize(column));
+
+		// other tables are not affected
+		MutableColumn otherColumn = new MutableColumn("a",
+				ColumnType.VARCHAR, new MutableTable("bar"), 0, true);
+		assertEquals(1024, calc.getValueSize(otherColumn));
+	}
+
+	public void testRowSizeSampler() throws Exception {
+		FetchSizeCalculator calc = new FetchSizeCalculator(8 * 1024 * 1024);
+		MutableTable table = new MutableTable("foo");
+		MutableColumn textColumn = new MutableColumn("text", ColumnType.CLOB,
+				table, 0, true);
+		MutableColumn idColumn = new MutableColumn("id", ColumnType.INTEGER,
+				table, 1, true);
+		table.addColumn(textColumn).addColumn(idColumn);
+		Query query = new Query().select(textColumn, idColumn).from(table);
+
+		assertEquals(2040, calc.getFetchSize(query));
+
+		// every other text value is 50 characters (100 bytes), the rest null
+		String text = "fifty characters of text, give or take a few chars";
+		RowSizeSampler sampler = new RowSizeSampler(calc, query, 2040);
+		for (int i = 0; i < RowSizeSampler.MAX_SAMPLE_ROWS; i++) {
+			sampler.sample(0, i % 2 == 0 ? text : null);
+			sampler.sample(1, i);
+			assertEquals(i == RowSizeSampler.MAX_SAMPLE_ROWS - 1,
+					sampler.nextRow());
+		}
+
+		ResultSet resultSetMock = EasyMock.createMock(ResultSet.class);
+		resultSetMock.setFetchSize(25000);
+		EasyMock.replay(resultSetMock);
+
+		sampler.finish(resultSetMock);
+
+		EasyMock.verify(resultSetMock);
+
+		// null values do not count towards the size of the text values
+		assertEquals(100, calc.getValueSize(textColumn));
+		assertEquals(16, calc.getValueSize(idColumn));
+		assertEquals(25000, calc.getFetchSize(query));
+	}
+
+	public void testRowSizeSamplerMinimumValues() throws Exception {
+		FetchSizeCalculator calc = new FetchSizeCalculator(8 * 1024 * 1024);
+		MutableTable table = new MutableTable("foo");
+		MutableColumn textColumn = new MutableColumn("text", ColumnType.CLOB,
+				table, 0, true);
+		MutableColumn idColumn = new MutableColumn("id", ColumnType.INTEGER,
+				table, 1, true);
+		table.addColumn(textColumn).addColumn(idColumn);
+		Query query = new Query().select(textColumn, idColumn).from(table);
+
+		// a small result, with too few text values to learn from
+		RowSizeSampler sampler = new RowSizeSampler(calc, query, 2040);
+		for (int i = 0; i < RowSizeSampler.MIN_SAMPLE_VALUES; i++) {
+			sampler.sample(0, i == 0 ? "foo" : null);
+			sampler.sample(1, i);
+			assertFalse(sampler.nextRow());
+		}
+		sampler.finish(null);
+
+		assertNull(calc.getLearnedValueSize(textColumn));
+		assertEquals(Integer.valueOf(16), calc.getLearnedValueSize(idColumn));
+
+		sampler = new RowSizeSampler(calc, query, 2040);
+		sampler.sample(0, "foo");
+		sampler.sample(1, 1);
+		sampler.nextRow();
+		sampler.finish(null);
+
+		assertNull(calc.getLearnedValueSize(textColumn));
+	}
 }
@@ -23,22 +23,32 @@ import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import org.apache.commons.dbcp.BasicDataSource;
+import org.apache.metamodel.BatchUpdateScript;
 import org.apache.metamodel.UpdateCallback;
 import org.apache.metamodel.UpdateScript;
+import org.apache.metamodel.UpdateSummary;
 import org.apache.metamodel.create.CreateTable;
 import org.apache.metamodel.data.DataSet;
+import org.apache.metamodel.data.DataSetBatch;
 import org.apache.metamodel.data.Row;
 import org.apache.metamodel.delete.DeleteFrom;
 import org.apache.metamodel.drop.DropTable;
 import org.apache.metamodel.insert.InsertInto;
+import org.apache.metamodel.jdbc.dialects.BulkLoader;
+import org.apache.metamodel.jdbc.dialects.H2QueryRewriter;
 import org.apache.metamodel.jdbc.dialects.IQueryRewriter;
+import org.apache.metamodel.query.CompiledQuery;
 import org.apache.metamodel.query.FunctionType;
 import org.apache.metamodel.query.OperatorType;
 import org.apache.metamodel.query.Query;
+import org.apache.metamodel.query.QueryParameter;
 import org.apache.metamodel.query.SelectItem;
 import org.apache.metamodel.schema.Column;
 import org.apache.metamodel.schema.ColumnType;
@@ -130,6 +140,289 @@ public class H2databaseTest extends TestCase {
         assertNull(schema.getTableByName("test_table"));
     }
 
+    public void testBatchUpdateUsingMultiRowInserts() throws Exception {
+        final JdbcDataContext dc = new JdbcDataContext(conn);
+
+        System.setProperty(JdbcDataContext.SYSTEM_PROPERTY_BATCH_SIZE, "700");
+        System.setProperty(JdbcDataContext.SYSTEM_PROPERTY_BATCH_MULTI_ROW_INSERTS, "true");
+        try {
+            runBatchInsertScenario(dc);
+        } finally {
+            System.clearProperty(JdbcDataContext.SYSTEM_PROPERTY_BATCH_SIZE);
+            System.clearProperty(JdbcDataContext.SYSTEM_PROPERTY_BATCH_MULTI_ROW_INSERTS);
+        }
+    }
+
+    public void testBatchUpdateUsingBulkLoad() throws Exception {
+        final JdbcDataContext dc = new JdbcDataContext(conn);
+        // H2 has no bulk-load facility, so use a stand-in which inserts the
+        // rows on the callback's connection
+        final List<Integer> loadedRows = new ArrayList<>();
+        final BulkLoader bulkLoader = new BulkLoader() {
+            @Override
+            public boolean isSupported(Column[] columns) {
+                return true;
+            }
+
+            @Override
+            public boolean load(Connection connection, String tableLabel, List<String> columnNames,
+                    Column[] columns, List<Object[]> rows) throws SQLException {
+                final String sql = dc.getQueryRewriter().rewriteMultiRowInsert(tableLabel, columnNames, 1);
+                try (PreparedStatement st = connection.prepareStatement(sql)) {
+                    for (Object[] values : rows) {
+                        for (int i = 0; i < values.length; i++) {
+                            st.setObject(i + 1, values[i]);
+                        }
+                        st.executeUpdate();
+                    }
+                }
+                loadedRows.add(rows.size());
+                return true;
+            }
+        };
+        dc.setQueryRewriter(new H2QueryRewriter(dc) {
+            @Override
+            public BulkLoader getBulkLoader() {
+                return bulkLoader;
+            }
+        });
+
+        System.setProperty(JdbcDataContext.SYSTEM_PROPERTY_BATCH_SIZE, "700");
+        System.setProperty(JdbcDataContext.SYSTEM_PROPERTY_BATCH_BULK_LOAD, "true");
+        try {
+            runBatchInsertScenario(dc);
+        } finally {
+            System.clearProperty(JdbcDataContext.SYSTEM_PROPERTY_BATCH_SIZE);
+            System.clearProperty(JdbcDataContext.SYSTEM_PROPERTY_BATCH_BULK_LOAD);
+        }
+
+        // rows are loaded per consecutive run of inserts into the same columns
+        assertEquals(500, loadedRows.size());
+        int total = 0;
+        for (Integer count : loadedRows) {
+            total += count;
+        }
+        assertEquals(2500, total);
+    }
+
+    public void testBatchUpdateUsingBulkLoadFallback() throws Exception {
+        final JdbcDataContext dc = new JdbcDataContext(conn);
+        final AtomicInteger loadAttempts = new AtomicInteger();
+        final BulkLoader bulkLoader = new BulkLoader() {
+            @Override
+            public boolean isSupported(Column[] columns) {
+                return true;
+            }
+
+            @Override
+            public boolean load(Connection connection, String tableLabel, List<String> columnNames,
+                    Column[] columns, List<Object[]> rows) throws SQLException {
+                loadAttempts.incrementAndGet();
+                return false;
+            }
+        };
+        dc.setQueryRewriter(new H2QueryRewriter(dc) {
+            @Override
+            public BulkLoader getBulkLoader() {
+                return bulkLoader;
+            }
+        });
+
+        System.setProperty(JdbcDataContext.SYSTEM_PROPERTY_BATCH_BULK_LOAD, "true");
+        try {
+            runBatchInsertScenario(dc);
+        } finally {
+            System.clearProperty(JdbcDataContext.SYSTEM_PROPERTY_BATCH_BULK_LOAD);
+        }
+
+        // the bulk loader is not attempted again after falling back
+        assertEquals(1, loadAttempts.get());
+    }
+
+    public void testPrefetchingDataSet() throws Exception {
+        final BasicDataSource dataSource = new BasicDataSource();
+        dataSource.setDriverClassName("org.h2.Driver");
+        dataSource.setUrl("jdbc:h2:mem:prefetching;DB_CLOSE_DELAY=-1");
+        try {
+            runPrefetchingDataSetTest(new JdbcDataContext(dataSource));
+        } finally {
+            dataSource.close();
+        }
+    }
+
+    private void runPrefetchingDataSetTest(final JdbcDataContext dc) throws Exception {
+        final Schema schema = dc.getDefaultSchema();
+        dc.executeUpdate(new CreateTable(schema, "test_table").withColumn("id").ofType(ColumnType.INTEGER));
+        final Table table = schema.getTableByName("test_table");
+        dc.executeUpdate(new BatchUpdateScript() {
+            @Override
+            public void run(UpdateCallback callback) {
+                for (int i = 0; i < 1000; i++) {
+                    callback.insertInto(table).value("id", i).execute();
+                }
+            }
+        });
+
+        System.setProperty(JdbcDataContext.SYSTEM_PROPERTY_PREFETCH_ROWS, "250");
+        try {
+            try (DataSet ds = dc.query().from(table).select("id").orderBy("id").execute()) {
+                assertTrue(ds instanceof PrefetchingJdbcDataSet);
+                for (int i = 0; i < 1000; i++) {
+                    assertTrue(ds.next());
+                    assertEquals(i, ((Number) ds.getRow().getValue(0)).intValue());
+                }
+                assertFalse(ds.next());
+                assertFalse(ds.next());
+            }
+
+            try (DataSet ds = dc.query().from(table).select("id").orderBy("id").execute()) {
+                assertTrue(ds.next());
+                final DataSetBatch batch = ds.nextBatch(500);
+                assertEquals(500, batch.size());
+                assertEquals(1, ((Number) batch.getRow(0).getValue(0)).intValue());
+                assertEquals(500, ((Number) batch.getRow(499).getValue(0)).intValue());
+            }
+
+            // closing a DataSet early should stop the prefetching
+            final DataSet ds = dc.query().from(table).select("id").execute();
+            assertTrue(ds.next());
+            ds.close();
+            assertFalse(ds.next());
+
+            // the pooled statement of a compiled query can be reused after closing a DataSet early
+            final Query query = dc.query().from(table).select("id").where("id").gt(new QueryParameter()).orderBy(
+                    "id").toQuery();
+            try (CompiledQuery compiledQuery = dc.compileQuery(query)) {
+                try (DataSet compiledDataSet = dc.executeQuery(compiledQuery, 10)) {
+                    assertTrue(compiledDataSet instanceof PrefetchingJdbcDataSet);
+                    assertTrue(compiledDataSet.next());
+                    assertEquals(11, ((Number) compiledDataSet.getRow().getValue(0)).intValue());
+                }
+                try (DataSet compiledDataSet = dc.executeQuery(compiledQuery, 900)) {
+                    assertEquals(99, compiledDataSet.toRows().size());
+                }
+            }
+        } finally {
+            System.clearProperty(JdbcDataContext.SYSTEM_PROPERTY_PREFETCH_ROWS);
+        }
+
+        final Number count = (Number) dc.query().from(table).selectCount().execute().toRows().get(0).getValue(0);
+        assertEquals(1000, count.intValue());
+        dc.executeUpdate(new DropTable(table));
+    }
+
+    public void testAdaptiveFetchSize() throws Exception {
+        final JdbcDataContext dc = new JdbcDataContext(conn);
+        final Schema schema = dc.getDefaultSchema();
+        dc.executeUpdate(new CreateTable(schema, "test_table").withColumn("id").ofType(ColumnType.INTEGER)
+                .withColumn("name").ofType(ColumnType.VARCHAR).ofSize(4000));
+        final Table table = schema.getTableByName("test_table");
+        final Column nameColumn = table.getColumnByName("name");
+        final Column idColumn = table.getColumnByName("id");
+        dc.executeUpdate(new BatchUpdateScript() {
+            @Override
+            public void run(UpdateCallback callback) {
+                // every other name is null, the rest are 6 characters long
+                for (int i = 0; i < 200; i++) {
+                    callback.insertInto(table).value("id", i).value("name", i % 2 == 0 ? "name" + (10 + i % 90)
+                            : null).execute();
+                }
+            }
+        });
+
+        final FetchSizeCalculator fetchSizeCalculator = dc.getFetchSizeCalculator();
+        assertEquals(8000, fetchSizeCalculator.getValueSize(nameColumn));
+
+        // without the system property, nothing is learned
+        assertEquals(200, dc.query().from(table).select("id", "name").execute().toRows().size());
+        assertNull(fetchSizeCalculator.getLearnedValueSize(nameColumn));
+
+        System.setProperty(JdbcDataContext.SYSTEM_PROPERTY_ADAPTIVE_FETCH_SIZE, "true");
+        try {
+            // too few rows to learn from
+            assertEquals(5, dc.query().from(table).select("id", "name").where("id").lt(5).execute().toRows()
+                    .size());
+            assertNull(fetchSizeCalculator.getLearnedValueSize(nameColumn));
+
+            try (DataSet ds = dc.query().from(table).select("id", "name").execute()) {
+                for (int i = 0; i < 200; i++) {
+                    assertTrue(ds.next());
+                }
+                assertFalse(ds.next());
+            }
+        } finally {
+            System.clearProperty(JdbcDataContext.SYSTEM_PROPERTY_ADAPTIVE_FETCH_SIZE);
+        }
+
+        // the null names are not counted as (tiny) values
+        assertEquals(Integer.valueOf(12), fetchSizeCalculator.getLearnedValueSize(nameColumn));
+        assertEquals(Integer.valueOf(16), fetchSizeCalculator.getLearnedValueSize(idColumn));
+        assertEquals(12, fetchSizeCalculator.getValueSize(nameColumn));
+
+        dc.executeUpdate(new DropTable(table));
+    }
+
+    public void testPrefetchingDisabledForSingleConnection() throws Exception {
+        final JdbcDataContext dc = new JdbcDataContext(conn);
+        final Schema schema = dc.getDefaultSchema();
+        dc.executeUpdate(new CreateTable(schema, "test_table").withColumn("id").ofType(ColumnType.INTEGER));
+        final Table table = schema.getTableByName("test_table");
+        dc.executeUpdate(new InsertInto(table).value("id", 1));
+
+        System.setProperty(JdbcDataContext.SYSTEM_PROPERTY_PREFETCH_ROWS, "250");
+        try {
+            try (DataSet ds = dc.query().from(table).select("id").execute()) {
+                assertTrue(ds instanceof JdbcDataSet);
+                assertEquals(1, ds.toRows().size());
+            }
+            assertEquals("query", dc.explain(dc.query().from(table).select("id").toQuery()).getOperator());
+        } finally {
+            System.clearProperty(JdbcDataContext.SYSTEM_PROPERTY_PREFETCH_ROWS);
+        }
+
+        dc.executeUpdate(new DropTable(table));
+    }
+
+    /**
+     * Inserts 2500 rows in a batch update script, alternating between two
+     * different sets of columns and with a delete in between.
+     */
+    private void runBatchInsertScenario(JdbcDataContext dc) {
+        final Schema schema = dc.getDefaultSchema();
+        dc.executeUpdate(new CreateTable(schema, "test_table").withColumn("id").ofType(ColumnType.INTEGER)
+                .withColumn("name").ofType(ColumnType.VARCHAR).ofSize(255));
+        final Table table = schema.getTableByName("test_table");
+
+        final UpdateSummary summary = dc.executeUpdate(new BatchUpdateScript() {
+            @Override
+            public void run(UpdateCallback callback) {
+                for (int i = 0; i < 2500; i++) {
+                    if (i % 10 == 0) {
+                        // rows without a name are inserted by another
+                        // statement
+                        callback.insertInto(table).value("id", i).execute();
+                    } else {
+                        callback.insertInto(table).value("id", i).value("name", "name" + i).execute();
+                    }
+                    if (i == 1999) {
+                        // deletes should see all previously inserted rows
+                        callback.deleteFrom(table).where("id").lessThan(1000).execute();
+                    }
+                }
+            }
+        });
+        assertEquals(2500, summary.getInsertedRows().get().intValue());
+
+        final DataSet ds = dc.query().from(table).selectCount().select(FunctionType.MIN, "id").select(
+                FunctionType.MAX, "id").where("name").isNotNull().execute();
+        assertTrue(ds.next());
+        assertEquals("Row[values=[1350, 1001, 2499]]", ds.getRow().toString());
+        assertFalse(ds.next());
+        ds.close();
+
+        dc.executeUpdate(new DropTable(table));
+    }
+
     public void testScenario() throws Exception {
         int rowsAffected = conn.createStatement().executeUpdate(
                 "CREATE TABLE test_table (id INTEGER AUTO_INCREMENT, name VARCHAR(255), age INTEGER)");
@@ -51,6 +51,7 @@ import org.apache.metamodel.query.OperatorType;
 import org.apache.metamodel.query.OrderByItem;
 import org.apache.metamodel.query.Query;
 import org.apache.metamodel.query.QueryParameter;
+import org.apache.metamodel.query.QueryPlan;
 import org.apache.metamodel.query.SelectItem;
 import org.apache.metamodel.schema.Column;
 import org.apache.metamodel.schema.Schema;
@@ -85,6 +86,54 @@ public class JdbcDataContextTest extends JdbcTestCase {
         dataSet.close();
     }
 
+    public void testExplain() throws Exception {
+        final Connection con = getTestDbConnection();
+        final JdbcDataContext dc = new JdbcDataContext(con);
+
+        Query query = dc.query().from("customers").select("customername").where("country").eq("Denmark").toQuery();
+        QueryPlan plan = dc.explain(query);
+        assertEquals("query", plan.getOperator());
+        assertEquals(QueryPlan.Execution.DATASTORE, plan.getExecution());
+        assertEquals(dc.getQueryRewriter().rewriteQuery(query), plan.getDescription());
+        assertTrue(plan.getChildren().isEmpty());
+
+        query = dc.query().from("customers").select("customername").limit(0).toQuery();
+        plan = dc.explain(query);
+        assertEquals("empty", plan.getOperator());
+        assertEquals(0L, plan.getEstimatedRowCount().longValue());
+
+        // queries that are rejected when executed are rejected when explained too
+        final Column column = dc.getTableByQualifiedLabel("customers").getColumnByName("customername");
+        query = new Query().from(column.getTable()).select(column).where(new FilterItem(new SelectItem(
+                FunctionType.TO_STRING, column), OperatorType.EQUALS_TO, "foo"));
+        try {
+            dc.explain(query);
+            fail("Exception expected");
+        } catch (MetaModelException e) {
+            assertEquals("Scalar functions outside of SELECT clause is not supported for JDBC databases. "
+                    + "Query rejected: " + query, e.getMessage());
+        }
+    }
+
+    public void testExplainPrefetching() throws Exception {
+        final BasicDataSource ds = new BasicDataSource();
+        ds.setDriverClassName("org.hsqldb.jdbcDriver");
+        ds.setUrl("jdbc:hsqldb:res:metamodel");
+        final JdbcDataContext dc = new JdbcDataContext(ds);
+        final Query query = dc.query().from("customers").select("customername").toQuery();
+
+        System.setProperty(JdbcDataContext.SYSTEM_PROPERTY_PREFETCH_ROWS, "500");
+        try {
+            final QueryPlan plan = dc.explain(query);
+            assertEquals("prefetch", plan.getOperator());
+            assertEquals("up to 500 rows read ahead on a background thread", plan.getDescription());
+            assertEquals("query", plan.getChildren().get(0).getOperator());
+        } finally {
+            System.clearProperty(JdbcDataContext.SYSTEM_PROPERTY_PREFETCH_ROWS);
+            ds.close();
+        }
+    }
+
     public void testUsingDataSource() throws Exception {
         Connection con = getTestDbConnection();
         DataSource ds = EasyMock.createMock(DataSource.class);
@@ -20,10 +20,13 @@ package org.apache.metamodel.jdbc;
 
 import java.sql.Connection;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
 
+import org.apache.commons.dbcp.BasicDataSource;
 import org.apache.metamodel.DataContext;
 import org.apache.metamodel.data.DataSet;
+import org.apache.metamodel.data.Row;
 import org.apache.metamodel.query.FromItem;
 import org.apache.metamodel.query.FunctionType;
 import org.apache.metamodel.query.JoinType;
@@ -200,6 +203,76 @@ public class QuerySplitterTest extends JdbcTestCase {
 		assertEquals(2806, count);
 	}
 
+	public void testParallelExecution() throws Exception {
+		final BasicDataSource ds = new BasicDataSource();
+		ds.setDriverClassName("org.hsqldb.jdbcDriver");
+		ds.setUrl("jdbc:hsqldb:res:metamodel");
+		ds.setMaxActive(4);
+		ds.setMaxWait(10000);
+		ds.setDefaultReadOnly(true);
+		try {
+			DataContext dc = new JdbcDataContext(ds);
+			Schema schema = dc.getSchemaByName("PUBLIC");
+			Table employeesTable = schema.getTableByName("EMPLOYEES");
+			Table customersTable = schema.getTableByName("CUSTOMERS");
+			Query q = new Query().from(employeesTable, "e").from(
+					customersTable, "c");
+			q.select(employeesTable.getColumns().get(0), customersTable
+					.getColumns().get(0));
+
+			QuerySplitter qs = new QuerySplitter(dc, q).setMaxRows(300);
+			List<Query> splitQueries = qs.splitQuery();
+			assertEquals(12, splitQueries.size());
+
+			List<Row> expected = qs.executeQueries(splitQueries).toRows();
+			assertEquals(2806, expected.size());
+
+			qs.setParallelism(4).setPrefetchSize(10);
+			DataSet data = qs.executeQueries(splitQueries);
+			assertEquals(ParallelSplitQueriesDataSet.class, data.getClass());
+			List<Row> rows = data.toRows();
+			assertEquals(2806, rows.size());
+			assertEquals(new HashSet<Row>(expected), new HashSet<Row>(rows));
+
+			qs.setPreserveOrder(true);
+			assertEquals(expected, qs.executeQueries(splitQueries).toRows());
+
+			// closing the data set before all rows are consumed should
+			// release the connections of the running queries
+			data = qs.executeQueries(splitQueries);
+			assertTrue(data.next());
+			assertEquals(expected.get(0), data.getRow());
+			// the first query has more rows than fit in its queue, so it is
+			// still holding on to its connection
+			assertTrue(ds.getNumActive() > 0);
+			data.close();
+			assertFalse(data.next());
+
+			// the cancelled workers close their queries asynchronously
+			final long deadline = System.currentTimeMillis() + 10000;
+			while (ds.getNumActive() > 0 && System.currentTimeMillis() < deadline) {
+				Thread.sleep(10);
+			}
+			assertEquals(0, ds.getNumActive());
+		} finally {
+			ds.close();
+		}
+	}
+
+	public void testParallelismIgnoredForSingleConnection() throws Exception {
+		Connection con = getTestDbConnection();
+		DataContext dc = new JdbcDataContext(con);
+		Table employeesTable = dc.getDefaultSchema().getTableByName(
+				"EMPLOYEES");
+		Query q = new Query().from(employeesTable).select(
+				employeesTable.getColumns().get(0));
+
+		QuerySplitter qs = new QuerySplitter(dc, q).setParallelism(4);
+		DataSet data = qs.executeQueries(Arrays.asList(q, q));
+		assertEquals(SplitQueriesDataSet.class, data.getClass());
+		assertEquals(46, data.toRows().size());
+	}
+
 	/**
 	 * Utility method for asserting that a query and it's splitted queries have
 	 * the same total count
@@ -0,0 +1,94 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.metamodel.jdbc.dialects;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.metamodel.schema.Column;
+import org.apache.metamodel.schema.ColumnType;
+import org.apache.metamodel.schema.MutableColumn;
+import org.junit.Test;
+
+public class CsvBulkLoaderTest {
+
+    private final Column[] columns = new Column[] { new MutableColumn("id").setType(ColumnType.INTEGER),
+            new MutableColumn("name").setType(ColumnType.VARCHAR),
+            new MutableColumn("active").setType(ColumnType.BOOLEAN),
+            new MutableColumn("amount").setType(ColumnType.DECIMAL) };
+
+    private final List<Object[]> rows = Arrays.asList(new Object[] { 1, "foo", true, new BigDecimal("1E+3") },
+            new Object[] { 2, "say \"hi\",\nbye", false, null }, new Object[] { 3, "", null, null });
+
+    @Test
+    public void testPostgresqlCsv() throws Exception {
+        final CsvBulkLoader bulkLoader = new PostgresqlCopyBulkLoader();
+        assertEquals("\"1\",\"foo\",\"true\",\"1000\"\n" + "\"2\",\"say \"\"hi\"\",\nbye\",\"false\",\n"
+                + "\"3\",\"\",,\n", read(bulkLoader.createInputStream(columns, rows)));
+    }
+
+    @Test
+    public void testMysqlCsv() throws Exception {
+        final CsvBulkLoader bulkLoader = new MysqlLoadDataBulkLoader();
+        assertEquals("\"1\",\"foo\",\"1\",\"1000\"\n" + "\"2\",\"say \"\"hi\"\",\nbye\",\"0\",NULL\n"
+                + "\"3\",\"\",NULL,NULL\n", read(bulkLoader.createInputStream(columns, rows)));
+    }
+
+    @Test
+    public void testReadMultiByteCharacters() throws Exception {
+        final CsvBulkLoader bulkLoader = new PostgresqlCopyBulkLoader();
+        final Column[] column = new Column[] { new MutableColumn("name").setType(ColumnType.VARCHAR) };
+        final List<Object[]> rows = Collections.nCopies(1000, new Object[] { "æøå" });
+
+        final String csv = read(bulkLoader.createInputStream(column, rows));
+        assertEquals(1000 * "\"æøå\"\n".length(), csv.length());
+    }
+
+    @Test
+    public void testIsSupported() throws Exception {
+        final CsvBulkLoader bulkLoader = new PostgresqlCopyBulkLoader();
+        assertTrue(bulkLoader.isSupported(columns));
+        assertTrue(bulkLoader.isSupported(new Column[] { new MutableColumn("foo") }));
+        assertFalse(bulkLoader.isSupported(new Column[] { new MutableColumn("foo").setType(ColumnType.BLOB) }));
+        assertFalse(bulkLoader.isSupported(new Column[] { new MutableColumn("foo").setType(ColumnType.CLOB) }));
+        assertFalse(bulkLoader.isSupported(new Column[] { new MutableColumn("foo").setType(ColumnType.MAP) }));
+    }
+
+    private static String read(InputStream inputStream) throws IOException {
+        final StringBuilder sb = new StringBuilder();
+        try (Reader reader = new InputStreamReader(inputStream, StandardCharsets.UTF_8)) {
+            final char[] buffer = new char[100];
+            for (int n = reader.read(buffer); n != -1; n = reader.read(buffer)) {
+                sb.append(buffer, 0, n);
+            }
+        }
+        return sb.toString();
+    }
+}
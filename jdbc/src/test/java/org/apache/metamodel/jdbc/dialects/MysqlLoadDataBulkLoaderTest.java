@@ -0,0 +1,115 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.metamodel.jdbc.dialects;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.metamodel.schema.Column;
+import org.apache.metamodel.schema.ColumnType;
+import org.apache.metamodel.schema.MutableColumn;
+import org.easymock.Capture;
+import org.easymock.EasyMock;
+import org.junit.Test;
+
+public class MysqlLoadDataBulkLoaderTest {
+
+    private final Column[] columns = new Column[] { new MutableColumn("id").setType(ColumnType.INTEGER),
+            new MutableColumn("name").setType(ColumnType.VARCHAR) };
+
+    private final List<String> columnNames = Arrays.asList("id", "name");
+
+    private final List<Object[]> rows = Arrays.asList(new Object[] { 1, "foo" }, new Object[] { 2, null });
+
+    @Test
+    public void testCreateLoadDataSql() throws Exception {
+        final MysqlLoadDataBulkLoader bulkLoader = new MysqlLoadDataBulkLoader();
+        assertEquals("LOAD DATA LOCAL INFILE 'metamodel.csv' INTO TABLE foo CHARACTER SET utf8mb4 "
+                + "FIELDS TERMINATED BY ',' OPTIONALLY ENCLOSED BY '\"' ESCAPED BY '' "
+                + "LINES TERMINATED BY '\\n' (a,b)", bulkLoader.createLoadDataSql("foo", Arrays.asList("a", "b")));
+        assertEquals("LOAD DATA LOCAL INFILE 'metamodel.csv' INTO TABLE `my schema`.`foo` CHARACTER SET utf8mb4 "
+                + "FIELDS TERMINATED BY ',' OPTIONALLY ENCLOSED BY '\"' ESCAPED BY '' "
+                + "LINES TERMINATED BY '\\n' (`id`)", bulkLoader.createLoadDataSql("`my schema`.`foo`", Arrays
+                        .asList("`id`")));
+    }
+
+    @Test
+    public void testLoadWithMysqlStatement() throws Exception {
+        final MysqlLoadDataBulkLoader bulkLoader = new MysqlLoadDataBulkLoader();
+        final String sql = bulkLoader.createLoadDataSql("foo", columnNames);
+
+        final Connection connectionMock = EasyMock.createMock(Connection.class);
+        final com.mysql.jdbc.Statement statementMock = EasyMock.createNiceMock(com.mysql.jdbc.Statement.class);
+        final Capture<InputStream> inputStream = new Capture<>();
+
+        // mock behaviour recording
+        EasyMock.expect(connectionMock.createStatement()).andReturn(statementMock);
+        EasyMock.expect(statementMock.isWrapperFor(com.mysql.jdbc.Statement.class)).andReturn(true);
+        EasyMock.expect(statementMock.unwrap(com.mysql.jdbc.Statement.class)).andReturn(statementMock);
+        statementMock.setLocalInfileInputStream(EasyMock.capture(inputStream));
+        EasyMock.expect(statementMock.executeUpdate(sql)).andReturn(2);
+        statementMock.close();
+
+        EasyMock.replay(connectionMock, statementMock);
+
+        assertTrue(bulkLoader.load(connectionMock, "foo", columnNames, columns, rows));
+        assertEquals("\"1\",\"foo\"\n\"2\",NULL\n", read(inputStream.getValue()));
+
+        EasyMock.verify(connectionMock, statementMock);
+    }
+
+    @Test
+    public void testLoadWithNonMysqlStatement() throws SQLException {
+        final Connection connectionMock = EasyMock.createMock(Connection.class);
+        final Statement statementMock = EasyMock.createNiceMock(Statement.class);
+
+        // mock behaviour recording; the statement is not a wrapper for the
+        // MySQL statement interfaces, so nothing may be executed on it
+        EasyMock.expect(connectionMock.createStatement()).andReturn(statementMock);
+        EasyMock.expect(statementMock.isWrapperFor(EasyMock.<Class<?>> anyObject())).andReturn(false).anyTimes();
+        statementMock.close();
+
+        EasyMock.replay(connectionMock, statementMock);
+
+        final MysqlLoadDataBulkLoader bulkLoader = new MysqlLoadDataBulkLoader();
+        assertFalse(bulkLoader.load(connectionMock, "foo", columnNames, columns, rows));
+
+        EasyMock.verify(connectionMock, statementMock);
+    }
+
+    private static String read(InputStream inputStream) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[100];
+        for (int n = inputStream.read(buffer); n != -1; n = inputStream.read(buffer)) {
+            out.write(buffer, 0, n);
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
@@ -18,17 +18,57 @@
  */
 package org.apache.metamodel.jdbc.dialects;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collections;
 
 import org.apache.metamodel.schema.Column;
 import org.apache.metamodel.schema.ColumnType;
 import org.apache.metamodel.schema.MutableColumn;
 import org.easymock.EasyMock;
 import org.junit.Test;
+import org.postgresql.PGConnection;
 
 public class PostgresqlQueryRewriterTest {
 
+    @Test
+    public void testMultiRowInsert() {
+        final PostgresqlQueryRewriter queryRewriter = new PostgresqlQueryRewriter(null);
+        assertEquals(1000, queryRewriter.getMultiRowInsertMaxRows(3));
+        assertEquals(327, queryRewriter.getMultiRowInsertMaxRows(100));
+        assertEquals("INSERT INTO public.foo (a,b) VALUES (?,?),(?,?),(?,?)",
+                queryRewriter.rewriteMultiRowInsert("public.foo", Arrays.asList("a", "b"), 3));
+    }
+
+    @Test
+    public void testBulkLoad() throws SQLException {
+        final PostgresqlQueryRewriter queryRewriter = new PostgresqlQueryRewriter(null);
+        final BulkLoader bulkLoader = queryRewriter.getBulkLoader();
+        assertTrue(bulkLoader instanceof PostgresqlCopyBulkLoader);
+        assertEquals("COPY public.foo (a,b) FROM STDIN WITH CSV", ((PostgresqlCopyBulkLoader) bulkLoader)
+                .createCopySql("public.foo", Arrays.asList("a", "b")));
+
+        final Connection connectionMock = EasyMock.createMock(Connection.class);
+
+        // mock behaviour recording
+        EasyMock.expect(connectionMock.isWrapperFor(PGConnection.class)).andReturn(false);
+
+        EasyMock.replay(connectionMock);
+
+        final Column[] columns = new Column[] { new MutableColumn("a").setType(ColumnType.INTEGER),
+                new MutableColumn("b").setType(ColumnType.VARCHAR) };
+        assertFalse(bulkLoader.load(connectionMock, "public.foo", Arrays.asList("a", "b"), columns, Collections
+                .singletonList(new Object[] { 1, "foo" })));
+
+        EasyMock.verify(connectionMock);
+    }
+
     @Test
     public void testInsertNullMap() throws SQLException {
         final PreparedStatement statementMock = EasyMock.createMock(PreparedStatement.class);
@@ -103,7 +103,7 @@ public class JsonDataContext extends QueryPostprocessDataContext implements Docu
     }
 
     private DocumentSource createDocumentSource() {
-        final InputStream inputStream = _resource.read();
+        final InputStream inputStream = trackBytesRead(_resource.getName(), _resource.read());
         try {
             final MappingJsonFactory jsonFactory = new MappingJsonFactory();
             final JsonParser parser = jsonFactory.createParser(inputStream);
@@ -22,7 +22,9 @@ import java.util.Iterator;
 import java.util.List;
 
 import org.apache.metamodel.data.AbstractDataSet;
+import org.apache.metamodel.data.ColumnVectorBuilder;
 import org.apache.metamodel.data.DataSet;
+import org.apache.metamodel.data.DataSetBatch;
 import org.apache.metamodel.data.DefaultRow;
 import org.apache.metamodel.data.Row;
 import org.apache.metamodel.query.SelectItem;
@@ -57,6 +59,42 @@ final class PojoDataSet<E> extends AbstractDataSet {
         }
     }
 
+    /**
+     * {@inheritDoc}
+     * 
+     * The values of the POJOs are read directly into the column vectors of the batch, without creating a {@link Row}
+     * per POJO.
+     */
+    @Override
+    public DataSetBatch nextBatch(int maxRows) {
+        if (maxRows <= 0) {
+            throw new IllegalArgumentException("Max rows must be positive, got: " + maxRows);
+        }
+        _next = null;
+        final int columnCount = getHeader().size();
+        final String[] columnNames = new String[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            columnNames[i] = getHeader().getSelectItem(i).getColumn().getName();
+        }
+
+        ColumnVectorBuilder[] columns = null;
+        int size = 0;
+        while (size < maxRows && _iterator.hasNext()) {
+            final E pojo = _iterator.next();
+            if (columns == null) {
+                columns = ColumnVectorBuilder.create(columnCount, maxRows);
+            }
+            for (int i = 0; i < columnCount; i++) {
+                columns[i].add(_pojoTable.getValue(columnNames[i], pojo));
+            }
+            size++;
+        }
+        if (size == 0) {
+            return null;
+        }
+        return DataSetBatch.of(getHeader(), columns, size);
+    }
+
     @Override
     public Row getRow() {
         final int size = getHeader().size();
@@ -73,6 +73,7 @@ public class XmlSaxDataContext extends QueryPostprocessDataContext {
     private final Supplier<InputSource> _inputSourceRef;
     private final Map<XmlSaxTableDef, Map<String, String>> _valueXpaths;
     private String _schemaName;
+    private String _resourceName;
     private Collection<XmlSaxTableDef> _tableDefs;
     
     /**
@@ -114,10 +115,11 @@ public class XmlSaxDataContext extends QueryPostprocessDataContext {
     
     public XmlSaxDataContext(final Resource resource, Collection<XmlSaxTableDef> tableDefs) {
         this(createInputSourceRef(resource), tableDefs);
+        _resourceName = resource.getName();
     }
 
     public XmlSaxDataContext(final File file, XmlSaxTableDef... tableDefs) {
-        this(createInputSourceRef(new FileResource(file)), tableDefs);
+        this(new FileResource(file), tableDefs);
     }
 
     private static Supplier<InputSource> createInputSourceRef(final Resource resource) {
@@ -228,6 +230,15 @@ public class XmlSaxDataContext extends QueryPostprocessDataContext {
             valueXpaths[i] = getXpath(tableDef, column);
         }
 
+        // the input is opened by the querying thread, so that the bytes read are reported for the query
+        final InputSource inputSource = _inputSourceRef.get();
+        final InputStream byteStream = inputSource.getByteStream();
+        if (byteStream != null) {
+            final String resourceName = _resourceName == null ? inputSource.getSystemId() : _resourceName;
+            inputSource.setByteStream(trackBytesRead(resourceName == null ? table.getName() : resourceName,
+                    byteStream));
+        }
+
         final Action<RowPublisher> rowPublisherAction = new Action<RowPublisher>() {
             @Override
             public void run(RowPublisher rowPublisher) throws Exception {
@@ -237,7 +248,7 @@ public class XmlSaxDataContext extends QueryPostprocessDataContext {
                 xmlReader.setContentHandler(new XmlSaxContentHandler(tableDef.getRowXpath(), rowPublisher,
                         valueXpaths));
                 try {
-                    xmlReader.parse(_inputSourceRef.get());
+                    xmlReader.parse(inputSource);
                 } catch (XmlStopParsingException e) {
                     logger.debug("Parsing stop signal thrown");
                 } catch (Exception e) {
@@ -248,7 +259,10 @@ public class XmlSaxDataContext extends QueryPostprocessDataContext {
                 }
             }
         };
-        return new RowPublisherDataSet(selectItems, maxRows, rowPublisherAction);
+        if (inputSource.getByteStream() == null) {
+            return new RowPublisherDataSet(selectItems, maxRows, rowPublisherAction);
+        }
+        return new RowPublisherDataSet(selectItems, maxRows, rowPublisherAction, inputSource.getByteStream());
     }
 
     private String getXpath(XmlSaxTableDef tableDef, Column column) {
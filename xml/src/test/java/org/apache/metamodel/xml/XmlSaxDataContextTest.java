@@ -19,11 +19,15 @@
 package org.apache.metamodel.xml;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 import junit.framework.TestCase;
 
 import org.apache.metamodel.DataContext;
+import org.apache.metamodel.QueryExecutionListener;
 import org.apache.metamodel.data.DataSet;
 import org.apache.metamodel.query.Query;
 import org.apache.metamodel.schema.Column;
@@ -93,6 +97,35 @@ public class XmlSaxDataContextTest extends TestCase {
 		ds.close();
 	}
 
+	public void testQueryExecutionListenerBytesRead() throws Exception {
+		final File file = new File(
+				"src/test/resources/xml_input_flatten_tables.xml");
+		final XmlSaxTableDef tableDef = new XmlSaxTableDef(
+				"/dependencies/dependency",
+				new String[] { "/dependencies/dependency/artifactId" });
+		final XmlSaxDataContext dc = new XmlSaxDataContext(file, tableDef);
+		final List<String> resources = new ArrayList<>();
+		final AtomicLong bytes = new AtomicLong();
+		dc.addQueryExecutionListener(new QueryExecutionListener() {
+			@Override
+			public void onBytesRead(Query query, String resourceName,
+					long bytesRead) {
+				resources.add(resourceName);
+				bytes.addAndGet(bytesRead);
+			}
+		});
+
+		final DataSet ds = dc.query().from("/dependency")
+				.select("/artifactId").execute();
+		while (ds.next()) {
+			// consume all rows
+		}
+		ds.close();
+
+		assertEquals("[xml_input_flatten_tables.xml]", resources.toString());
+		assertEquals(file.length(), bytes.get());
+	}
+
 	public void testParentTagIndex() throws Exception {
 		final XmlSaxTableDef employeeTableDef = new XmlSaxTableDef(
 				"/root/organization/employees/employee", new String[] {